@@ -0,0 +1,551 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import org.logicalcobwebs.logging.Log;
+import org.logicalcobwebs.logging.LogFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Contains most of the functionality that we require to manipilate the
+ * statement. The subclass of this defines how we delegate to the
+ * real statement.
+ * @version $Revision: 1.17 $, $Date: 2003/11/04 13:54:02 $
+ * @author bill
+ * @author $Author: billhorsman $ (current maintainer)
+ * @since Proxool 0.7
+ */
+abstract class AbstractProxyStatement {
+
+    private static final Log LOG = LogFactory.getLog(ProxyStatement.class);
+
+    private Statement statement;
+
+    private ConnectionPool connectionPool;
+
+    private ProxyConnectionIF proxyConnection;
+
+    /** Created the first time a parameter is set whilst we're tracing */
+    private TraceParameters parameters;
+
+    private String sqlStatement;
+
+    /** The parsed {@link #sqlStatement}, created the first time we trace it */
+    private SqlTemplate sqlTemplate;
+
+    /** What we've executed (or added to the batch) since we last traced. Reused each time. */
+    private StringBuilder sqlLog = new StringBuilder();
+
+    /** True if something has been added to a batch that hasn't been executed yet */
+    private boolean batchPending;
+
+    /**
+     * The first SQL added to the pending batch (or null if it's the SQL this
+     * statement was prepared with). The batch is profiled against it.
+     */
+    private String batchSql;
+
+    /** The settings that {@link #beforeChangeSetting} is told about. Each is a different bit. */
+    protected static final int SETTING_MAX_ROWS = 1;
+
+    protected static final int SETTING_FETCH_SIZE = 2;
+
+    protected static final int SETTING_FETCH_DIRECTION = 4;
+
+    protected static final int SETTING_MAX_FIELD_SIZE = 8;
+
+    protected static final int SETTING_QUERY_TIMEOUT = 16;
+
+    protected static final int SETTING_ESCAPE_PROCESSING = 32;
+
+    protected static final int SETTING_POOLABLE = 64;
+
+    protected static final int SETTING_CURSOR_NAME = 128;
+
+    protected static final int SETTING_CLOSE_ON_COMPLETION = 256;
+
+    /** What we last {@link #afterSetQueryTimeout set} the query timeout to (seconds), or zero for none */
+    private int queryTimeout;
+
+    /** How the {@link StatementWatchdog} watches our executions (created the first time it needs to) */
+    private StatementWatchdog.Watch watch;
+
+    /** True if the {@link #watch} is watching an execution that's in progress */
+    private boolean watching;
+
+    /**
+     * @param statement the real statement that we will delegate to
+     * @param connectionPool the connection pool that we are using
+     * @param proxyConnection the connection that was used to create the statement
+     * @param sqlStatement the SQL statement that was used to create this statement
+     * (optional, can be null) so that we can use if for tracing.
+     */
+    public AbstractProxyStatement(Statement statement, ConnectionPool connectionPool, ProxyConnectionIF proxyConnection, String sqlStatement) {
+        this.statement = statement;
+        this.connectionPool = connectionPool;
+        this.proxyConnection = proxyConnection;
+        this.sqlStatement = sqlStatement;
+    }
+
+    /**
+     * Check to see whether an exception is a fatal one. If it is, then throw the connection
+     * away (and it won't be made available again)
+     * @param t the exception to test
+     */
+    protected boolean testException(Throwable t) {
+        if (FatalSqlExceptionHelper.testException(connectionPool.getDefinition(), t)) {
+            // This SQL exception indicates a fatal problem with this connection. We should probably
+            // just junk it.
+            try {
+                statement.close();
+                connectionPool.throwConnection(proxyConnection, "Fatal SQL Exception has been detected");
+
+                // We should check all the existing connections as soon as possible (unless the
+                // database has failed over, in which case they'll be thrown away as they're used)
+                if (!connectionPool.failover(proxyConnection, t)) {
+                    HouseKeeperController.sweepNow(connectionPool.getDefinition().getAlias());
+                }
+
+                LOG.warn("Connection has been thrown away because fatal exception was detected", t);
+            } catch (SQLException e2) {
+                LOG.error("Problem trying to throw away suspect connection", e2);
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Deal with an exception thrown by the delegate statement. If it's a
+     * {@link #testException fatal} one then we throw it away and throw the
+     * {@link ConnectionPoolDefinitionIF#getFatalSqlExceptionWrapper wrapped} version.
+     * @param e the exception thrown by the delegate
+     * @return the exception for the caller to throw if it wasn't fatal
+     * @throws SQLException the wrapped up exception if it was fatal
+     */
+    protected SQLException handleException(SQLException e) throws SQLException {
+        if (testException(e)) {
+            // This is really a fatal one
+            FatalSqlExceptionHelper.rethrowFatalSQLException(connectionPool.getDefinition().getFatalSqlExceptionWrapper(), e);
+        }
+        return e;
+    }
+
+    /**
+     * Call this before executing anything so that the {@link StatementWatchdog}
+     * can cancel it if it takes longer than the query timeout (and so that a
+     * {@link ProxyConnectionIF#beginTransaction lazy transaction} really begins)
+     * @return when we started (from {@link System#nanoTime}), to pass to
+     * {@link #afterExecute afterExecute} or {@link #afterExecuteBatch afterExecuteBatch}
+     * @throws SQLException if the transaction couldn't begin
+     */
+    protected long beforeExecute() throws SQLException {
+        proxyConnection.beginTransaction();
+        long startTime = System.nanoTime();
+        if (queryTimeout > 0) {
+            StatementWatchdog statementWatchdog = connectionPool.getStatementWatchdog();
+            if (statementWatchdog != null) {
+                long deadline = startTime + queryTimeout * 1000000000L;
+                if (watch == null || !watch.start(deadline)) {
+                    watch = statementWatchdog.watch(this, deadline);
+                }
+                watching = true;
+            }
+        }
+        return startTime;
+    }
+
+    /**
+     * Call this after setting the query timeout so we know how long to let executions run
+     * @param seconds the new timeout (zero for none)
+     */
+    protected void afterSetQueryTimeout(int seconds) {
+        queryTimeout = seconds;
+    }
+
+    /**
+     * Call this before changing one of the statement's settings, in case it has to be
+     * put back afterwards. By default, nothing needs to be done.
+     * @param setting which one, e.g. {@link #SETTING_MAX_ROWS}
+     * @throws SQLException if we couldn't find out what it was before
+     * @see ProxyPreparedStatement#beforeChangeSetting
+     */
+    protected void beforeChangeSetting(int setting) throws SQLException {
+    }
+
+    /**
+     * Stop the {@link StatementWatchdog} watching the execution that just finished
+     */
+    private void stopWatching() {
+        if (watching) {
+            watch.finish();
+            watching = false;
+        }
+    }
+
+    /**
+     * Call this after (successfully or not) executing some SQL so that it is profiled, logged and traced
+     * @param sqlStatement the SQL passed to the execute method (or null if there wasn't any)
+     * @param startTime what {@link #beforeExecute} returned (so we can tell how long it took)
+     * @param exception what went wrong (or null if nothing did)
+     * @throws SQLException if the {@link ConnectionPool#onExecute onExecute} method threw one.
+     */
+    protected void afterExecute(String sqlStatement, long startTime, Exception exception) throws SQLException {
+        stopWatching();
+        long elapsedNanos = System.nanoTime() - startTime;
+        measure(sqlStatement, elapsedNanos, exception);
+        if (isTrace()) {
+            appendToSqlLog(sqlStatement);
+        }
+        trace(elapsedNanos, exception);
+    }
+
+    /**
+     * Call this after (successfully or not) executing a batch. The SQL has
+     * already been logged as it was {@link #afterAddBatch added}.
+     * @param startTime what {@link #beforeExecute} returned (so we can tell how long it took)
+     * @param exception what went wrong (or null if nothing did)
+     * @throws SQLException if the {@link ConnectionPool#onExecute onExecute} method threw one.
+     */
+    protected void afterExecuteBatch(long startTime, Exception exception) throws SQLException {
+        stopWatching();
+        long elapsedNanos = System.nanoTime() - startTime;
+        measure(batchSql, elapsedNanos, exception);
+        batchPending = false;
+        batchSql = null;
+        trace(elapsedNanos, exception);
+    }
+
+    /**
+     * Call this after adding a batch so that it is logged
+     * @param sqlStatement the SQL passed to the addBatch method (or null if there wasn't any)
+     */
+    protected void afterAddBatch(String sqlStatement) {
+        if (!batchPending) {
+            batchSql = sqlStatement;
+        }
+        batchPending = true;
+        if (isTrace()) {
+            appendToSqlLog(sqlStatement);
+        }
+    }
+
+    /**
+     * Call this after clearing the batch so that what was in it isn't profiled or logged
+     */
+    protected void afterClearBatch() {
+        batchPending = false;
+        batchSql = null;
+        sqlLog.setLength(0);
+    }
+
+    /**
+     * Give the execution to the {@link SqlProfiler profiler} and, if it was
+     * {@link ConnectionPoolDefinitionIF#getSlowQueryThreshold slow}, the {@link SlowQueryLog}
+     * @param sqlStatement the SQL passed to the execute method (or null if there wasn't any)
+     * @param elapsedNanos how long it took
+     * @param exception what went wrong (or null if nothing did)
+     */
+    private void measure(String sqlStatement, long elapsedNanos, Exception exception) {
+        SqlProfiler sqlProfiler = connectionPool.getSqlProfiler();
+        if (sqlProfiler != null) {
+            String profileSql = getProfileSql(sqlStatement);
+            if (profileSql != null) {
+                sqlProfiler.record(profileSql, elapsedNanos, exception != null);
+            }
+        }
+        int slowQueryThreshold = connectionPool.getDefinition().getSlowQueryThreshold();
+        if (slowQueryThreshold > 0 && elapsedNanos >= slowQueryThreshold * 1000000L) {
+            String sql;
+            if (sqlStatement != null) {
+                sql = sqlStatement;
+            } else if (this.sqlStatement != null) {
+                StringBuilder filledIn = new StringBuilder(this.sqlStatement.length() + 32);
+                SqlTemplate.getTemplate(this.sqlStatement).appendTo(filledIn, parameters);
+                sql = filledIn.toString();
+            } else {
+                sql = "";
+            }
+            connectionPool.getSlowQueryLog().record(sql, elapsedNanos, exception);
+        }
+    }
+
+    /**
+     * The SQL template that an execution is profiled against
+     * @param sqlStatement the SQL passed to the execute method (or null to use the SQL this
+     * statement was prepared with, which is a template already)
+     * @return the template, or null if we don't know the SQL
+     */
+    private String getProfileSql(String sqlStatement) {
+        if (sqlStatement != null) {
+            return SqlProfiler.getTemplate(sqlStatement);
+        } else {
+            return this.sqlStatement;
+        }
+    }
+
+    /**
+     * Gets the real Statement that we got from the delegate driver
+     * @return delegate statement
+     */
+    public Statement getDelegateStatement() {
+        return statement;
+    }
+
+    /**
+     * The connection pool we are using
+     * @return connectionPool
+     */
+    protected ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * The real, delegate statement
+     * @return statement
+     */
+    protected Statement getStatement() {
+        return statement;
+    }
+
+    /**
+     * Change the statement we delegate to (when we let go of a cached one, for instance)
+     * @param statement the new delegate
+     */
+    protected void setStatement(Statement statement) {
+        this.statement = statement;
+    }
+
+    /**
+     * The connection that was used to create the statement
+     * @return proxyConnection
+     */
+    protected ProxyConnectionIF getProxyConnection() {
+        return proxyConnection;
+    }
+
+    /**
+     * The SQL that was used to create this statement
+     * @return the SQL, or null if there wasn't any
+     */
+    protected String getSqlStatement() {
+        return sqlStatement;
+    }
+
+    /**
+     * @return true if something has been added to a batch since the last one was executed
+     */
+    protected boolean isBatchPending() {
+        return batchPending;
+    }
+
+    /**
+     * Close the statement and tell the ProxyConnection that it did so.
+     * @throws SQLException if it couldn't be closed
+     * @see ProxyConnectionIF#registerClosedStatement
+     */
+    public void close() throws SQLException {
+        statement.close();
+        proxyConnection.registerClosedStatement(statement);
+    }
+
+    /**
+     * Whether the delegate statements are the same
+     * @see Object#equals
+     */
+    public boolean equals(Object obj) {
+        return (statement.hashCode() == obj.hashCode());
+    }
+
+    /**
+     * The delegate statement's hashCode (to match {@link #equals})
+     * @see Object#hashCode
+     */
+    public int hashCode() {
+        return statement.hashCode();
+    }
+
+    /**
+     * @see Object#toString
+     */
+    public String toString() {
+        return statement.toString();
+    }
+
+    /**
+     * Add a parameter so that we can show its value when tracing
+     * @param index within the procedure
+     * @param value an object describing its value
+     */
+    protected void putParameter(int index, Object value) {
+        getParameters().put(index, value);
+    }
+
+    /**
+     * Add an integer parameter (of any size) without boxing it
+     * @see #putParameter(int, Object)
+     */
+    protected void putParameter(int index, long value) {
+        getParameters().put(index, value);
+    }
+
+    /**
+     * Add a floating point parameter without boxing it
+     * @see #putParameter(int, Object)
+     */
+    protected void putParameter(int index, double value) {
+        getParameters().put(index, value);
+    }
+
+    /**
+     * Add a boolean parameter without boxing it
+     * @see #putParameter(int, Object)
+     */
+    protected void putParameter(int index, boolean value) {
+        getParameters().put(index, value);
+    }
+
+    /**
+     * Forget the parameters we were going to trace (because they've been cleared)
+     */
+    protected void clearTracedParameters() {
+        if (parameters != null) {
+            parameters.clear();
+        }
+    }
+
+    private TraceParameters getParameters() {
+        if (parameters == null) {
+            parameters = new TraceParameters();
+        }
+        return parameters;
+    }
+
+    /**
+     * Trace the call that was just made. The log is only turned into a String
+     * if somebody is going to read it, and then only once.
+     * @param elapsedNanos how long it took
+     * @param exception if anything went wrong during execution
+     * @throws SQLException if the {@link ConnectionPool#onExecute onExecute} method threw one.
+     */
+    protected void trace(long elapsedNanos, Exception exception) throws SQLException {
+
+        if (sqlLog.length() > 0) {
+            long elapsedTime = elapsedNanos / 1000000;
+            String log = null;
+            // Log if configured to
+            if (connectionPool.getDefinition().isTrace() && connectionPool.getLog().isDebugEnabled()) {
+                log = sqlLog.toString();
+                connectionPool.getLog().debug(log + " (" + elapsedTime + " milliseconds"
+                        + (exception != null ? ", threw a " + exception.getClass().getName()  + ": " + exception.getMessage() + ")" : ")"));
+            }
+            // Send to any listener
+            if (connectionPool.isConnectionListenedTo()) {
+                if (log == null) {
+                    log = sqlLog.toString();
+                }
+                connectionPool.onExecute(log, elapsedTime, exception);
+            }
+            sqlLog.setLength(0);
+        }
+
+    }
+
+    /**
+     * Fill in the parameters within the SQL and add it to the log. If the log already
+     * has something in it (for instance, if a batch is being peformed) then it is
+     * appended to the end. The parameters are left as they are: like the real
+     * statement, they stay set until they are cleared or changed.
+     * @param sqlStatement the SQL that was passed to the execute (or addBatch) method, or
+     * null to use the SQL this statement was prepared with
+     */
+    protected void appendToSqlLog(String sqlStatement) {
+        if (sqlStatement != null) {
+            if (sqlStatement.length() > 0) {
+                SqlTemplate.getTemplate(sqlStatement).appendTo(sqlLog, null);
+                sqlLog.append("; ");
+            }
+        } else if (this.sqlStatement != null && this.sqlStatement.length() > 0) {
+            if (sqlTemplate == null) {
+                sqlTemplate = SqlTemplate.getTemplate(this.sqlStatement);
+            }
+            sqlTemplate.appendTo(sqlLog, parameters);
+            sqlLog.append("; ");
+        }
+    }
+
+    protected boolean isTrace() {
+        boolean isTrace = getConnectionPool().isConnectionListenedTo() || (getConnectionPool().getDefinition().isTrace() && getConnectionPool().getLog().isDebugEnabled());
+        return isTrace;
+    }
+}
+
+
+/*
+ Revision history:
+ $Log: AbstractProxyStatement.java,v $
+ Revision 1.17  2003/11/04 13:54:02  billhorsman
+ checkstyle
+
+ Revision 1.16  2003/10/27 12:21:59  billhorsman
+ Optimisation to avoid preparing sql log if tracing is off.
+
+ Revision 1.15  2003/10/27 11:18:42  billhorsman
+ Fix for sqlStatement being null.
+
+ Revision 1.14  2003/10/19 09:50:08  billhorsman
+ Debug exception displays class name.
+
+ Revision 1.13  2003/10/18 20:44:48  billhorsman
+ Better SQL logging (embed parameter values within SQL call) and works properly with batched statements now.
+
+ Revision 1.12  2003/09/30 18:39:07  billhorsman
+ New test-before-use, test-after-use and fatal-sql-exception-wrapper-class properties.
+
+ Revision 1.11  2003/09/05 16:26:50  billhorsman
+ testException() now returns true if a fatal exception was detected.
+
+ Revision 1.10  2003/03/10 23:43:09  billhorsman
+ reapplied checkstyle that i'd inadvertently let
+ IntelliJ change...
+
+ Revision 1.9  2003/03/10 15:26:42  billhorsman
+ refactoringn of concurrency stuff (and some import
+ optimisation)
+
+ Revision 1.8  2003/03/05 18:42:32  billhorsman
+ big refactor of prototyping and house keeping to
+ drastically reduce the number of threads when using
+ many pools
+
+ Revision 1.7  2003/03/03 11:11:56  billhorsman
+ fixed licence
+
+ Revision 1.6  2003/02/26 16:05:52  billhorsman
+ widespread changes caused by refactoring the way we
+ update and redefine pool definitions.
+
+ Revision 1.5  2003/02/19 22:38:32  billhorsman
+ fatal sql exception causes house keeper to run
+ immediately
+
+ Revision 1.4  2003/02/13 17:06:42  billhorsman
+ allow for sqlStatement in execute() method
+
+ Revision 1.3  2003/02/06 17:41:04  billhorsman
+ now uses imported logging
+
+ Revision 1.2  2003/01/28 11:47:08  billhorsman
+ new isTrace() and made close() public
+
+ Revision 1.1  2003/01/27 18:26:35  billhorsman
+ refactoring of ProxyConnection and ProxyStatement to
+ make it easier to write JDK 1.2 patch
+
+ */
\ No newline at end of file
@@ -0,0 +1,216 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A request for a connection that waits without tying up a thread. If there's
+ * nothing available it joins the {@link ConnectionWaitQueue queue} like any other
+ * waiter. But instead of parking a thread, every time something happens that might
+ * help - a connection is {@link ConnectionWaitQueue#handOff handed} to it, a connection
+ * becomes available, or the deadline passes - it schedules another attempt on the
+ * pool's {@link ConnectionPool#getAsyncExecutor executor}. So the future is completed
+ * there, and never on the thread that happened to return a connection.
+ *
+ * @see ConnectionPool#getConnectionAsync
+ */
+class AsyncConnectionRequest extends ConnectionWaitQueue.Waiter implements Runnable {
+
+    private ConnectionPool connectionPool;
+
+    private ConnectionWaitQueue connectionWaitQueue;
+
+    private CompletableFuture<Connection> future;
+
+    /** When to give up (milliseconds since midnight, January 1, 1970 UTC) */
+    private long deadline;
+
+    private String requester = Thread.currentThread().getName();
+
+    /** The {@link ProxoolFacade#setPriorityClass priority class} of the thread that asked */
+    private String priorityClass;
+
+    /** How many connections must still be free after we take one */
+    private int reserve;
+
+    /**
+     * How many times we have been asked to {@link #schedule run} since we last
+     * finished running. Only the first asks the executor, so we never run twice
+     * at once and the fields below don't need guarding.
+     */
+    private AtomicInteger pending = new AtomicInteger();
+
+    private volatile boolean timedOut;
+
+    private boolean joined;
+
+    private long waitStarted;
+
+    private ScheduledFuture timeoutTask;
+
+    /**
+     * @param connectionPool the pool we want a connection from
+     * @param connectionWaitQueue the pool's queue
+     * @param future what to complete when we're done
+     * @param deadline when to give up (milliseconds since midnight, January 1, 1970 UTC)
+     * @param priorityClass the priority class of the thread that asked (may be null)
+     * @param reserve how many connections must still be free after we take one
+     * (see {@link ConnectionPool#getPriorityReserve})
+     */
+    protected AsyncConnectionRequest(ConnectionPool connectionPool, ConnectionWaitQueue connectionWaitQueue,
+                                     CompletableFuture<Connection> future, long deadline,
+                                     String priorityClass, int reserve) {
+        super(reserve);
+        this.priorityClass = priorityClass;
+        this.reserve = reserve;
+        this.connectionPool = connectionPool;
+        this.connectionWaitQueue = connectionWaitQueue;
+        this.future = future;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Make the first attempt (on the executor)
+     */
+    protected void start() {
+        schedule();
+    }
+
+    /**
+     * Something has changed so make another attempt. Doesn't park anything.
+     */
+    protected void wakeUp() {
+        schedule();
+    }
+
+    private void schedule() {
+        if (pending.getAndIncrement() == 0) {
+            try {
+                connectionPool.getAsyncExecutor().execute(this);
+            } catch (RejectedExecutionException e) {
+                // The pool has been shutdown. Do it here instead.
+                run();
+            }
+        }
+    }
+
+    public void run() {
+        do {
+            try {
+                attempt();
+            } catch (SQLException e) {
+                fail(e);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        } while (pending.decrementAndGet() > 0);
+    }
+
+    private void attempt() throws SQLException {
+        if (future.isDone()) {
+            // The caller has given up on us
+            fail(null);
+            return;
+        }
+
+        ProxyConnectionIF proxyConnection = null;
+        if (isServed()) {
+            proxyConnection = leaveQueue();
+        } else if (!connectionPool.isConnectionPoolUp()) {
+            fail(connectionPool.createShutdownException());
+            return;
+        } else {
+            proxyConnection = connectionPool.claimOrBuildConnection(reserve);
+            if (proxyConnection == null && !joined && deadline > System.currentTimeMillis()) {
+                joined = true;
+                waitStarted = System.currentTimeMillis();
+                connectionWaitQueue.join(this);
+                // Check again now that we are in the queue. Anything that happens
+                // from now on will wake us up.
+                proxyConnection = connectionPool.claimOrBuildConnection(reserve);
+            }
+        }
+
+        if (proxyConnection == null && (timedOut || deadline <= System.currentTimeMillis())) {
+            // One last chance: it might have been handed to us just now
+            proxyConnection = leaveQueue();
+            if (proxyConnection == null) {
+                connectionPool.connectionRefused(priorityClass);
+                fail(new SQLException(ConnectionPool.MSG_MAX_CONNECTION_COUNT));
+                return;
+            }
+        }
+
+        if (proxyConnection != null) {
+            complete(proxyConnection);
+        } else if (timeoutTask == null) {
+            timeoutTask = connectionPool.getAsyncTimer().schedule(new Runnable() {
+                public void run() {
+                    timedOut = true;
+                    schedule();
+                }
+            }, deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Leave the queue if we are in it
+     * @return a connection that was handed to us, or null
+     */
+    private ProxyConnectionIF leaveQueue() {
+        ProxyConnectionIF handedOver = null;
+        if (joined) {
+            joined = false;
+            handedOver = connectionWaitQueue.leave(this);
+            if (handedOver != null) {
+                handedOver.setTimeLastStartActive(System.currentTimeMillis());
+            }
+            connectionPool.connectionWaited(System.currentTimeMillis() - waitStarted, priorityClass);
+        }
+        if (timeoutTask != null) {
+            timeoutTask.cancel(false);
+        }
+        return handedOver;
+    }
+
+    private void complete(ProxyConnectionIF proxyConnection) throws SQLException {
+        ProxyConnectionIF handedOver = leaveQueue();
+        if (handedOver != null && handedOver != proxyConnection) {
+            // We've ended up with two. Give one back.
+            connectionPool.releaseUnservedConnection(handedOver);
+        }
+        if (future.isDone()) {
+            connectionPool.releaseUnservedConnection(proxyConnection);
+            return;
+        }
+        Connection connection = connectionPool.connectionServed(proxyConnection, requester);
+        if (!future.complete(connection)) {
+            // Cancelled whilst we were busy
+            connection.close();
+        }
+    }
+
+    /**
+     * @param t the reason, or null if the caller has given up anyway
+     */
+    private void fail(Throwable t) {
+        ProxyConnectionIF handedOver = leaveQueue();
+        if (handedOver != null) {
+            connectionPool.releaseUnservedConnection(handedOver);
+        }
+        if (t != null) {
+            future.completeExceptionally(t);
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import org.logicalcobwebs.logging.Log;
+import org.logicalcobwebs.logging.LogFactory;
+import org.logicalcobwebs.proxool.util.AbstractListenerContainer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A {@link ConnectionListenerIF} that keeps a list of <code>ConnectionListenerIF</code>s
+ * and notifies them in a thread safe manner.
+ * It also implements {@link org.logicalcobwebs.proxool.util.ListenerContainerIF ListenerContainerIF}
+ * which provides methods for
+ * {@link org.logicalcobwebs.proxool.util.ListenerContainerIF#addListener(Object) adding} and
+ * {@link org.logicalcobwebs.proxool.util.ListenerContainerIF#removeListener(Object) removing} listeners.
+ * @version $Revision: 1.4 $, $Date: 2003/03/10 15:26:43 $
+ * @author Christian Nedregaard (christian_nedregaard@email.com)
+ * @author $Author: billhorsman $ (current maintainer)
+ * @since Proxool 0.7
+ */
+public class CompositeConnectionListener extends AbstractListenerContainer implements ConnectionListenerIF {
+    static final Log LOG = LogFactory.getLog(CompositeConnectionListener.class);
+
+    /**
+     * @see ConnectionListenerIF#onBirth(Connection)
+     */
+    public void onBirth(Connection connection) throws SQLException {
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ConnectionListenerIF) listeners[i]).onBirth(connection);
+        }
+    }
+
+    /**
+     * @see ConnectionListenerIF#onDeath(Connection)
+     */
+    public void onDeath(Connection connection) throws SQLException {
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ConnectionListenerIF) listeners[i]).onDeath(connection);
+        }
+    }
+
+    /**
+     * @see ConnectionListenerIF#onExecute(String, long)
+     */
+    public void onExecute(String command, long elapsedTime) {
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ConnectionListenerIF) listeners[i]).onExecute(command, elapsedTime);
+        }
+    }
+
+    /**
+     * @see ConnectionListenerIF#onFail(String, Exception)
+     */
+    public void onFail(String command, Exception exception) {
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ConnectionListenerIF) listeners[i]).onFail(command, exception);
+        }
+    }
+}
+
+/*
+ Revision history:
+ $Log: CompositeConnectionListener.java,v $
+ Revision 1.4  2003/03/10 15:26:43  billhorsman
+ refactoringn of concurrency stuff (and some import
+ optimisation)
+
+ Revision 1.3  2003/03/03 11:11:56  billhorsman
+ fixed licence
+
+ Revision 1.2  2003/02/07 17:20:16  billhorsman
+ checkstyle
+
+ Revision 1.1  2003/02/07 01:47:17  chr32
+ Initial revition.
+
+*/
\ No newline at end of file
@@ -0,0 +1,28 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Some work to do with a connection from the pool, passed to
+ * {@link ProxoolFacade#executeAsync ProxoolFacade.executeAsync}. It runs on one
+ * of the pool's own threads and the connection is closed (returned to the pool)
+ * for you afterwards.
+ */
+public interface ConnectionCallbackIF<T> {
+
+    /**
+     * Do the work. Don't keep hold of the connection afterwards.
+     * @param connection the connection to use
+     * @return the result (used to complete the future)
+     * @throws SQLException if anything went wrong (and the future is completed
+     * exceptionally with it)
+     */
+    T doWithConnection(Connection connection) throws SQLException;
+
+}
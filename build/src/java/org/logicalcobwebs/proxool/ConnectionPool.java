@@ -0,0 +1,2388 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import org.logicalcobwebs.logging.Log;
+import org.logicalcobwebs.logging.LogFactory;
+import org.logicalcobwebs.proxool.admin.Admin;
+import org.logicalcobwebs.proxool.util.FastArrayList;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This is where most things happen. (In fact, probably too many things happen in this one
+ * class).
+ * @version $Revision: 1.73 $, $Date: 2003/12/09 18:54:55 $
+ * @author billhorsman
+ * @author $Author: billhorsman $ (current maintainer)
+ */
+class ConnectionPool implements ConnectionPoolStatisticsIF {
+
+    /**
+     * Use this for messages that aren't useful for the pool specific log
+     */
+    private static final Log LOG = LogFactory.getLog(ConnectionPool.class);
+
+    /**
+     * Here we deviate from the standard of using the classname for the log
+     * name. Here we want to use the alias for the pool so that we can log
+     * each pool to different places. So we have to instantiate the log later.
+     */
+    private Log log;
+
+    /**
+     * Guards adding connections to, and removing them from, the pool. Changing
+     * the status of a connection doesn't need it.
+     */
+    private ReentrantReadWriteLock connectionStatusReadWriteLock = new ReentrantReadWriteLock();
+
+    /**
+     * If you want to shutdown the pool you should get a write lock on this. And if you use the pool then
+     * get a read lock. This stops us trying to shutdown the pool whilst it is in use. Only, we don't want
+     * to delay shutdown just because some greedy user has got a connection active. Shutdown should be
+     * relatively immediate. So we don't ask for a read lock for the whole time that a connection is active.
+     * (New readers queue behind a waiting writer, so shutdown isn't starved.)
+     */
+    private ReentrantReadWriteLock primaryReadWriteLock = new ReentrantReadWriteLock();
+
+    private static final String[] STATUS_DESCRIPTIONS = {"NULL", "AVAILABLE", "ACTIVE", "OFFLINE"};
+
+    /**
+     * How often (milliseconds) we look at the pool again whilst we wait for a
+     * connection to be {@link #waitForNewConnection built}, in case we missed a wake-up
+     */
+    private static final long NEW_CONNECTION_RECHECK_INTERVAL = 1000;
+
+    protected static final String MSG_STALE = "it was made before the database failed over";
+
+    protected static final String MSG_MAX_CONNECTION_COUNT =
+            "Couldn't get connection because we are at maximum connection count and there are none available";
+
+    /** This is the pool itself */
+    private List proxyConnections;
+
+    private long connectionsServedCount = 0;
+
+    private long connectionsRefusedCount = 0;
+
+    private LongAdder connectionsWaitedCount = new LongAdder();
+
+    /**
+     * The {@link ProxoolFacade#setPriorityClass priority class} of the current thread
+     * (or null if it hasn't got one)
+     */
+    private static final ThreadLocal PRIORITY_CLASS = new ThreadLocal();
+
+    /**
+     * {@link PriorityClassCounters Counts} for each priority class that has had to
+     * wait or been refused, keyed by name
+     */
+    private ConcurrentHashMap priorityClassCounters = new ConcurrentHashMap();
+
+    /**
+     * Threads waiting for a connection to be returned.
+     * @see ConnectionPoolDefinitionIF#getMaximumWaitTime
+     */
+    private ConnectionWaitQueue connectionWaitQueue = new ConnectionWaitQueue(this);
+
+    /** Where we look for available connections */
+    private ConnectionBag connectionBag = new ConnectionBag(connectionWaitQueue);
+
+    /**
+     * The {@link ConnectionPoolDefinitionIF#getConnectionSelectionStrategy strategy}
+     * the {@link #connectionBag bag} is using right now
+     */
+    private volatile String connectionSelectionStrategy;
+
+    /**
+     * This keeps a count of how many connections there are in each state. They're
+     * striped so that threads changing the status of different connections don't
+     * contend with each other.
+     */
+    private LongAdder[] connectionCountByState = {new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()};
+
+    /** @see #getStatementCacheHitCount */
+    private LongAdder statementCacheHitCount = new LongAdder();
+
+    /** @see #getStatementCacheMissCount */
+    private LongAdder statementCacheMissCount = new LongAdder();
+
+    /** @see #getStatementCacheEvictionCount */
+    private LongAdder statementCacheEvictionCount = new LongAdder();
+
+    /** @see #getListenerEventsDroppedCount */
+    private LongAdder listenerEventsDroppedCount = new LongAdder();
+
+    private ConnectionPoolDefinition definition;
+
+    private CompositeConnectionListener compositeConnectionListener = new CompositeConnectionListener();
+
+    private CompositeStateListener compositeStateListener = new CompositeStateListener();
+
+    private long timeOfLastRefusal = 0;
+
+    private int upState;
+
+    private static boolean loggedLegend;
+
+    private Admin admin;
+
+    private boolean locked = false;
+
+    private Date dateStarted = new Date();
+
+    private volatile boolean connectionPoolUp = false;
+
+    /**
+     * {@link #shutdown} waits on {@link #noActiveConnections} for all connections
+     * to become non-active. We use a lock rather than a monitor so that a virtual
+     * thread returning a connection never gets pinned to its carrier.
+     */
+    private final ReentrantLock shutdownLock = new ReentrantLock();
+
+    private final Condition noActiveConnections = shutdownLock.newCondition();
+
+    private Prototyper prototyper;
+
+    /**
+     * Initialised in {@link ConnectionPool#ConnectionPool constructor}.
+     */
+    private ConnectionResetter connectionResetter;
+
+    /**
+     * Runs {@link AsyncConnectionRequest asynchronous requests} and the callbacks
+     * passed to {@link ProxoolFacade#executeAsync}. Created when first needed.
+     * @see #getAsyncExecutor
+     */
+    private volatile ThreadPoolExecutor asyncExecutor;
+
+    /**
+     * Runs {@link OnDemandBuild on demand builds}. It's kept apart from the
+     * {@link #asyncExecutor} so that slow callbacks can't hold up the connections
+     * that other requests are waiting for. Created when first needed.
+     * @see #getBuildExecutor
+     */
+    private volatile ThreadPoolExecutor buildExecutor;
+
+    /**
+     * Tells {@link AsyncConnectionRequest asynchronous requests} when they have
+     * waited long enough. Created when first needed.
+     * @see #getAsyncTimer
+     */
+    private ScheduledThreadPoolExecutor asyncTimer;
+
+    /**
+     * Passes execute events to the connection listeners in the background, if
+     * {@link ConnectionPoolDefinitionIF#getAsyncListenerBufferSize configured} to.
+     * @see #getConnectionEventBuffer
+     */
+    private volatile ConnectionEventBuffer connectionEventBuffer;
+
+    /**
+     * Created the first time it's needed. It's kept (with everything it has counted)
+     * even if profiling is turned off.
+     * @see #getSqlProfiler
+     */
+    private volatile SqlProfiler sqlProfiler;
+
+    /** @see #getSlowQueryLog */
+    private volatile SlowQueryLog slowQueryLog;
+
+    /** @see #getStatementWatchdog */
+    private volatile StatementWatchdog statementWatchdog;
+
+    /** @see #getEpoch */
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * Guards {@link #asyncExecutor}, {@link #buildExecutor}, {@link #asyncTimer} and changes to the
+     * {@link #updateConnectionSelectionStrategy selection strategy}. These are on the
+     * checkout path so we use a lock rather than a monitor and don't pin virtual threads.
+     */
+    private final ReentrantLock configurationLock = new ReentrantLock();
+
+    protected ConnectionPool(ConnectionPoolDefinition definition) throws ProxoolException {
+
+        // Use the FastArrayList for performance and thread safe
+        // behaviour. We set its behaviour to "fast"  (meaning reads are
+        // unsynchronized, whilst writes are not).
+        FastArrayList fal = new FastArrayList();
+        fal.setFast(true);
+        proxyConnections = fal;
+
+        log = LogFactory.getLog("org.logicalcobwebs.proxool." + definition.getAlias());
+        connectionResetter = new ConnectionResetter(log, definition.getDriver());
+        setDefinition(definition);
+        updateConnectionSelectionStrategy();
+
+        if (definition.getStatistics() != null) {
+            try {
+                admin = new Admin(definition);
+            } catch (ProxoolException e) {
+                log.error("Failed to initialise statistics", e);
+            }
+        }
+
+        ShutdownHook.init();
+    }
+
+    /** Starts up house keeping and prototyper threads. */
+    protected void start() throws ProxoolException {
+        prototyper = new Prototyper(this);
+        // The pool is visible as soon as it's registered, so only say it's up once it's ready to use
+        connectionPoolUp = true;
+        HouseKeeperController.register(this);
+    }
+
+    /**
+     * Get a connection from the pool.  If none are available or there was an Exception
+     * then an exception is thrown and something written to the log. If we are at the
+     * maximum connection count then we might {@link #waitForConnection wait} for one
+     * to be returned first.
+     */
+    protected Connection getConnection() throws SQLException {
+
+        String requester = Thread.currentThread().getName();
+        final String priorityClass = getPriorityClass();
+        final int reserve = getPriorityReserve(priorityClass);
+
+        ProxyConnectionIF proxyConnection = null;
+
+        /*
+         *If we're busy, we need to return as quickly as possible. Because this is unsynchronized
+         * we run the risk of refusing a connection when we might actually be able to. But that will
+         * only happen when we're right at or near maximum connections anyway.
+         */
+
+        final long waitDeadline = System.currentTimeMillis() + getDefinition().getMaximumWaitTime();
+        if ((isFull() && getAvailableConnectionCount() < 1) || isReserved(reserve)) {
+            if (getDefinition().getMaximumWaitTime() > 0) {
+                proxyConnection = waitForConnection(waitDeadline, reserve, priorityClass);
+            }
+            if (proxyConnection == null && (isFull() || isReserved(reserve))) {
+                connectionRefused(priorityClass);
+                log.info(displayStatistics() + " - " + MSG_MAX_CONNECTION_COUNT);
+                throw new SQLException(MSG_MAX_CONNECTION_COUNT);
+            }
+        }
+
+        if (proxyConnection == null) {
+            try {
+                PrototyperController.checkSimultaneousBuildThrottle(getDefinition().getAlias());
+            } catch (ProxoolException e) {
+                log.error("Unexpected problem", e);
+                throw new SQLException(e.getMessage());
+            }
+        }
+
+        try {
+
+            if (proxyConnection == null) {
+                proxyConnection = checkReserve(claimAvailableConnection(), reserve);
+            }
+            while (proxyConnection == null) {
+                if (!isConnectionPoolUp()) {
+                    throw createShutdownException();
+                }
+                if (!isFull() && !isReserved(reserve)) {
+                    // No!  Let's get one built - but we'll take one that's returned if that's quicker
+                    proxyConnection = waitForNewConnection(reserve,
+                            getDefinition().getMaximumWaitTime() > 0 ? waitDeadline : Long.MAX_VALUE);
+                } else if (getDefinition().getMaximumWaitTime() > 0 && isConnectionPoolUp()
+                        && System.currentTimeMillis() < waitDeadline) {
+                    // We're full (as far as we're concerned). Somebody might give one back if we wait
+                    proxyConnection = waitForConnection(waitDeadline, reserve, priorityClass);
+                } else {
+                    log.info(displayStatistics() + " - " + MSG_MAX_CONNECTION_COUNT);
+                    throw new SQLException(MSG_MAX_CONNECTION_COUNT);
+                }
+            }
+
+        } catch (SQLException e) {
+            throw e;
+        } catch (Throwable t) {
+            log.error("Problem getting connection", t);
+            throw new SQLException(t.toString());
+        } finally {
+            if (proxyConnection == null) {
+                connectionRefused(priorityClass);
+            }
+        }
+
+        if (proxyConnection == null) {
+            throw new SQLException("Unknown reason for not getting connection. Sorry.");
+        }
+
+        return connectionServed(proxyConnection, requester);
+    }
+
+    /**
+     * Get a connection without waiting: claim one that is available or, if there
+     * aren't any and we have room, build one. Used for {@link AsyncConnectionRequest
+     * asynchronous} requests, which do their waiting without a thread.
+     * @param reserve how many connections must still be free after we take one
+     * (see {@link #getPriorityReserve})
+     * @return the connection (now {@link ConnectionInfoIF#STATUS_ACTIVE active}), or
+     * null if there is nothing available and we can't build another one right now
+     * @throws SQLException if we tried to build a connection and failed
+     */
+    protected ProxyConnectionIF claimOrBuildConnection(int reserve) throws SQLException {
+        ProxyConnectionIF proxyConnection = checkReserve(claimAvailableConnection(), reserve);
+        if (proxyConnection == null && !isFull() && !isReserved(reserve)) {
+            try {
+                prototyper.checkSimultaneousBuildThrottle();
+            } catch (SQLException e) {
+                // Plenty of connections are on their way. We'll hear about them.
+                return null;
+            }
+            try {
+                proxyConnection = buildConnectionOnDemand();
+            } catch (ProxoolException e) {
+                if (isFull()) {
+                    // Somebody else took the last place
+                    return null;
+                }
+                log.debug("Couldn't get connection", e);
+                throw new SQLException(e.toString());
+            }
+        }
+        return checkReserve(proxyConnection, reserve);
+    }
+
+    /**
+     * Build a new connection for a caller that needs one right now
+     * @return the new connection (already {@link ConnectionInfoIF#STATUS_ACTIVE active})
+     * @throws SQLException if we couldn't build it or it failed its test
+     * @throws ProxoolException if we have already built as many as we are allowed
+     */
+    private ProxyConnectionIF buildConnectionOnDemand() throws SQLException, ProxoolException {
+        ProxyConnectionIF proxyConnection = PrototyperController.buildConnection(
+                getDefinition().getAlias(), ProxyConnection.STATUS_ACTIVE, "on demand");
+        // Okay. So we have it. But is it working ok?
+        if (getDefinition().isTestBeforeUse()) {
+            if (!testConnection(proxyConnection)) {
+                // Oops. No it's not. There's not much more we can do for now
+                throw new SQLException("Created a new connection but it failed its test");
+            }
+        }
+        return proxyConnection;
+    }
+
+    /**
+     * Keep count of a connection we are giving out and wrap it up for the caller
+     * @param proxyConnection the connection (already {@link ConnectionInfoIF#STATUS_ACTIVE active})
+     * @param requester the name of the thread that asked for it
+     * @return the connection the caller should use
+     * @throws SQLException if the driver wouldn't {@link ConnectionResetter#beginRequest begin a request}
+     * (in which case the connection has been thrown away)
+     */
+    protected Connection connectionServed(ProxyConnectionIF proxyConnection, String requester) throws SQLException {
+        try {
+            connectionResetter.beginRequest(proxyConnection.getConnection());
+        } catch (SQLException e) {
+            removeProxyConnection(proxyConnection, "it couldn't begin a request: " + e, true, true);
+            throw e;
+        }
+
+        connectionsServedCount++;
+        proxyConnection.setRequester(requester);
+
+        if (log.isDebugEnabled() && getDefinition().isVerbose()) {
+            log.debug(displayStatistics() + " - Connection #" + proxyConnection.getId() + " served");
+        }
+
+        return ProxyFactory.getConnection(proxyConnection);
+    }
+
+    /**
+     * Keep count of a caller that had to {@link ConnectionWaitQueue wait}
+     * @param waitTime how long it waited (milliseconds)
+     * @param priorityClass the caller's {@link #getPriorityClass priority class}
+     */
+    protected void connectionWaited(long waitTime, String priorityClass) {
+        connectionsWaitedCount.increment();
+        getPriorityClassCounters(priorityClass).waited.increment();
+        if (admin != null) {
+            admin.connectionWaited(waitTime);
+        }
+    }
+
+    /**
+     * Keep count of a request we couldn't serve and let everyone know we're overloaded
+     * @param priorityClass the caller's {@link #getPriorityClass priority class}
+     */
+    protected void connectionRefused(String priorityClass) {
+        connectionsRefusedCount++;
+        getPriorityClassCounters(priorityClass).refused.increment();
+        if (admin != null) {
+            admin.connectionRefused();
+        }
+        timeOfLastRefusal = System.currentTimeMillis();
+        setUpState(StateListenerIF.STATE_OVERLOADED);
+    }
+
+    /**
+     * Keep count of how well the {@link StatementCache statement caches} are doing
+     * @param hit true if a cached statement was used, false if we had to prepare a new one
+     */
+    protected void statementCacheLookup(boolean hit) {
+        if (hit) {
+            statementCacheHitCount.increment();
+        } else {
+            statementCacheMissCount.increment();
+        }
+    }
+
+    /**
+     * Keep count of an event that the {@link ConnectionEventBuffer} had no room for
+     */
+    protected void listenerEventDropped() {
+        listenerEventsDroppedCount.increment();
+    }
+
+    /**
+     * Keep count of a cached statement that was closed to make room for another
+     */
+    protected void statementCacheEviction() {
+        statementCacheEvictionCount.increment();
+    }
+
+    /**
+     * Give back a connection that was claimed for a caller that no longer wants it
+     * (because it gave up waiting, for instance). It hasn't been served so it doesn't
+     * count as returned.
+     * @param proxyConnection the {@link ConnectionInfoIF#STATUS_ACTIVE active} connection
+     */
+    protected void releaseUnservedConnection(ProxyConnectionIF proxyConnection) {
+        connectionBag.release(proxyConnection);
+    }
+
+    /**
+     * Get a connection without blocking the calling thread. If none are available
+     * and we can't build one then the request joins the {@link ConnectionWaitQueue queue}
+     * just like a thread would, but without tying up a thread whilst it waits.
+     * @param timeout how long to wait for a connection (milliseconds). If it is zero we
+     * only get a connection if we can do so without waiting.
+     * @return a future that is completed with the connection, or completed exceptionally
+     * with an {@link SQLException} if we couldn't get one in time. It is always completed on
+     * one of the {@link #getAsyncExecutor executor's} threads.
+     * @see AsyncConnectionRequest
+     */
+    protected CompletableFuture<Connection> getConnectionAsync(long timeout) {
+        CompletableFuture<Connection> future = new CompletableFuture<Connection>();
+        if (isConnectionPoolUp()) {
+            String priorityClass = getPriorityClass();
+            new AsyncConnectionRequest(this, connectionWaitQueue, future, System.currentTimeMillis() + timeout,
+                    priorityClass, getPriorityReserve(priorityClass)).start();
+        } else {
+            future.completeExceptionally(createShutdownException());
+        }
+        return future;
+    }
+
+    /**
+     * @return what to throw at anybody that asks for a connection once we've been {@link #shutdown shutdown}
+     */
+    protected SQLException createShutdownException() {
+        return new SQLException("The '" + getDefinition().getAlias() + "' pool has been shutdown");
+    }
+
+    /**
+     * The threads that do asynchronous work for this pool. It has as many threads as the
+     * pool has {@link ConnectionPoolDefinitionIF#getMaximumConnectionCount connections}
+     * (there's no point having more: anything extra would just be waiting for a connection)
+     * and they die off when they aren't being used.
+     * @return the executor
+     */
+    protected ThreadPoolExecutor getAsyncExecutor() {
+        ThreadPoolExecutor asyncExecutor = this.asyncExecutor;
+        if (asyncExecutor != null && asyncExecutor.getMaximumPoolSize() == getDefinition().getMaximumConnectionCount()) {
+            return asyncExecutor;
+        }
+        configurationLock.lock();
+        try {
+            asyncExecutor = fitExecutor(this.asyncExecutor, "Async");
+            this.asyncExecutor = asyncExecutor;
+            return asyncExecutor;
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * The threads that {@link OnDemandBuild build connections on demand}. Like the
+     * {@link #getAsyncExecutor async executor}, there are as many as the pool has connections
+     * and they die off when they aren't being used.
+     * @return the executor
+     */
+    protected ThreadPoolExecutor getBuildExecutor() {
+        ThreadPoolExecutor buildExecutor = this.buildExecutor;
+        if (buildExecutor != null && buildExecutor.getMaximumPoolSize() == getDefinition().getMaximumConnectionCount()) {
+            return buildExecutor;
+        }
+        configurationLock.lock();
+        try {
+            buildExecutor = fitExecutor(this.buildExecutor, "Build");
+            this.buildExecutor = buildExecutor;
+            return buildExecutor;
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * Make an executor with a thread for each of the pool's connections, or change the size
+     * of an existing one if the definition has changed. Only call this whilst holding the
+     * {@link #configurationLock}.
+     * @param executor the existing executor (or null if there isn't one yet)
+     * @param name what to call its threads
+     * @return the executor, the right size
+     */
+    private ThreadPoolExecutor fitExecutor(ThreadPoolExecutor executor, String name) {
+        final int size = getDefinition().getMaximumConnectionCount();
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue(), createAsyncThreadFactory(name));
+            executor.allowCoreThreadTimeOut(true);
+        } else if (executor.getMaximumPoolSize() != size) {
+            // The definition has changed. The core size must never exceed the maximum.
+            if (size > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(size);
+                executor.setCorePoolSize(size);
+            } else {
+                executor.setCorePoolSize(size);
+                executor.setMaximumPoolSize(size);
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * @return the timer that {@link AsyncConnectionRequest asynchronous requests} use
+     * to know when to give up
+     */
+    protected ScheduledThreadPoolExecutor getAsyncTimer() {
+        configurationLock.lock();
+        try {
+            if (asyncTimer == null) {
+                asyncTimer = new ScheduledThreadPoolExecutor(1, createAsyncThreadFactory("AsyncTimer"));
+                asyncTimer.setRemoveOnCancelPolicy(true);
+            }
+            return asyncTimer;
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * The buffer that passes execute events to the connection listeners in the
+     * background. It is replaced whenever its definition changes.
+     * @return the buffer, or null if listeners should be called straight away
+     * @see ConnectionPoolDefinitionIF#getAsyncListenerBufferSize
+     */
+    protected ConnectionEventBuffer getConnectionEventBuffer() {
+        final int size = getDefinition().getAsyncListenerBufferSize();
+        final boolean block = ProxoolConstants.ASYNC_LISTENER_OVERFLOW_BLOCK.equals(getDefinition().getAsyncListenerOverflow());
+        ConnectionEventBuffer connectionEventBuffer = this.connectionEventBuffer;
+        if (connectionEventBuffer != null ? connectionEventBuffer.isConfiguredAs(size, block) : size <= 0) {
+            return connectionEventBuffer;
+        }
+        configurationLock.lock();
+        try {
+            connectionEventBuffer = this.connectionEventBuffer;
+            if (connectionEventBuffer != null ? !connectionEventBuffer.isConfiguredAs(size, block) : size > 0) {
+                ConnectionEventBuffer oldBuffer = connectionEventBuffer;
+                if (size > 0 && connectionPoolUp) {
+                    connectionEventBuffer = new ConnectionEventBuffer(compositeConnectionListener, size, block, this);
+                    connectionEventBuffer.start(createAsyncThreadFactory("Listener"));
+                } else {
+                    connectionEventBuffer = null;
+                }
+                this.connectionEventBuffer = connectionEventBuffer;
+                if (oldBuffer != null) {
+                    // It still passes on what it's already got
+                    oldBuffer.shutdown();
+                }
+            }
+            return connectionEventBuffer;
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * The profiler that times each execution
+     * @return the profiler, or null if we aren't {@link ConnectionPoolDefinitionIF#getSqlProfileSize profiling}
+     */
+    protected SqlProfiler getSqlProfiler() {
+        if (getDefinition().getSqlProfileSize() <= 0) {
+            return null;
+        }
+        SqlProfiler sqlProfiler = this.sqlProfiler;
+        if (sqlProfiler == null) {
+            configurationLock.lock();
+            try {
+                sqlProfiler = this.sqlProfiler;
+                if (sqlProfiler == null) {
+                    sqlProfiler = new SqlProfiler(this);
+                    this.sqlProfiler = sqlProfiler;
+                }
+            } finally {
+                configurationLock.unlock();
+            }
+        }
+        return sqlProfiler;
+    }
+
+    /**
+     * Get the SQL templates that have taken the most time so far
+     * @param count the most to return (or zero for all of them)
+     * @return the profiles, busiest first (empty if we've never profiled anything)
+     * @see ConnectionPoolDefinitionIF#getSqlProfileSize
+     */
+    protected SqlProfileIF[] getSqlProfiles(int count) {
+        SqlProfiler sqlProfiler = this.sqlProfiler;
+        return sqlProfiler != null ? sqlProfiler.getProfiles(count) : new SqlProfileIF[0];
+    }
+
+    /**
+     * Forget all the SQL profiles and start counting again
+     */
+    protected void resetSqlProfiles() {
+        SqlProfiler sqlProfiler = this.sqlProfiler;
+        if (sqlProfiler != null) {
+            sqlProfiler.reset();
+        }
+    }
+
+    /**
+     * The watchdog that cancels executions that overrun their query timeout. It's
+     * started the first time it's needed.
+     * @return the watchdog, or null if there isn't a
+     * {@link ConnectionPoolDefinitionIF#getDefaultQueryTimeout default query timeout}
+     * (or we've been shutdown)
+     */
+    protected StatementWatchdog getStatementWatchdog() {
+        if (getDefinition().getDefaultQueryTimeout() <= 0) {
+            return null;
+        }
+        StatementWatchdog statementWatchdog = this.statementWatchdog;
+        if (statementWatchdog == null && connectionPoolUp) {
+            configurationLock.lock();
+            try {
+                statementWatchdog = this.statementWatchdog;
+                if (statementWatchdog == null && connectionPoolUp) {
+                    statementWatchdog = new StatementWatchdog(this);
+                    statementWatchdog.start(createAsyncThreadFactory("Watchdog"));
+                    this.statementWatchdog = statementWatchdog;
+                }
+            } finally {
+                configurationLock.unlock();
+            }
+        }
+        return statementWatchdog;
+    }
+
+    /**
+     * Where we remember slow queries. It's only needed once there has been one.
+     * @return the log
+     * @see ConnectionPoolDefinitionIF#getSlowQueryThreshold
+     */
+    protected SlowQueryLog getSlowQueryLog() {
+        SlowQueryLog slowQueryLog = this.slowQueryLog;
+        if (slowQueryLog == null) {
+            configurationLock.lock();
+            try {
+                slowQueryLog = this.slowQueryLog;
+                if (slowQueryLog == null) {
+                    slowQueryLog = new SlowQueryLog();
+                    this.slowQueryLog = slowQueryLog;
+                }
+            } finally {
+                configurationLock.unlock();
+            }
+        }
+        return slowQueryLog;
+    }
+
+    /**
+     * @return the most recent slow queries, newest first (empty if there haven't been any)
+     * @see ConnectionPoolDefinitionIF#getSlowQueryThreshold
+     */
+    protected SlowQueryIF[] getSlowQueries() {
+        SlowQueryLog slowQueryLog = this.slowQueryLog;
+        return slowQueryLog != null ? slowQueryLog.getSlowQueries() : new SlowQueryIF[0];
+    }
+
+    private ThreadFactory createAsyncThreadFactory(final String name) {
+        final String alias = getDefinition().getAlias();
+        return new ThreadFactory() {
+            private AtomicInteger threadCount = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + alias + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Stop taking asynchronous work. Anything already queued still runs (and, now
+     * that the pool is down, fails quickly).
+     */
+    private void shutdownAsync() {
+        configurationLock.lock();
+        try {
+            if (asyncExecutor != null) {
+                asyncExecutor.shutdown();
+            }
+            if (buildExecutor != null) {
+                buildExecutor.shutdown();
+            }
+            if (asyncTimer != null) {
+                // Outstanding timeouts still fire so nobody is left waiting forever
+                asyncTimer.shutdown();
+            }
+            if (connectionEventBuffer != null) {
+                // Events already in the buffer are still passed on. Any more are passed on straight away.
+                connectionEventBuffer.shutdown();
+            }
+            if (statementWatchdog != null) {
+                statementWatchdog.shutdown();
+            }
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * Whether we have built (or are building) as many connections as we are allowed
+     * @return true if we can't build another one
+     * @see Prototyper#getConnectionCount
+     */
+    private boolean isFull() {
+        return prototyper.getConnectionCount() >= getDefinition().getMaximumConnectionCount();
+    }
+
+    /**
+     * @return the number of connections that aren't active: the available ones plus
+     * the ones we have room to build
+     */
+    protected int getFreeConnectionCount() {
+        return getDefinition().getMaximumConnectionCount() - getActiveConnectionCount();
+    }
+
+    /**
+     * Whether taking another connection would eat into a reserve
+     * @param reserve how many connections must still be free afterwards
+     * @return true if we mustn't take one
+     * @see #getPriorityReserve
+     */
+    private boolean isReserved(int reserve) {
+        return reserve > 0 && getFreeConnectionCount() <= reserve;
+    }
+
+    /**
+     * Give back a connection we've just claimed if having it leaves fewer than
+     * the reserve free. (Somebody else might have taken one at the same time.)
+     * @param proxyConnection the connection we claimed (may be null)
+     * @param reserve how many connections must still be free
+     * @return the connection, or null if we gave it back
+     */
+    private ProxyConnectionIF checkReserve(ProxyConnectionIF proxyConnection, int reserve) {
+        if (proxyConnection != null && reserve > 0 && getFreeConnectionCount() < reserve) {
+            connectionBag.release(proxyConnection);
+            return null;
+        }
+        return proxyConnection;
+    }
+
+    /**
+     * @return the {@link ProxoolFacade#setPriorityClass priority class} of the
+     * current thread, or null if it hasn't got one
+     */
+    protected static String getPriorityClass() {
+        return (String) PRIORITY_CLASS.get();
+    }
+
+    /**
+     * @see ProxoolFacade#setPriorityClass
+     */
+    protected static void setPriorityClass(String priorityClass) {
+        if (priorityClass != null) {
+            PRIORITY_CLASS.set(priorityClass);
+        } else {
+            PRIORITY_CLASS.remove();
+        }
+    }
+
+    /**
+     * @param priorityClass the caller's priority class (may be null)
+     * @return how many connections the class must leave free
+     * @see ConnectionPoolDefinitionIF#getPriorityReserves
+     */
+    protected int getPriorityReserve(String priorityClass) {
+        Map priorityReserves = getDefinition().getPriorityReserves();
+        if (priorityClass == null || priorityReserves.isEmpty()) {
+            return 0;
+        }
+        Integer reserve = (Integer) priorityReserves.get(priorityClass);
+        return reserve != null ? reserve.intValue() : 0;
+    }
+
+    private PriorityClassCounters getPriorityClassCounters(String priorityClass) {
+        if (priorityClass == null) {
+            priorityClass = ProxoolConstants.DEFAULT_PRIORITY_CLASS;
+        }
+        PriorityClassCounters counters = (PriorityClassCounters) priorityClassCounters.get(priorityClass);
+        if (counters == null) {
+            counters = new PriorityClassCounters();
+            PriorityClassCounters existingCounters = (PriorityClassCounters) priorityClassCounters.putIfAbsent(priorityClass, counters);
+            if (existingCounters != null) {
+                counters = existingCounters;
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * How often one {@link ProxoolFacade#setPriorityClass priority class} has
+     * had to wait or been refused
+     */
+    private static class PriorityClassCounters {
+
+        private LongAdder waited = new LongAdder();
+
+        private LongAdder refused = new LongAdder();
+
+    }
+
+    /**
+     * Find a connection that is available and make it active.
+     * @return the connection we claimed, or null if there weren't any available
+     * @see ConnectionBag#claim
+     */
+    private ProxyConnectionIF claimAvailableConnection() {
+        if (!getDefinition().getConnectionSelectionStrategy().equals(connectionSelectionStrategy)) {
+            updateConnectionSelectionStrategy();
+        }
+        ProxyConnectionIF proxyConnection = connectionBag.claim();
+        while (proxyConnection != null) {
+            if (isStale(proxyConnection)) {
+                // It's almost certainly dead
+                proxyConnection.setStatus(ProxyConnectionIF.STATUS_NULL);
+                removeProxyConnection(proxyConnection, MSG_STALE, REQUEST_EXPIRY, true);
+            } else if (!getDefinition().isTestBeforeUse() || testConnection(proxyConnection)) {
+                // Okay. So we have it and it's working ok.
+                break;
+            }
+            // Oops. No it's not. Let's choose another.
+            proxyConnection = connectionBag.claim();
+        }
+        return proxyConnection;
+    }
+
+    /**
+     * Start using the {@link ConnectionPoolDefinitionIF#getConnectionSelectionStrategy strategy}
+     * that the definition asks for (if we aren't already).
+     */
+    private void updateConnectionSelectionStrategy() {
+        configurationLock.lock();
+        try {
+            String strategy = getDefinition().getConnectionSelectionStrategy();
+            if (!strategy.equals(connectionSelectionStrategy)) {
+                try {
+                    connectionBag.setSelectionStrategy(ConnectionBag.createSelectionStrategy(strategy), getProxyConnections());
+                    if (connectionSelectionStrategy != null) {
+                        log.info("Now using " + strategy + " connection selection strategy");
+                    }
+                } catch (ProxoolException e) {
+                    // The definition checks it so this shouldn't happen. Keep using the old one.
+                    log.error("Couldn't change connection selection strategy to " + strategy, e);
+                }
+                connectionSelectionStrategy = strategy;
+            }
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * Join the {@link ConnectionWaitQueue queue} of threads waiting for a connection
+     * and wait until one is handed to us, one becomes available, there is room to
+     * build a new one, or the deadline passes.
+     * @param deadline when to give up (see {@link ConnectionPoolDefinitionIF#getMaximumWaitTime})
+     * @param reserve how many connections must still be free after we take one
+     * @param priorityClass the caller's {@link #getPriorityClass priority class}
+     * @return an active connection, or null if we timed out or if there is now room
+     * to build another connection
+     * @throws SQLException if we were interrupted whilst waiting
+     */
+    private ProxyConnectionIF waitForConnection(long deadline, int reserve, String priorityClass) throws SQLException {
+        final long waitStarted = System.currentTimeMillis();
+        ProxyConnectionIF proxyConnection = null;
+        ConnectionWaitQueue.Waiter waiter = connectionWaitQueue.join(new ConnectionWaitQueue.Waiter(reserve));
+        try {
+            while (true) {
+                // Check again now that we are in the queue. Anything that happens
+                // from now on will wake us up.
+                waiter.beforeCheck();
+                proxyConnection = checkReserve(claimAvailableConnection(), reserve);
+                if (proxyConnection != null || (!isFull() && !isReserved(reserve))) {
+                    break;
+                }
+                if (!waiter.park(deadline) || waiter.isServed() || !isConnectionPoolUp()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted whilst waiting for a connection");
+        } finally {
+            ProxyConnectionIF handedOver = connectionWaitQueue.leave(waiter);
+            if (handedOver != null) {
+                if (proxyConnection == null) {
+                    proxyConnection = handedOver;
+                    proxyConnection.setTimeLastStartActive(System.currentTimeMillis());
+                } else {
+                    // We've ended up with two. Give one back.
+                    connectionBag.release(handedOver);
+                }
+            }
+            connectionWaited(System.currentTimeMillis() - waitStarted, priorityClass);
+        }
+
+        if (log.isDebugEnabled() && getDefinition().isVerbose()) {
+            log.debug(displayStatistics() + " - waited " + (System.currentTimeMillis() - waitStarted)
+                    + " milliseconds " + (proxyConnection != null ? "for connection #" + proxyConnection.getId() : "in vain"));
+        }
+        return proxyConnection;
+    }
+
+    /**
+     * Ask for a new connection to be built on one of the pool's own threads and
+     * wait in the {@link ConnectionWaitQueue queue} whilst it is. We take whatever
+     * turns up first: if somebody returns a connection before the new one is ready
+     * then we have that, and the new one goes to the next in line (or becomes available).
+     * And the new one might go to somebody that has been waiting longer than us, in
+     * which case we ask for another (if there's still room).
+     * @param reserve how many connections must still be free after we take one
+     * @param deadline when to give up (see {@link ConnectionPoolDefinitionIF#getMaximumWaitTime}),
+     * or Long.MAX_VALUE to wait as long as it takes to build a connection
+     * @return an active connection, or null if we are now full and have to
+     * {@link #waitForConnection wait} like everyone else
+     * @throws SQLException if the connection we asked for couldn't be built, we
+     * were interrupted whilst waiting, the deadline passed or the pool has been shutdown
+     */
+    private ProxyConnectionIF waitForNewConnection(int reserve, long deadline) throws SQLException {
+        ProxyConnectionIF proxyConnection = null;
+        SQLException failure = null;
+        ConnectionWaitQueue.Waiter waiter = connectionWaitQueue.join(new ConnectionWaitQueue.Waiter(reserve));
+        try {
+            OnDemandBuild build = null;
+            while (true) {
+                // Check again now that we are in the queue. Anything that happens
+                // from now on will wake us up.
+                waiter.beforeCheck();
+                proxyConnection = checkReserve(claimAvailableConnection(), reserve);
+                if (proxyConnection != null || waiter.isServed()) {
+                    break;
+                }
+                if (build == null || build.isDone()) {
+                    if (build != null && build.getFailure() != null) {
+                        failure = build.getFailure();
+                        break;
+                    }
+                    if (!isConnectionPoolUp()) {
+                        // Nothing more will be built, so don't let our caller ask again
+                        failure = createShutdownException();
+                        break;
+                    }
+                    if (isReserved(reserve)) {
+                        break;
+                    }
+                    try {
+                        build = new OnDemandBuild(waiter, prototyper.reserveConnection());
+                    } catch (ProxoolException e) {
+                        // Somebody else took the last place
+                        break;
+                    }
+                    build.start();
+                    continue;
+                }
+                // Don't rely on being woken: the connection might have gone to somebody
+                // else, so look again every so often
+                long now = System.currentTimeMillis();
+                if (now >= deadline) {
+                    failure = new SQLException("Timed out waiting for a new connection to be built");
+                    break;
+                }
+                waiter.park(Math.min(deadline, now + NEW_CONNECTION_RECHECK_INTERVAL));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted whilst waiting for a connection");
+        } finally {
+            ProxyConnectionIF handedOver = connectionWaitQueue.leave(waiter);
+            if (handedOver != null) {
+                if (proxyConnection == null) {
+                    proxyConnection = handedOver;
+                    proxyConnection.setTimeLastStartActive(System.currentTimeMillis());
+                } else {
+                    // We've ended up with two. Give one back.
+                    connectionBag.release(handedOver);
+                }
+            }
+        }
+        if (proxyConnection == null && failure != null) {
+            throw failure;
+        }
+        return proxyConnection;
+    }
+
+    /**
+     * Builds a connection on demand, on one of the pool's {@link #getBuildExecutor own threads},
+     * and gives it to whoever needs it most.
+     * @see #waitForNewConnection
+     */
+    private class OnDemandBuild implements Runnable {
+
+        private ConnectionWaitQueue.Waiter requester;
+
+        private long id;
+
+        private volatile boolean done;
+
+        private volatile SQLException failure;
+
+        /**
+         * @param requester who to wake when we're done (whether they get this connection or not)
+         * @param id from {@link Prototyper#reserveConnection}
+         */
+        OnDemandBuild(ConnectionWaitQueue.Waiter requester, long id) {
+            this.requester = requester;
+            this.id = id;
+        }
+
+        void start() {
+            try {
+                getBuildExecutor().execute(this);
+            } catch (RejectedExecutionException e) {
+                // The pool is being shutdown. We've reserved room so do it ourselves.
+                run();
+            }
+        }
+
+        public void run() {
+            try {
+                ProxyConnectionIF proxyConnection = prototyper.buildConnection(id, ProxyConnection.STATUS_ACTIVE, "on demand");
+                // Okay. So we have it. But is it working ok?
+                if (getDefinition().isTestBeforeUse() && !testConnection(proxyConnection)) {
+                    // Oops. No it's not. There's not much more we can do for now
+                    throw new SQLException("Created a new connection but it failed its test");
+                }
+                // Give it to the longest waiter, or make it available if nobody is
+                connectionBag.release(proxyConnection);
+            } catch (SQLException e) {
+                failure = e;
+            } catch (ProxoolException e) {
+                log.debug("Couldn't get connection", e);
+                failure = new SQLException(e.toString());
+            } catch (Throwable e) {
+                log.error("Couldn't get connection", e);
+                failure = new SQLException(e.toString());
+            } finally {
+                done = true;
+                connectionWaitQueue.wake(requester);
+            }
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        SQLException getFailure() {
+            return failure;
+        }
+    }
+
+    private boolean testConnection(ProxyConnectionIF proxyConnection) {
+        boolean success = false;
+        final String testSql = getDefinition().getHouseKeepingTestSql();
+        if (testSql != null && testSql.length() > 0) {
+            Statement s = null;
+            try {
+                s = proxyConnection.getConnection().createStatement();
+                s.execute(testSql);
+                success = true;
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(displayStatistics() + " - Connection #" + proxyConnection.getId() + " tested: OK");
+                }
+            } catch (Throwable t) {
+                proxyConnection.setStatus(ProxyConnectionIF.STATUS_NULL);
+                removeProxyConnection(proxyConnection, "it has problems: " + t, ConnectionPool.REQUEST_EXPIRY, true);
+            } finally {
+                if (s != null) {
+                    try {
+                        s.close();
+                    } catch (Throwable t) {
+                        // Ignore
+                        success = false;
+                    }
+                }
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Add a ProxyConnection to the pool
+     * @param proxyConnection new connection
+     */
+    protected void addProxyConnection(ProxyConnectionIF proxyConnection) {
+        try {
+            acquireConnectionStatusWriteLock();
+            // Count it before anyone else can see it (and change its status)
+            connectionCountByState[proxyConnection.getStatus()].increment();
+            proxyConnections.add(proxyConnection);
+        } finally {
+            releaseConnectionStatusWriteLock();
+        }
+        if (proxyConnection.isAvailable()) {
+            connectionBag.available(proxyConnection);
+        }
+    }
+
+    /**
+     * Called by the connection whenever its status changes to
+     * {@link ProxyConnectionIF#STATUS_AVAILABLE available}.
+     * @param proxyConnection the connection that is now available
+     */
+    protected void connectionAvailable(ProxyConnectionIF proxyConnection) {
+        connectionBag.available(proxyConnection);
+    }
+
+    protected static String getStatusDescription(int status) {
+        try {
+            return STATUS_DESCRIPTIONS[status];
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return "Unknown status: " + status;
+        }
+    }
+
+    /**
+     * When you have finished with a Connection you should put it back here.  That will make it available to others.
+     * Unless it's due for expiry, in which case it will... expire
+     */
+    protected void putConnection(ProxyConnectionIF proxyConnection) {
+
+        if (admin != null) {
+            long now = System.currentTimeMillis();
+            long start = proxyConnection.getTimeLastStartActive();
+            if (now - start < 0) {
+                log.warn("Future start time detected. #" + proxyConnection.getId() + " start = " + new Date(start)
+                        + " (" + (now - start) + " milliseconds)");
+            } else if (now - start > 1000000) {
+                log.warn("Suspiciously long active time. #" + proxyConnection.getId() + " start = " + new Date(start));
+            }
+            admin.connectionReturned(now - start);
+        }
+
+        // It's possible that this connection is due for expiry
+        if (proxyConnection.isMarkedForExpiry()) {
+            if (proxyConnection.setStatus(ProxyConnectionIF.STATUS_ACTIVE, ProxyConnectionIF.STATUS_NULL)) {
+                expireProxyConnection(proxyConnection, proxyConnection.getReasonForMark(), REQUEST_EXPIRY);
+            }
+        } else if (isStale(proxyConnection)) {
+            if (proxyConnection.setStatus(ProxyConnectionIF.STATUS_ACTIVE, ProxyConnectionIF.STATUS_NULL)) {
+                expireProxyConnection(proxyConnection, MSG_STALE, REQUEST_EXPIRY);
+            }
+        } else {
+
+            // Optionally, test it to see if it is ok
+            if (getDefinition().isTestAfterUse()) {
+                // It will get removed by this call if it is no good
+                testConnection(proxyConnection);
+            }
+
+            // Let's make it available for someone else (or give it
+            // straight to whoever has been waiting longest)
+            if (!connectionBag.release(proxyConnection)) {
+                log.warn("Unable to set status of connection " + proxyConnection.getId()
+                        + " from " + getStatusDescription(ProxyConnectionIF.STATUS_ACTIVE)
+                        + "to " + getStatusDescription(ProxyConnectionIF.STATUS_AVAILABLE)
+                        + ". It remains " + getStatusDescription(proxyConnection.getStatus()));
+            }
+        }
+
+        if (log.isDebugEnabled() && getDefinition().isVerbose()) {
+            log.debug(displayStatistics() + " - Connection #" + proxyConnection.getId() + " returned (now "
+                    + getStatusDescription(proxyConnection.getStatus()) + ")");
+        }
+
+    }
+
+    /**
+     * The pool's epoch. It starts at zero and moves on each time the database
+     * {@link ConnectionPoolDefinitionIF#getFailoverSqlStates fails over}. Every connection
+     * remembers the epoch it was made in, and those from earlier epochs are thrown away
+     * when they're next served or returned (or by the house keeper, if they're idle).
+     * @return the current epoch
+     * @see ProxyConnectionIF#getEpoch
+     */
+    protected long getEpoch() {
+        return epoch.get();
+    }
+
+    /**
+     * @param proxyConnection the connection to check
+     * @return true if it was made before the database last failed over
+     * @see #getEpoch
+     */
+    protected boolean isStale(ProxyConnectionIF proxyConnection) {
+        return proxyConnection.getEpoch() != epoch.get();
+    }
+
+    /**
+     * A fatal exception has been thrown by a connection. If it means that the database has
+     * {@link ConnectionPoolDefinitionIF#getFailoverSqlStates failed over} then we start a new
+     * {@link #getEpoch epoch} (unless we already have since the connection was made, which
+     * is what happens when lots of connections fail at once). That way all the connections
+     * are thrown away at the cost of one failed request, rather than one each.
+     * @param proxyConnection the connection that threw the exception
+     * @param t the exception
+     * @return true if the connection was made before a failover, so there's no
+     * point testing the others
+     */
+    protected boolean failover(ProxyConnectionIF proxyConnection, Throwable t) {
+        if (!getDefinition().getFatalSqlExceptionClassifier().isFailover(t)) {
+            return false;
+        }
+        long connectionEpoch = proxyConnection.getEpoch();
+        if (epoch.compareAndSet(connectionEpoch, connectionEpoch + 1)) {
+            log.warn("The database seems to have failed over (" + t.getMessage() + "). Every connection made before now"
+                    + " will be thrown away when it's next used.");
+        }
+        return true;
+    }
+
+    /** This means that there's something wrong the connection and it's probably best if no one uses it again. */
+    protected void throwConnection(ProxyConnectionIF proxyConnection, String reason) {
+        expireConnectionAsSoonAsPossible(proxyConnection, reason, true);
+    }
+
+    /** Get a ProxyConnection by index */
+    private ProxyConnectionIF getProxyConnection(int i) {
+        return (ProxyConnectionIF) proxyConnections.get(i);
+    }
+
+    /**
+     * Return an array of all the connections
+     * @return array of connections
+     */
+    protected ProxyConnectionIF[] getProxyConnections() {
+        return (ProxyConnectionIF[]) proxyConnections.toArray(new ProxyConnectionIF[proxyConnections.size()]);
+    }
+
+    /**
+     * Remove a ProxyConnection by calling its {@link ConnectionListenerIF#onDeath onDeath} event,
+     * closing it (for real) and then removing it from the list.
+     * @param proxyConnection the connection to remove
+     * @param reason for log audit
+     * @param forceExpiry true means close now, whether it is active or not; false means if it is active then
+     * merely mark it for expiry so that it is removed as soon as it finished being active
+     * @param triggerSweep if true then this removal will trigger a prototype sweep
+     */
+    protected void removeProxyConnection(ProxyConnectionIF proxyConnection, String reason, boolean forceExpiry, boolean triggerSweep) {
+        // Just check that it is null
+        if (forceExpiry || proxyConnection.isNull()) {
+
+            proxyConnection.setStatus(ProxyConnectionIF.STATUS_NULL);
+
+            /* Run some code everytime we destroy a connection */
+
+            try {
+                onDeath(proxyConnection.getConnection());
+            } catch (SQLException e) {
+                log.error("Problem during onDeath (ignored)", e);
+            }
+
+            // The reallyClose() method also decrements the connectionCount.
+            try {
+                proxyConnection.reallyClose();
+            } catch (SQLException e) {
+                log.error(e);
+            }
+
+            // If we're shutting down then getting a write lock will cause a deadlock
+            final boolean statusLocked = isConnectionPoolUp();
+            try {
+                if (statusLocked) {
+                    acquireConnectionStatusWriteLock();
+                }
+                proxyConnections.remove(proxyConnection);
+                connectionBag.remove(proxyConnection);
+            } finally {
+                if (statusLocked) {
+                    releaseConnectionStatusWriteLock();
+                }
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug(displayStatistics() + " - #" + FormatHelper.formatMediumNumber(proxyConnection.getId())
+                        + " removed because " + reason + ".");
+            }
+
+            if (triggerSweep) {
+                PrototyperController.triggerSweep(getDefinition().getAlias());
+            }
+
+        } else {
+            log.error(displayStatistics() + " - #" + FormatHelper.formatMediumNumber(proxyConnection.getId())
+                    + " was not removed because isNull() was false.");
+        }
+    }
+
+    protected void expireProxyConnection(ProxyConnectionIF proxyConnection, String reason, boolean forceExpiry) {
+        removeProxyConnection(proxyConnection, reason, forceExpiry, true);
+    }
+
+    /**
+     * Call this to shutdown gracefully.
+     *  @param delay how long to wait for connections to become free before forcing them to close anyway
+     */
+    protected void shutdown(int delay, String finalizerName) throws Throwable {
+
+        final String alias = getDefinition().getAlias();
+        try {
+            /* This will stop us giving out any more connections and may
+            cause some of the threads to die. */
+
+            acquirePrimaryWriteLock();
+
+            if (connectionPoolUp == true) {
+
+                connectionPoolUp = false;
+                connectionWaitQueue.wakeAll();
+                long startFinalize = System.currentTimeMillis();
+
+                if (delay > 0) {
+                    log.info("Shutting down '" + alias + "' pool started at "
+                            + dateStarted + " - waiting for " + delay
+                            + " milliseconds for everything to stop.  [ "
+                            + finalizerName + "]");
+                } else {
+                    log.info("Shutting down '" + alias + "' pool immediately [" + finalizerName + "]");
+                }
+
+                /* Interrupt the threads (in case they're sleeping) */
+
+                boolean connectionClosedManually = false;
+                try {
+
+                    try {
+                        HouseKeeperController.cancel(alias);
+                    } catch (ProxoolException e) {
+                        log.error("Shutdown couldn't cancel house keeper", e);
+                    }
+
+                    // Cancel the admin thread (for statistics)
+                    if (admin != null) {
+                        admin.cancelAll();
+                    }
+
+                    /* Patience, patience. */
+
+                    if (getActiveConnectionCount() != 0) {
+                        long endWait = startFinalize + delay;
+                        LOG.info("Waiting until " + new Date(endWait) + " for all connections to become inactive (active count is "
+                                + getActiveConnectionCount() + ").");
+                        while (true) {
+                            long timeout = endWait - System.currentTimeMillis();
+                            if (timeout > 0) {
+                                shutdownLock.lock();
+                                try {
+                                    if (getActiveConnectionCount() != 0) {
+                                        noActiveConnections.await(timeout, TimeUnit.MILLISECONDS);
+                                    }
+                                } catch (InterruptedException e) {
+                                    log.debug("Interrupted whilst sleeping.");
+                                } finally {
+                                    shutdownLock.unlock();
+                                }
+                            }
+                            int activeCount = getActiveConnectionCount();
+                            if (activeCount == 0) {
+                                break;
+                            }
+                            if (System.currentTimeMillis() < endWait) {
+                                LOG.info("Still waiting for active count to reach zero (currently " + activeCount + ").");
+                            } else {
+                                // There are still connections active. Oh well, we're not _that_ patient
+                                LOG.warn("Shutdown waited for "
+                                        + (System.currentTimeMillis() - startFinalize) + " milliseconds for all "
+                                        + "the connections to become inactive but the active count is still "
+                                        + activeCount + ". Shutting down anyway.");
+                                break;
+                            }
+                            Thread.sleep(100);
+                        }
+                    }
+
+                    try {
+                        PrototyperController.cancel(alias);
+                    } catch (NullPointerException e) {
+                        log.error("PrototypingThread already dead", e);
+                    } catch (Exception e) {
+                        log.error("Can't wake prototypingThread", e);
+                    }
+
+                    // Silently close all connections
+                    for (int i = proxyConnections.size() - 1; i >= 0; i--) {
+                        long id = getProxyConnection(i).getId();
+                        try {
+                            connectionClosedManually = true;
+                            removeProxyConnection(getProxyConnection(i), "of shutdown", true, false);
+                            if (log.isDebugEnabled()) {
+                                log.debug("Connection #" + id + " closed");
+                            }
+                        } catch (Throwable t) {
+                            if (log.isDebugEnabled()) {
+                                log.debug("Problem closing connection #" + id, t);
+                            }
+
+                        }
+                    }
+
+                } catch (Throwable t) {
+                    log.error("Unknown problem finalizing pool", t);
+                } finally {
+
+                    shutdownAsync();
+
+                    ConnectionPoolManager.getInstance().removeConnectionPool(alias);
+
+                    if (log.isDebugEnabled()) {
+                        log.info("'" + alias + "' pool has been closed down by " + finalizerName
+                                + " in " + (System.currentTimeMillis() - startFinalize) + " milliseconds.");
+                        if (!connectionClosedManually) {
+                            log.debug("No connections required manual removal.");
+                        }
+                    }
+                    super.finalize();
+                }
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug("Ignoring duplicate attempt to shutdown '" + alias + "' pool by " + finalizerName);
+                }
+            }
+        } catch (Throwable t) {
+            log.error(finalizerName + " couldn't shutdown pool", t);
+        } finally {
+            releasePrimaryWriteLock();
+        }
+    }
+
+    /**
+     * This is a sum of {@link #changeStatus striped} counts so whilst connections
+     * are changing status it is only approximate.
+     * @see ConnectionPoolStatisticsIF#getAvailableConnectionCount
+     */
+    public int getAvailableConnectionCount() {
+        return connectionCountByState[ProxyConnection.STATUS_AVAILABLE].intValue();
+    }
+
+    /**
+     * This is a sum of {@link #changeStatus striped} counts so whilst connections
+     * are changing status it is only approximate.
+     * @see ConnectionPoolStatisticsIF#getActiveConnectionCount
+     */
+    public int getActiveConnectionCount() {
+        return connectionCountByState[ProxyConnection.STATUS_ACTIVE].intValue();
+    }
+
+    /**
+     * This is a sum of {@link #changeStatus striped} counts so whilst connections
+     * are changing status it is only approximate.
+     * @see ConnectionPoolStatisticsIF#getOfflineConnectionCount
+     */
+    public int getOfflineConnectionCount() {
+        return connectionCountByState[ProxyConnection.STATUS_OFFLINE].intValue();
+    }
+
+    protected String displayStatistics() {
+
+        if (!loggedLegend) {
+            log.info("Proxool statistics legend: \"s - r  (a/t/o)\" > s=served, r=refused (only shown if non-zero), a=active, t=total, o=offline (being tested)");
+            loggedLegend = true;
+        }
+
+        StringBuffer statistics = new StringBuffer();
+        statistics.append(FormatHelper.formatBigNumber(getConnectionsServedCount()));
+
+        if (getConnectionsRefusedCount() > 0) {
+            statistics.append(" -");
+            statistics.append(FormatHelper.formatBigNumber(getConnectionsRefusedCount()));
+        }
+
+        statistics.append(" (");
+        statistics.append(FormatHelper.formatSmallNumber(getActiveConnectionCount()));
+        statistics.append("/");
+        statistics.append(FormatHelper.formatSmallNumber(getAvailableConnectionCount() + getActiveConnectionCount()));
+        statistics.append("/");
+        statistics.append(FormatHelper.formatSmallNumber(getOfflineConnectionCount()));
+        statistics.append(")");
+
+        // Don't need this triple check any more.
+        /*
+        if (getDefinition().getDebugLevel() == ConnectionPoolDefinitionIF.DEBUG_LEVEL_LOUD) {
+            statistics.append(", cc=");
+            statistics.append(connectionCount);
+            statistics.append(", ccc=");
+            statistics.append(connectedConnectionCount);
+        }
+        */
+
+        return statistics.toString();
+    }
+
+    protected void expireAllConnections(String reason, boolean merciful) {
+
+        // Do this in two stages because expiring a connection will trigger
+        // the prototyper to make more. And that might mean we end up
+        // killing a newly made connection;
+        Set pcs = new HashSet();
+        for (int i = proxyConnections.size() - 1; i >= 0; i--) {
+            pcs.add(proxyConnections.get(i));
+        }
+
+        Iterator i = pcs.iterator();
+        while (i.hasNext()) {
+            ProxyConnectionIF pc = (ProxyConnectionIF) i.next();
+            expireConnectionAsSoonAsPossible(pc, reason, merciful);
+        }
+    }
+
+    protected void expireConnectionAsSoonAsPossible(ProxyConnectionIF proxyConnection, String reason, boolean merciful) {
+        if (proxyConnection.setStatus(ProxyConnectionIF.STATUS_AVAILABLE, ProxyConnectionIF.STATUS_OFFLINE)) {
+            if (proxyConnection.setStatus(ProxyConnectionIF.STATUS_OFFLINE, ProxyConnectionIF.STATUS_NULL)) {
+                // It is.  Expire it now .
+                expireProxyConnection(proxyConnection, reason, REQUEST_EXPIRY);
+            }
+        } else {
+            // Oh no, it's in use.
+
+            if (merciful) {
+                //Never mind, we'll mark it for expiry
+                // next time it is available.  This will happen in the
+                // putConnection() method.
+                proxyConnection.markForExpiry(reason);
+                if (log.isDebugEnabled()) {
+                    log.debug(displayStatistics() + " - #" + FormatHelper.formatMediumNumber(proxyConnection.getId()) + " marked for expiry.");
+                }
+            } else {
+                // So? Kill, kill, kill
+
+                // We have to make sure it's null first.
+                expireProxyConnection(proxyConnection, reason, FORCE_EXPIRY);
+            }
+
+        } // END if (proxyConnection.setOffline())
+    }
+
+    protected void registerRemovedConnection(int status) {
+        PrototyperController.connectionRemoved(getDefinition().getAlias());
+        connectionCountByState[status].decrement();
+        // There's room to build another one now
+        if (!connectionWaitQueue.isEmpty()) {
+            connectionWaitQueue.wakeOldest();
+        }
+    }
+
+    /**
+     * Called by the connection once it has changed its status. No locks are
+     * needed - the connection has already made the change atomically and the
+     * counts are striped.
+     * @param oldStatus so we know which count to decrement
+     * @param newStatus so we know which count to increment
+     */
+    protected void changeStatus(int oldStatus, int newStatus) {
+        // LOG.debug("About to change status");
+        connectionCountByState[oldStatus].decrement();
+        connectionCountByState[newStatus].increment();
+        // LOG.debug("Changing status from " + oldStatus + " to " + newStatus);
+        // Check to see if shutdown is waiting for all connections to become
+        // non-active
+        if (!connectionPoolUp && oldStatus == ProxyConnectionIF.STATUS_ACTIVE && getActiveConnectionCount() == 0) {
+            shutdownLock.lock();
+            try {
+                noActiveConnections.signalAll();
+            } finally {
+                shutdownLock.unlock();
+            }
+        }
+
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getPriorityClasses
+     */
+    public String[] getPriorityClasses() {
+        Set priorityClasses = new TreeSet(priorityClassCounters.keySet());
+        priorityClasses.addAll(getDefinition().getPriorityReserves().keySet());
+        return (String[]) priorityClasses.toArray(new String[priorityClasses.size()]);
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getConnectionsWaitedCount(String)
+     */
+    public long getConnectionsWaitedCount(String priorityClass) {
+        PriorityClassCounters counters = (PriorityClassCounters) priorityClassCounters.get(priorityClass);
+        return counters != null ? counters.waited.sum() : 0;
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getConnectionsRefusedCount(String)
+     */
+    public long getConnectionsRefusedCount(String priorityClass) {
+        PriorityClassCounters counters = (PriorityClassCounters) priorityClassCounters.get(priorityClass);
+        return counters != null ? counters.refused.sum() : 0;
+    }
+
+    public long getConnectionsServedCount() {
+        return connectionsServedCount;
+    }
+
+    public long getConnectionsRefusedCount() {
+        return connectionsRefusedCount;
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getConnectionsWaitedCount
+     */
+    public long getConnectionsWaitedCount() {
+        return connectionsWaitedCount.sum();
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getWaitingCount
+     */
+    public int getWaitingCount() {
+        return connectionWaitQueue.getWaitingCount();
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getListenerEventsDroppedCount
+     */
+    public long getListenerEventsDroppedCount() {
+        return listenerEventsDroppedCount.sum();
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getStatementCacheHitCount
+     */
+    public long getStatementCacheHitCount() {
+        return statementCacheHitCount.sum();
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getStatementCacheMissCount
+     */
+    public long getStatementCacheMissCount() {
+        return statementCacheMissCount.sum();
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getStatementCacheEvictionCount
+     */
+    public long getStatementCacheEvictionCount() {
+        return statementCacheEvictionCount.sum();
+    }
+
+    protected ConnectionPoolDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Changes both the way that any new connections will be made, and the behaviour of the pool. Consider
+     * calling expireAllConnections() if you're in a hurry.
+     */
+    protected synchronized void setDefinition(ConnectionPoolDefinition definition) throws ProxoolException {
+        this.definition = definition;
+
+        try {
+            Class.forName(definition.getDriver());
+        } catch (ClassNotFoundException e) {
+            log.error("Couldn't load class " + definition.getDriver(), e);
+            throw new ProxoolException("Couldn't load class " + definition.getDriver());
+        } catch (NullPointerException e) {
+            log.error("Definition did not contain driver", e);
+            throw new ProxoolException("Definition did not contain driver");
+        }
+
+    }
+
+    /**
+     * @deprecated use {@link #addStateListener(StateListenerIF)} instead.
+     */
+    public void setStateListener(StateListenerIF stateListener) {
+        addStateListener(stateListener);
+    }
+
+    public void addStateListener(StateListenerIF stateListener) {
+        this.compositeStateListener.addListener(stateListener);
+    }
+
+    public boolean removeStateListener(StateListenerIF stateListener) {
+        return this.compositeStateListener.removeListener(stateListener);
+    }
+
+    /**
+     * @deprecated use {@link #addConnectionListener(ConnectionListenerIF)} instead.
+     */
+    public void setConnectionListener(ConnectionListenerIF connectionListener) {
+        addConnectionListener(connectionListener);
+    }
+
+    public void addConnectionListener(ConnectionListenerIF connectionListener) {
+        this.compositeConnectionListener.addListener(connectionListener);
+    }
+
+    public boolean removeConnectionListener(ConnectionListenerIF connectionListener) {
+        return this.compositeConnectionListener.removeListener(connectionListener);
+    }
+
+    /** Call the onBirth() method on each StateListenerIF . */
+    protected void onBirth(Connection connection) throws SQLException {
+        this.compositeConnectionListener.onBirth(connection);
+    }
+
+    /** Call the onDeath() method on each StateListenerIF . */
+    protected void onDeath(Connection connection) throws SQLException {
+        this.compositeConnectionListener.onDeath(connection);
+    }
+
+    /**
+     * Call the onExecute() (or onFail()) method on each ConnectionListenerIF, either now
+     * or in the {@link #getConnectionEventBuffer background}.
+     */
+    protected void onExecute(String command, long elapsedTime, Exception exception) throws SQLException {
+        ConnectionEventBuffer connectionEventBuffer = getConnectionEventBuffer();
+        if (connectionEventBuffer != null) {
+            connectionEventBuffer.publish(command, elapsedTime, exception);
+        } else if (exception == null) {
+            this.compositeConnectionListener.onExecute(command, elapsedTime);
+        } else {
+            this.compositeConnectionListener.onFail(command, exception);
+        }
+    }
+
+    /**
+     * Is there a {@link ConnectionListenerIF listener} for connections
+     * @return true if there is a listener registered.
+     */
+    protected boolean isConnectionListenedTo() {
+        return !compositeConnectionListener.isEmpty();
+    }
+
+    public String toString() {
+        return getDefinition().toString();
+    }
+
+    public int getUpState() {
+        return upState;
+    }
+
+
+    public void setUpState(int upState) {
+        if (this.upState != upState) {
+            compositeStateListener.upStateChanged(upState);
+            this.upState = upState;
+        }
+    }
+
+    protected Collection getConnectionInfos() {
+        Collection cis = null;
+        cis = new TreeSet();
+        Iterator i = proxyConnections.iterator();
+        while (i.hasNext()) {
+            ConnectionInfoIF connectionInfo = (ConnectionInfoIF) i.next();
+            ConnectionInfo ci = new ConnectionInfo();
+            ci.setAge(connectionInfo.getAge());
+            ci.setBirthDate(connectionInfo.getBirthDate());
+            ci.setId(connectionInfo.getId());
+            ci.setMark(connectionInfo.getMark());
+            ci.setRequester(connectionInfo.getRequester());
+            ci.setStatus(connectionInfo.getStatus());
+            ci.setTimeLastStartActive(connectionInfo.getTimeLastStartActive());
+            ci.setTimeLastStopActive(connectionInfo.getTimeLastStopActive());
+            ci.setDelegateUrl(connectionInfo.getDelegateUrl());
+            ci.setProxyHashcode(connectionInfo.getProxyHashcode());
+            ci.setDelegateHashcode(connectionInfo.getDelegateHashcode());
+            cis.add(ci);
+        }
+        return cis;
+    }
+
+    /**
+     * Manually expire a connection.
+     * @param id the id of the connection to kill
+     * @param forceExpiry use true to expire even if it is in use
+     * @return true if the connection was found and expired, else false
+     */
+    public boolean expireConnection(long id, boolean forceExpiry) {
+        boolean success = false;
+        ProxyConnectionIF proxyConnection = null;
+
+        ProxyConnectionIF[] proxyConnections = getProxyConnections();
+        for (int i = 0; i < proxyConnections.length; i++) {
+            if (proxyConnections[i].getId() == id) {
+                // This is the one
+                proxyConnection = proxyConnections[i];
+                proxyConnection.setStatus(ProxyConnectionIF.STATUS_AVAILABLE, ProxyConnectionIF.STATUS_OFFLINE);
+                proxyConnection.setStatus(ProxyConnectionIF.STATUS_OFFLINE, ProxyConnectionIF.STATUS_NULL);
+                removeProxyConnection(proxyConnection, "it was manually killed", forceExpiry, true);
+                success = true;
+                break;
+            }
+        }
+
+        if (!success) {
+            if (log.isDebugEnabled()) {
+                log.debug(displayStatistics() + " - couldn't find " + FormatHelper.formatMediumNumber(id)
+                        + " and I've just been asked to expire it");
+            }
+        }
+
+        return success;
+    }
+
+    public Log getLog() {
+        return log;
+    }
+
+    /**
+     * {@link ConnectionResetter#initialise Initialises} the ConnectionResetter.
+     * @param connection sample Connection to use for default values
+     */
+    protected void initialiseConnectionResetter(Connection connection) {
+        connectionResetter.initialise(connection);
+    }
+
+    /**
+     * {@link ConnectionResetter#seed Seeds} a new connection's session state
+     * with the default values.
+     * @param sessionState the new connection's session state
+     */
+    protected void seedSessionState(SessionState sessionState) {
+        connectionResetter.seed(sessionState);
+    }
+
+    /**
+     * {@link ConnectionResetter#reset Resets} a Connection to its
+     * original state.
+     * @param connection the one to reset
+     * @param id used in log messages
+     * @param changedProperties the ones to reset
+     * @param sessionState what we know about the connection's session
+     */
+    protected boolean resetConnection(Connection connection, String id, int changedProperties, SessionState sessionState) {
+        return connectionResetter.reset(connection, id, changedProperties, sessionState);
+    }
+
+    /**
+     * Whether we leave it to {@link ConnectionResetter#endRequest endRequest} to reset connections
+     * @return true if the definition {@link ConnectionPoolDefinitionIF#isResetByDriver says so}
+     * and the driver {@link ConnectionResetter#isRequestBoundariesSupported supports it}
+     */
+    protected boolean isResetByDriver() {
+        return getDefinition().isResetByDriver() && connectionResetter.isRequestBoundariesSupported();
+    }
+
+    /**
+     * {@link ConnectionResetter#endRequest Ends the request} that began when the
+     * connection was given out.
+     * @param connection the one that has been given back
+     * @param id used in log messages
+     * @return true if it was error free
+     */
+    protected boolean endRequest(Connection connection, String id) {
+        return connectionResetter.endRequest(connection, id);
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getDateStarted
+     */
+    public Date getDateStarted() {
+        return dateStarted;
+    }
+
+    /**
+     * Get the admin for this pool
+     * @return admin
+     */
+    protected Admin getAdmin() {
+        return admin;
+    }
+
+    protected boolean isLocked() {
+        return locked;
+    }
+
+    protected void lock() {
+        locked = true;
+    }
+
+    protected void unlock() {
+        locked = false;
+    }
+
+    /**
+     * Call this if you want to do something important to the pool. Like shut it down.
+     * @throws InterruptedException if we couldn't
+     */
+    protected void acquirePrimaryReadLock() throws InterruptedException {
+//        if (log.isDebugEnabled()) {
+//            try {
+//                throw new RuntimeException("TRACE ONLY");
+//            } catch (RuntimeException e) {
+//                log.debug("About to acquire primary read lock", e);
+//            }
+//            // log.debug("About to acquire primary read lock");
+//        }
+        primaryReadWriteLock.readLock().lockInterruptibly();
+//        if (log.isDebugEnabled()) {
+//            try {
+//                throw new RuntimeException("TRACE ONLY");
+//            } catch (RuntimeException e) {
+//                log.debug("Acquired primary read lock", e);
+//            }
+//            //log.debug("Acquired primary read lock");
+//        }
+    }
+
+    /**
+     * @see #acquirePrimaryReadLock
+     */
+    protected void releasePrimaryReadLock() {
+//        try {
+//            throw new RuntimeException("TRACE ONLY");
+//        } catch (RuntimeException e) {
+//            log.debug("Released primary read lock", e);
+//        }
+        //log.debug("Released primary read lock");
+        primaryReadWriteLock.readLock().unlock();
+    }
+
+    /**
+     * Call this everytime you build a connection. It ensures that we're not
+     * trying to shutdown the pool whilst we are building a connection. So you
+     * should check that the pool is still {@link #isConnectionPoolUp up}.
+     * @throws InterruptedException if there was a problem.
+     */
+    protected void acquirePrimaryWriteLock() throws InterruptedException {
+        boolean success = false;
+//        try {
+//            if (log.isDebugEnabled()) {
+//                try {
+//                    throw new RuntimeException("TRACE ONLY");
+//                } catch (RuntimeException e) {
+//                    log.debug("About to acquire primary write lock", e);
+//                }
+//                //log.debug("About to acquire primary write lock");
+//            }
+            primaryReadWriteLock.writeLock().lockInterruptibly();
+            success = true;
+//            if (log.isDebugEnabled()) {
+//                try {
+//                    throw new RuntimeException("TRACE ONLY");
+//                } catch (RuntimeException e) {
+//                    log.debug("Acquired primary write lock", e);
+//                }
+//                //log.debug("Acquired primary write lock");
+//            }
+//        } finally {
+//            if (log.isDebugEnabled() && !success) {
+//                try {
+//                    throw new RuntimeException("TRACE ONLY");
+//                } catch (RuntimeException e) {
+//                    log.debug("Failed to acquire primary write lock", e);
+//                }
+//                //log.debug("Failed to acquire primary write lock");
+//            }
+//        }
+    }
+
+    /**
+     * @see #acquirePrimaryReadLock
+     */
+    protected void releasePrimaryWriteLock() {
+        primaryReadWriteLock.writeLock().unlock();
+//        try {
+//            throw new RuntimeException("TRACE ONLY");
+//        } catch (RuntimeException e) {
+//            log.debug("Released primary write lock", e);
+//        }
+        //log.debug("Released primary write lock");
+    }
+
+    /**
+     * Is the pool up?
+     * @return false if the connection pool hasn't {@link #start started} yet or has been
+     * {@link #shutdown shutdown} (or is in the process of being shutdown).
+     */
+    protected boolean isConnectionPoolUp() {
+        return connectionPoolUp;
+    }
+
+    protected static final boolean FORCE_EXPIRY = true;
+
+    protected static final boolean REQUEST_EXPIRY = false;
+
+    /**
+     * The time (in milliseconds) that we last refused a connection
+     * @return timeOfLastRefusal
+     */
+    protected long getTimeOfLastRefusal() {
+        return timeOfLastRefusal;
+    }
+
+    protected void acquireConnectionStatusWriteLock() {
+//        try {
+//            throw new RuntimeException("TRACE ONLY");
+//        } catch (RuntimeException e) {
+//            LOG.debug("About to acquire connectionStatus write lock", e);
+//        }
+        connectionStatusReadWriteLock.writeLock().lock();
+//        try {
+//            throw new RuntimeException("TRACE ONLY");
+//        } catch (RuntimeException e) {
+//            LOG.debug("Acquired connectionStatus write lock", e);
+//        }
+    }
+
+    protected void releaseConnectionStatusWriteLock() {
+        connectionStatusReadWriteLock.writeLock().unlock();
+//        try {
+//            throw new RuntimeException("TRACE ONLY");
+//        } catch (RuntimeException e) {
+//            LOG.debug("Released connectionStatus write lock", e);
+//        }
+    }
+
+    protected void acquireConnectionStatusReadLock() {
+//        LOG.debug("About to acquire connectionStatus read lock");
+        connectionStatusReadWriteLock.readLock().lock();
+//        LOG.debug("Acquired connectionStatus read lock");
+    }
+
+    protected void releaseConnectionStatusReadLock() {
+        connectionStatusReadWriteLock.readLock().unlock();
+//        LOG.debug("Released connectionStatus read lock");
+    }
+
+    protected Prototyper getPrototyper() {
+        return prototyper;
+    }
+}
+
+/*
+ Revision history:
+ $Log: ConnectionPool.java,v $
+ Revision 1.73  2003/12/09 18:54:55  billhorsman
+ Make closure of statement during connection test more robust - credit to John Hume
+
+ Revision 1.72  2003/11/04 13:52:01  billhorsman
+ Fixed warning message
+
+ Revision 1.71  2003/10/30 00:11:15  billhorsman
+ Debug info and error logged if unsuccessful attempt to put connection back in pool. Plus connectioninfo comparator changed
+
+ Revision 1.70  2003/09/30 18:39:08  billhorsman
+ New test-before-use, test-after-use and fatal-sql-exception-wrapper-class properties.
+
+ Revision 1.69  2003/09/30 07:50:04  billhorsman
+ Smarter throwing of caught SQLExceptions without wrapping them up inside another (and losing the stack trace)
+
+ Revision 1.68  2003/09/20 17:04:06  billhorsman
+ Fix for incorrect OFFLINE count when house keeper removed a connection if the test SQL failed. This
+ meant that the offline count went negative. The only consequence of that is that the logs look funny.
+
+ Revision 1.67  2003/08/30 14:54:04  billhorsman
+ Checkstyle
+
+ Revision 1.66  2003/04/10 08:23:54  billhorsman
+ removed very frequent debug
+
+ Revision 1.65  2003/03/11 23:58:04  billhorsman
+ fixed deadlock on connection expiry
+
+ Revision 1.64  2003/03/11 14:51:49  billhorsman
+ more concurrency fixes relating to snapshots
+
+ Revision 1.63  2003/03/11 01:16:29  billhorsman
+ removed misleasing debug
+
+ Revision 1.62  2003/03/11 00:32:13  billhorsman
+ fixed negative timeout
+
+ Revision 1.61  2003/03/10 23:39:51  billhorsman
+ shutdown is now notified when active count reaches
+ zero
+
+ Revision 1.60  2003/03/10 16:26:35  billhorsman
+ removed debug traces
+
+ Revision 1.59  2003/03/10 15:26:44  billhorsman
+ refactoringn of concurrency stuff (and some import
+ optimisation)
+
+ Revision 1.58  2003/03/05 18:42:32  billhorsman
+ big refactor of prototyping and house keeping to
+ drastically reduce the number of threads when using
+ many pools
+
+ Revision 1.57  2003/03/03 16:06:44  billhorsman
+ name house keeper and prototyper threads now includes alias
+
+ Revision 1.56  2003/03/03 11:11:57  billhorsman
+ fixed licence
+
+ Revision 1.55  2003/02/28 18:08:55  billhorsman
+ OVERLOAD state is now triggered immediately rather
+ than waiting for house keeper
+
+ Revision 1.54  2003/02/28 10:10:25  billhorsman
+ on death now gets called for connections killed during shutdown
+
+ Revision 1.53  2003/02/26 16:05:52  billhorsman
+ widespread changes caused by refactoring the way we
+ update and redefine pool definitions.
+
+ Revision 1.52  2003/02/26 12:57:30  billhorsman
+ added TO DO
+
+ Revision 1.51  2003/02/19 23:46:10  billhorsman
+ renamed monitor package to admin
+
+ Revision 1.50  2003/02/19 23:07:46  billhorsman
+ state changes are now only calculated every time the house
+ keeper runs, but it's more accurate
+
+ Revision 1.49  2003/02/19 22:38:33  billhorsman
+ fatal sql exception causes house keeper to run
+ immediately
+
+ Revision 1.48  2003/02/18 16:49:59  chr32
+ Added possibility to remove connection and state listeners.
+
+ Revision 1.47  2003/02/12 12:27:16  billhorsman
+ log proxy hashcode too
+
+ Revision 1.46  2003/02/07 17:26:04  billhorsman
+ deprecated removeAllConnectionPools in favour of
+ shutdown (and dropped unreliable finalize() method)
+
+ Revision 1.45  2003/02/07 14:19:01  billhorsman
+ fixed deprecated use of debugLevel property
+
+ Revision 1.44  2003/02/07 14:16:46  billhorsman
+ support for StatisticsListenerIF
+
+ Revision 1.43  2003/02/07 10:27:47  billhorsman
+ change in shutdown procedure to allow re-registration
+
+ Revision 1.42  2003/02/07 01:48:15  chr32
+ Started using new composite listeners.
+
+ Revision 1.41  2003/02/06 17:41:04  billhorsman
+ now uses imported logging
+
+ Revision 1.40  2003/02/04 17:18:30  billhorsman
+ move ShutdownHook init code
+
+ Revision 1.39  2003/02/04 15:59:50  billhorsman
+ finalize now shuts down StatsRoller timer
+
+ Revision 1.38  2003/02/02 23:35:48  billhorsman
+ removed ReloadMonitor to remove use of System properties
+
+ Revision 1.37  2003/01/31 16:53:16  billhorsman
+ checkstyle
+
+ Revision 1.36  2003/01/31 11:49:28  billhorsman
+ use Admin instead of Stats
+
+ Revision 1.35  2003/01/31 00:20:05  billhorsman
+ statistics is now a string to allow multiple,
+ comma-delimited values (plus better logging of errors
+ during destruction)
+
+ Revision 1.34  2003/01/30 17:22:21  billhorsman
+ add statistics support
+
+ Revision 1.33  2003/01/27 18:26:35  billhorsman
+ refactoring of ProxyConnection and ProxyStatement to
+ make it easier to write JDK 1.2 patch
+
+ Revision 1.32  2003/01/15 14:51:40  billhorsman
+ checkstyle
+
+ Revision 1.31  2003/01/15 12:01:37  billhorsman
+ added getDateStarted()
+
+ Revision 1.30  2003/01/15 00:07:43  billhorsman
+ now uses FastArrayList instead of Vector for thread safe
+ improvements
+
+ Revision 1.29  2002/12/18 12:16:22  billhorsman
+ double checking of connection state counts
+
+ Revision 1.28  2002/12/17 17:15:39  billhorsman
+ Better synchronization of status stuff
+
+ Revision 1.27  2002/12/17 16:52:51  billhorsman
+ synchronize part of removeProxyConnection to avoid
+ possible bug where connection by status count drifts.
+
+ Revision 1.26  2002/12/12 12:28:34  billhorsman
+ just in case: changed == 0 to < 1
+
+ Revision 1.25  2002/12/12 10:48:47  billhorsman
+ checkstyle
+
+ Revision 1.24  2002/12/03 12:24:00  billhorsman
+ fixed fatal sql exception
+
+ Revision 1.23  2002/11/12 20:24:12  billhorsman
+ checkstyle
+
+ Revision 1.22  2002/11/12 20:18:23  billhorsman
+ Made connection resetter a bit more friendly. Now, if it encounters any problems during
+ reset then that connection is thrown away. This is going to cause you problems if you
+ always close connections in an unstable state (e.g. with transactions open. But then
+ again, it's better to know about that as soon as possible, right?
+
+ Revision 1.21  2002/11/09 15:48:55  billhorsman
+ new isConnectionListenedTo() to stop unnecessary processing
+ if nobody is listening
+
+ Revision 1.20  2002/11/08 18:03:50  billhorsman
+ when connections are closed because they have been
+ active for too long then a log message is written
+ of level WARN, and it includes the name of the
+ thread responsible (reminder, name your threads).
+
+ Revision 1.19  2002/11/07 19:31:25  billhorsman
+ added sanity check against suspected situation where you
+ can make more connections than the maximumConnectionCount
+
+ Revision 1.18  2002/11/07 19:17:55  billhorsman
+ removed obsolete method
+
+ Revision 1.17  2002/11/06 20:27:30  billhorsman
+ supports the ConnectionResetter
+
+ Revision 1.16  2002/11/05 21:24:18  billhorsman
+ cosmetic: changed format of statistics dumped to log to make it less confusing for locales that use a space separator for thousands
+
+ Revision 1.15  2002/11/02 13:57:33  billhorsman
+ checkstyle
+
+ Revision 1.14  2002/10/30 21:19:17  billhorsman
+ make use of ProxyFactory
+
+ Revision 1.13  2002/10/29 23:00:33  billhorsman
+ fixed sign error in prototyper (that meant that protoyping never happened)
+
+ Revision 1.12  2002/10/29 22:58:22  billhorsman
+ added connection hashcode to debug
+
+ Revision 1.11  2002/10/28 19:44:03  billhorsman
+ small change to cleanup log
+
+ Revision 1.10  2002/10/27 13:02:45  billhorsman
+ change to prototyper logic to make it clearer (but no functional change)
+
+ Revision 1.9  2002/10/27 12:07:45  billhorsman
+ fix bug where prototyper kept making connections up to maximum. Log now gives reason why connection was prototyped. Fix bug where definition with no properties was not allowed (it is now).
+
+ Revision 1.8  2002/10/25 10:12:52  billhorsman
+ Improvements and fixes to the way connection pools close down. Including new ReloadMonitor to detect when a class is reloaded. Much better logging too.
+
+ Revision 1.7  2002/10/24 17:25:20  billhorsman
+ cleaned up logging and made it more informative
+
+ Revision 1.6  2002/10/23 21:04:36  billhorsman
+ checkstyle fixes (reduced max line width and lenient naming convention
+
+ Revision 1.5  2002/10/16 11:46:23  billhorsman
+ removed obsolete cleanupClob method and made onBirth call failsafe
+
+ Revision 1.4  2002/09/19 10:33:57  billhorsman
+ added ProxyConnection#toString
+
+ Revision 1.3  2002/09/18 13:48:56  billhorsman
+ checkstyle and doc
+
+ Revision 1.2  2002/09/13 12:13:50  billhorsman
+ added debug and fixed ClassCastException during housekeeping
+
+ Revision 1.1.1.1  2002/09/13 08:12:55  billhorsman
+ new
+
+ Revision 1.13  2002/08/24 19:57:15  billhorsman
+ checkstyle changes
+
+ Revision 1.12  2002/08/24 19:44:13  billhorsman
+ fixes for logging
+
+ Revision 1.11  2002/07/10 16:14:47  billhorsman
+ widespread layout changes and move constants into ProxoolConstants
+
+ Revision 1.10  2002/07/04 09:05:36  billhorsmaNn
+ Fixes
+
+ Revision 1.9  2002/07/02 11:19:08  billhorsman
+ layout code and imports
+
+ Revision 1.8  2002/07/02 11:14:26  billhorsman
+ added test (andbug fixes) for FileLogger
+
+ Revision 1.7  2002/07/02 08:39:55  billhorsman
+ getConnectionInfos now returns a Collection instead of an array. displayStatistics is
+ now available to ProxoolFacade. Prototyper no longer tries to make connections
+ when maximum is reached (stopping unnecessary log messages). bug fix.
+
+ Revision 1.6  2002/06/28 11:19:47  billhorsman
+ improved doc
+
+*/
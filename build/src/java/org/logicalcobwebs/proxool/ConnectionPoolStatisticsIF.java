@@ -0,0 +1,165 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.util.Date;
+
+/**
+ * This provides real time information about the pool. You can get this from
+ * {@link ProxoolFacade#getConnectionPoolStatistics ProxoolFacade}.
+ *
+ * <pre>
+ * String alias = "myPool";
+ * ConnectionPoolStatisticsIF cps = ProxoolFacade.getConnectionPoolStatistics(alias);
+ * </pre>
+ *
+ * @version $Revision: 1.5 $, $Date: 2003/03/03 11:11:57 $
+ * @author billhorsman
+ * @author $Author: billhorsman $ (current maintainer)
+ */
+public interface ConnectionPoolStatisticsIF {
+
+    /**
+     * The number of connections provided.
+     * @return connectionsServedCount
+     */
+    long getConnectionsServedCount();
+
+    /**
+     * The number of connections refused. Either because there was a problem
+    * connecting to the database, or perhaps because the maximumConnectionCount
+    * was reached.
+     * @return connectionsRefusedCount
+     */
+    long getConnectionsRefusedCount();
+
+    /**
+     * The number of times a request had to wait for a connection because
+     * the maximumConnectionCount was reached (whether or not it got one
+     * in the end).
+     * @return connectionsWaitedCount
+     * @see ConnectionPoolDefinitionIF#getMaximumWaitTime
+     */
+    long getConnectionsWaitedCount();
+
+    /**
+     * The {@link ProxoolFacade#setPriorityClass priority classes} that have a
+     * {@link ConnectionPoolDefinitionIF#getPriorityReserves reserve} or have had
+     * to wait or been refused. Requests that didn't have a class are counted as
+     * {@link ProxoolConstants#DEFAULT_PRIORITY_CLASS default}.
+     * @return priorityClasses, in alphabetical order
+     */
+    String[] getPriorityClasses();
+
+    /**
+     * Like {@link #getConnectionsWaitedCount()} but just for one priority class
+     * @param priorityClass one of the {@link #getPriorityClasses priority classes}
+     * @return connectionsWaitedCount for that class
+     */
+    long getConnectionsWaitedCount(String priorityClass);
+
+    /**
+     * Like {@link #getConnectionsRefusedCount()} but just for one priority class
+     * @param priorityClass one of the {@link #getPriorityClasses priority classes}
+     * @return connectionsRefusedCount for that class
+     */
+    long getConnectionsRefusedCount(String priorityClass);
+
+    /**
+     * The number of requests waiting for a connection right now.
+     * @return waitingCount
+     * @see ConnectionPoolDefinitionIF#getMaximumWaitTime
+     */
+    int getWaitingCount();
+
+    /**
+     * The number of times a statement was prepared and we could give back
+     * one that was cached instead of asking the database.
+     * @return statementCacheHitCount
+     * @see ConnectionPoolDefinitionIF#getStatementCacheSize
+     */
+    long getStatementCacheHitCount();
+
+    /**
+     * The number of times a statement was prepared and there wasn't a cached
+     * one we could use (only counted when the cache is enabled).
+     * @return statementCacheMissCount
+     * @see ConnectionPoolDefinitionIF#getStatementCacheSize
+     */
+    long getStatementCacheMissCount();
+
+    /**
+     * The number of cached statements that were really closed to make room
+     * for others.
+     * @return statementCacheEvictionCount
+     * @see ConnectionPoolDefinitionIF#getStatementCacheSize
+     */
+    long getStatementCacheEvictionCount();
+
+    /**
+     * The number of execute events that the connection listeners never heard about
+     * because the buffer was full.
+     * @return listenerEventsDroppedCount
+     * @see ConnectionPoolDefinitionIF#getAsyncListenerBufferSize
+     */
+    long getListenerEventsDroppedCount();
+
+    /**
+     * The number of connections currently in use.
+     * @return activeConnectionCount
+     */
+    int getActiveConnectionCount();
+
+    /**
+     * The number of connections that are available for use (doesn't include
+    * active connections).
+     * @return availableConnectionCount
+     */
+    int getAvailableConnectionCount();
+
+    /**
+     * The number of connections that are neither active or available. Probably
+     * because the house keeping thread is checking them.
+     * @return offlineConnectionCount
+     */
+    int getOfflineConnectionCount();
+
+    /**
+     * When this pool was started
+     * @return dateStarted
+     */
+    Date getDateStarted();
+
+}
+
+/*
+ Revision history:
+ $Log: ConnectionPoolStatisticsIF.java,v $
+ Revision 1.5  2003/03/03 11:11:57  billhorsman
+ fixed licence
+
+ Revision 1.4  2003/01/15 12:01:21  billhorsman
+ added getDateStarted() plus better doc
+
+ Revision 1.3  2002/12/15 19:21:42  chr32
+ Changed @linkplain to @link (to preserve JavaDoc for 1.2/1.3 users).
+
+ Revision 1.2  2002/10/25 16:00:26  billhorsman
+ added better class javadoc
+
+ Revision 1.1.1.1  2002/09/13 08:13:04  billhorsman
+ new
+
+ Revision 1.6  2002/07/10 16:14:47  billhorsman
+ widespread layout changes and move constants into ProxoolConstants
+
+ Revision 1.5  2002/07/02 11:19:08  billhorsman
+ layout code and imports
+
+ Revision 1.4  2002/06/28 11:19:47  billhorsman
+ improved doc
+
+*/
@@ -0,0 +1,532 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import org.logicalcobwebs.logging.Log;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Responsible for resetting a Connection to its default state when it is
+ * returned to the pool. It must be initialised by the first Connection that
+ * is made (for each pool) so that we don't make any assumptions about
+ * what the default values are.
+ * <p>
+ * The connection keeps track of which properties have been changed (see
+ * {@link AbstractProxyConnection#setChanged}) and only those are reset. If
+ * none were changed then we don't get called at all. We also tell each new
+ * connection's {@link SessionState} what the defaults are, so that it doesn't
+ * have to ask.
+ *
+ * @version $Revision: 1.14 $, $Date: 2003/03/10 23:43:10 $
+ * @author Bill Horsman (bill@logicalcobwebs.co.uk)
+ * @author $Author: billhorsman $ (current maintainer)
+ * @since Proxool 0.5
+ */
+public class ConnectionResetter {
+
+    /**
+     * autoCommit has been changed, or something else has happened (like setting a
+     * savepoint) that means there might be a transaction to roll back.
+     */
+    protected static final int AUTO_COMMIT = 1;
+
+    protected static final int CATALOG = 2;
+
+    protected static final int READ_ONLY = 4;
+
+    protected static final int TRANSACTION_ISOLATION = 8;
+
+    protected static final int TYPE_MAP = 16;
+
+    protected static final int HOLDABILITY = 32;
+
+    protected static final int SCHEMA = 64;
+
+    /**
+     * {@link Connection#beginRequest} and {@link Connection#endRequest} (Java 9 onwards), or null
+     * if there aren't any. They're found by reflection so that we still run on Java 8.
+     */
+    private static final MethodHandle BEGIN_REQUEST = findRequestBoundary("beginRequest");
+
+    private static final MethodHandle END_REQUEST = findRequestBoundary("endRequest");
+
+    private Log log;
+
+    /**
+     * @see #initialise
+     */
+    private volatile boolean initialised;
+
+    /**
+     * Guards {@link #initialise}. It calls the driver whilst it holds it, so we
+     * use a lock rather than a monitor and don't pin virtual threads.
+     */
+    private final ReentrantLock initialiseLock = new ReentrantLock();
+
+    /**
+     * The properties we know how to reset. Once we're {@link #initialise initialised}
+     * it's only the ones that the driver supports.
+     * @see #addReset
+     * @see #reset
+     */
+    private volatile Reset[] resets = new Reset[0];
+
+    /**
+     * What autoCommit was when we {@link #initialise initialised} (or null if we couldn't find out)
+     */
+    private volatile Boolean defaultAutoCommit;
+
+    /**
+     * @see #isRequestBoundariesSupported
+     */
+    private volatile boolean requestBoundariesSupported;
+
+    private String driverName;
+
+    /**
+     * Pass in the log to use
+     * @param log debug information sent here
+     */
+    protected ConnectionResetter(Log log, String driverName) {
+        this.log = log;
+        this.driverName = driverName;
+
+        // Map all the reset methods
+        addReset(CATALOG, "getCatalog", "setCatalog");
+        addReset(READ_ONLY, "isReadOnly", "setReadOnly");
+        addReset(TRANSACTION_ISOLATION, "getTransactionIsolation", "setTransactionIsolation");
+        addReset(TYPE_MAP, "getTypeMap", "setTypeMap");
+        addReset(HOLDABILITY, "getHoldability", "setHoldability");
+        addReset(SCHEMA, "getSchema", "setSchema");
+    }
+
+    /**
+     * Add a pair of methods that need resetting each time a connection is
+     * put back in the pool (if the property has been changed)
+     * @param property the bit that the connection sets when the property is changed (e.g. {@link #CATALOG})
+     * @param accessorName the name of the "getter" method (e.g. getCatalog)
+     * @param mutatorName teh name of the "setter" method (e.g. setCatalog)
+     */
+    private void addReset(int property, String accessorName, String mutatorName) {
+
+        try {
+
+            Method accessor = null;
+            Method mutator = null;
+
+            Method[] methods = Connection.class.getMethods();
+            for (int i = 0; i < methods.length; i++) {
+                Method method = methods[i];
+                if (method.getName().equals(accessorName)) {
+                    if (accessor == null) {
+                        accessor = method;
+                    } else {
+                        log.info("Skipping ambiguous reset method " + accessorName);
+                        return;
+                    }
+                }
+                if (method.getName().equals(mutatorName)) {
+                    if (mutator == null) {
+                        mutator = method;
+                    } else {
+                        log.info("Skipping ambiguous reset method " + mutatorName);
+                        return;
+                    }
+                }
+            }
+
+            if (accessor == null) {
+                log.debug("Ignoring attempt to map reset method " + accessorName + " (probably because it isn't implemented in this JDK)");
+            } else if (mutator == null) {
+                log.debug("Ignoring attempt to map reset method " + mutatorName + " (probably because it isn't implemented in this JDK)");
+            } else if (accessor.getParameterTypes().length > 0) {
+                log.info("Ignoring attempt to map accessor method " + accessorName + ". It must have no arguments.");
+            } else if (mutator.getParameterTypes().length != 1) {
+                log.info("Ignoring attempt to map mutator method " + mutatorName
+                        + ". It must have exactly one argument, not " + mutator.getParameterTypes().length);
+            } else {
+                // Adapt them so that we can call them without knowing the property's type
+                // and without all the checking that Method.invoke does each time.
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Reset reset = new Reset();
+                reset.property = property;
+                reset.mutatorName = mutatorName;
+                reset.accessor = lookup.unreflect(accessor).asType(MethodType.methodType(Object.class, Connection.class));
+                reset.mutator = lookup.unreflect(mutator).asType(MethodType.methodType(void.class, Connection.class, Object.class));
+                Reset[] more = new Reset[resets.length + 1];
+                System.arraycopy(resets, 0, more, 0, resets.length);
+                more[resets.length] = reset;
+                resets = more;
+            }
+        } catch (Exception e) {
+            log.error("Problem mapping " + accessorName + " and " + mutatorName, e);
+        }
+
+    }
+
+    /**
+     * This gets called every time we make a Connection. Not that often
+     * really, so it's ok to synchronize a bit.
+     * @param connection this will be used to get all the default values
+     */
+    protected void initialise(Connection connection) {
+        if (!initialised) {
+            initialiseLock.lock();
+            try {
+                if (!initialised) {
+
+                    List supported = new ArrayList();
+                    for (int i = 0; i < resets.length; i++) {
+                        Reset reset = resets[i];
+                        boolean ok = true;
+                        try {
+                            // It's perfectly ok for the default value to be null
+                            reset.defaultValue = reset.accessor.invokeExact(connection);
+                            if (log.isDebugEnabled()) {
+                                log.debug("Remembering default value: " + reset.mutatorName + "(" + reset.defaultValue + ")");
+                            }
+                        } catch (Throwable t) {
+                            log.debug(driverName + " does not support the accessor for " + reset.mutatorName + ". Proxool doesn't mind.");
+                            ok = false;
+                        }
+
+                        // Just test that the mutator works too. Otherwise it's going to fall over
+                        // everytime we close a connection
+                        if (ok) {
+                            try {
+                                reset.mutator.invokeExact(connection, reset.defaultValue);
+                            } catch (Throwable t) {
+                                log.debug(driverName + " does not support " + reset.mutatorName + ". Proxool doesn't mind.");
+                                ok = false;
+                            }
+                        }
+
+                        if (ok) {
+                            supported.add(reset);
+                        }
+                    }
+
+                    // Forget all the reset methods that we had trouble configuring
+                    resets = (Reset[]) supported.toArray(new Reset[supported.size()]);
+
+                    try {
+                        defaultAutoCommit = Boolean.valueOf(connection.getAutoCommit());
+                    } catch (SQLException e) {
+                        log.debug(driverName + " does not support getAutoCommit. Proxool doesn't mind.");
+                    }
+
+                    requestBoundariesSupported = BEGIN_REQUEST != null && END_REQUEST != null
+                            && isImplemented(connection, "beginRequest") && isImplemented(connection, "endRequest");
+                    if (log.isDebugEnabled()) {
+                        log.debug(driverName + (requestBoundariesSupported ? " implements" : " does not implement") + " request boundaries");
+                    }
+                    initialised = true;
+                }
+            } finally {
+                initialiseLock.unlock();
+            }
+        }
+    }
+
+    private static MethodHandle findRequestBoundary(String methodName) {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Connection.class, methodName, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException e) {
+            // Before Java 9
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Call {@link #BEGIN_REQUEST} or {@link #END_REQUEST}
+     * @throws SQLException if the driver complained
+     */
+    private static void invokeRequestBoundary(MethodHandle requestBoundary, Connection connection) throws SQLException {
+        try {
+            requestBoundary.invokeExact(connection);
+        } catch (SQLException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            SQLException e = new SQLException(t.toString());
+            e.initCause(t);
+            throw e;
+        }
+    }
+
+    /**
+     * @return true if the connection's class has its own version of a method
+     * (rather than the one in {@link Connection}, or none at all before Java 9)
+     */
+    private static boolean isImplemented(Connection connection, String methodName) {
+        try {
+            Connection.class.getMethod(methodName, new Class[0]);
+            return connection.getClass().getMethod(methodName, new Class[0]).getDeclaringClass() != Connection.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Whether the driver does anything with JDBC 4.3 request boundaries. {@link Connection#beginRequest}
+     * and {@link Connection#endRequest} are default methods that do nothing, so we only bother calling
+     * them if the driver implements them. Only call this after we've been {@link #initialise initialised}.
+     * @return true if the driver implements beginRequest and endRequest
+     */
+    protected boolean isRequestBoundariesSupported() {
+        return requestBoundariesSupported;
+    }
+
+    /**
+     * Tell the driver that a connection is about to be given out, if it
+     * {@link #isRequestBoundariesSupported wants to know}
+     * @param connection the connection being given out
+     * @throws SQLException if the driver complained
+     */
+    protected void beginRequest(Connection connection) throws SQLException {
+        if (requestBoundariesSupported) {
+            invokeRequestBoundary(BEGIN_REQUEST, connection);
+        }
+    }
+
+    /**
+     * Tell the driver that a connection has been given back, if it
+     * {@link #isRequestBoundariesSupported wants to know}
+     * @param connection the connection that has been given back
+     * @param id used in log messages
+     * @return true if it was error free, or false if it wasn't (in which case it should probably not be reused)
+     */
+    protected boolean endRequest(Connection connection, String id) {
+        if (requestBoundariesSupported) {
+            try {
+                invokeRequestBoundary(END_REQUEST, connection);
+            } catch (SQLException e) {
+                log.warn(id + " - Problem calling connection.endRequest(). It will not be used again (just in case).", e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tell a new connection's session state what the default values are. Only call
+     * this after we've been {@link #initialise initialised}.
+     * @param sessionState the new connection's session state
+     */
+    protected void seed(SessionState sessionState) {
+        sessionState.set(AUTO_COMMIT, defaultAutoCommit);
+        Reset[] resets = this.resets;
+        for (int i = 0; i < resets.length; i++) {
+            sessionState.set(resets[i].property, resets[i].defaultValue);
+        }
+    }
+
+    /**
+     * Reset this connection to its default values. If anything goes wrong, it is logged
+     * as a warning or info but it silently continues.
+     * @param connection to be reset
+     * @param id used in log messages
+     * @param changedProperties which properties have been changed (e.g. {@link #CATALOG}
+     * | {@link #READ_ONLY}). Only these are reset.
+     * @param sessionState what we know about the connection's session (which we keep up to date)
+     * @return true if the reset was error free, or false if it encountered errors. (in which case it should probably not be reused)
+     */
+    protected boolean reset(Connection connection, String id, int changedProperties, SessionState sessionState) {
+        if (changedProperties == 0) {
+            return true;
+        }
+
+        boolean errorsEncountered = false;
+
+        try {
+            connection.clearWarnings();
+        } catch (SQLException e) {
+            errorsEncountered = true;
+            log.warn(id + " - Problem calling connection.clearWarnings()", e);
+        }
+
+        // Let's see the state of autoCommit. It will help us give better advice in the log messages
+        boolean autoCommit = true;
+        if ((changedProperties & AUTO_COMMIT) != 0) {
+            // If autoCommit was turned off lazily and nothing was executed then the driver never knew
+            sessionState.abandonTransaction();
+            try {
+                autoCommit = sessionState.getAutoCommit();
+            } catch (SQLException e) {
+                errorsEncountered = true;
+                log.warn(id + " - Problem calling connection.getAutoCommit()", e);
+            }
+        }
+
+/*
+         Automatically rollback if autocommit is off. If there are no pending
+         transactions then this will have no effect.
+
+         From Database Language SQL (Proposed revised text of DIS 9075),
+        July 1992 - http://www.contrib.andrew.cmu.edu/~shadow/sql/sql1992.txt
+
+            "The execution of a <rollback statement> may be initiated implicitly by
+            an implementation when it detects unrecoverable errors. When such an
+            error occurs, an exception condition is raised: transaction rollback
+            with an implementation-defined subclass code".
+
+*/
+        if (!autoCommit) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                log.error("Unexpected exception whilst calling rollback during connection reset", e);
+            }
+        }
+
+        // Now let's reset each property that was changed. With a bit of luck, if there is a
+        // transaction pending then setting one of these properties will throw an
+        // exception (e.g. "operation not possible when transaction is in progress"
+        // or something). We want to know about transactions that are pending.
+        // It doesn't seem like a very good idea to close a connection with
+        // pending transactions.
+        Reset[] resets = this.resets;
+        for (int i = 0; i < resets.length; i++) {
+            Reset reset = resets[i];
+            if ((changedProperties & reset.property) != 0 && !sessionState.is(reset.property, reset.defaultValue)) {
+                try {
+                    reset.mutator.invokeExact(connection, reset.defaultValue);
+                    sessionState.set(reset.property, reset.defaultValue);
+                    if (log.isDebugEnabled()) {
+                        log.debug(id + " - Reset: " + reset.mutatorName + "(" + reset.defaultValue + ")");
+                    }
+                } catch (Throwable t) {
+                    errorsEncountered = true;
+                    if (log.isDebugEnabled()) {
+                        log.debug(id + " - Problem resetting: " + reset.mutatorName + "(" + reset.defaultValue + ").", t);
+                    }
+                }
+            }
+        }
+
+        // Finally. reset autoCommit.
+        if (!autoCommit) {
+            try {
+                // Setting autoCommit to true might well commit all pending
+                // transactions. But that's beyond our control.
+                sessionState.setAutoCommit(true);
+                log.debug(id + " - autoCommit reset back to true");
+            } catch (Throwable t) {
+                errorsEncountered = true;
+                log.warn(id + " - Problem calling connection.commit() or connection.setAutoCommit(true)", t);
+            }
+        }
+
+        if (errorsEncountered) {
+
+            log.warn(id + " - There were some problems resetting the connection (see debug output for details). It will not be used again "
+                    + "(just in case). The thread that is responsible is named '" + Thread.currentThread().getName() + "'");
+            if (!autoCommit) {
+                log.warn(id + " - The connection was closed with autoCommit=false. That is fine, but it might indicate that "
+                        + "the problems that happened whilst trying to reset it were because a transaction is still in progress.");
+            }
+        }
+
+        return !errorsEncountered;
+    }
+
+    /**
+     * A property we know how to reset
+     */
+    private static class Reset {
+
+        /** @see #addReset */
+        private int property;
+
+        private String mutatorName;
+
+        /** (Connection) returns Object */
+        private MethodHandle accessor;
+
+        /** (Connection, Object) returns void */
+        private MethodHandle mutator;
+
+        /** What the property was when we {@link #initialise initialised} */
+        private Object defaultValue;
+    }
+
+}
+
+/*
+ Revision history:
+ $Log: ConnectionResetter.java,v $
+ Revision 1.14  2003/03/10 23:43:10  billhorsman
+ reapplied checkstyle that i'd inadvertently let
+ IntelliJ change...
+
+ Revision 1.13  2003/03/10 15:26:46  billhorsman
+ refactoringn of concurrency stuff (and some import
+ optimisation)
+
+ Revision 1.12  2003/03/03 11:11:57  billhorsman
+ fixed licence
+
+ Revision 1.11  2003/02/06 17:41:04  billhorsman
+ now uses imported logging
+
+ Revision 1.10  2003/01/07 17:21:11  billhorsman
+ If autoCommit is off, all connections are rollbacked.
+
+ Revision 1.9  2002/11/13 20:53:16  billhorsman
+ now checks to see whether is necessary for each property (better logging)
+
+ Revision 1.8  2002/11/13 18:27:59  billhorsman
+ rethink. committing automatically is bad. so now we just
+ set autoCommit back to true (which might commit anyway but
+ that's down to the driver). we do the autoCommit last so
+ that some of the other resets might throw an exception if
+ there was a pending transaction. (Throwing an exception is
+ good - pending transactions are bad.)
+
+ Revision 1.7  2002/11/12 21:12:21  billhorsman
+ automatically calls clearWarnings too
+
+ Revision 1.6  2002/11/12 21:10:41  billhorsman
+ Hmm. Now commits any pending transactions automatically when
+ you close the connection. I'm still pondering whether this is
+ wise or not. The only other sensible option is to rollback
+ since I can't find a way of determining whether either is
+ necessary.
+
+ Revision 1.5  2002/11/12 20:24:12  billhorsman
+ checkstyle
+
+ Revision 1.4  2002/11/12 20:18:23  billhorsman
+ Made connection resetter a bit more friendly. Now, if it encounters any problems during
+ reset then that connection is thrown away. This is going to cause you problems if you
+ always close connections in an unstable state (e.g. with transactions open. But then
+ again, it's better to know about that as soon as possible, right?
+
+ Revision 1.3  2002/11/07 18:55:40  billhorsman
+ demoted log message from info to debug
+
+ Revision 1.2  2002/11/07 12:38:04  billhorsman
+ performance improvement - only reset when it might be necessary
+
+ Revision 1.1  2002/11/06 20:25:08  billhorsman
+ New class responsible for resetting connections when
+ they are returned to the pool.
+
+*/
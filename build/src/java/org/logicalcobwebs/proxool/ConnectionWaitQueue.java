@@ -0,0 +1,287 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The threads that are waiting for a connection because the pool has
+ * reached its {@link ConnectionPoolDefinitionIF#getMaximumConnectionCount maximum}
+ * and none are available. It's fair: when a connection is returned it is
+ * {@link #handOff handed} straight to the thread that has been waiting
+ * longest, so it never becomes available for a newcomer to grab. The only
+ * exception is a waiter that has to leave some connections
+ * {@link ConnectionPoolDefinitionIF#getPriorityReserves in reserve}: it is
+ * skipped whilst taking one would eat into that reserve.
+ *
+ * @see ConnectionPoolDefinitionIF#getMaximumWaitTime
+ */
+class ConnectionWaitQueue {
+
+    /** Oldest first */
+    private ConcurrentLinkedQueue waiters = new ConcurrentLinkedQueue();
+
+    private AtomicInteger waitingCount = new AtomicInteger();
+
+    private ConnectionPool connectionPool;
+
+    /**
+     * @param connectionPool so we know how many connections are
+     * {@link ConnectionPool#getFreeConnectionCount free}
+     */
+    protected ConnectionWaitQueue(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Join the back of the queue. You must {@link #leave leave} the queue
+     * again when you are finished, whatever happens.
+     * @return the waiter representing the current thread
+     */
+    protected Waiter join() {
+        return join(new Waiter());
+    }
+
+    /**
+     * Join the back of the queue with a waiter of your own (one that doesn't
+     * {@link Waiter#park park} a thread, for instance).
+     * @param waiter the waiter to add
+     * @return the waiter
+     */
+    protected Waiter join(Waiter waiter) {
+        waitingCount.incrementAndGet();
+        waiters.add(waiter);
+        return waiter;
+    }
+
+    /**
+     * Stop waiting.
+     * @param waiter the one that {@link #join joined} the queue
+     * @return a connection that was handed to the waiter before it left
+     * (it's {@link ConnectionInfoIF#STATUS_ACTIVE active} and it's yours now), or
+     * null if nothing was handed over
+     */
+    protected ProxyConnectionIF leave(Waiter waiter) {
+        ProxyConnectionIF proxyConnection = waiter.leave();
+        waiters.remove(waiter);
+        waitingCount.decrementAndGet();
+        return proxyConnection;
+    }
+
+    /**
+     * Give an {@link ConnectionInfoIF#STATUS_ACTIVE active} connection to the
+     * thread that has been waiting longest.
+     * @param proxyConnection the connection being returned
+     * @return true if somebody took it, or false if nobody is waiting (in which
+     * case it is still yours)
+     */
+    protected boolean handOff(ProxyConnectionIF proxyConnection) {
+        // It's still active so handing it over doesn't change how many are free
+        int freeCount = -1;
+        Iterator i = waiters.iterator();
+        while (i.hasNext()) {
+            Waiter waiter = (Waiter) i.next();
+            if (waiter.reserve > 0) {
+                if (freeCount < 0) {
+                    freeCount = connectionPool.getFreeConnectionCount();
+                }
+                if (waiter.reserve > freeCount) {
+                    continue;
+                }
+            }
+            // Whether we manage to give it to them or they've already left, they're done waiting
+            i.remove();
+            if (waiter.offer(proxyConnection)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ask the oldest waiter to look at the pool again. Call this whenever a
+     * connection becomes available without being {@link #handOff handed off},
+     * or when a connection is removed and there is room to build another.
+     */
+    protected void wakeOldest() {
+        // Whoever we wake will take one more, so there'll be one less free
+        int freeCount = -1;
+        Iterator i = waiters.iterator();
+        while (i.hasNext()) {
+            Waiter waiter = (Waiter) i.next();
+            if (waiter.reserve > 0) {
+                if (freeCount < 0) {
+                    freeCount = connectionPool.getFreeConnectionCount() - 1;
+                }
+                if (waiter.reserve > freeCount) {
+                    continue;
+                }
+            }
+            if (waiter.wake()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Ask one particular waiter to look at the pool again (for instance, because
+     * the connection that was being built for it is finished).
+     * @param waiter the waiter to wake
+     */
+    protected void wake(Waiter waiter) {
+        waiter.wake();
+    }
+
+    /**
+     * Ask every waiter to look at the pool again (for instance, because it
+     * is being shutdown).
+     */
+    protected void wakeAll() {
+        Iterator i = waiters.iterator();
+        while (i.hasNext()) {
+            ((Waiter) i.next()).wake();
+        }
+    }
+
+    /**
+     * @return the number of threads waiting right now
+     */
+    protected int getWaitingCount() {
+        return waitingCount.get();
+    }
+
+    /**
+     * @return true if nobody is waiting
+     */
+    protected boolean isEmpty() {
+        return waitingCount.get() == 0;
+    }
+
+    /**
+     * One thread waiting for a connection. Subclasses can override {@link #wakeUp}
+     * if they don't want to park a thread.
+     */
+    static class Waiter {
+
+        private static final int WAITING = 0;
+
+        private static final int SERVED = 1;
+
+        private static final int LEFT = 2;
+
+        /** The longest we park for in one go (milliseconds) so that the nanoseconds don't overflow */
+        private static final long MAXIMUM_PARK = 60000;
+
+        private Thread thread = Thread.currentThread();
+
+        /**
+         * How many connections must still be free after we take one
+         * @see ConnectionPoolDefinitionIF#getPriorityReserves
+         */
+        private int reserve;
+
+        private AtomicInteger state = new AtomicInteger(WAITING);
+
+        /** Only read once we are {@link #SERVED} */
+        private volatile ProxyConnectionIF proxyConnection;
+
+        /**
+         * Set when we're {@link #wake woken} and cleared by {@link #beforeCheck}, so a
+         * wake-up that arrives between looking at the pool and parking isn't lost
+         */
+        private volatile boolean woken;
+
+        protected Waiter() {
+        }
+
+        /**
+         * @param reserve how many connections must still be free after we take one
+         * (see {@link ConnectionPoolDefinitionIF#getPriorityReserves})
+         */
+        protected Waiter(int reserve) {
+            this.reserve = reserve;
+        }
+
+        /**
+         * Call this just before looking at the pool again. Anything that wakes us
+         * after this makes the next {@link #park} return straight away, even if it
+         * happens before we get there.
+         */
+        protected void beforeCheck() {
+            woken = false;
+        }
+
+        /**
+         * Park the current thread until a connection is handed over, we are
+         * {@link ConnectionWaitQueue#wakeOldest woken} (since {@link #beforeCheck}),
+         * or the deadline passes.
+         * @param deadline when to give up (milliseconds since midnight, January 1, 1970 UTC)
+         * @return false if the deadline has passed
+         * @throws InterruptedException if the thread was interrupted whilst waiting
+         */
+        protected boolean park(long deadline) throws InterruptedException {
+            while (state.get() == WAITING && !woken) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, Math.min(remaining, MAXIMUM_PARK) * 1000000L);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return true if a connection has been handed to us
+         */
+        protected boolean isServed() {
+            return state.get() == SERVED;
+        }
+
+        /**
+         * Something has happened that this waiter should know about: either a
+         * connection has been handed over or it's worth looking at the pool again.
+         * By default, this unparks the thread that created the waiter.
+         */
+        protected void wakeUp() {
+            LockSupport.unpark(thread);
+        }
+
+        private boolean offer(ProxyConnectionIF proxyConnection) {
+            this.proxyConnection = proxyConnection;
+            if (state.compareAndSet(WAITING, SERVED)) {
+                wakeUp();
+                return true;
+            } else {
+                this.proxyConnection = null;
+                return false;
+            }
+        }
+
+        private boolean wake() {
+            if (state.get() == WAITING) {
+                woken = true;
+                wakeUp();
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        private ProxyConnectionIF leave() {
+            if (state.compareAndSet(WAITING, LEFT)) {
+                return null;
+            } else {
+                return proxyConnection;
+            }
+        }
+    }
+}
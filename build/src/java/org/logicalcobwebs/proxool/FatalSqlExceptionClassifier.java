@@ -0,0 +1,360 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import org.logicalcobwebs.logging.Log;
+import org.logicalcobwebs.logging.LogFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Decides whether an exception is fatal, according to the rules in a definition:
+ * <ul>
+ * <li>{@link ConnectionPoolDefinitionIF#getFatalSqlExceptions fragments} of the message</li>
+ * <li>{@link ConnectionPoolDefinitionIF#getFatalSqlStates SQLStates}, complete or the start of one</li>
+ * <li>{@link ConnectionPoolDefinitionIF#getFatalSqlExceptionTypes types} of exception</li>
+ * </ul>
+ * The exception and up to {@link #MAXIMUM_DEPTH 20} levels of its causes are tested.
+ * It also decides which fatal exceptions mean that the database has
+ * {@link ConnectionPoolDefinitionIF#getFailoverSqlStates failed over}.
+ * <p>
+ * It's built once for each version of the definition and never changes afterwards, so
+ * it can be used by any number of threads. The message fragments are compiled into an
+ * Aho-Corasick automaton so that we look at each character of a message once, however
+ * many fragments there are, rather than searching it for each fragment in turn.
+ *
+ * @see FatalSqlExceptionHelper#testException
+ * @see ConnectionPoolDefinition#getFatalSqlExceptionClassifier
+ */
+class FatalSqlExceptionClassifier {
+
+    private static final Log LOG = LogFactory.getLog(FatalSqlExceptionClassifier.class);
+
+    /** How many levels of cause we drill down into */
+    private static final int MAXIMUM_DEPTH = 20;
+
+    /** Characters below this get their column from a table rather than a search */
+    private static final int ASCII = 128;
+
+    /** True if there are no rules at all, so nothing is fatal */
+    private boolean empty;
+
+    /** True if one of the fragments is empty (which is in every message) */
+    private boolean matchesEveryMessage;
+
+    /** Every character that appears in a fragment, sorted */
+    private char[] alphabet;
+
+    /** The column for each ASCII character, or -1 if it isn't in any fragment */
+    private int[] asciiColumns = new int[ASCII];
+
+    /**
+     * The next state for each state and column. A state is the offset of its row
+     * (its number times alphabet.length) so we don't have to multiply as we go.
+     */
+    private int[] transitions;
+
+    /** Whether reaching each state means we've found one of the fragments, by row offset */
+    private boolean[] matches;
+
+    private SqlStateRules fatalStates;
+
+    private SqlStateRules failoverStates;
+
+    private Class[] types;
+
+    /**
+     * @param definition where to find the rules
+     */
+    protected FatalSqlExceptionClassifier(ConnectionPoolDefinitionIF definition) {
+        compileFragments(definition.getFatalSqlExceptions());
+        fatalStates = new SqlStateRules(definition.getFatalSqlStates());
+        failoverStates = new SqlStateRules(definition.getFailoverSqlStates());
+        compileTypes(definition.getFatalSqlExceptionTypes(), definition.getAlias());
+        empty = transitions == null && !matchesEveryMessage && fatalStates.isEmpty()
+                && failoverStates.isEmpty() && types.length == 0;
+    }
+
+    /**
+     * Test an exception and its causes
+     * @param t the exception to test
+     * @return true if it is fatal
+     */
+    protected boolean isFatal(Throwable t) {
+        if (empty) {
+            return false;
+        }
+        for (int level = 0; t != null && level <= MAXIMUM_DEPTH; level++) {
+            if (isFatalItself(t)) {
+                return true;
+            }
+            Throwable cause = FatalSqlExceptionHelper.getCause(t);
+            if (cause == t) {
+                break;
+            }
+            t = cause;
+        }
+        return false;
+    }
+
+    /**
+     * Test whether a fatal exception (or one of its causes) has one of the
+     * {@link ConnectionPoolDefinitionIF#getFailoverSqlStates failover SQLStates}
+     * @param t the exception to test
+     * @return true if all the connections made before it are probably dead too
+     */
+    protected boolean isFailover(Throwable t) {
+        if (failoverStates.isEmpty()) {
+            return false;
+        }
+        for (int level = 0; t != null && level <= MAXIMUM_DEPTH; level++) {
+            if (t instanceof SQLException && failoverStates.matches(((SQLException) t).getSQLState())) {
+                return true;
+            }
+            Throwable cause = FatalSqlExceptionHelper.getCause(t);
+            if (cause == t) {
+                break;
+            }
+            t = cause;
+        }
+        return false;
+    }
+
+    /**
+     * Test an exception, ignoring its causes
+     */
+    private boolean isFatalItself(Throwable t) {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].isInstance(t)) {
+                return true;
+            }
+        }
+        if (t instanceof SQLException) {
+            String sqlState = ((SQLException) t).getSQLState();
+            if (fatalStates.matches(sqlState) || failoverStates.matches(sqlState)) {
+                return true;
+            }
+        }
+        if (matchesEveryMessage || transitions != null) {
+            String message = t.getMessage();
+            if (message != null) {
+                return matchesEveryMessage || containsFragment(message);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Run the automaton over a message
+     * @return true if it contains any of the fragments
+     */
+    private boolean containsFragment(String message) {
+        int[] transitions = this.transitions;
+        boolean[] matches = this.matches;
+        int state = 0;
+        int length = message.length();
+        for (int i = 0; i < length; i++) {
+            int column = getColumn(message.charAt(i));
+            if (column < 0) {
+                // No fragment contains this character, so we have to start again
+                state = 0;
+            } else {
+                state = transitions[state + column];
+                if (matches[state]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int getColumn(char c) {
+        if (c < ASCII) {
+            return asciiColumns[c];
+        }
+        int column = Arrays.binarySearch(alphabet, c);
+        return column >= 0 ? column : -1;
+    }
+
+    /**
+     * Build the Aho-Corasick automaton. First we build a trie of the fragments,
+     * then we go through it breadth first, filling in the transitions that are
+     * missing from each state with the ones from its failure state (the state
+     * for the longest proper suffix of it that is also in the trie). That turns
+     * it into a DFA, so matching never has to follow failure links.
+     */
+    private void compileFragments(Set fragments) {
+        Set characters = new TreeSet();
+        int maximumStates = 1;
+        Iterator i = fragments.iterator();
+        while (i.hasNext()) {
+            String fragment = (String) i.next();
+            if (fragment.length() == 0) {
+                matchesEveryMessage = true;
+            }
+            for (int j = 0; j < fragment.length(); j++) {
+                characters.add(Character.valueOf(fragment.charAt(j)));
+            }
+            maximumStates += fragment.length();
+        }
+        alphabet = new char[characters.size()];
+        Arrays.fill(asciiColumns, -1);
+        int column = 0;
+        i = characters.iterator();
+        while (i.hasNext()) {
+            char c = ((Character) i.next()).charValue();
+            alphabet[column] = c;
+            if (c < ASCII) {
+                asciiColumns[c] = column;
+            }
+            column++;
+        }
+        if (matchesEveryMessage || alphabet.length == 0) {
+            return;
+        }
+
+        // The trie. A transition of -1 means there isn't one (yet).
+        int columnCount = alphabet.length;
+        int[] table = new int[maximumStates * columnCount];
+        Arrays.fill(table, -1);
+        boolean[] accepting = new boolean[maximumStates];
+        int stateCount = 1;
+        i = fragments.iterator();
+        while (i.hasNext()) {
+            String fragment = (String) i.next();
+            int state = 0;
+            for (int j = 0; j < fragment.length(); j++) {
+                int index = state * columnCount + getColumn(fragment.charAt(j));
+                if (table[index] < 0) {
+                    table[index] = stateCount++;
+                }
+                state = table[index];
+            }
+            accepting[state] = true;
+        }
+
+        // The failure links, turned into transitions
+        int[] failure = new int[stateCount];
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        for (int c = 0; c < columnCount; c++) {
+            int child = table[c];
+            if (child < 0) {
+                table[c] = 0;
+            } else {
+                failure[child] = 0;
+                queue[tail++] = child;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            // Anything that ends in a fragment contains it
+            accepting[state] = accepting[state] || accepting[failure[state]];
+            for (int c = 0; c < columnCount; c++) {
+                int index = state * columnCount + c;
+                int fallback = table[failure[state] * columnCount + c];
+                if (table[index] < 0) {
+                    table[index] = fallback;
+                } else {
+                    failure[table[index]] = fallback;
+                    queue[tail++] = table[index];
+                }
+            }
+        }
+
+        transitions = new int[stateCount * columnCount];
+        matches = new boolean[stateCount * columnCount];
+        for (int state = 0; state < stateCount; state++) {
+            for (int c = 0; c < columnCount; c++) {
+                transitions[state * columnCount + c] = table[state * columnCount + c] * columnCount;
+            }
+            matches[state * columnCount] = accepting[state];
+        }
+    }
+
+    private void compileTypes(Set typeNames, String alias) {
+        List classes = new ArrayList();
+        Iterator i = typeNames.iterator();
+        while (i.hasNext()) {
+            String typeName = (String) i.next();
+            Class type = null;
+            try {
+                type = Class.forName(typeName);
+            } catch (ClassNotFoundException e) {
+                ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+                if (contextClassLoader != null) {
+                    try {
+                        type = Class.forName(typeName, false, contextClassLoader);
+                    } catch (ClassNotFoundException e2) {
+                        // Logged below
+                    }
+                }
+            }
+            if (type == null) {
+                LOG.warn(alias + ": couldn't find fatal exception type " + typeName + " so it will be ignored");
+            } else if (!Throwable.class.isAssignableFrom(type)) {
+                LOG.warn(alias + ": ignoring fatal exception type " + typeName + " because it isn't a Throwable");
+            } else {
+                classes.add(type);
+            }
+        }
+        types = (Class[]) classes.toArray(new Class[classes.size()]);
+    }
+
+    /**
+     * A list of SQLStates, each either complete (e.g. 08S01) or the start of one
+     * followed by an asterisk (e.g. 08*)
+     */
+    private static class SqlStateRules {
+
+        private Set exactStates = new HashSet();
+
+        /** The SQLStates that end with an asterisk, without it */
+        private String[] prefixes;
+
+        SqlStateRules(Set states) {
+            List prefixList = new ArrayList();
+            Iterator i = states.iterator();
+            while (i.hasNext()) {
+                String state = (String) i.next();
+                if (state.endsWith("*")) {
+                    prefixList.add(state.substring(0, state.length() - 1));
+                } else if (state.length() > 0) {
+                    exactStates.add(state);
+                }
+            }
+            prefixes = (String[]) prefixList.toArray(new String[prefixList.size()]);
+        }
+
+        boolean isEmpty() {
+            return exactStates.isEmpty() && prefixes.length == 0;
+        }
+
+        boolean matches(String sqlState) {
+            if (sqlState == null) {
+                return false;
+            }
+            if (exactStates.size() > 0 && exactStates.contains(sqlState)) {
+                return true;
+            }
+            for (int i = 0; i < prefixes.length; i++) {
+                if (sqlState.startsWith(prefixes[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
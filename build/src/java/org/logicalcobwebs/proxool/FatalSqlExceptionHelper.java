@@ -0,0 +1,230 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import org.logicalcobwebs.logging.Log;
+import org.logicalcobwebs.logging.LogFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Will wrap up exceptions in another exception which can be defined at runtime.
+ * @version $Revision: 1.3 $, $Date: 2003/09/30 18:39:08 $
+ * @author billhorsman
+ * @author $Author: billhorsman $ (current maintainer)
+ */
+class FatalSqlExceptionHelper {
+
+    private static final Log LOG = LogFactory.getLog(FatalSqlExceptionHelper.class);
+
+    /** The constructor of each wrapper class, as (Throwable)Object */
+    private static Map wrapperConstructors = new ConcurrentHashMap();
+
+    /** The accessors to try, after getCause(), for each class of exception */
+    private static final ClassValue CAUSE_ACCESSORS = new ClassValue() {
+        protected Object computeValue(Class type) {
+            return findCauseAccessors(type);
+        }
+    };
+
+    private static final String[] CAUSE_ACCESSOR_NAMES = {"getTargetException", "getRootCause", "getOriginalException"};
+
+    /**
+     * Throws a wrapped SQLException if a wrapper is defined
+     * @param className the classname of the wrapping exception (must be either a RuntimeException or
+     * an SQLException). If null, then the original exception is rethrown.
+     * @param originalException the orginal exception
+     * @throws ProxoolException if there is an unexpected error with wrapping the exception
+     * @throws SQLException either the original exception, or a wrapped version of it
+     * @throws RuntimeException a wrapped up version of the orginal
+     */
+    protected static void throwFatalSQLException(String className, Throwable originalException) throws ProxoolException, SQLException, RuntimeException {
+        if (className != null && className.trim().length() > 0) {
+            MethodHandle constructor = getWrapperConstructor(className);
+            Object exceptionToThrow = null;
+            try {
+                exceptionToThrow = (Object) constructor.invokeExact(originalException);
+            } catch (Throwable e) {
+                throw new ProxoolException("Couldn't create " + className, e);
+            }
+            if (exceptionToThrow instanceof RuntimeException) {
+                LOG.debug("Wrapping up a fatal exception: " + originalException.getMessage(), originalException);
+                throw (RuntimeException) exceptionToThrow;
+            } else {
+                throw (SQLException) exceptionToThrow;
+            }
+        } else {
+            if (originalException instanceof SQLException) {
+                throw (SQLException) originalException;
+            } else if (originalException instanceof RuntimeException) {
+                throw (RuntimeException) originalException;
+            } else {
+                throw new RuntimeException("Unexpected exception:" + originalException.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Find the constructor of a wrapper class the first time we need it. We prefer one that
+     * takes the original exception, otherwise we use one that takes nothing.
+     * @param className the classname of the wrapping exception
+     * @return the constructor, as (Throwable)Object
+     * @throws ProxoolException if we can't use the class
+     */
+    private static MethodHandle getWrapperConstructor(String className) throws ProxoolException {
+        MethodHandle constructor = (MethodHandle) wrapperConstructors.get(className);
+        if (constructor != null) {
+            return constructor;
+        }
+        Class clazz = null;
+        try {
+            clazz = Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new ProxoolException("Couldn't find class " + className);
+        }
+        if (SQLException.class.isAssignableFrom(clazz)) {
+            // That's OK
+        } else if (RuntimeException.class.isAssignableFrom(clazz)) {
+            // That's OK
+        } else {
+            throw new ProxoolException("Couldn't wrap up using " + clazz.getName() + " because it isn't either a RuntimeException or an SQLException");
+        }
+        Constructor toUse = null;
+        Constructor[] constructors = clazz.getConstructors();
+        for (int i = 0; i < constructors.length; i++) {
+            Constructor candidate = constructors[i];
+            Class[] parameterTypes = candidate.getParameterTypes();
+            if (toUse == null && parameterTypes.length == 0) {
+                toUse = candidate;
+            }
+            if (parameterTypes.length == 1 && Exception.class.isAssignableFrom(parameterTypes[0])) {
+                toUse = candidate;
+                break;
+            }
+        }
+        if (toUse == null) {
+            throw new ProxoolException("Couldn't wrap up using " + clazz.getName() + " because it doesn't have a public constructor that takes either nothing or an Exception");
+        }
+        try {
+            constructor = MethodHandles.publicLookup().unreflectConstructor(toUse);
+        } catch (IllegalAccessException e) {
+            throw new ProxoolException("Couldn't create " + clazz.getName(), e);
+        }
+        if (toUse.getParameterTypes().length == 0) {
+            constructor = MethodHandles.dropArguments(constructor, 0, new Class[] {Throwable.class});
+        }
+        constructor = constructor.asType(MethodType.methodType(Object.class, Throwable.class));
+        wrapperConstructors.put(className, constructor);
+        return constructor;
+    }
+
+    /**
+     * Like {@link #throwFatalSQLException(String, Throwable)} but for callers that can only
+     * throw SQLExceptions. If we can't use the wrapper then the original exception is thrown.
+     * @param className the classname of the wrapping exception (must be either a RuntimeException or
+     * an SQLException). If null, then the original exception is rethrown.
+     * @param originalException the orginal exception
+     * @throws SQLException either the original exception, or a wrapped version of it
+     * @throws RuntimeException a wrapped up version of the orginal
+     */
+    protected static void rethrowFatalSQLException(String className, SQLException originalException) throws SQLException, RuntimeException {
+        try {
+            throwFatalSQLException(className, originalException);
+        } catch (ProxoolException e) {
+            LOG.error("Couldn't wrap up fatal exception so throwing the original", e);
+            throw originalException;
+        }
+    }
+
+    /**
+     * Test to see if an exception is a fatal one
+     * @param cpd the definition so we can find out what a fatal exception looks like
+     * @param t the exception to test
+     * @return true if it is fatal
+     * @see FatalSqlExceptionClassifier
+     */
+    protected static boolean testException(ConnectionPoolDefinitionIF cpd, Throwable t) {
+        FatalSqlExceptionClassifier classifier = null;
+        if (cpd instanceof ConnectionPoolDefinition) {
+            classifier = ((ConnectionPoolDefinition) cpd).getFatalSqlExceptionClassifier();
+        } else {
+            classifier = new FatalSqlExceptionClassifier(cpd);
+        }
+        return classifier.isFatal(t);
+    }
+
+    /**
+     * Tries to drill down into an exception to find its cause. Only goes one level deep.
+     * Uses getCause() and, if that doesn't find anything, any getTargetException(),
+     * getRootCause() or getOriginalException() methods it has (which we only look for
+     * once for each class). Doesn't throw an error - it will just log a warning and
+     * return a null if nothing was found.
+     * @param t the exception to look inside
+     * @return the original exception or null if none was found.
+     */
+    protected static Throwable getCause(Throwable t) {
+        Throwable cause = t.getCause();
+        if (cause == null) {
+            MethodHandle[] accessors = (MethodHandle[]) CAUSE_ACCESSORS.get(t.getClass());
+            for (int i = 0; i < accessors.length && cause == null; i++) {
+                try {
+                    cause = (Throwable) accessors[i].invokeExact(t);
+                } catch (Throwable e) {
+                    LOG.warn("Problem invoking " + accessors[i] + " on " + t.getClass().getName() + ". Ignoring.", e);
+                }
+            }
+        }
+        return cause;
+    }
+
+    /**
+     * Find the public, no argument methods of an exception class that we should
+     * try if {@link Throwable#getCause} doesn't find anything.
+     * @param type the class of exception
+     * @return the methods, as (Throwable)Throwable
+     */
+    private static MethodHandle[] findCauseAccessors(Class type) {
+        List accessors = new ArrayList();
+        for (int i = 0; i < CAUSE_ACCESSOR_NAMES.length; i++) {
+            try {
+                Method m = type.getMethod(CAUSE_ACCESSOR_NAMES[i], new Class[0]);
+                // Reject any method that doesn't return a throwable.
+                if (Throwable.class.isAssignableFrom(m.getReturnType())) {
+                    accessors.add(MethodHandles.publicLookup().unreflect(m)
+                            .asType(MethodType.methodType(Throwable.class, Throwable.class)));
+                }
+            } catch (NoSuchMethodException e) {
+                // That's OK
+            } catch (IllegalAccessException e) {
+                LOG.debug("Can't use " + type.getName() + "." + CAUSE_ACCESSOR_NAMES[i], e);
+            } catch (SecurityException e) {
+                LOG.warn("Problem finding method " + CAUSE_ACCESSOR_NAMES[i], e);
+            }
+        }
+        return (MethodHandle[]) accessors.toArray(new MethodHandle[accessors.size()]);
+    }
+
+}
+
+/*
+ Revision history:
+ $Log: FatalSqlExceptionHelper.java,v $
+ Revision 1.3  2003/09/30 18:39:08  billhorsman
+ New test-before-use, test-after-use and fatal-sql-exception-wrapper-class properties.
+
+ Revision 1.2  2003/09/29 18:12:33  billhorsman
+ Doc
+
+*/
\ No newline at end of file
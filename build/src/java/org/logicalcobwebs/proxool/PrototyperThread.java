@@ -0,0 +1,119 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import org.logicalcobwebs.logging.Log;
+import org.logicalcobwebs.logging.LogFactory;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Responsible for running {@link Prototyper#sweep sweep}. There
+ * could be just one of the objects, or more.
+ * @version $Revision: 1.4 $, $Date: 2003/04/10 08:23:55 $
+ * @author bill
+ * @author $Author: billhorsman $ (current maintainer)
+ * @since Proxool 0.8
+ */
+public class PrototyperThread extends Thread {
+
+    private static final ThreadGroup PROTOTYPER_THREAD_GROUP = new ThreadGroup("PROTOTYPER_THREAD_GROUP");
+
+    private static final Log LOG = LogFactory.getLog(PrototyperThread.class);
+
+    /**
+     * We wait on a lock rather than a monitor so that a virtual thread
+     * that {@link #doNotify wakes us} is never pinned to its carrier.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition sweepRequested = lock.newCondition();
+
+    public PrototyperThread(String name) {
+        super(PROTOTYPER_THREAD_GROUP, name);
+        setDaemon(true);
+    }
+
+    public void run() {
+
+        while (true) {
+            int sweptCount = 0;
+            while (PrototyperController.isKeepSweeping()) {
+                PrototyperController.sweepStarted();
+                ConnectionPool[] cps = ConnectionPoolManager.getInstance().getConnectionPools();
+                for (int i = 0; i < cps.length; i++) {
+                    Prototyper p = cps[i].getPrototyper();
+                    try {
+                        cps[i].acquirePrimaryReadLock();
+                    } catch (InterruptedException e) {
+                        LOG.error("Couldn't acquire primary read lock", e);
+                        continue;
+                    }
+                    try {
+                        if (cps[i].isConnectionPoolUp() && p.isSweepNeeded()) {
+                            p.sweep();
+                            sweptCount++;
+                        }
+                    } finally {
+                        cps[i].releasePrimaryReadLock();
+                    }
+                }
+            }
+//            if (LOG.isDebugEnabled()) {
+//                LOG.debug("Swept " + sweptCount + " pools");
+//            }
+
+            doWait();
+        }
+    }
+
+    private void doWait() {
+        lock.lock();
+        try {
+            // Somebody might have asked for another sweep whilst we were busy
+            if (!PrototyperController.isKeepSweeping()) {
+                sweepRequested.await();
+            }
+        } catch (InterruptedException e) {
+            LOG.debug("Expected interruption of sleep");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected void doNotify() {
+        lock.lock();
+        try {
+            sweepRequested.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
+
+
+/*
+ Revision history:
+ $Log: PrototyperThread.java,v $
+ Revision 1.4  2003/04/10 08:23:55  billhorsman
+ removed very frequent debug
+
+ Revision 1.3  2003/03/10 23:43:12  billhorsman
+ reapplied checkstyle that i'd inadvertently let
+ IntelliJ change...
+
+ Revision 1.2  2003/03/10 15:26:48  billhorsman
+ refactoringn of concurrency stuff (and some import
+ optimisation)
+
+ Revision 1.1  2003/03/05 18:42:33  billhorsman
+ big refactor of prototyping and house keeping to
+ drastically reduce the number of threads when using
+ many pools
+
+ */
\ No newline at end of file
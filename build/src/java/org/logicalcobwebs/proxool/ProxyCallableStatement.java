@@ -0,0 +1,1023 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * A {@link ProxyStatement} for CallableStatements.
+ *
+ * @see ProxyFactory#createProxyStatement
+ */
+class ProxyCallableStatement extends ProxyPreparedStatement implements CallableStatement {
+
+    private CallableStatement callableStatement;
+
+    public ProxyCallableStatement(CallableStatement callableStatement, ConnectionPool connectionPool, ProxyConnectionIF proxyConnection, String sqlStatement) {
+        super(callableStatement, connectionPool, proxyConnection, sqlStatement);
+        this.callableStatement = callableStatement;
+    }
+
+    /**
+     * @see ProxyPreparedStatement#setPreparedStatement
+     */
+    protected void setPreparedStatement(PreparedStatement preparedStatement) {
+        super.setPreparedStatement(preparedStatement);
+        this.callableStatement = (CallableStatement) preparedStatement;
+    }
+
+    public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterIndex, sqlType);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterIndex, sqlType, scale);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean wasNull() throws SQLException {
+        try {
+            return callableStatement.wasNull();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public String getString(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getString(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean getBoolean(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getBoolean(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public byte getByte(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getByte(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public short getShort(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getShort(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getInt(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getInt(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public long getLong(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getLong(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public float getFloat(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getFloat(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public double getDouble(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getDouble(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    /**
+     * @deprecated use {@link #getBigDecimal(int)}
+     */
+    @Deprecated
+    public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException {
+        try {
+            return callableStatement.getBigDecimal(parameterIndex, scale);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public byte[] getBytes(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getBytes(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Date getDate(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getDate(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Time getTime(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getTime(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Timestamp getTimestamp(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getTimestamp(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Object getObject(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getObject(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public BigDecimal getBigDecimal(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getBigDecimal(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Object getObject(int parameterIndex, java.util.Map<String, Class<?>> map) throws SQLException {
+        try {
+            return callableStatement.getObject(parameterIndex, map);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Ref getRef(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getRef(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Blob getBlob(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getBlob(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Clob getClob(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getClob(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Array getArray(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getArray(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Date getDate(int parameterIndex, Calendar cal) throws SQLException {
+        try {
+            return callableStatement.getDate(parameterIndex, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Time getTime(int parameterIndex, Calendar cal) throws SQLException {
+        try {
+            return callableStatement.getTime(parameterIndex, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException {
+        try {
+            return callableStatement.getTimestamp(parameterIndex, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterIndex, sqlType, typeName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void registerOutParameter(String parameterName, int sqlType) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterName, sqlType);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterName, sqlType, scale);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterName, sqlType, typeName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.net.URL getURL(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getURL(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setURL(String parameterName, java.net.URL val) throws SQLException {
+        try {
+            callableStatement.setURL(parameterName, val);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setNull(String parameterName, int sqlType) throws SQLException {
+        try {
+            callableStatement.setNull(parameterName, sqlType);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setBoolean(String parameterName, boolean x) throws SQLException {
+        try {
+            callableStatement.setBoolean(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setByte(String parameterName, byte x) throws SQLException {
+        try {
+            callableStatement.setByte(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setShort(String parameterName, short x) throws SQLException {
+        try {
+            callableStatement.setShort(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setInt(String parameterName, int x) throws SQLException {
+        try {
+            callableStatement.setInt(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setLong(String parameterName, long x) throws SQLException {
+        try {
+            callableStatement.setLong(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setFloat(String parameterName, float x) throws SQLException {
+        try {
+            callableStatement.setFloat(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setDouble(String parameterName, double x) throws SQLException {
+        try {
+            callableStatement.setDouble(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setBigDecimal(String parameterName, BigDecimal x) throws SQLException {
+        try {
+            callableStatement.setBigDecimal(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setString(String parameterName, String x) throws SQLException {
+        try {
+            callableStatement.setString(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setBytes(String parameterName, byte[] x) throws SQLException {
+        try {
+            callableStatement.setBytes(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setDate(String parameterName, java.sql.Date x) throws SQLException {
+        try {
+            callableStatement.setDate(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setTime(String parameterName, java.sql.Time x) throws SQLException {
+        try {
+            callableStatement.setTime(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setTimestamp(String parameterName, java.sql.Timestamp x) throws SQLException {
+        try {
+            callableStatement.setTimestamp(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setAsciiStream(String parameterName, java.io.InputStream x, int length) throws SQLException {
+        try {
+            callableStatement.setAsciiStream(parameterName, x, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setBinaryStream(String parameterName, java.io.InputStream x, int length) throws SQLException {
+        try {
+            callableStatement.setBinaryStream(parameterName, x, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setObject(String parameterName, Object x, int targetSqlType, int scale) throws SQLException {
+        try {
+            callableStatement.setObject(parameterName, x, targetSqlType, scale);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setObject(String parameterName, Object x, int targetSqlType) throws SQLException {
+        try {
+            callableStatement.setObject(parameterName, x, targetSqlType);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setObject(String parameterName, Object x) throws SQLException {
+        try {
+            callableStatement.setObject(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setCharacterStream(String parameterName, java.io.Reader reader, int length) throws SQLException {
+        try {
+            callableStatement.setCharacterStream(parameterName, reader, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setDate(String parameterName, java.sql.Date x, Calendar cal) throws SQLException {
+        try {
+            callableStatement.setDate(parameterName, x, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setTime(String parameterName, java.sql.Time x, Calendar cal) throws SQLException {
+        try {
+            callableStatement.setTime(parameterName, x, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setTimestamp(String parameterName, java.sql.Timestamp x, Calendar cal) throws SQLException {
+        try {
+            callableStatement.setTimestamp(parameterName, x, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setNull(String parameterName, int sqlType, String typeName) throws SQLException {
+        try {
+            callableStatement.setNull(parameterName, sqlType, typeName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public String getString(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getString(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean getBoolean(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getBoolean(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public byte getByte(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getByte(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public short getShort(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getShort(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getInt(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getInt(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public long getLong(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getLong(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public float getFloat(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getFloat(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public double getDouble(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getDouble(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public byte[] getBytes(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getBytes(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Date getDate(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getDate(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Time getTime(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getTime(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Timestamp getTimestamp(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getTimestamp(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Object getObject(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getObject(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public BigDecimal getBigDecimal(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getBigDecimal(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Object getObject(String parameterName, java.util.Map<String, Class<?>> map) throws SQLException {
+        try {
+            return callableStatement.getObject(parameterName, map);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Ref getRef(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getRef(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Blob getBlob(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getBlob(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Clob getClob(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getClob(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public Array getArray(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getArray(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Date getDate(String parameterName, Calendar cal) throws SQLException {
+        try {
+            return callableStatement.getDate(parameterName, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Time getTime(String parameterName, Calendar cal) throws SQLException {
+        try {
+            return callableStatement.getTime(parameterName, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.sql.Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException {
+        try {
+            return callableStatement.getTimestamp(parameterName, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.net.URL getURL(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getURL(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public RowId getRowId(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getRowId(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public RowId getRowId(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getRowId(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setRowId(String parameterName, RowId x) throws SQLException {
+        try {
+            callableStatement.setRowId(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setNString(String parameterName, String value) throws SQLException {
+        try {
+            callableStatement.setNString(parameterName, value);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setNCharacterStream(String parameterName, Reader value, long length) throws SQLException {
+        try {
+            callableStatement.setNCharacterStream(parameterName, value, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setNClob(String parameterName, NClob value) throws SQLException {
+        try {
+            callableStatement.setNClob(parameterName, value);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setClob(String parameterName, Reader reader, long length) throws SQLException {
+        try {
+            callableStatement.setClob(parameterName, reader, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setBlob(String parameterName, InputStream inputStream, long length) throws SQLException {
+        try {
+            callableStatement.setBlob(parameterName, inputStream, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setNClob(String parameterName, Reader reader, long length) throws SQLException {
+        try {
+            callableStatement.setNClob(parameterName, reader, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public NClob getNClob(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getNClob(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public NClob getNClob(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getNClob(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setSQLXML(String parameterName, SQLXML xmlObject) throws SQLException {
+        try {
+            callableStatement.setSQLXML(parameterName, xmlObject);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public SQLXML getSQLXML(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getSQLXML(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public SQLXML getSQLXML(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getSQLXML(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public String getNString(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getNString(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public String getNString(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getNString(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.io.Reader getNCharacterStream(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getNCharacterStream(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.io.Reader getNCharacterStream(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getNCharacterStream(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.io.Reader getCharacterStream(int parameterIndex) throws SQLException {
+        try {
+            return callableStatement.getCharacterStream(parameterIndex);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public java.io.Reader getCharacterStream(String parameterName) throws SQLException {
+        try {
+            return callableStatement.getCharacterStream(parameterName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setBlob(String parameterName, Blob x) throws SQLException {
+        try {
+            callableStatement.setBlob(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setClob(String parameterName, Clob x) throws SQLException {
+        try {
+            callableStatement.setClob(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setAsciiStream(String parameterName, java.io.InputStream x, long length) throws SQLException {
+        try {
+            callableStatement.setAsciiStream(parameterName, x, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setBinaryStream(String parameterName, java.io.InputStream x, long length) throws SQLException {
+        try {
+            callableStatement.setBinaryStream(parameterName, x, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setCharacterStream(String parameterName, java.io.Reader reader, long length) throws SQLException {
+        try {
+            callableStatement.setCharacterStream(parameterName, reader, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setAsciiStream(String parameterName, java.io.InputStream x) throws SQLException {
+        try {
+            callableStatement.setAsciiStream(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setBinaryStream(String parameterName, java.io.InputStream x) throws SQLException {
+        try {
+            callableStatement.setBinaryStream(parameterName, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setCharacterStream(String parameterName, java.io.Reader reader) throws SQLException {
+        try {
+            callableStatement.setCharacterStream(parameterName, reader);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setNCharacterStream(String parameterName, Reader value) throws SQLException {
+        try {
+            callableStatement.setNCharacterStream(parameterName, value);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setClob(String parameterName, Reader reader) throws SQLException {
+        try {
+            callableStatement.setClob(parameterName, reader);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setBlob(String parameterName, InputStream inputStream) throws SQLException {
+        try {
+            callableStatement.setBlob(parameterName, inputStream);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setNClob(String parameterName, Reader reader) throws SQLException {
+        try {
+            callableStatement.setNClob(parameterName, reader);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException {
+        try {
+            return callableStatement.getObject(parameterIndex, type);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public <T> T getObject(String parameterName, Class<T> type) throws SQLException {
+        try {
+            return callableStatement.getObject(parameterName, type);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setObject(String parameterName, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+        try {
+            callableStatement.setObject(parameterName, x, targetSqlType, scaleOrLength);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setObject(String parameterName, Object x, SQLType targetSqlType) throws SQLException {
+        try {
+            callableStatement.setObject(parameterName, x, targetSqlType);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void registerOutParameter(int parameterIndex, SQLType sqlType) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterIndex, sqlType);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void registerOutParameter(int parameterIndex, SQLType sqlType, int scale) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterIndex, sqlType, scale);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void registerOutParameter(int parameterIndex, SQLType sqlType, String typeName) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterIndex, sqlType, typeName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void registerOutParameter(String parameterName, SQLType sqlType) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterName, sqlType);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void registerOutParameter(String parameterName, SQLType sqlType, int scale) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterName, sqlType, scale);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void registerOutParameter(String parameterName, SQLType sqlType, String typeName) throws SQLException {
+        try {
+            callableStatement.registerOutParameter(parameterName, sqlType, typeName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+}
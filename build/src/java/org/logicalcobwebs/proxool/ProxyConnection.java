@@ -0,0 +1,316 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+
+/**
+ * Delegates to a normal Coonection for everything but the close()
+ * method (when it puts itself back into the pool instead).
+ * The {@link WrappedConnection} that we give out calls the delegate
+ * directly and uses the methods here when it needs to. If there is a
+ * {@link ConnectionPoolDefinitionIF#getStatementCacheSize statement cache}
+ * then prepared statements come from here too.
+ * @version $Revision: 1.29 $, $Date: 2003/12/12 19:29:47 $
+ * @author billhorsman
+ * @author $Author: billhorsman $ (current maintainer)
+ */
+class ProxyConnection extends AbstractProxyConnection {
+
+    /**
+     * Created the first time we prepare a statement with the cache enabled
+     * @see #getStatementCache
+     */
+    private StatementCache statementCache;
+
+    public ProxyConnection(Connection connection, long id, String delegateUrl, ConnectionPool connectionPool, int status) throws SQLException {
+        super(connection, id, delegateUrl, connectionPool, status);
+    }
+
+    /**
+     * We have just made some sort of Statement so we should give out
+     * a proxy instead.
+     * @param statement the delegate statement
+     * @param sqlStatement the SQL we were passed when we asked for the statement.
+     * Sometimes you are (connection.prepareCall(sql)) and sometimes you
+     * aren't (connection.createStatement()), so it might be null.
+     * @return the proxy statement, with its query timeout set to the
+     * {@link ConnectionPoolDefinitionIF#getDefaultQueryTimeout default} (if there is one)
+     * @throws SQLException if we couldn't set the query timeout
+     */
+    protected Statement createProxyStatement(Statement statement, String sqlStatement) throws SQLException {
+        // We keep a track of all open statements
+        addOpenStatement(statement);
+
+        Statement proxyStatement = ProxyFactory.createProxyStatement(statement, getConnectionPool(), this, sqlStatement);
+        int defaultQueryTimeout = getConnectionPool().getDefinition().getDefaultQueryTimeout();
+        if (defaultQueryTimeout > 0) {
+            try {
+                proxyStatement.setQueryTimeout(defaultQueryTimeout);
+            } catch (SQLException e) {
+                try {
+                    proxyStatement.close();
+                } catch (SQLException e2) {
+                    getConnectionPool().getLog().debug("Ignoring problem closing statement", e2);
+                }
+                throw e;
+            }
+        }
+        return proxyStatement;
+    }
+
+    /**
+     * Get a new connection ready for use: run the
+     * {@link ConnectionPoolDefinitionIF#getConnectionInitSql init SQL} and prepare the
+     * {@link ConnectionPoolDefinitionIF#getWarmupStatements warmup statements} so that
+     * they are waiting in the {@link #getStatementCache cache}. Call this before anybody
+     * else can get hold of the connection.
+     * @throws SQLException if the init SQL failed (in which case the connection is no good)
+     */
+    protected void initialise() throws SQLException {
+        ConnectionPoolDefinitionIF definition = getConnectionPool().getDefinition();
+
+        String connectionInitSql = definition.getConnectionInitSql();
+        if (connectionInitSql != null) {
+            Statement statement = getConnection().createStatement();
+            try {
+                statement.execute(connectionInitSql);
+            } finally {
+                statement.close();
+            }
+        }
+
+        if (definition.getWarmupStatements().size() > 0) {
+            if (getStatementCache() == null) {
+                getConnectionPool().getLog().debug("Ignoring warmup statements because the statement cache is switched off");
+                return;
+            }
+            Iterator i = definition.getWarmupStatements().iterator();
+            while (i.hasNext()) {
+                String sql = (String) i.next();
+                try {
+                    prepareStatement(sql, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED,
+                            StatementCache.Key.UNSPECIFIED, false).close();
+                } catch (SQLException e) {
+                    getConnectionPool().getLog().warn("Couldn't prepare warmup statement: " + sql, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prepare a statement (or a call), using one from the
+     * {@link ConnectionPoolDefinitionIF#getStatementCacheSize cache} if we can.
+     * @param sql the SQL to prepare
+     * @param resultSetType the result set type, or {@link StatementCache.Key#UNSPECIFIED}
+     * @param resultSetConcurrency the result set concurrency, or {@link StatementCache.Key#UNSPECIFIED}
+     * (only specified if the type is)
+     * @param resultSetHoldability the result set holdability, or {@link StatementCache.Key#UNSPECIFIED}
+     * (only specified if the concurrency is)
+     * @param callable true for {@link Connection#prepareCall prepareCall}
+     * @return the proxy statement (a CallableStatement if callable)
+     * @throws SQLException if the delegate connection couldn't prepare it
+     */
+    protected PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability, boolean callable) throws SQLException {
+        StatementCache statementCache = getStatementCache();
+        if (statementCache == null) {
+            return (PreparedStatement) createProxyStatement(prepareDelegate(sql, resultSetType, resultSetConcurrency, resultSetHoldability, callable), sql);
+        }
+
+        StatementCache.Key key = new StatementCache.Key(callable, sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+        PreparedStatement statement = statementCache.take(key);
+        if (statement == null) {
+            statement = prepareDelegate(sql, resultSetType, resultSetConcurrency, resultSetHoldability, callable);
+        }
+        ProxyPreparedStatement proxyStatement = (ProxyPreparedStatement) createProxyStatement(statement, sql);
+        proxyStatement.setStatementCache(statementCache, key);
+        return proxyStatement;
+    }
+
+    private PreparedStatement prepareDelegate(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability, boolean callable) throws SQLException {
+        Connection connection = getConnection();
+        if (callable) {
+            if (resultSetHoldability != StatementCache.Key.UNSPECIFIED) {
+                return connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            } else if (resultSetType != StatementCache.Key.UNSPECIFIED) {
+                return connection.prepareCall(sql, resultSetType, resultSetConcurrency);
+            } else {
+                return connection.prepareCall(sql);
+            }
+        } else {
+            if (resultSetHoldability != StatementCache.Key.UNSPECIFIED) {
+                return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            } else if (resultSetType != StatementCache.Key.UNSPECIFIED) {
+                return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+            } else {
+                return connection.prepareStatement(sql);
+            }
+        }
+    }
+
+    /**
+     * The cache of prepared statements, created the first time we need it
+     * @return the cache, or null if {@link ConnectionPoolDefinitionIF#getStatementCacheSize caching}
+     * is switched off
+     */
+    private StatementCache getStatementCache() {
+        if (getConnectionPool().getDefinition().getStatementCacheSize() > 0) {
+            if (statementCache == null) {
+                statementCache = new StatementCache(getConnectionPool());
+            }
+        } else if (statementCache != null) {
+            // It's been switched off since we made it
+            statementCache.clear();
+            statementCache = null;
+        }
+        return statementCache;
+    }
+
+    /**
+     * Close any cached statements before closing the connection for real
+     * @see AbstractProxyConnection#reallyClose
+     */
+    public void reallyClose() throws SQLException {
+        StatementCache statementCache = this.statementCache;
+        if (statementCache != null) {
+            statementCache.clear();
+        }
+        super.reallyClose();
+    }
+
+    /**
+     * Deal with an exception thrown by the delegate connection. We might get
+     * a fatal exception here. Let's test for it.
+     * @param e the exception thrown by the delegate
+     * @return the exception for the caller to throw if it wasn't fatal
+     * @throws SQLException the {@link ConnectionPoolDefinitionIF#getFatalSqlExceptionWrapper wrapped}
+     * version if it was fatal
+     */
+    protected SQLException handleException(SQLException e) throws SQLException {
+        if (FatalSqlExceptionHelper.testException(getConnectionPool().getDefinition(), e)) {
+            // If the database has failed over then this connection (and every other
+            // one made before now) will be thrown away when it's returned
+            getConnectionPool().failover(this, e);
+            FatalSqlExceptionHelper.rethrowFatalSQLException(getConnectionPool().getDefinition().getFatalSqlExceptionWrapper(), e);
+        }
+        return e;
+    }
+
+}
+
+/*
+ Revision history:
+ $Log: ProxyConnection.java,v $
+ Revision 1.29  2003/12/12 19:29:47  billhorsman
+ Now uses Cglib 2.0
+
+ Revision 1.28  2003/09/30 18:39:08  billhorsman
+ New test-before-use, test-after-use and fatal-sql-exception-wrapper-class properties.
+
+ Revision 1.27  2003/09/10 22:21:04  chr32
+ Removing > jdk 1.2 dependencies.
+
+ Revision 1.26  2003/03/11 14:51:54  billhorsman
+ more concurrency fixes relating to snapshots
+
+ Revision 1.25  2003/03/03 11:11:58  billhorsman
+ fixed licence
+
+ Revision 1.24  2003/02/12 12:28:27  billhorsman
+ added url, proxyHashcode and delegateHashcode to
+ ConnectionInfoIF
+
+ Revision 1.23  2003/02/06 17:41:04  billhorsman
+ now uses imported logging
+
+ Revision 1.22  2003/01/31 14:33:16  billhorsman
+ fix for DatabaseMetaData
+
+ Revision 1.21  2003/01/27 18:26:38  billhorsman
+ refactoring of ProxyConnection and ProxyStatement to
+ make it easier to write JDK 1.2 patch
+
+ Revision 1.20  2002/12/19 00:08:36  billhorsman
+ automatic closure of statements when a connection is closed
+
+ Revision 1.19  2002/12/17 17:15:39  billhorsman
+ Better synchronization of status stuff
+
+ Revision 1.18  2002/12/03 12:24:00  billhorsman
+ fixed fatal sql exception
+
+ Revision 1.17  2002/11/12 20:24:12  billhorsman
+ checkstyle
+
+ Revision 1.16  2002/11/12 20:18:23  billhorsman
+ Made connection resetter a bit more friendly. Now, if it encounters any problems
+ during reset then that connection is thrown away. This is going to cause you
+ problems if you always close connections in an unstable state (e.g. with transactions
+ open. But then again, it's better to know about that as soon as possible, right?
+
+ Revision 1.15  2002/11/07 18:56:22  billhorsman
+ fixed NullPointerException introduced yesterday on isClose() method
+
+ Revision 1.14  2002/11/07 12:38:04  billhorsman
+ performance improvement - only reset when it might be necessary
+
+ Revision 1.13  2002/11/06 20:26:49  billhorsman
+ improved doc, added connection resetting, and made
+ isClosed() work correctly
+
+ Revision 1.12  2002/11/02 13:57:33  billhorsman
+ checkstyle
+
+ Revision 1.11  2002/10/30 21:25:09  billhorsman
+ move createStatement into ProxyFactory
+
+ Revision 1.10  2002/10/30 21:19:17  billhorsman
+ make use of ProxyFactory
+
+ Revision 1.9  2002/10/28 19:51:34  billhorsman
+ Fixed NullPointerException when calling connection.createProxyStatement()
+
+ Revision 1.8  2002/10/28 19:28:25  billhorsman
+ checkstyle
+
+ Revision 1.7  2002/10/28 08:20:23  billhorsman
+ draft sql dump stuff
+
+ Revision 1.6  2002/10/25 15:59:32  billhorsman
+ made non-public where possible
+
+ Revision 1.5  2002/10/24 18:15:09  billhorsman
+ removed unnecessary debug
+
+ Revision 1.4  2002/10/17 15:29:18  billhorsman
+ fixes so that equals() works
+
+ Revision 1.3  2002/09/19 10:33:57  billhorsman
+ added ProxyConnection#toString
+
+ Revision 1.2  2002/09/18 13:48:56  billhorsman
+ checkstyle and doc
+
+ Revision 1.1.1.1  2002/09/13 08:13:30  billhorsman
+ new
+
+ Revision 1.10  2002/08/24 19:57:15  billhorsman
+ checkstyle changes
+
+ Revision 1.9  2002/08/24 19:42:26  billhorsman
+ new proxy stuff to work with JDK 1.4
+
+ Revision 1.6  2002/07/02 11:19:08  billhorsman
+ layout code and imports
+
+ Revision 1.5  2002/06/28 11:19:47  billhorsman
+ improved doc
+
+*/
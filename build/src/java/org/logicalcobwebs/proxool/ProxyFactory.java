@@ -0,0 +1,196 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * A central place to build proxy objects ({@link ProxyConnection connections}
+ * and {@link ProxyStatement statements}). They are ordinary classes that
+ * implement the JDBC interfaces and call the delegate directly, so there is
+ * no reflection involved in any call you make.
+ * 
+ * @author Bill Horsman (bill@logicalcobwebs.co.uk)
+ * @author $Author: billhorsman $ (current maintainer)
+ * @version $Revision: 1.25 $, $Date: 2003/12/12 19:29:47 $
+ * @since Proxool 0.5
+ */
+class ProxyFactory {
+    protected static ProxyConnection buildProxyConnection(long id, ConnectionPool connectionPool, int status) throws SQLException {
+        Connection realConnection = null;
+        final String url = connectionPool.getDefinition().getUrl();
+
+        Properties info = connectionPool.getDefinition().getDelegateProperties();
+        // If the database fails over whilst we're connecting then we might have connected to the old one
+        long epoch = connectionPool.getEpoch();
+        realConnection = DriverManager.getConnection(url, info);
+
+        ProxyConnection proxyConnection = new ProxyConnection(realConnection, id, url, connectionPool, status);
+        proxyConnection.setEpoch(epoch);
+        return proxyConnection;
+    }
+
+    /**
+     * Get a Connection from the ProxyConnection. It only works until the
+     * connection is next {@link ProxyConnectionIF#getGeneration closed}.
+     * 
+     * @param proxyConnection where to find the connection
+     * @return 
+     */
+    protected static Connection getConnection(ProxyConnectionIF proxyConnection) {
+        return new WrappedConnection((ProxyConnection) proxyConnection);
+    }
+
+    /**
+     * Gets the real Statement that we got from the delegate driver
+     * 
+     * @param statement proxy statement
+     * @return delegate statement
+     * @throws IllegalArgumentException if the statement isn't one of ours
+     */
+    protected static Statement getDelegateStatement(Statement statement) {
+        if (statement instanceof ProxyStatement) {
+            return ((ProxyStatement) statement).getDelegateStatement();
+        } else {
+            throw new IllegalArgumentException("Not a proxy statement");
+        }
+    }
+
+    /**
+     * Gets the real Connection that we got from the delegate driver
+     * 
+     * @param connection proxy connection
+     * @return deletgate connection
+     * @throws IllegalArgumentException if the connection isn't one of ours
+     */
+    public static Connection getDelegateConnection(Connection connection) {
+        if (connection instanceof WrappedConnection) {
+            return ((WrappedConnection) connection).getProxyConnection().getConnection();
+        } else {
+            throw new IllegalArgumentException("Not a proxy connection");
+        }
+    }
+
+    protected static Statement createProxyStatement(Statement delegate, ConnectionPool connectionPool, ProxyConnectionIF proxyConnection, String sqlStatement) {
+        // We only actually expect three options
+        if (delegate instanceof CallableStatement) {
+            return new ProxyCallableStatement((CallableStatement) delegate, connectionPool, proxyConnection, sqlStatement);
+        } else if (delegate instanceof PreparedStatement) {
+            return new ProxyPreparedStatement((PreparedStatement) delegate, connectionPool, proxyConnection, sqlStatement);
+        } else {
+            return new ProxyStatement(delegate, connectionPool, proxyConnection, sqlStatement);
+        }
+    }
+
+    /**
+     * Create a new DatabaseMetaData from a connection
+     * 
+     * @param connection the delegate connection
+     * @param wrappedConnection the connection we gave out (which the metaData will
+     * return if you ask it for its connection)
+     * @return databaseMetaData
+     * @throws SQLException if the delegfate connection couldn't get the metaData
+     */
+    protected static DatabaseMetaData getDatabaseMetaData(Connection connection, Connection wrappedConnection) throws SQLException {
+        return new ProxyDatabaseMetaData(connection, wrappedConnection);
+    }
+}
+
+/*
+ Revision history:
+ $Log: ProxyFactory.java,v $
+ Revision 1.25  2003/12/12 19:29:47  billhorsman
+ Now uses Cglib 2.0
+
+ Revision 1.24  2003/09/30 18:39:08  billhorsman
+ New test-before-use, test-after-use and fatal-sql-exception-wrapper-class properties.
+
+ Revision 1.23  2003/09/10 22:21:04  chr32
+ Removing > jdk 1.2 dependencies.
+
+ Revision 1.22  2003/09/07 22:11:31  billhorsman
+ Remove very persistent debug message
+
+ Revision 1.21  2003/08/27 18:03:20  billhorsman
+ added new getDelegateConnection() method
+
+ Revision 1.20  2003/03/11 14:51:54  billhorsman
+ more concurrency fixes relating to snapshots
+
+ Revision 1.19  2003/03/10 23:43:13  billhorsman
+ reapplied checkstyle that i'd inadvertently let
+ IntelliJ change...
+
+ Revision 1.18  2003/03/10 15:26:49  billhorsman
+ refactoringn of concurrency stuff (and some import
+ optimisation)
+
+ Revision 1.17  2003/03/05 18:42:33  billhorsman
+ big refactor of prototyping and house keeping to
+ drastically reduce the number of threads when using
+ many pools
+
+ Revision 1.16  2003/03/03 11:11:58  billhorsman
+ fixed licence
+
+ Revision 1.15  2003/02/19 15:14:32  billhorsman
+ fixed copyright (copy and paste error,
+ not copyright change)
+
+ Revision 1.14  2003/02/12 12:28:27  billhorsman
+ added url, proxyHashcode and delegateHashcode to
+ ConnectionInfoIF
+
+ Revision 1.13  2003/02/06 17:41:04  billhorsman
+ now uses imported logging
+
+ Revision 1.12  2003/01/31 14:33:18  billhorsman
+ fix for DatabaseMetaData
+
+ Revision 1.11  2003/01/27 18:26:39  billhorsman
+ refactoring of ProxyConnection and ProxyStatement to
+ make it easier to write JDK 1.2 patch
+
+ Revision 1.10  2002/12/16 11:15:19  billhorsman
+ fixed getDelegateStatement
+
+ Revision 1.9  2002/12/16 10:57:47  billhorsman
+ add getDelegateStatement to allow access to the
+ delegate JDBC driver's Statement
+
+ Revision 1.8  2002/12/12 10:48:25  billhorsman
+ checkstyle
+
+ Revision 1.7  2002/12/08 22:17:35  billhorsman
+ debug for proxying statement interfaces
+
+ Revision 1.6  2002/12/06 15:57:08  billhorsman
+ fix for proxied statement where Statement interface is not directly
+ implemented.
+
+ Revision 1.5  2002/12/03 12:24:00  billhorsman
+ fixed fatal sql exception
+
+ Revision 1.4  2002/11/09 15:56:52  billhorsman
+ fix doc
+
+ Revision 1.3  2002/11/02 14:22:15  billhorsman
+ Documentation
+
+ Revision 1.2  2002/10/30 21:25:08  billhorsman
+ move createStatement into ProxyFactory
+
+ Revision 1.1  2002/10/30 21:19:16  billhorsman
+ make use of ProxyFactory
+
+*/
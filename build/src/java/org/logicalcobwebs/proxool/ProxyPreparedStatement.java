@@ -0,0 +1,850 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+/**
+ * A {@link ProxyStatement} for PreparedStatements. It also remembers the
+ * parameters that are set so that they can be shown when we trace the call.
+ * If it came from a {@link StatementCache cache} then closing it puts the
+ * real statement back in the cache and this one stops working.
+ *
+ * @see ProxyFactory#createProxyStatement
+ */
+class ProxyPreparedStatement extends ProxyStatement implements PreparedStatement {
+
+    private PreparedStatement preparedStatement;
+
+    /** Where the delegate goes when we're closed (or null if it isn't cached) */
+    private StatementCache statementCache;
+
+    private StatementCache.Key cacheKey;
+
+    /**
+     * The {@link #beforeChangeSetting settings} that have been changed since the
+     * delegate came out of the cache, one bit each
+     */
+    private int changedSettings;
+
+    /** What the settings were when the delegate came out of the cache (if they've changed) */
+    private int originalMaxRows;
+
+    private int originalFetchSize;
+
+    private int originalFetchDirection;
+
+    private int originalMaxFieldSize;
+
+    private int originalQueryTimeout;
+
+    private boolean originalPoolable;
+
+    public ProxyPreparedStatement(PreparedStatement preparedStatement, ConnectionPool connectionPool, ProxyConnectionIF proxyConnection, String sqlStatement) {
+        super(preparedStatement, connectionPool, proxyConnection, sqlStatement);
+        this.preparedStatement = preparedStatement;
+    }
+
+    /**
+     * Put the delegate back in this cache when we're closed instead of closing it
+     * @param statementCache the connection's cache
+     * @param cacheKey what sort of statement it is
+     */
+    protected void setStatementCache(StatementCache statementCache, StatementCache.Key cacheKey) {
+        this.statementCache = statementCache;
+        this.cacheKey = cacheKey;
+    }
+
+    /**
+     * Change the statement we delegate to
+     * @param preparedStatement the new delegate
+     */
+    protected void setPreparedStatement(PreparedStatement preparedStatement) {
+        setStatement(preparedStatement);
+        this.preparedStatement = preparedStatement;
+    }
+
+    /**
+     * If the statement is cached then remember what the setting was before it
+     * changes, so that we can {@link #restoreSettings put it back} when we're closed
+     * and the next borrower gets the statement as it was prepared.
+     * @see AbstractProxyStatement#beforeChangeSetting
+     */
+    protected void beforeChangeSetting(int setting) throws SQLException {
+        if (statementCache == null || (changedSettings & setting) != 0) {
+            return;
+        }
+        PreparedStatement delegate = preparedStatement;
+        switch (setting) {
+            case SETTING_MAX_ROWS:
+                originalMaxRows = delegate.getMaxRows();
+                break;
+            case SETTING_FETCH_SIZE:
+                originalFetchSize = delegate.getFetchSize();
+                break;
+            case SETTING_FETCH_DIRECTION:
+                originalFetchDirection = delegate.getFetchDirection();
+                break;
+            case SETTING_MAX_FIELD_SIZE:
+                originalMaxFieldSize = delegate.getMaxFieldSize();
+                break;
+            case SETTING_QUERY_TIMEOUT:
+                originalQueryTimeout = delegate.getQueryTimeout();
+                break;
+            case SETTING_POOLABLE:
+                originalPoolable = delegate.isPoolable();
+                break;
+            default:
+                // Escape processing is on until somebody turns it off, and there's
+                // no way of undoing a cursor name or close on completion
+        }
+        changedSettings |= setting;
+    }
+
+    /**
+     * Put back the settings that were changed while we had the delegate
+     * @param delegate the statement that is going back in the cache
+     * @return false if one of them can't be put back, so the delegate isn't fit to be cached
+     * @throws SQLException if the delegate wouldn't let us
+     */
+    private boolean restoreSettings(PreparedStatement delegate) throws SQLException {
+        if ((changedSettings & (SETTING_CURSOR_NAME | SETTING_CLOSE_ON_COMPLETION)) != 0) {
+            return false;
+        }
+        if ((changedSettings & SETTING_MAX_ROWS) != 0) {
+            delegate.setMaxRows(originalMaxRows);
+        }
+        if ((changedSettings & SETTING_FETCH_SIZE) != 0) {
+            delegate.setFetchSize(originalFetchSize);
+        }
+        if ((changedSettings & SETTING_FETCH_DIRECTION) != 0) {
+            delegate.setFetchDirection(originalFetchDirection);
+        }
+        if ((changedSettings & SETTING_MAX_FIELD_SIZE) != 0) {
+            delegate.setMaxFieldSize(originalMaxFieldSize);
+        }
+        if ((changedSettings & SETTING_QUERY_TIMEOUT) != 0) {
+            delegate.setQueryTimeout(originalQueryTimeout);
+        }
+        if ((changedSettings & SETTING_ESCAPE_PROCESSING) != 0) {
+            delegate.setEscapeProcessing(true);
+        }
+        if ((changedSettings & SETTING_POOLABLE) != 0) {
+            delegate.setPoolable(originalPoolable);
+        }
+        return true;
+    }
+
+    /**
+     * If the statement is cached then clear its parameters, put back any settings
+     * that were changed and put it back in the cache. From then on, this statement
+     * refuses to do anything (somebody else might be using the real one). Otherwise,
+     * or if a setting can't be put back, close it as usual.
+     * @see AbstractProxyStatement#close
+     */
+    public void close() throws SQLException {
+        if (statementCache == null) {
+            super.close();
+            return;
+        }
+        PreparedStatement delegate = preparedStatement;
+        if (delegate == StatementCache.CLOSED) {
+            // Already closed
+            return;
+        }
+        setPreparedStatement(StatementCache.CLOSED);
+        getProxyConnection().registerClosedStatement(delegate);
+        try {
+            delegate.clearParameters();
+            if (isBatchPending()) {
+                delegate.clearBatch();
+            }
+            if (changedSettings != 0 && !restoreSettings(delegate)) {
+                delegate.close();
+                return;
+            }
+        } catch (SQLException e) {
+            // Not fit to be used again
+            delegate.close();
+            return;
+        }
+        statementCache.release(cacheKey, delegate);
+    }
+
+    public ResultSet executeQuery() throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return preparedStatement.executeQuery();
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(null, startTime, exception);
+        }
+    }
+
+    public int executeUpdate() throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(null, startTime, exception);
+        }
+    }
+
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        try {
+            preparedStatement.setNull(parameterIndex, sqlType);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, null);
+        }
+    }
+
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        try {
+            preparedStatement.setBoolean(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        try {
+            preparedStatement.setByte(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        try {
+            preparedStatement.setShort(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        try {
+            preparedStatement.setInt(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        try {
+            preparedStatement.setLong(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        try {
+            preparedStatement.setFloat(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        try {
+            preparedStatement.setDouble(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        try {
+            preparedStatement.setBigDecimal(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setString(int parameterIndex, String x) throws SQLException {
+        try {
+            preparedStatement.setString(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        try {
+            preparedStatement.setBytes(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setDate(int parameterIndex, java.sql.Date x) throws SQLException {
+        try {
+            preparedStatement.setDate(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setTime(int parameterIndex, java.sql.Time x) throws SQLException {
+        try {
+            preparedStatement.setTime(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setTimestamp(int parameterIndex, java.sql.Timestamp x) throws SQLException {
+        try {
+            preparedStatement.setTimestamp(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setAsciiStream(int parameterIndex, java.io.InputStream x, int length) throws SQLException {
+        try {
+            preparedStatement.setAsciiStream(parameterIndex, x, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    /**
+     * @deprecated use {@link #setCharacterStream(int, java.io.Reader, int)}
+     */
+    @Deprecated
+    public void setUnicodeStream(int parameterIndex, java.io.InputStream x, int length) throws SQLException {
+        try {
+            preparedStatement.setUnicodeStream(parameterIndex, x, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setBinaryStream(int parameterIndex, java.io.InputStream x, int length) throws SQLException {
+        try {
+            preparedStatement.setBinaryStream(parameterIndex, x, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void clearParameters() throws SQLException {
+        try {
+            preparedStatement.clearParameters();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        clearTracedParameters();
+    }
+
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        try {
+            preparedStatement.setObject(parameterIndex, x, targetSqlType);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        try {
+            preparedStatement.setObject(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public boolean execute() throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return preparedStatement.execute();
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(null, startTime, exception);
+        }
+    }
+
+    public void addBatch() throws SQLException {
+        try {
+            preparedStatement.addBatch();
+        } catch (SQLException e) {
+            throw handleException(e);
+        } finally {
+            afterAddBatch(null);
+        }
+    }
+
+    public void setCharacterStream(int parameterIndex, java.io.Reader reader, int length) throws SQLException {
+        try {
+            preparedStatement.setCharacterStream(parameterIndex, reader, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, reader);
+        }
+    }
+
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        try {
+            preparedStatement.setRef(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        try {
+            preparedStatement.setBlob(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        try {
+            preparedStatement.setClob(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        try {
+            preparedStatement.setArray(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public ResultSetMetaData getMetaData() throws SQLException {
+        try {
+            return preparedStatement.getMetaData();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setDate(int parameterIndex, java.sql.Date x, Calendar cal) throws SQLException {
+        try {
+            preparedStatement.setDate(parameterIndex, x, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setTime(int parameterIndex, java.sql.Time x, Calendar cal) throws SQLException {
+        try {
+            preparedStatement.setTime(parameterIndex, x, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setTimestamp(int parameterIndex, java.sql.Timestamp x, Calendar cal) throws SQLException {
+        try {
+            preparedStatement.setTimestamp(parameterIndex, x, cal);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        try {
+            preparedStatement.setNull(parameterIndex, sqlType, typeName);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, null);
+        }
+    }
+
+    public void setURL(int parameterIndex, java.net.URL x) throws SQLException {
+        try {
+            preparedStatement.setURL(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        try {
+            return preparedStatement.getParameterMetaData();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        try {
+            preparedStatement.setRowId(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setNString(int parameterIndex, String value) throws SQLException {
+        try {
+            preparedStatement.setNString(parameterIndex, value);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, value);
+        }
+    }
+
+    public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+        try {
+            preparedStatement.setNCharacterStream(parameterIndex, value, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, value);
+        }
+    }
+
+    public void setNClob(int parameterIndex, NClob value) throws SQLException {
+        try {
+            preparedStatement.setNClob(parameterIndex, value);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, value);
+        }
+    }
+
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        try {
+            preparedStatement.setClob(parameterIndex, reader, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, reader);
+        }
+    }
+
+    public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+        try {
+            preparedStatement.setBlob(parameterIndex, inputStream, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, inputStream);
+        }
+    }
+
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        try {
+            preparedStatement.setNClob(parameterIndex, reader, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, reader);
+        }
+    }
+
+    public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+        try {
+            preparedStatement.setSQLXML(parameterIndex, xmlObject);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, xmlObject);
+        }
+    }
+
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        try {
+            preparedStatement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setAsciiStream(int parameterIndex, java.io.InputStream x, long length) throws SQLException {
+        try {
+            preparedStatement.setAsciiStream(parameterIndex, x, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setBinaryStream(int parameterIndex, java.io.InputStream x, long length) throws SQLException {
+        try {
+            preparedStatement.setBinaryStream(parameterIndex, x, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setCharacterStream(int parameterIndex, java.io.Reader reader, long length) throws SQLException {
+        try {
+            preparedStatement.setCharacterStream(parameterIndex, reader, length);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, reader);
+        }
+    }
+
+    public void setAsciiStream(int parameterIndex, java.io.InputStream x) throws SQLException {
+        try {
+            preparedStatement.setAsciiStream(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setBinaryStream(int parameterIndex, java.io.InputStream x) throws SQLException {
+        try {
+            preparedStatement.setBinaryStream(parameterIndex, x);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setCharacterStream(int parameterIndex, java.io.Reader reader) throws SQLException {
+        try {
+            preparedStatement.setCharacterStream(parameterIndex, reader);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, reader);
+        }
+    }
+
+    public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+        try {
+            preparedStatement.setNCharacterStream(parameterIndex, value);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, value);
+        }
+    }
+
+    public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        try {
+            preparedStatement.setClob(parameterIndex, reader);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, reader);
+        }
+    }
+
+    public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+        try {
+            preparedStatement.setBlob(parameterIndex, inputStream);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, inputStream);
+        }
+    }
+
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        try {
+            preparedStatement.setNClob(parameterIndex, reader);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, reader);
+        }
+    }
+
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+        try {
+            preparedStatement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+        try {
+            preparedStatement.setObject(parameterIndex, x, targetSqlType);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+        if (isTrace()) {
+            putParameter(parameterIndex, x);
+        }
+    }
+
+    public long executeLargeUpdate() throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return preparedStatement.executeLargeUpdate();
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(null, startTime, exception);
+        }
+    }
+
+}
@@ -0,0 +1,699 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+/**
+ * Delegates to Statement for all calls. But also, for all execute methods, it
+ * checks the SQLException and compares it to the fatalSqlException list in the
+ * ConnectionPoolDefinition. If it detects a fatal exception it will destroy the
+ * Connection so that it isn't used again.
+ * <p>
+ * Each method calls the delegate statement directly. The
+ * {@link ProxyPreparedStatement prepared} and {@link ProxyCallableStatement callable}
+ * versions extend this one.
+ * @version $Revision: 1.25 $, $Date: 2003/12/12 19:29:47 $
+ * @author billhorsman
+ * @author $Author: billhorsman $ (current maintainer)
+ * @see ProxyFactory#createProxyStatement
+ */
+class ProxyStatement extends AbstractProxyStatement implements Statement {
+
+    public ProxyStatement(Statement statement, ConnectionPool connectionPool, ProxyConnectionIF proxyConnection, String sqlStatement) {
+        super(statement, connectionPool, proxyConnection, sqlStatement);
+    }
+
+    public ResultSet executeQuery(String sql) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeQuery(sql);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public int executeUpdate(String sql) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeUpdate(sql);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public int getMaxFieldSize() throws SQLException {
+        try {
+            return getStatement().getMaxFieldSize();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setMaxFieldSize(int max) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_MAX_FIELD_SIZE);
+            getStatement().setMaxFieldSize(max);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getMaxRows() throws SQLException {
+        try {
+            return getStatement().getMaxRows();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setMaxRows(int max) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_MAX_ROWS);
+            getStatement().setMaxRows(max);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_ESCAPE_PROCESSING);
+            getStatement().setEscapeProcessing(enable);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getQueryTimeout() throws SQLException {
+        try {
+            return getStatement().getQueryTimeout();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setQueryTimeout(int seconds) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_QUERY_TIMEOUT);
+            getStatement().setQueryTimeout(seconds);
+            afterSetQueryTimeout(seconds);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void cancel() throws SQLException {
+        try {
+            getStatement().cancel();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public SQLWarning getWarnings() throws SQLException {
+        try {
+            return getStatement().getWarnings();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void clearWarnings() throws SQLException {
+        try {
+            getStatement().clearWarnings();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setCursorName(String name) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_CURSOR_NAME);
+            getStatement().setCursorName(name);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean execute(String sql) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().execute(sql);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public ResultSet getResultSet() throws SQLException {
+        try {
+            return getStatement().getResultSet();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getUpdateCount() throws SQLException {
+        try {
+            return getStatement().getUpdateCount();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean getMoreResults() throws SQLException {
+        try {
+            return getStatement().getMoreResults();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setFetchDirection(int direction) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_FETCH_DIRECTION);
+            getStatement().setFetchDirection(direction);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getFetchDirection() throws SQLException {
+        try {
+            return getStatement().getFetchDirection();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setFetchSize(int rows) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_FETCH_SIZE);
+            getStatement().setFetchSize(rows);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getFetchSize() throws SQLException {
+        try {
+            return getStatement().getFetchSize();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getResultSetConcurrency() throws SQLException {
+        try {
+            return getStatement().getResultSetConcurrency();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getResultSetType() throws SQLException {
+        try {
+            return getStatement().getResultSetType();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void addBatch(String sql) throws SQLException {
+        try {
+            getStatement().addBatch(sql);
+        } catch (SQLException e) {
+            throw handleException(e);
+        } finally {
+            afterAddBatch(sql);
+        }
+    }
+
+    public void clearBatch() throws SQLException {
+        try {
+            getStatement().clearBatch();
+            afterClearBatch();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int[] executeBatch() throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeBatch();
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecuteBatch(startTime, exception);
+        }
+    }
+
+    public Connection getConnection() throws SQLException {
+        try {
+            return getStatement().getConnection();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean getMoreResults(int current) throws SQLException {
+        try {
+            return getStatement().getMoreResults(current);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public ResultSet getGeneratedKeys() throws SQLException {
+        try {
+            return getStatement().getGeneratedKeys();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeUpdate(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeUpdate(sql, columnIndexes);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeUpdate(sql, columnNames);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().execute(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().execute(sql, columnIndexes);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().execute(sql, columnNames);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public int getResultSetHoldability() throws SQLException {
+        try {
+            return getStatement().getResultSetHoldability();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean isClosed() throws SQLException {
+        try {
+            return getStatement().isClosed();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setPoolable(boolean poolable) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_POOLABLE);
+            getStatement().setPoolable(poolable);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean isPoolable() throws SQLException {
+        try {
+            return getStatement().isPoolable();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void closeOnCompletion() throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_CLOSE_ON_COMPLETION);
+            getStatement().closeOnCompletion();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean isCloseOnCompletion() throws SQLException {
+        try {
+            return getStatement().isCloseOnCompletion();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public long getLargeUpdateCount() throws SQLException {
+        try {
+            return getStatement().getLargeUpdateCount();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setLargeMaxRows(long max) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_MAX_ROWS);
+            getStatement().setLargeMaxRows(max);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public long getLargeMaxRows() throws SQLException {
+        try {
+            return getStatement().getLargeMaxRows();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public long[] executeLargeBatch() throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeLargeBatch();
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecuteBatch(startTime, exception);
+        }
+    }
+
+    public long executeLargeUpdate(String sql) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeLargeUpdate(sql);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeLargeUpdate(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeLargeUpdate(sql, columnIndexes);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeLargeUpdate(sql, columnNames);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public String enquoteLiteral(String val) throws SQLException {
+        try {
+            return getStatement().enquoteLiteral(val);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public String enquoteIdentifier(String identifier, boolean alwaysQuote) throws SQLException {
+        try {
+            return getStatement().enquoteIdentifier(identifier, alwaysQuote);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean isSimpleIdentifier(String identifier) throws SQLException {
+        try {
+            return getStatement().isSimpleIdentifier(identifier);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public String enquoteNCharLiteral(String val) throws SQLException {
+        try {
+            return getStatement().enquoteNCharLiteral(val);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return getStatement().unwrap(iface);
+    }
+
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return getStatement().isWrapperFor(iface);
+    }
+
+}
+
+/*
+ Revision history:
+ $Log: ProxyStatement.java,v $
+ Revision 1.25  2003/12/12 19:29:47  billhorsman
+ Now uses Cglib 2.0
+
+ Revision 1.24  2003/10/19 09:50:33  billhorsman
+ Drill down into InvocationTargetException during execution debug.
+
+ Revision 1.23  2003/10/18 20:44:48  billhorsman
+ Better SQL logging (embed parameter values within SQL call) and works properly with batched statements now.
+
+ Revision 1.22  2003/09/30 18:39:08  billhorsman
+ New test-before-use, test-after-use and fatal-sql-exception-wrapper-class properties.
+
+ Revision 1.21  2003/09/29 17:48:49  billhorsman
+ New fatal-sql-exception-wrapper-class allows you to define what exception is used as a wrapper. This means that you
+ can make it a RuntimeException if you need to.
+
+ Revision 1.20  2003/09/10 22:21:04  chr32
+ Removing > jdk 1.2 dependencies.
+
+ Revision 1.19  2003/09/05 17:01:00  billhorsman
+ Trap and throw FatalSQLExceptions.
+
+ Revision 1.18  2003/03/03 11:11:58  billhorsman
+ fixed licence
+
+ Revision 1.17  2003/02/13 17:06:42  billhorsman
+ allow for sqlStatement in execute() method
+
+ Revision 1.16  2003/02/06 17:41:04  billhorsman
+ now uses imported logging
+
+ Revision 1.15  2003/01/31 16:53:19  billhorsman
+ checkstyle
+
+ Revision 1.14  2003/01/28 11:47:08  billhorsman
+ new isTrace() and made close() public
+
+ Revision 1.13  2003/01/27 18:26:40  billhorsman
+ refactoring of ProxyConnection and ProxyStatement to
+ make it easier to write JDK 1.2 patch
+
+ Revision 1.12  2002/12/19 00:08:36  billhorsman
+ automatic closure of statements when a connection is closed
+
+ Revision 1.11  2002/12/16 10:57:48  billhorsman
+ add getDelegateStatement to allow access to the
+ delegate JDBC driver's Statement
+
+ Revision 1.10  2002/12/03 12:24:00  billhorsman
+ fixed fatal sql exception
+
+ Revision 1.9  2002/11/13 18:22:04  billhorsman
+ fix for trace output
+
+ Revision 1.8  2002/11/13 12:32:38  billhorsman
+ now correctly logs trace messages even with verbose off
+
+ Revision 1.7  2002/11/09 15:57:33  billhorsman
+ finished off execute logging and listening
+
+ Revision 1.6  2002/10/29 23:20:55  billhorsman
+ logs execute time when debug is enabled and verbose is true
+
+ Revision 1.5  2002/10/28 19:28:25  billhorsman
+ checkstyle
+
+ Revision 1.4  2002/10/28 08:20:23  billhorsman
+ draft sql dump stuff
+
+ Revision 1.3  2002/10/25 15:59:32  billhorsman
+ made non-public where possible
+
+ Revision 1.2  2002/10/17 15:29:18  billhorsman
+ fixes so that equals() works
+
+ Revision 1.1.1.1  2002/09/13 08:13:30  billhorsman
+ new
+
+ Revision 1.8  2002/08/24 19:57:15  billhorsman
+ checkstyle changes
+
+ Revision 1.7  2002/08/24 19:42:26  billhorsman
+ new proxy stuff to work with JDK 1.4
+
+ Revision 1.6  2002/07/10 16:14:47  billhorsman
+ widespread layout changes and move constants into ProxoolConstants
+
+ Revision 1.5  2002/07/02 11:19:08  billhorsman
+ layout code and imports
+
+ Revision 1.4  2002/06/28 11:19:47  billhorsman
+ improved doc
+
+*/
@@ -0,0 +1,215 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * What we know about the session of one delegate connection: autoCommit, readOnly
+ * and the transaction isolation. It lets us answer the getters without asking the
+ * driver and ignore setters that wouldn't change anything, which frameworks call
+ * every time they get a connection. A null means we don't know (and have to ask).
+ * <p>
+ * It's {@link ConnectionResetter#seed seeded} with the defaults the ConnectionResetter
+ * found and kept up to date as the connection is changed and
+ * {@link ConnectionResetter#reset reset}. Anything done to the delegate connection
+ * behind our back (including SQL such as <code>SET TRANSACTION ISOLATION LEVEL</code>)
+ * will fool it. Like the connection itself, only one thread uses it at a time.
+ *
+ * @see WrappedConnection#setAutoCommit
+ */
+class SessionState {
+
+    private Connection connection;
+
+    /** @see ConnectionPoolDefinitionIF#isLazyTransactionBegin */
+    private boolean lazyTransactionBegin;
+
+    private Boolean autoCommit;
+
+    private Boolean readOnly;
+
+    private Integer transactionIsolation;
+
+    /**
+     * @see #isTransactionPending
+     */
+    private boolean transactionPending;
+
+    /**
+     * @param connection the delegate connection
+     * @param lazyTransactionBegin see {@link ConnectionPoolDefinitionIF#isLazyTransactionBegin}
+     */
+    protected SessionState(Connection connection, boolean lazyTransactionBegin) {
+        this.connection = connection;
+        this.lazyTransactionBegin = lazyTransactionBegin;
+    }
+
+    /**
+     * @return autoCommit, as far as the user of the connection is concerned
+     * @throws SQLException if we had to ask the driver and it failed
+     */
+    protected boolean getAutoCommit() throws SQLException {
+        if (autoCommit == null) {
+            autoCommit = Boolean.valueOf(connection.getAutoCommit());
+        }
+        return autoCommit.booleanValue();
+    }
+
+    /**
+     * Change autoCommit. If we're {@link ConnectionPoolDefinitionIF#isLazyTransactionBegin lazy}
+     * then turning it off doesn't involve the driver until {@link #beginTransaction} is called.
+     * @param autoCommit the new value
+     * @throws SQLException if the driver failed
+     */
+    protected void setAutoCommit(boolean autoCommit) throws SQLException {
+        if (transactionPending) {
+            // The driver never knew that it was off
+            transactionPending = false;
+            this.autoCommit = Boolean.TRUE;
+            if (autoCommit) {
+                return;
+            }
+        }
+        if (!autoCommit && lazyTransactionBegin && Boolean.TRUE.equals(this.autoCommit)) {
+            this.autoCommit = Boolean.FALSE;
+            transactionPending = true;
+            return;
+        }
+        this.autoCommit = null;
+        connection.setAutoCommit(autoCommit);
+        this.autoCommit = Boolean.valueOf(autoCommit);
+    }
+
+    /**
+     * Whether autoCommit has been turned off {@link ConnectionPoolDefinitionIF#isLazyTransactionBegin lazily}
+     * and nothing has been executed since. If so, there's nothing to commit or roll back.
+     * @return true if we haven't told the driver to turn autoCommit off yet
+     */
+    protected boolean isTransactionPending() {
+        return transactionPending;
+    }
+
+    /**
+     * Something is about to be executed. If autoCommit was turned off lazily then it's
+     * time to tell the driver.
+     * @throws SQLException if the driver couldn't turn autoCommit off
+     */
+    protected void beginTransaction() throws SQLException {
+        if (transactionPending) {
+            transactionPending = false;
+            autoCommit = null;
+            connection.setAutoCommit(false);
+            autoCommit = Boolean.FALSE;
+        }
+    }
+
+    /**
+     * Forget about a transaction that was never begun because nothing was executed.
+     * Afterwards autoCommit is back on.
+     */
+    protected void abandonTransaction() {
+        if (transactionPending) {
+            transactionPending = false;
+            autoCommit = Boolean.TRUE;
+        }
+    }
+
+    /**
+     * @return readOnly
+     * @throws SQLException if we had to ask the driver and it failed
+     */
+    protected boolean isReadOnly() throws SQLException {
+        if (readOnly == null) {
+            readOnly = Boolean.valueOf(connection.isReadOnly());
+        }
+        return readOnly.booleanValue();
+    }
+
+    /**
+     * @param readOnly the new value
+     * @throws SQLException if the driver failed
+     */
+    protected void setReadOnly(boolean readOnly) throws SQLException {
+        this.readOnly = null;
+        connection.setReadOnly(readOnly);
+        this.readOnly = Boolean.valueOf(readOnly);
+    }
+
+    /**
+     * @return the transaction isolation
+     * @throws SQLException if we had to ask the driver and it failed
+     */
+    protected int getTransactionIsolation() throws SQLException {
+        if (transactionIsolation == null) {
+            transactionIsolation = Integer.valueOf(connection.getTransactionIsolation());
+        }
+        return transactionIsolation.intValue();
+    }
+
+    /**
+     * @param transactionIsolation the new value
+     * @throws SQLException if the driver failed
+     */
+    protected void setTransactionIsolation(int transactionIsolation) throws SQLException {
+        this.transactionIsolation = null;
+        connection.setTransactionIsolation(transactionIsolation);
+        this.transactionIsolation = Integer.valueOf(transactionIsolation);
+    }
+
+    /**
+     * Forget what we knew about some properties (because somebody else has reset them)
+     * @param properties the {@link ConnectionResetter} properties to forget, or'd together
+     */
+    protected void forget(int properties) {
+        if ((properties & ConnectionResetter.AUTO_COMMIT) != 0) {
+            transactionPending = false;
+            autoCommit = null;
+        }
+        if ((properties & ConnectionResetter.READ_ONLY) != 0) {
+            readOnly = null;
+        }
+        if ((properties & ConnectionResetter.TRANSACTION_ISOLATION) != 0) {
+            transactionIsolation = null;
+        }
+    }
+
+    /**
+     * Remember the value of a property that has been set (or reset) without our help
+     * @param property one of the {@link ConnectionResetter} properties (we ignore
+     * the ones we don't keep track of)
+     * @param value its value
+     */
+    protected void set(int property, Object value) {
+        if (property == ConnectionResetter.AUTO_COMMIT) {
+            autoCommit = (Boolean) value;
+        } else if (property == ConnectionResetter.READ_ONLY) {
+            readOnly = (Boolean) value;
+        } else if (property == ConnectionResetter.TRANSACTION_ISOLATION) {
+            transactionIsolation = (Integer) value;
+        }
+    }
+
+    /**
+     * @param property one of the {@link ConnectionResetter} properties
+     * @param value the value we're interested in
+     * @return true if we know that the property has this value (and false if
+     * it doesn't, or if we don't know)
+     */
+    protected boolean is(int property, Object value) {
+        Object knownValue = null;
+        if (property == ConnectionResetter.AUTO_COMMIT) {
+            knownValue = autoCommit;
+        } else if (property == ConnectionResetter.READ_ONLY) {
+            knownValue = readOnly;
+        } else if (property == ConnectionResetter.TRANSACTION_ISOLATION) {
+            knownValue = transactionIsolation;
+        }
+        return knownValue != null && knownValue.equals(value);
+    }
+
+}
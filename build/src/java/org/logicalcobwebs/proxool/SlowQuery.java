@@ -0,0 +1,91 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.util.Date;
+
+/**
+ * Implementation of SlowQueryIF. It never changes.
+ *
+ * @see SlowQueryLog
+ */
+class SlowQuery implements SlowQueryIF {
+
+    private long time;
+
+    private long elapsedTime;
+
+    private String sql;
+
+    private String threadName;
+
+    private Exception exception;
+
+    private StackTraceElement[] stackTrace;
+
+    /**
+     * @param time when it finished
+     * @param elapsedTime see {@link #getElapsedTime}
+     * @param sql see {@link #getSql}
+     * @param threadName see {@link #getThreadName}
+     * @param exception see {@link #getException}
+     * @param stackTrace see {@link #getStackTrace}
+     */
+    protected SlowQuery(long time, long elapsedTime, String sql, String threadName, Exception exception, StackTraceElement[] stackTrace) {
+        this.time = time;
+        this.elapsedTime = elapsedTime;
+        this.sql = sql;
+        this.threadName = threadName;
+        this.exception = exception;
+        this.stackTrace = stackTrace;
+    }
+
+    /**
+     * @see SlowQueryIF#getDate
+     */
+    public Date getDate() {
+        return new Date(time);
+    }
+
+    /**
+     * @see SlowQueryIF#getElapsedTime
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * @see SlowQueryIF#getSql
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @see SlowQueryIF#getThreadName
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * @see SlowQueryIF#getException
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    /**
+     * @see SlowQueryIF#getStackTrace
+     */
+    public StackTraceElement[] getStackTrace() {
+        return stackTrace != null ? stackTrace.clone() : null;
+    }
+
+    public String toString() {
+        return sql + " (" + elapsedTime + " milliseconds)";
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.util.Date;
+
+/**
+ * An execution that took longer than the
+ * {@link ConnectionPoolDefinitionIF#getSlowQueryThreshold slow query threshold}.
+ * You can get the most recent ones from {@link ProxoolFacade#getSlowQueries ProxoolFacade}.
+ *
+ * @see ConnectionPoolDefinitionIF#getSlowQueryThreshold
+ */
+public interface SlowQueryIF {
+
+    /**
+     * @return when it finished
+     */
+    Date getDate();
+
+    /**
+     * @return how long it took (milliseconds)
+     */
+    long getElapsedTime();
+
+    /**
+     * The SQL that was executed. For a prepared statement the parameter values are
+     * only filled in if it was being {@link ConnectionPoolDefinitionIF#isTrace traced}
+     * (otherwise they are shown as question marks). For a batch it's the first SQL
+     * that was added to it.
+     * @return the SQL
+     */
+    String getSql();
+
+    /**
+     * @return the name of the thread that executed it
+     */
+    String getThreadName();
+
+    /**
+     * @return what it threw, or null if it worked
+     */
+    Exception getException();
+
+    /**
+     * Where it was called from, starting with the first caller outside Proxool.
+     * Only so many stack traces are taken each second (it's relatively expensive)
+     * and only so deep.
+     * @return the stack trace, or null if one wasn't taken
+     */
+    StackTraceElement[] getStackTrace();
+
+}
@@ -0,0 +1,165 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import org.logicalcobwebs.logging.Log;
+import org.logicalcobwebs.logging.LogFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Remembers the most recent executions that took longer than the
+ * {@link ConnectionPoolDefinitionIF#getSlowQueryThreshold slow query threshold}.
+ * Nothing happens here for a query that was quick enough: the statement only
+ * calls {@link #record} once it knows the query was slow.
+ * <p>
+ * Taking a stack trace is relatively expensive, so we take at most one every
+ * {@link #STACK_TRACE_INTERVAL_NANOS 100 milliseconds} and only so deep. Where we
+ * can (Java 9 onwards) we use a <code>StackWalker</code>, which only looks at as
+ * many frames as we want. It's found by reflection so that we still run on Java 8,
+ * where we fall back on {@link Throwable#getStackTrace}.
+ *
+ * @see AbstractProxyStatement#afterExecute
+ * @see ProxoolFacade#getSlowQueries
+ */
+class SlowQueryLog {
+
+    private static final Log LOG = LogFactory.getLog(SlowQueryLog.class);
+
+    /** How many slow queries we remember */
+    private static final int CAPACITY = 100;
+
+    /** The most frames we keep in a stack trace */
+    private static final int MAXIMUM_STACK_DEPTH = 20;
+
+    /** We take at most one stack trace in this time */
+    private static final long STACK_TRACE_INTERVAL_NANOS = 100000000L;
+
+    private static final String PROXOOL_PACKAGE = "org.logicalcobwebs.proxool.";
+
+    /** A StackWalker (Java 9 onwards) or null if there isn't one */
+    private static Object stackWalker;
+
+    private static Method walkMethod;
+
+    private static Method getClassNameMethod;
+
+    private static Method toStackTraceElementMethod;
+
+    static {
+        try {
+            Class stackWalkerClass = Class.forName("java.lang.StackWalker");
+            Class stackFrameClass = Class.forName("java.lang.StackWalker$StackFrame");
+            walkMethod = stackWalkerClass.getMethod("walk", new Class[] {Function.class});
+            getClassNameMethod = stackFrameClass.getMethod("getClassName", new Class[0]);
+            toStackTraceElementMethod = stackFrameClass.getMethod("toStackTraceElement", new Class[0]);
+            stackWalker = stackWalkerClass.getMethod("getInstance", new Class[0]).invoke(null, new Object[0]);
+        } catch (Exception e) {
+            // Before Java 9
+            stackWalker = null;
+        }
+    }
+
+    /** The slow queries, oldest first. Once it's full the oldest is replaced. */
+    private SlowQueryIF[] slowQueries = new SlowQueryIF[CAPACITY];
+
+    /** How many we have ever recorded (so the next one goes at count % CAPACITY) */
+    private long count;
+
+    /** The earliest {@link System#nanoTime} at which we're allowed to take another stack trace */
+    private AtomicLong nextStackTraceTime = new AtomicLong(System.nanoTime());
+
+    /**
+     * Remember a slow query. Call this on the thread that executed it so that we
+     * can see where it was called from.
+     * @param sql the SQL that was executed
+     * @param elapsedNanos how long it took
+     * @param exception what it threw (or null if it worked)
+     */
+    protected void record(String sql, long elapsedNanos, Exception exception) {
+        StackTraceElement[] stackTrace = null;
+        long now = System.nanoTime();
+        long next = nextStackTraceTime.get();
+        if (now - next >= 0 && nextStackTraceTime.compareAndSet(next, now + STACK_TRACE_INTERVAL_NANOS)) {
+            stackTrace = getCallerStackTrace();
+        }
+        SlowQueryIF slowQuery = new SlowQuery(System.currentTimeMillis(), elapsedNanos / 1000000,
+                sql, Thread.currentThread().getName(), exception, stackTrace);
+        synchronized (this) {
+            slowQueries[(int) (count % CAPACITY)] = slowQuery;
+            count++;
+        }
+    }
+
+    /**
+     * @return the slow queries we remember, the most recent first
+     */
+    protected synchronized SlowQueryIF[] getSlowQueries() {
+        int size = (int) Math.min(count, CAPACITY);
+        SlowQueryIF[] recent = new SlowQueryIF[size];
+        for (int i = 0; i < size; i++) {
+            recent[i] = slowQueries[(int) ((count - 1 - i) % CAPACITY)];
+        }
+        return recent;
+    }
+
+    /**
+     * @return how many slow queries there have been (including the ones we've forgotten)
+     */
+    protected synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the stack of the current thread, starting with the first frame outside Proxool
+     * and no more than {@link #MAXIMUM_STACK_DEPTH} deep.
+     */
+    private static StackTraceElement[] getCallerStackTrace() {
+        List frames = null;
+        if (stackWalker != null) {
+            try {
+                frames = (List) walkMethod.invoke(stackWalker, new Object[] {new Function() {
+                    public Object apply(Object stream) {
+                        List callerFrames = new ArrayList(MAXIMUM_STACK_DEPTH);
+                        Iterator i = ((Stream) stream).iterator();
+                        try {
+                            while (i.hasNext() && callerFrames.size() < MAXIMUM_STACK_DEPTH) {
+                                Object frame = i.next();
+                                if (callerFrames.isEmpty() && ((String) getClassNameMethod.invoke(frame, new Object[0])).startsWith(PROXOOL_PACKAGE)) {
+                                    continue;
+                                }
+                                callerFrames.add(toStackTraceElementMethod.invoke(frame, new Object[0]));
+                            }
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e.toString());
+                        }
+                        return callerFrames;
+                    }
+                }});
+            } catch (Exception e) {
+                LOG.debug("Couldn't walk the stack so we'll get it the old way", e);
+                stackWalker = null;
+            }
+        }
+        if (frames == null) {
+            StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+            frames = new ArrayList(MAXIMUM_STACK_DEPTH);
+            for (int i = 0; i < stackTrace.length && frames.size() < MAXIMUM_STACK_DEPTH; i++) {
+                if (frames.isEmpty() && stackTrace[i].getClassName().startsWith(PROXOOL_PACKAGE)) {
+                    continue;
+                }
+                frames.add(stackTrace[i]);
+            }
+        }
+        return (StackTraceElement[]) frames.toArray(new StackTraceElement[frames.size()]);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+/**
+ * Implementation of SqlProfileIF. Unlike the {@link SqlProfiler} it was copied
+ * from it is frozen and will not change.
+ *
+ * @see SqlProfiler#getProfiles
+ */
+class SqlProfile implements SqlProfileIF {
+
+    private static final double NANOS_PER_MILLISECOND = 1000000.0;
+
+    private String sql;
+
+    private long executionCount;
+
+    private long errorCount;
+
+    private long totalNanos;
+
+    private long maximumNanos;
+
+    /** The number of executions in each {@link SqlProfiler#getBucket bucket} */
+    private long[] histogram;
+
+    /**
+     * @param sql see {@link #getSql}
+     * @param executionCount see {@link #getExecutionCount}
+     * @param errorCount see {@link #getErrorCount}
+     * @param totalNanos see {@link #getTotalTime}
+     * @param maximumNanos see {@link #getMaximumTime}
+     * @param histogram how many executions fell in each bucket
+     */
+    protected SqlProfile(String sql, long executionCount, long errorCount, long totalNanos, long maximumNanos, long[] histogram) {
+        this.sql = sql;
+        this.executionCount = executionCount;
+        this.errorCount = errorCount;
+        this.totalNanos = totalNanos;
+        this.maximumNanos = maximumNanos;
+        this.histogram = histogram;
+    }
+
+    /**
+     * @see SqlProfileIF#getSql
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @see SqlProfileIF#getExecutionCount
+     */
+    public long getExecutionCount() {
+        return executionCount;
+    }
+
+    /**
+     * @see SqlProfileIF#getErrorCount
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @see SqlProfileIF#getErrorRate
+     */
+    public double getErrorRate() {
+        return executionCount > 0 ? (double) errorCount / executionCount : 0.0;
+    }
+
+    /**
+     * @see SqlProfileIF#getTotalTime
+     */
+    public double getTotalTime() {
+        return totalNanos / NANOS_PER_MILLISECOND;
+    }
+
+    /**
+     * @see SqlProfileIF#getAverageTime
+     */
+    public double getAverageTime() {
+        return executionCount > 0 ? totalNanos / NANOS_PER_MILLISECOND / executionCount : 0.0;
+    }
+
+    /**
+     * @see SqlProfileIF#getMaximumTime
+     */
+    public double getMaximumTime() {
+        return maximumNanos / NANOS_PER_MILLISECOND;
+    }
+
+    /**
+     * Reports the top of the bucket the percentile falls in (but never more than the maximum)
+     * @see SqlProfileIF#getPercentileTime
+     */
+    public double getPercentileTime(double percentile) {
+        long total = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            total += histogram[i];
+        }
+        if (total == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(SqlProfiler.getBucketLimit(i), maximumNanos) / NANOS_PER_MILLISECOND;
+            }
+        }
+        return getMaximumTime();
+    }
+
+    public String toString() {
+        return sql + " (" + executionCount + " executions)";
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Some SQL that has been parsed so that we know where its parameter
+ * placeholders (?) are. We use it to fill in the parameter values when we
+ * trace a statement. Templates with placeholders are cached so that each
+ * one is only parsed once, however many statements use it.
+ *
+ * @see AbstractProxyStatement#trace
+ */
+class SqlTemplate {
+
+    /**
+     * We stop caching once we have this many templates. Plenty for the
+     * prepared statements of any sane application.
+     */
+    private static final int MAXIMUM_CACHED_TEMPLATES = 1000;
+
+    private static final int[] NO_PLACEHOLDERS = new int[0];
+
+    /** Keyed by SQL. Only templates with placeholders are cached (the rest are probably one-offs). */
+    private static ConcurrentHashMap templates = new ConcurrentHashMap();
+
+    private String sql;
+
+    /** The offset of each placeholder */
+    private int[] placeholders;
+
+    private SqlTemplate(String sql) {
+        this.sql = sql;
+        this.placeholders = parse(sql);
+    }
+
+    /**
+     * Get the template for some SQL, parsing it if we haven't already
+     * @param sql the SQL
+     * @return the template
+     */
+    protected static SqlTemplate getTemplate(String sql) {
+        SqlTemplate template = (SqlTemplate) templates.get(sql);
+        if (template == null) {
+            template = new SqlTemplate(sql);
+            if (template.placeholders.length > 0 && templates.size() < MAXIMUM_CACHED_TEMPLATES) {
+                templates.putIfAbsent(sql, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Find the placeholders. A question mark inside a quoted literal or identifier
+     * isn't one.
+     */
+    private static int[] parse(String sql) {
+        int count = 0;
+        int[] placeholders = NO_PLACEHOLDERS;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                if (count == placeholders.length) {
+                    int[] bigger = new int[Math.max(4, count * 2)];
+                    System.arraycopy(placeholders, 0, bigger, 0, count);
+                    placeholders = bigger;
+                }
+                placeholders[count++] = i;
+            }
+        }
+        if (count < placeholders.length) {
+            int[] exact = new int[count];
+            System.arraycopy(placeholders, 0, exact, 0, count);
+            placeholders = exact;
+        }
+        return placeholders;
+    }
+
+    /**
+     * @return the number of placeholders
+     */
+    protected int getPlaceholderCount() {
+        return placeholders.length;
+    }
+
+    /**
+     * Append the SQL to a log with each placeholder replaced by its value (or left
+     * as a question mark if it doesn't have one)
+     * @param out where to append it
+     * @param parameters the values (can be null)
+     */
+    protected void appendTo(StringBuilder out, TraceParameters parameters) {
+        int start = 0;
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(sql, start, placeholders[i]);
+            if (parameters != null) {
+                parameters.appendValue(out, i + 1);
+            } else {
+                out.append('?');
+            }
+            start = placeholders[i] + 1;
+        }
+        out.append(sql, start, sql.length());
+    }
+
+    public String toString() {
+        return sql;
+    }
+}
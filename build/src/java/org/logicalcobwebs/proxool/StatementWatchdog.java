@@ -0,0 +1,251 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cancels executions that run for longer than their statement's
+ * {@link java.sql.Statement#setQueryTimeout query timeout}, for drivers that
+ * don't do it themselves (or don't do it reliably). Only the query is
+ * cancelled, not the connection, so nobody else has to wait for the
+ * {@link ConnectionPoolDefinitionIF#getMaximumActiveTime house keeper} to
+ * throw the whole connection away.
+ * <p>
+ * It's a timer wheel: a ring of slots, each covering {@link #TICK_NANOS one tick}.
+ * Each statement has one {@link Watch}, which sits in the slot for its deadline.
+ * Once a tick a single thread takes everything out of the current slot: watches
+ * whose execution has finished are dropped, ones whose statement has started
+ * another execution since are moved on to the slot for the new deadline and
+ * the rest are cancelled. So executing a statement over and over just updates
+ * its deadline, without locking the wheel or creating any garbage.
+ * <p>
+ * Cancelling means a round trip to the database, so each cancel happens on a
+ * thread of its own without holding any locks. The wheel doesn't wait for it.
+ * The execution it cancels doesn't {@link Watch#finish finish} until the cancel
+ * is over, though, so the connection can't go back to the pool (and a late
+ * cancel can't hit whatever the next borrower executes).
+ *
+ * @see ConnectionPoolDefinitionIF#getDefaultQueryTimeout
+ * @see AbstractProxyStatement#beforeExecute
+ */
+class StatementWatchdog implements Runnable {
+
+    /** How often we look for overdue executions, which is how late we might be */
+    private static final long TICK_NANOS = 100000000L;
+
+    /** How many slots in the wheel (a power of two). One lap is about 50 seconds. */
+    private static final int SLOT_COUNT = 512;
+
+    /** The top of the stack of {@link Watch watches} in each slot */
+    private AtomicReferenceArray slots = new AtomicReferenceArray(SLOT_COUNT);
+
+    /** The time that tick zero started */
+    private final long origin = System.nanoTime();
+
+    /** How long a finished execution waits between looks to see whether it has finished being cancelled */
+    private static final long CANCEL_WAIT_NANOS = 1000000L;
+
+    private ConnectionPool connectionPool;
+
+    /** Makes our own thread and one for each cancel */
+    private ThreadFactory threadFactory;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param connectionPool so we can log what we cancel
+     */
+    protected StatementWatchdog(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Start the thread that cancels overdue executions
+     * @param threadFactory makes the thread
+     */
+    protected void start(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+        threadFactory.newThread(this).start();
+    }
+
+    /**
+     * Stop watching. Anything being watched is left to run as long as it likes.
+     */
+    protected void shutdown() {
+        running = false;
+    }
+
+    /**
+     * Start watching a statement's first execution. After that use
+     * {@link Watch#start} for each execution and {@link Watch#finish} when it finishes.
+     * @param statement the statement that is executing
+     * @param deadline when to cancel it (from {@link System#nanoTime})
+     * @return the watch
+     */
+    protected Watch watch(AbstractProxyStatement statement, long deadline) {
+        Watch watch = new Watch(statement);
+        watch.start(deadline);
+        return watch;
+    }
+
+    private void push(Watch watch) {
+        int slot = (int) ((watch.deadline - origin) / TICK_NANOS) & (SLOT_COUNT - 1);
+        Watch top;
+        do {
+            top = (Watch) slots.get(slot);
+            watch.next = top;
+        } while (!slots.compareAndSet(slot, top, watch));
+    }
+
+    /**
+     * Tick until we're shutdown
+     */
+    public void run() {
+        long tick = 0;
+        while (running) {
+            // We're not due to look at this slot until the tick is over
+            long wait = origin + (tick + 1) * TICK_NANOS - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            Watch watch = (Watch) slots.getAndSet((int) tick & (SLOT_COUNT - 1), null);
+            long now = System.nanoTime();
+            while (watch != null) {
+                Watch next = watch.next;
+                watch.check(now);
+                watch = next;
+            }
+            tick++;
+        }
+    }
+
+    /**
+     * Watches the executions of one statement. Its {@link #state} changes without
+     * locking; the lock only guards where it is in the wheel, and is never held
+     * whilst anything is cancelled.
+     */
+    class Watch {
+
+        private static final int IDLE = 0;
+
+        private static final int EXECUTING = 1;
+
+        private static final int CANCELLING = 2;
+
+        private AbstractProxyStatement statement;
+
+        private AtomicInteger state = new AtomicInteger(IDLE);
+
+        /** When the current execution is due to be cancelled */
+        private volatile long deadline;
+
+        /** The deadline of the slot we're in (if we're in one) */
+        private long slotDeadline;
+
+        private boolean inSlot;
+
+        /** The next watch in the same slot */
+        private Watch next;
+
+        private Watch(AbstractProxyStatement statement) {
+            this.statement = statement;
+        }
+
+        /**
+         * An execution has started
+         * @param deadline when to cancel it (from {@link System#nanoTime})
+         * @return false if it's due before the slot we're in comes round, in which
+         * case you need a {@link StatementWatchdog#watch new watch}
+         */
+        protected boolean start(long deadline) {
+            synchronized (this) {
+                if (inSlot && deadline - slotDeadline < 0) {
+                    // Rare: the query timeout has been shortened. This watch will just be dropped.
+                    return false;
+                }
+                this.deadline = deadline;
+                state.set(EXECUTING);
+                if (!inSlot) {
+                    inSlot = true;
+                    slotDeadline = deadline;
+                    push(this);
+                }
+                return true;
+            }
+        }
+
+        /**
+         * The execution has finished. If we're cancelling it right now then we
+         * wait until the cancel is over, so that it can't cancel anything that
+         * is executed after this (on this statement or any other on the same connection).
+         */
+        protected void finish() {
+            if (!state.compareAndSet(EXECUTING, IDLE)) {
+                // Rare: it ran over and we caught it
+                while (state.get() == CANCELLING) {
+                    LockSupport.parkNanos(this, CANCEL_WAIT_NANOS);
+                }
+            }
+        }
+
+        /**
+         * Our slot has come round
+         */
+        private void check(long now) {
+            synchronized (this) {
+                if (state.get() != EXECUTING) {
+                    inSlot = false;
+                    return;
+                } else if (deadline - now > 0) {
+                    // It's executing something newer. Wait for that one's slot.
+                    slotDeadline = deadline;
+                    push(this);
+                    return;
+                }
+                inSlot = false;
+                if (!state.compareAndSet(EXECUTING, CANCELLING)) {
+                    // It finished just in time
+                    return;
+                }
+            }
+            final long overdue = now - deadline;
+            Runnable cancel = new Runnable() {
+                public void run() {
+                    try {
+                        cancel(overdue);
+                    } finally {
+                        state.set(IDLE);
+                    }
+                }
+            };
+            try {
+                threadFactory.newThread(cancel).start();
+            } catch (RuntimeException e) {
+                // We couldn't make a thread (or we don't have a factory). Do it ourselves.
+                cancel.run();
+            }
+        }
+
+        private void cancel(long overdue) {
+            try {
+                statement.getStatement().cancel();
+                connectionPool.getLog().warn("Cancelled an execution on connection #" + statement.getProxyConnection().getId()
+                        + " that ran " + overdue / 1000000 + " milliseconds over its query timeout"
+                        + (statement.getSqlStatement() != null ? ": " + statement.getSqlStatement() : ""));
+            } catch (SQLException e) {
+                connectionPool.getLog().warn("Couldn't cancel an execution that ran over its query timeout", e);
+            } catch (RuntimeException e) {
+                connectionPool.getLog().warn("Couldn't cancel an execution that ran over its query timeout", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+/**
+ * The parameter values that have been set on a statement, so that we can show
+ * them when we trace it. Numbers and booleans are kept as primitives and the
+ * arrays are reused, so setting a parameter doesn't create any garbage. Values
+ * are only turned into text when a {@link SqlTemplate} is
+ * {@link SqlTemplate#appendTo appended} to a log.
+ *
+ * @see AbstractProxyStatement#putParameter
+ */
+class TraceParameters {
+
+    private static final byte UNSET = 0;
+
+    private static final byte OBJECT = 1;
+
+    private static final byte LONG = 2;
+
+    private static final byte DOUBLE = 3;
+
+    private static final byte BOOLEAN = 4;
+
+    /**
+     * We ignore parameter indexes above this (no database allows that many) so that a
+     * driver that doesn't check them can't make us grow the arrays without limit
+     */
+    private static final int MAXIMUM_INDEX = 65535;
+
+    /** What sort of value each parameter has (indexed from zero) */
+    private byte[] types = new byte[8];
+
+    /** Longs and booleans (1 for true) */
+    private long[] longs = new long[8];
+
+    private double[] doubles = new double[8];
+
+    private Object[] objects = new Object[8];
+
+    /** The highest parameter index that has been set */
+    private int count;
+
+    protected void put(int index, Object value) {
+        int i = slot(index);
+        if (i < 0) {
+            return;
+        }
+        types[i] = OBJECT;
+        objects[i] = value;
+    }
+
+    protected void put(int index, long value) {
+        int i = slot(index);
+        if (i < 0) {
+            return;
+        }
+        types[i] = LONG;
+        longs[i] = value;
+        objects[i] = null;
+    }
+
+    protected void put(int index, double value) {
+        int i = slot(index);
+        if (i < 0) {
+            return;
+        }
+        types[i] = DOUBLE;
+        doubles[i] = value;
+        objects[i] = null;
+    }
+
+    protected void put(int index, boolean value) {
+        int i = slot(index);
+        if (i < 0) {
+            return;
+        }
+        types[i] = BOOLEAN;
+        longs[i] = value ? 1 : 0;
+        objects[i] = null;
+    }
+
+    /**
+     * Forget all the values (but keep the arrays)
+     */
+    protected void clear() {
+        for (int i = 0; i < count; i++) {
+            types[i] = UNSET;
+            objects[i] = null;
+        }
+        count = 0;
+    }
+
+    /**
+     * Append a parameter's value: strings are quoted, numbers and booleans are shown
+     * as they are, null is NULL and anything else is shown as the name of its class
+     * (without the package). A parameter that hasn't been set is shown as a question mark.
+     * @param out where to append it
+     * @param index the parameter index (starting from one, like JDBC)
+     */
+    protected void appendValue(StringBuilder out, int index) {
+        int i = index - 1;
+        if (i < 0 || i >= count) {
+            out.append('?');
+            return;
+        }
+        switch (types[i]) {
+            case LONG:
+                out.append(longs[i]);
+                break;
+            case DOUBLE:
+                out.append(doubles[i]);
+                break;
+            case BOOLEAN:
+                out.append(longs[i] != 0);
+                break;
+            case OBJECT:
+                Object value = objects[i];
+                if (value == null) {
+                    out.append("NULL");
+                } else if (value instanceof String) {
+                    out.append('\'').append((String) value).append('\'');
+                } else if (value instanceof Number) {
+                    out.append(value);
+                } else {
+                    String className = value.getClass().getName();
+                    out.append(className, className.lastIndexOf('.') + 1, className.length());
+                }
+                break;
+            default:
+                out.append('?');
+        }
+    }
+
+    /**
+     * Make room for a parameter
+     * @param index the parameter index (starting from one, like JDBC)
+     * @return where it goes in the arrays, or -1 if the index is out of range (and it shouldn't be traced)
+     */
+    private int slot(int index) {
+        if (index < 1 || index > MAXIMUM_INDEX) {
+            return -1;
+        }
+        int i = index - 1;
+        if (i >= types.length) {
+            int length = Math.max(i + 1, types.length * 2);
+            byte[] newTypes = new byte[length];
+            long[] newLongs = new long[length];
+            double[] newDoubles = new double[length];
+            Object[] newObjects = new Object[length];
+            System.arraycopy(types, 0, newTypes, 0, count);
+            System.arraycopy(longs, 0, newLongs, 0, count);
+            System.arraycopy(doubles, 0, newDoubles, 0, count);
+            System.arraycopy(objects, 0, newObjects, 0, count);
+            types = newTypes;
+            longs = newLongs;
+            doubles = newDoubles;
+            objects = newObjects;
+        }
+        if (index > count) {
+            count = index;
+        }
+        return i;
+    }
+}
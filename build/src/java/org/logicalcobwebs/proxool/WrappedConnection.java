@@ -0,0 +1,658 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.ShardingKey;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * The Connection that we give out. It delegates straight to the real connection
+ * for almost everything, but tells the {@link ProxyConnection} about the calls it
+ * needs to know about: close() puts the connection back into the pool, statements
+ * are wrapped up too (prepared ones might come from a {@link StatementCache cache}), and calling a mutator means the connection might need
+ * {@link ConnectionResetter resetting}. It also checks for fatal SQLExceptions.
+ * <p>
+ * Each one is only good for one checkout. It remembers the connection's
+ * {@link ProxyConnectionIF#getGeneration generation} when it was given out and
+ * once the connection has been closed it stops working: close() does nothing
+ * (so closing twice can't return somebody else's connection to the pool) and
+ * everything else throws an SQLException.
+ *
+ * @see ProxyFactory#getConnection
+ */
+class WrappedConnection implements Connection {
+
+    private static final String MSG_CLOSED = "Connection has already been closed";
+
+    private ProxyConnection proxyConnection;
+
+    /** The real, delegate connection */
+    private Connection connection;
+
+    /** The {@link ProxyConnectionIF#getGeneration generation} we were given out in */
+    private long generation;
+
+    protected WrappedConnection(ProxyConnection proxyConnection) {
+        this.proxyConnection = proxyConnection;
+        this.connection = proxyConnection.getConnection();
+        this.generation = proxyConnection.getGeneration();
+    }
+
+    /**
+     * The pooled connection that we wrap
+     * @return proxyConnection
+     */
+    protected ProxyConnection getProxyConnection() {
+        return proxyConnection;
+    }
+
+    /**
+     * @return true if the connection has been closed since we were given out
+     */
+    private boolean isStale() {
+        return proxyConnection.getGeneration() != generation;
+    }
+
+    /**
+     * @throws SQLException if the connection has been closed since we were given out
+     */
+    private void checkOpen() throws SQLException {
+        if (isStale()) {
+            throw new SQLException(MSG_CLOSED);
+        }
+    }
+
+    /**
+     * Puts the connection back into the pool rather than really closing it. Does
+     * nothing if it's already been closed.
+     * @see ProxyConnectionIF#close(long)
+     */
+    public void close() throws SQLException {
+        proxyConnection.close(generation);
+    }
+
+    /**
+     * @see AbstractProxyConnection#isClosed
+     */
+    public boolean isClosed() throws SQLException {
+        return isStale() || proxyConnection.isClosed();
+    }
+
+    public DatabaseMetaData getMetaData() throws SQLException {
+        checkOpen();
+        return ProxyFactory.getDatabaseMetaData(connection, this);
+    }
+
+    public Statement createStatement() throws SQLException {
+        checkOpen();
+        try {
+            return proxyConnection.createProxyStatement(connection.createStatement(), null);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        checkOpen();
+        try {
+            return proxyConnection.prepareStatement(sql, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, false);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        checkOpen();
+        try {
+            return (CallableStatement) proxyConnection.prepareStatement(sql, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, true);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public String nativeSQL(String sql) throws SQLException {
+        checkOpen();
+        try {
+            return connection.nativeSQL(sql);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        checkOpen();
+        SessionState sessionState = proxyConnection.getSessionState();
+        if (sessionState.is(ConnectionResetter.AUTO_COMMIT, Boolean.valueOf(autoCommit))) {
+            // It already is, so it's a no-op
+            return;
+        }
+        proxyConnection.setChanged(ConnectionResetter.AUTO_COMMIT);
+        try {
+            sessionState.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public boolean getAutoCommit() throws SQLException {
+        checkOpen();
+        try {
+            return proxyConnection.getSessionState().getAutoCommit();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void commit() throws SQLException {
+        checkOpen();
+        if (proxyConnection.getSessionState().isTransactionPending()) {
+            // Nothing has been executed, so there's nothing to commit
+            return;
+        }
+        try {
+            connection.commit();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void rollback() throws SQLException {
+        checkOpen();
+        if (proxyConnection.getSessionState().isTransactionPending()) {
+            // Nothing has been executed, so there's nothing to roll back
+            return;
+        }
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        checkOpen();
+        SessionState sessionState = proxyConnection.getSessionState();
+        if (sessionState.is(ConnectionResetter.READ_ONLY, Boolean.valueOf(readOnly))) {
+            return;
+        }
+        proxyConnection.setChanged(ConnectionResetter.READ_ONLY);
+        try {
+            sessionState.setReadOnly(readOnly);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public boolean isReadOnly() throws SQLException {
+        checkOpen();
+        try {
+            return proxyConnection.getSessionState().isReadOnly();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void setCatalog(String catalog) throws SQLException {
+        checkOpen();
+        proxyConnection.setChanged(ConnectionResetter.CATALOG);
+        try {
+            connection.setCatalog(catalog);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public String getCatalog() throws SQLException {
+        checkOpen();
+        try {
+            return connection.getCatalog();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void setTransactionIsolation(int level) throws SQLException {
+        checkOpen();
+        SessionState sessionState = proxyConnection.getSessionState();
+        if (sessionState.is(ConnectionResetter.TRANSACTION_ISOLATION, Integer.valueOf(level))) {
+            return;
+        }
+        proxyConnection.setChanged(ConnectionResetter.TRANSACTION_ISOLATION);
+        try {
+            sessionState.setTransactionIsolation(level);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public int getTransactionIsolation() throws SQLException {
+        checkOpen();
+        try {
+            return proxyConnection.getSessionState().getTransactionIsolation();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public SQLWarning getWarnings() throws SQLException {
+        checkOpen();
+        try {
+            return connection.getWarnings();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void clearWarnings() throws SQLException {
+        checkOpen();
+        try {
+            connection.clearWarnings();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkOpen();
+        try {
+            return proxyConnection.createProxyStatement(connection.createStatement(resultSetType, resultSetConcurrency), null);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkOpen();
+        try {
+            return proxyConnection.prepareStatement(sql, resultSetType, resultSetConcurrency, StatementCache.Key.UNSPECIFIED, false);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkOpen();
+        try {
+            return (CallableStatement) proxyConnection.prepareStatement(sql, resultSetType, resultSetConcurrency, StatementCache.Key.UNSPECIFIED, true);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public java.util.Map<String, Class<?>> getTypeMap() throws SQLException {
+        checkOpen();
+        try {
+            return connection.getTypeMap();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void setTypeMap(java.util.Map<String, Class<?>> map) throws SQLException {
+        checkOpen();
+        proxyConnection.setChanged(ConnectionResetter.TYPE_MAP);
+        try {
+            connection.setTypeMap(map);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void setHoldability(int holdability) throws SQLException {
+        checkOpen();
+        proxyConnection.setChanged(ConnectionResetter.HOLDABILITY);
+        try {
+            connection.setHoldability(holdability);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public int getHoldability() throws SQLException {
+        checkOpen();
+        try {
+            return connection.getHoldability();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public Savepoint setSavepoint() throws SQLException {
+        checkOpen();
+        proxyConnection.setChanged(ConnectionResetter.AUTO_COMMIT);
+        try {
+            // A savepoint needs a transaction
+            proxyConnection.beginTransaction();
+            return connection.setSavepoint();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public Savepoint setSavepoint(String name) throws SQLException {
+        checkOpen();
+        proxyConnection.setChanged(ConnectionResetter.AUTO_COMMIT);
+        try {
+            proxyConnection.beginTransaction();
+            return connection.setSavepoint(name);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void rollback(Savepoint savepoint) throws SQLException {
+        checkOpen();
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        checkOpen();
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        checkOpen();
+        try {
+            return proxyConnection.createProxyStatement(connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability), null);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        checkOpen();
+        try {
+            return proxyConnection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability, false);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        checkOpen();
+        try {
+            return (CallableStatement) proxyConnection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability, true);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        checkOpen();
+        try {
+            return (PreparedStatement) proxyConnection.createProxyStatement(connection.prepareStatement(sql, autoGeneratedKeys), sql);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        checkOpen();
+        try {
+            return (PreparedStatement) proxyConnection.createProxyStatement(connection.prepareStatement(sql, columnIndexes), sql);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        checkOpen();
+        try {
+            return (PreparedStatement) proxyConnection.createProxyStatement(connection.prepareStatement(sql, columnNames), sql);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public Clob createClob() throws SQLException {
+        checkOpen();
+        try {
+            return connection.createClob();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public Blob createBlob() throws SQLException {
+        checkOpen();
+        try {
+            return connection.createBlob();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public NClob createNClob() throws SQLException {
+        checkOpen();
+        try {
+            return connection.createNClob();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public SQLXML createSQLXML() throws SQLException {
+        checkOpen();
+        try {
+            return connection.createSQLXML();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public boolean isValid(int timeout) throws SQLException {
+        if (isStale()) {
+            return false;
+        }
+        try {
+            return connection.isValid(timeout);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        if (isStale()) {
+            throw new SQLClientInfoException(MSG_CLOSED, null);
+        }
+        connection.setClientInfo(name, value);
+    }
+
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        if (isStale()) {
+            throw new SQLClientInfoException(MSG_CLOSED, null);
+        }
+        connection.setClientInfo(properties);
+    }
+
+    public String getClientInfo(String name) throws SQLException {
+        checkOpen();
+        try {
+            return connection.getClientInfo(name);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public Properties getClientInfo() throws SQLException {
+        checkOpen();
+        try {
+            return connection.getClientInfo();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        checkOpen();
+        try {
+            return connection.createArrayOf(typeName, elements);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        checkOpen();
+        try {
+            return connection.createStruct(typeName, attributes);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void setSchema(String schema) throws SQLException {
+        checkOpen();
+        proxyConnection.setChanged(ConnectionResetter.SCHEMA);
+        try {
+            connection.setSchema(schema);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public String getSchema() throws SQLException {
+        checkOpen();
+        try {
+            return connection.getSchema();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void abort(Executor executor) throws SQLException {
+        checkOpen();
+        try {
+            connection.abort(executor);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        checkOpen();
+        try {
+            connection.setNetworkTimeout(executor, milliseconds);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public int getNetworkTimeout() throws SQLException {
+        checkOpen();
+        try {
+            return connection.getNetworkTimeout();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void beginRequest() throws SQLException {
+        checkOpen();
+        try {
+            connection.beginRequest();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void endRequest() throws SQLException {
+        checkOpen();
+        try {
+            connection.endRequest();
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public boolean setShardingKeyIfValid(ShardingKey shardingKey, ShardingKey superShardingKey, int timeout) throws SQLException {
+        checkOpen();
+        try {
+            return connection.setShardingKeyIfValid(shardingKey, superShardingKey, timeout);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public boolean setShardingKeyIfValid(ShardingKey shardingKey, int timeout) throws SQLException {
+        checkOpen();
+        try {
+            return connection.setShardingKeyIfValid(shardingKey, timeout);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void setShardingKey(ShardingKey shardingKey, ShardingKey superShardingKey) throws SQLException {
+        checkOpen();
+        try {
+            connection.setShardingKey(shardingKey, superShardingKey);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public void setShardingKey(ShardingKey shardingKey) throws SQLException {
+        checkOpen();
+        try {
+            connection.setShardingKey(shardingKey);
+        } catch (SQLException e) {
+            throw proxyConnection.handleException(e);
+        }
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        checkOpen();
+        return connection.unwrap(iface);
+    }
+
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        checkOpen();
+        return connection.isWrapperFor(iface);
+    }
+
+    /**
+     * Whether the underlying connections are the same
+     * @see AbstractProxyConnection#equals
+     */
+    public boolean equals(Object obj) {
+        return proxyConnection.equals(obj);
+    }
+
+    public int hashCode() {
+        return connection.hashCode();
+    }
+
+    public String toString() {
+        return connection.toString();
+    }
+
+}
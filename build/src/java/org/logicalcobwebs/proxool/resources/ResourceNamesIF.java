@@ -0,0 +1,37 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool.resources;
+
+/**
+ * Constants for Proxool resource names.
+ * @version $Revision: 1.3 $, $Date: 2003/03/03 11:12:01 $
+ * @author Christian Nedregaard (christian.nedregard@findexa.no)
+ * @author $Author: billhorsman $ (current maintainer)
+ * @since Proxool 0.8
+ */
+public interface ResourceNamesIF {
+    /**
+     * Name of the attributeDescriptions resource.
+     */
+    static final String ATTRIBUTE_DESCRIPTIONS = "org.logicalcobwebs.proxool.resources.attributeDescriptions";
+
+    /**
+     * Name of the jmx resource.
+     */
+    static final String JMX = "org.logicalcobwebs.proxool.resources.jmx";
+}
+/*
+ $Log: ResourceNamesIF.java,v $
+ Revision 1.3  2003/03/03 11:12:01  billhorsman
+ fixed licence
+
+ Revision 1.2  2003/02/26 16:59:54  billhorsman
+ fixed encoding in chr's name
+
+ Revision 1.1  2003/02/24 01:12:01  chr32
+ Init rev.
+
+*/
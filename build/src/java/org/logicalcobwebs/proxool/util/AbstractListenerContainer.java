@@ -0,0 +1,140 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool.util;
+
+import org.logicalcobwebs.logging.Log;
+import org.logicalcobwebs.logging.LogFactory;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Implementation of {@link ListenerContainerIF} that is cheap to notify. Listeners are added
+ * and removed a handful of times but notified millions of times, so the listeners are kept in
+ * an array that is never changed: adding or removing one builds a new array and swaps it in.
+ * <p>
+ * Subclasses get the listeners with the protected {@link #getListeners} method and loop through
+ * them. There is no lock to acquire or release and nothing is created. Your code should look like this:
+ * <code>
+ * <pre>
+ *
+     Object[] listeners = getListeners();
+     for (int i = 0; i < listeners.length; i++) {
+         ((MyListenerIF) listeners[i]).onSomething();
+     }
+ </pre>
+ </code>
+ * </p>
+ * A listener that is added or removed while an event is being fired may or may not
+ * hear about that event.
+ * @version $Revision: 1.7 $, $Date: 2003/03/11 00:12:11 $
+ * @author Christian Nedregaard (christian_nedregaard@email.com)
+ * @author $Author: billhorsman $ (current maintainer)
+ * @since Proxool 0.7
+ */
+public abstract class AbstractListenerContainer implements ListenerContainerIF {
+    static final Log LOG = LogFactory.getLog(AbstractListenerContainer.class);
+
+    private static final Object[] NO_LISTENERS = new Object[0];
+
+    /** Never changed once it's been assigned, so it can be read without a lock */
+    private volatile Object[] listeners = NO_LISTENERS;
+
+    /**
+     * @see ListenerContainerIF#addListener(Object)
+     */
+    public synchronized void addListener(Object listener) {
+        if (listener == null) {
+            return;
+        }
+        Object[] newListeners = new Object[listeners.length + 1];
+        System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+        newListeners[listeners.length] = listener;
+        this.listeners = newListeners;
+    }
+
+    /**
+     * @see ListenerContainerIF#removeListener(Object)
+     */
+    public synchronized boolean removeListener(Object listener) {
+        if (listener == null) {
+            return false;
+        }
+        for (int i = 0; i < listeners.length; i++) {
+            if (listener.equals(listeners[i])) {
+                Object[] newListeners = new Object[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, i);
+                System.arraycopy(listeners, i + 1, newListeners, i, newListeners.length - i);
+                this.listeners = newListeners;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the listeners in this container. The array is shared, so don't change it.
+     * @return the listeners (an empty array if there aren't any, never null)
+     */
+    protected Object[] getListeners() {
+        return listeners;
+    }
+
+    /**
+     * Get an iterator containing the listeners in this container. Will return <code>null</code>
+     * if this container is empty.
+     * @return an iterator containing the listeners in this container or <code>null</code> if it is empty.
+     * @throws InterruptedException never (it used to be thrown if the read lock couldn't be obtained)
+     * @deprecated use {@link #getListeners} instead, which doesn't create an iterator
+     */
+    @Deprecated
+    protected Iterator getListenerIterator() throws InterruptedException {
+        Object[] snapshot = listeners;
+        return snapshot.length > 0 ? Arrays.asList(snapshot).iterator() : null;
+    }
+
+    /**
+     * Does nothing. There isn't a read lock any more.
+     * @deprecated no need to call this
+     */
+    @Deprecated
+    protected void releaseReadLock() {
+    }
+
+    /**
+     * @see ListenerContainerIF#isEmpty()
+     */
+    public boolean isEmpty() {
+        return listeners.length == 0;
+    }
+}
+
+/*
+ Revision history:
+ $Log: AbstractListenerContainer.java,v $
+ Revision 1.7  2003/03/11 00:12:11  billhorsman
+ switch to concurrent package
+
+ Revision 1.6  2003/03/10 15:26:55  billhorsman
+ refactoringn of concurrency stuff (and some import
+ optimisation)
+
+ Revision 1.5  2003/03/03 11:12:01  billhorsman
+ fixed licence
+
+ Revision 1.4  2003/02/19 19:35:21  chr32
+ Formated code in javadoc.
+
+ Revision 1.3  2003/02/07 17:20:18  billhorsman
+ checkstyle
+
+ Revision 1.2  2003/02/07 15:06:43  billhorsman
+ fixed isEmpty bug
+
+ Revision 1.1  2003/02/07 01:46:31  chr32
+ Initial revition.
+
+*/
\ No newline at end of file
@@ -0,0 +1,288 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool.examples;
+
+import org.logicalcobwebs.proxool.ProxoolFacade;
+import org.logicalcobwebs.proxool.admin.SnapshotIF;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Checks that lots of virtual threads can share a small pool without pinning
+ * their carriers. By default 10,000 virtual threads each get a connection from a
+ * 50 connection pool, execute a statement and close it, so nearly all of them
+ * have to wait for a connection. Meanwhile we record JFR's
+ * <code>jdk.VirtualThreadPinned</code> events, and a heartbeat virtual thread
+ * measures how late it wakes up. If a thread blocked in the pool held on to its
+ * carrier then the heartbeat would be starved too.
+ * <p>
+ * It needs Java 21 or later (and it's only interesting before Java 24, which
+ * stopped monitors pinning virtual threads). It doesn't need a database: the
+ * delegate driver is a stub whose statements just sleep for a couple of
+ * milliseconds. Build Proxool, then:
+ * <pre>
+ *   javac -cp build/classes -d build/examples src/java-examples/org/logicalcobwebs/proxool/examples/VirtualThreadPinningCheck.java
+ *   java -cp build/classes:build/examples org.logicalcobwebs.proxool.examples.VirtualThreadPinningCheck [threads] [connections]
+ * </pre>
+ * It exits with status 1 if any thread failed, if the run didn't finish, or if
+ * a virtual thread was pinned inside Proxool.
+ */
+public class VirtualThreadPinningCheck {
+
+    private static final String ALIAS = "pinning-check";
+
+    /** How long each statement takes to execute (milliseconds) */
+    private static final long QUERY_MILLIS = 2;
+
+    /** How often the heartbeat wakes up (milliseconds) */
+    private static final long HEARTBEAT_MILLIS = 10;
+
+    /** How many of the pinned stack traces we print */
+    private static final int STACK_TRACES_SHOWN = 5;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        DriverManager.registerDriver(new StubDriver());
+        Properties info = new Properties();
+        info.setProperty("proxool.maximum-connection-count", String.valueOf(connections));
+        info.setProperty("proxool.minimum-connection-count", String.valueOf(connections));
+        info.setProperty("proxool.simultaneous-build-throttle", String.valueOf(connections));
+        // Wait for a connection rather than being refused one
+        info.setProperty("proxool.maximum-wait-time", "60000");
+        ProxoolFacade.registerConnectionPool("proxool." + ALIAS + ":" + StubDriver.class.getName() + ":" + StubDriver.URL, info);
+
+        final ConcurrentLinkedQueue pinnedEvents = new ConcurrentLinkedQueue();
+        RecordingStream recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned").withStackTrace().withThreshold(Duration.ZERO);
+        recordingStream.onEvent("jdk.VirtualThreadPinned", new Consumer<RecordedEvent>() {
+            public void accept(RecordedEvent event) {
+                pinnedEvents.add(event);
+            }
+        });
+        recordingStream.startAsync();
+
+        final AtomicLong heartbeatLateness = new AtomicLong();
+        Thread heartbeat = Thread.ofVirtual().start(new Runnable() {
+            public void run() {
+                while (true) {
+                    long start = System.nanoTime();
+                    try {
+                        Thread.sleep(HEARTBEAT_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    long lateness = System.nanoTime() - start - TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_MILLIS);
+                    if (lateness > heartbeatLateness.get()) {
+                        heartbeatLateness.set(lateness);
+                    }
+                }
+            }
+        });
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List futures = new ArrayList(threads);
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(new Callable<Object>() {
+                public Object call() throws SQLException {
+                    Connection connection = DriverManager.getConnection("proxool." + ALIAS);
+                    try {
+                        Statement statement = connection.createStatement();
+                        try {
+                            statement.execute("select 1");
+                        } finally {
+                            statement.close();
+                        }
+                    } finally {
+                        connection.close();
+                    }
+                    return null;
+                }
+            }));
+        }
+        executor.shutdown();
+        boolean finished = executor.awaitTermination(2, TimeUnit.MINUTES);
+        long elapsed = System.currentTimeMillis() - start;
+
+        heartbeat.interrupt();
+        heartbeat.join();
+        // Make sure we've seen every event before we count them
+        recordingStream.stop();
+        recordingStream.close();
+
+        int failures = 0;
+        Iterator i = futures.iterator();
+        while (i.hasNext()) {
+            Future future = (Future) i.next();
+            if (!future.isDone()) {
+                failures++;
+                continue;
+            }
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failures == 0) {
+                    System.out.println("First failure: " + e.getCause());
+                }
+                failures++;
+            }
+        }
+
+        int pinnedInProxool = 0;
+        i = pinnedEvents.iterator();
+        while (i.hasNext()) {
+            RecordedEvent event = (RecordedEvent) i.next();
+            if (isInProxool(event)) {
+                if (pinnedInProxool < STACK_TRACES_SHOWN) {
+                    System.out.println("Pinned for " + event.getDuration().toMillis() + " milliseconds:");
+                    printStackTrace(event);
+                }
+                pinnedInProxool++;
+            }
+        }
+
+        SnapshotIF snapshot = ProxoolFacade.getSnapshot(ALIAS);
+        System.out.println(threads + " virtual threads shared " + connections + " connections in " + elapsed + " milliseconds"
+                + (finished ? "" : " (gave up waiting)"));
+        System.out.println("Served: " + snapshot.getServedCount() + ", refused: " + snapshot.getRefusedCount()
+                + ", failed: " + failures);
+        System.out.println("Pinned: " + pinnedEvents.size() + " (" + pinnedInProxool + " inside Proxool)");
+        System.out.println("Heartbeat was at most " + TimeUnit.NANOSECONDS.toMillis(heartbeatLateness.get()) + " milliseconds late");
+
+        ProxoolFacade.shutdown(0);
+        System.exit(finished && failures == 0 && pinnedInProxool == 0 ? 0 : 1);
+    }
+
+    private static boolean isInProxool(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return false;
+        }
+        Iterator i = event.getStackTrace().getFrames().iterator();
+        while (i.hasNext()) {
+            RecordedFrame frame = (RecordedFrame) i.next();
+            String className = frame.getMethod().getType().getName();
+            if (className.startsWith("org.logicalcobwebs.") && !className.startsWith(VirtualThreadPinningCheck.class.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void printStackTrace(RecordedEvent event) {
+        Iterator i = event.getStackTrace().getFrames().iterator();
+        while (i.hasNext()) {
+            RecordedFrame frame = (RecordedFrame) i.next();
+            System.out.println("    at " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                    + " line " + frame.getLineNumber());
+        }
+    }
+
+    /**
+     * A driver that doesn't need a database. Its statements sleep for
+     * {@link #QUERY_MILLIS} when they execute, and everything else returns
+     * false, zero, null or another stub.
+     */
+    public static class StubDriver implements Driver {
+
+        private static final String URL = "jdbc:stub";
+
+        public Connection connect(String url, Properties info) {
+            return acceptsURL(url) ? (Connection) stub(Connection.class) : null;
+        }
+
+        public boolean acceptsURL(String url) {
+            return url.startsWith(URL);
+        }
+
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        public Logger getParentLogger() {
+            return Logger.getLogger(StubDriver.class.getName());
+        }
+
+        private static Object stub(final Class type) {
+            return Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class[] {type}, new InvocationHandler() {
+                private volatile boolean closed;
+
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    String name = method.getName();
+                    Class returnType = method.getReturnType();
+                    if (name.equals("equals")) {
+                        return Boolean.valueOf(proxy == args[0]);
+                    } else if (name.equals("hashCode")) {
+                        return Integer.valueOf(System.identityHashCode(proxy));
+                    } else if (name.equals("toString")) {
+                        return "stub " + type.getName();
+                    } else if (name.equals("close")) {
+                        closed = true;
+                        return null;
+                    } else if (name.equals("isClosed")) {
+                        return Boolean.valueOf(closed);
+                    } else if (name.equals("isValid")) {
+                        return Boolean.valueOf(!closed);
+                    } else if (name.startsWith("execute")) {
+                        Thread.sleep(QUERY_MILLIS);
+                    }
+                    if (returnType == boolean.class) {
+                        return Boolean.FALSE;
+                    } else if (returnType == int.class) {
+                        return Integer.valueOf(0);
+                    } else if (returnType == long.class) {
+                        return Long.valueOf(0);
+                    } else if (returnType.isInterface() && returnType.getName().startsWith("java.sql.")) {
+                        return stub(returnType);
+                    } else {
+                        return null;
+                    }
+                }
+            });
+        }
+    }
+
+}
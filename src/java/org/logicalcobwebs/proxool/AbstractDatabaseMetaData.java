@@ -28,16 +28,24 @@ public abstract class AbstractDatabaseMetaData {
 
     private DatabaseMetaData databaseMetaData;
 
-    private ProxyConnectionIF proxyConnection;
+    /**
+     * The connection we give out (not the delegate one)
+     */
+    private Connection wrappedConnection;
 
     /**
      * Whether we have invoked a method that requires us to reset
      */
     private boolean needToReset = false;
 
-    protected AbstractDatabaseMetaData(Connection connection, ProxyConnectionIF proxyConnection) throws SQLException {
+    /**
+     * @param connection the delegate connection
+     * @param wrappedConnection the connection we gave out
+     * @throws SQLException if the delegate couldn't get its metaData
+     */
+    protected AbstractDatabaseMetaData(Connection connection, Connection wrappedConnection) throws SQLException {
         databaseMetaData = connection.getMetaData();
-        this.proxyConnection = proxyConnection;
+        this.wrappedConnection = wrappedConnection;
     }
 
     /**
@@ -57,7 +65,7 @@ public abstract class AbstractDatabaseMetaData {
      * @see DatabaseMetaData#getConnection
      */
     public Connection getConnection() {
-        return ProxyFactory.getConnection(proxyConnection);
+        return wrappedConnection;
     }
 
     /**
@@ -5,18 +5,19 @@
  */
 package org.logicalcobwebs.proxool;
 
-import org.logicalcobwebs.concurrent.WriterPreferenceReadWriteLock;
 import org.logicalcobwebs.logging.Log;
 import org.logicalcobwebs.logging.LogFactory;
 
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.DecimalFormat;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Contains most of the functionality that we require to manipilate the
@@ -32,8 +33,6 @@ abstract class AbstractProxyConnection implements ProxyConnectionIF {
 
     static final int STATUS_FORCE = -1;
 
-    private WriterPreferenceReadWriteLock statusReadWriteLock = new WriterPreferenceReadWriteLock();
-
     private static final Log LOG = LogFactory.getLog(AbstractProxyConnection.class);
 
     private Connection connection;
@@ -44,15 +43,23 @@ abstract class AbstractProxyConnection implements ProxyConnectionIF {
 
     private String reasonForMark;
 
-    private int status;
+    /**
+     * Only ever changed by {@link #setStatus(int, int) compare and set}
+     */
+    private AtomicInteger status;
+
+    /**
+     * @see #setQueued
+     */
+    private AtomicBoolean queued = new AtomicBoolean(false);
 
     private long id;
 
     private Date birthDate;
 
-    private long timeLastStartActive;
+    private volatile long timeLastStartActive;
 
-    private long timeLastStopActive;
+    private volatile long timeLastStopActive;
 
     private ConnectionPool connectionPool;
 
@@ -63,9 +70,25 @@ abstract class AbstractProxyConnection implements ProxyConnectionIF {
     private DecimalFormat idFormat = new DecimalFormat("0000");
 
     /**
-     * Whether we have invoked a method that requires us to reset
+     * Which properties have been changed since we were last reset
+     * @see #setChanged
+     */
+    private int changedProperties;
+
+    /**
+     * @see #getSessionState
+     */
+    private SessionState sessionState;
+
+    /**
+     * @see #getGeneration
      */
-    private boolean needToReset = false;
+    private AtomicLong generation = new AtomicLong();
+
+    /**
+     * @see #getEpoch
+     */
+    private long epoch;
 
     protected AbstractProxyConnection(Connection connection, long id, String delegateUrl, ConnectionPool connectionPool, int status) throws SQLException {
         this.connection = connection;
@@ -74,7 +97,7 @@ abstract class AbstractProxyConnection implements ProxyConnectionIF {
         this.connectionPool = connectionPool;
         setBirthTime(System.currentTimeMillis());
 
-        this.status = status;
+        this.status = new AtomicInteger(status);
         if (status == STATUS_ACTIVE) {
             setTimeLastStartActive(System.currentTimeMillis());
         }
@@ -86,6 +109,12 @@ abstract class AbstractProxyConnection implements ProxyConnectionIF {
         if (connection == null) {
             throw new SQLException("Unable to create new connection");
         }
+
+        sessionState = new SessionState(connection, connectionPool.getDefinition().isLazyTransactionBegin());
+        // The init SQL might change the session, in which case we'd better find out the hard way
+        if (connectionPool.getDefinition().getConnectionInitSql() == null) {
+            connectionPool.seedSessionState(sessionState);
+        }
     }
 
     /**
@@ -117,20 +146,33 @@ abstract class AbstractProxyConnection implements ProxyConnectionIF {
         return (getStatus() != STATUS_ACTIVE);
     }
 
-    public DatabaseMetaData getMetaData() throws SQLException {
-        return ProxyFactory.getDatabaseMetaData(connection, this);
-    }
-
     /**
      * The subclass should call this to indicate that a change has been made to
-     * the connection that might mean it needs to be reset (like setting autoCommit
-     * to false or something). We don't reset unless this has been called to avoid
-     * the overhead of unnecessary resetting.
+     * the connection that means it needs to be reset (like setting autoCommit
+     * to false or something). We only reset the properties that have been changed,
+     * and don't reset at all if nothing has, to avoid the overhead of unnecessary
+     * resetting.
      *
-     * @param needToReset true if the connection might need resetting.
+     * @param property which property has been changed (e.g. {@link ConnectionResetter#CATALOG})
+     */
+    protected void setChanged(int property) {
+        changedProperties |= property;
+    }
+
+    /**
+     * What we know about the delegate connection's session, so that we don't
+     * have to keep asking.
+     * @return the session state
      */
-    protected void setNeedToReset(boolean needToReset) {
-        this.needToReset = needToReset;
+    protected SessionState getSessionState() {
+        return sessionState;
+    }
+
+    /**
+     * @see ProxyConnectionIF#beginTransaction
+     */
+    public void beginTransaction() throws SQLException {
+        sessionState.beginTransaction();
     }
 
     /**
@@ -188,15 +230,57 @@ abstract class AbstractProxyConnection implements ProxyConnectionIF {
         }
     }
 
+    /**
+     * @see ProxyConnectionIF#getGeneration
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @see ProxyConnectionIF#getEpoch
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @param epoch the pool's epoch before we opened the delegate connection
+     * @see ProxyConnectionIF#getEpoch
+     */
+    protected void setEpoch(long epoch) {
+        this.epoch = epoch;
+    }
+
+    /**
+     * @see ProxyConnectionIF#close(long)
+     */
+    public boolean close(long generation) throws SQLException {
+        if (this.generation.compareAndSet(generation, generation + 1)) {
+            putBack();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
     /**
      * @see ProxyConnectionIF#close
      */
     public void close() throws SQLException {
+        generation.incrementAndGet();
+        putBack();
+    }
+
+    /**
+     * Tidy up and put the connection back into the pool
+     */
+    private void putBack() {
         try {
 
-            if (isMarkedForExpiry()) {
+            if (isMarkedForExpiry() || connectionPool.isStale(this)) {
                 if (connectionPool.getLog().isDebugEnabled()) {
-                    connectionPool.getLog().debug("Closing connection quickly (without reset) because it's marked for expiry anyway");
+                    connectionPool.getLog().debug("Closing connection quickly (without reset) because it's going to be expired anyway");
                 }
             } else {
                 // Close any open statements, as specified in JDBC
@@ -210,15 +294,19 @@ abstract class AbstractProxyConnection implements ProxyConnectionIF {
                 }
                 openStatements.clear();
 
-                if (needToReset) {
-                    // This call should be as quick as possible. Should we consider only
-                    // calling it if values have changed? The trouble with that is that it
-                    // means keeping track when they change and that might be even
-                    // slower
-                    if (!connectionPool.resetConnection(connection, "#" + getId())) {
+                boolean reset = true;
+                if (changedProperties != 0) {
+                    if (connectionPool.isResetByDriver()) {
+                        // endRequest will reset it. We just have to forget what we knew.
+                        sessionState.forget(changedProperties);
+                    } else if (!connectionPool.resetConnection(connection, "#" + getId(), changedProperties, sessionState)) {
                         connectionPool.removeProxyConnection(this, "it couldn't be reset", true, true);
+                        reset = false;
                     }
-                    needToReset = false;
+                    changedProperties = 0;
+                }
+                if (reset && !connectionPool.endRequest(connection, "#" + getId())) {
+                    connectionPool.removeProxyConnection(this, "it couldn't end its request", true, true);
                 }
             }
             connectionPool.putConnection(this);
@@ -233,7 +321,7 @@ abstract class AbstractProxyConnection implements ProxyConnectionIF {
     }
 
     public int getStatus() {
-        return status;
+        return status.get();
     }
 
     /**
@@ -248,32 +336,41 @@ abstract class AbstractProxyConnection implements ProxyConnectionIF {
      */
     public boolean setStatus(int oldStatus, int newStatus) {
         boolean success = false;
-        try {
-            statusReadWriteLock.writeLock().acquire();
-            connectionPool.acquireConnectionStatusWriteLock();
-            if (this.status == oldStatus || oldStatus == STATUS_FORCE) {
-                connectionPool.changeStatus(this.status, newStatus);
-                this.status = newStatus;
-                success = true;
-
-                if (newStatus == oldStatus) {
-                    LOG.warn("Unexpected attempt to change status from " + oldStatus + " to " + newStatus
-                            + ". Why would you want to do that?");
-                } else if (newStatus == STATUS_ACTIVE) {
-                    setTimeLastStartActive(System.currentTimeMillis());
-                } else if (oldStatus == STATUS_ACTIVE) {
-                    setTimeLastStopActive(System.currentTimeMillis());
-                }
+        int previousStatus = oldStatus;
+        if (oldStatus == STATUS_FORCE) {
+            // Whatever it is now, we need to know so that we can count it
+            do {
+                previousStatus = status.get();
+            } while (!status.compareAndSet(previousStatus, newStatus));
+            success = true;
+        } else {
+            success = status.compareAndSet(oldStatus, newStatus);
+        }
+        if (success) {
+            connectionPool.changeStatus(previousStatus, newStatus);
+
+            if (newStatus == oldStatus) {
+                LOG.warn("Unexpected attempt to change status from " + oldStatus + " to " + newStatus
+                        + ". Why would you want to do that?");
+            } else if (newStatus == STATUS_ACTIVE) {
+                setTimeLastStartActive(System.currentTimeMillis());
+            } else if (previousStatus == STATUS_ACTIVE) {
+                setTimeLastStopActive(System.currentTimeMillis());
             }
-        } catch (InterruptedException e) {
-            LOG.error("Unable to acquire write lock for status");
-        } finally {
-            connectionPool.releaseConnectionStatusWriteLock();
-            statusReadWriteLock.writeLock().release();
+        }
+        if (success && newStatus == STATUS_AVAILABLE) {
+            connectionPool.connectionAvailable(this);
         }
         return success;
     }
 
+    /**
+     * @see ProxyConnectionIF#setQueued
+     */
+    public boolean setQueued(boolean queued) {
+        return this.queued.getAndSet(queued);
+    }
+
     public long getId() {
         return id;
     }
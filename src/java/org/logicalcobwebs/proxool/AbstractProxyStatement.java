@@ -10,10 +10,6 @@ import org.logicalcobwebs.logging.LogFactory;
 
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Comparator;
-import java.util.Map;
-import java.util.StringTokenizer;
-import java.util.TreeMap;
 
 /**
  * Contains most of the functionality that we require to manipilate the
@@ -34,11 +30,53 @@ abstract class AbstractProxyStatement {
 
     private ProxyConnectionIF proxyConnection;
 
-    private Map parameters;
+    /** Created the first time a parameter is set whilst we're tracing */
+    private TraceParameters parameters;
 
     private String sqlStatement;
 
-    private StringBuffer sqlLog = new StringBuffer();
+    /** The parsed {@link #sqlStatement}, created the first time we trace it */
+    private SqlTemplate sqlTemplate;
+
+    /** What we've executed (or added to the batch) since we last traced. Reused each time. */
+    private StringBuilder sqlLog = new StringBuilder();
+
+    /** True if something has been added to a batch that hasn't been executed yet */
+    private boolean batchPending;
+
+    /**
+     * The first SQL added to the pending batch (or null if it's the SQL this
+     * statement was prepared with). The batch is profiled against it.
+     */
+    private String batchSql;
+
+    /** The settings that {@link #beforeChangeSetting} is told about. Each is a different bit. */
+    protected static final int SETTING_MAX_ROWS = 1;
+
+    protected static final int SETTING_FETCH_SIZE = 2;
+
+    protected static final int SETTING_FETCH_DIRECTION = 4;
+
+    protected static final int SETTING_MAX_FIELD_SIZE = 8;
+
+    protected static final int SETTING_QUERY_TIMEOUT = 16;
+
+    protected static final int SETTING_ESCAPE_PROCESSING = 32;
+
+    protected static final int SETTING_POOLABLE = 64;
+
+    protected static final int SETTING_CURSOR_NAME = 128;
+
+    protected static final int SETTING_CLOSE_ON_COMPLETION = 256;
+
+    /** What we last {@link #afterSetQueryTimeout set} the query timeout to (seconds), or zero for none */
+    private int queryTimeout;
+
+    /** How the {@link StatementWatchdog} watches our executions (created the first time it needs to) */
+    private StatementWatchdog.Watch watch;
+
+    /** True if the {@link #watch} is watching an execution that's in progress */
+    private boolean watching;
 
     /**
      * @param statement the real statement that we will delegate to
@@ -67,8 +105,11 @@ abstract class AbstractProxyStatement {
                 statement.close();
                 connectionPool.throwConnection(proxyConnection, "Fatal SQL Exception has been detected");
 
-                // We should check all the existing connections as soon as possible
-                HouseKeeperController.sweepNow(connectionPool.getDefinition().getAlias());
+                // We should check all the existing connections as soon as possible (unless the
+                // database has failed over, in which case they'll be thrown away as they're used)
+                if (!connectionPool.failover(proxyConnection, t)) {
+                    HouseKeeperController.sweepNow(connectionPool.getDefinition().getAlias());
+                }
 
                 LOG.warn("Connection has been thrown away because fatal exception was detected", t);
             } catch (SQLException e2) {
@@ -80,6 +121,175 @@ abstract class AbstractProxyStatement {
         }
     }
 
+    /**
+     * Deal with an exception thrown by the delegate statement. If it's a
+     * {@link #testException fatal} one then we throw it away and throw the
+     * {@link ConnectionPoolDefinitionIF#getFatalSqlExceptionWrapper wrapped} version.
+     * @param e the exception thrown by the delegate
+     * @return the exception for the caller to throw if it wasn't fatal
+     * @throws SQLException the wrapped up exception if it was fatal
+     */
+    protected SQLException handleException(SQLException e) throws SQLException {
+        if (testException(e)) {
+            // This is really a fatal one
+            FatalSqlExceptionHelper.rethrowFatalSQLException(connectionPool.getDefinition().getFatalSqlExceptionWrapper(), e);
+        }
+        return e;
+    }
+
+    /**
+     * Call this before executing anything so that the {@link StatementWatchdog}
+     * can cancel it if it takes longer than the query timeout (and so that a
+     * {@link ProxyConnectionIF#beginTransaction lazy transaction} really begins)
+     * @return when we started (from {@link System#nanoTime}), to pass to
+     * {@link #afterExecute afterExecute} or {@link #afterExecuteBatch afterExecuteBatch}
+     * @throws SQLException if the transaction couldn't begin
+     */
+    protected long beforeExecute() throws SQLException {
+        proxyConnection.beginTransaction();
+        long startTime = System.nanoTime();
+        if (queryTimeout > 0) {
+            StatementWatchdog statementWatchdog = connectionPool.getStatementWatchdog();
+            if (statementWatchdog != null) {
+                long deadline = startTime + queryTimeout * 1000000000L;
+                if (watch == null || !watch.start(deadline)) {
+                    watch = statementWatchdog.watch(this, deadline);
+                }
+                watching = true;
+            }
+        }
+        return startTime;
+    }
+
+    /**
+     * Call this after setting the query timeout so we know how long to let executions run
+     * @param seconds the new timeout (zero for none)
+     */
+    protected void afterSetQueryTimeout(int seconds) {
+        queryTimeout = seconds;
+    }
+
+    /**
+     * Call this before changing one of the statement's settings, in case it has to be
+     * put back afterwards. By default, nothing needs to be done.
+     * @param setting which one, e.g. {@link #SETTING_MAX_ROWS}
+     * @throws SQLException if we couldn't find out what it was before
+     * @see ProxyPreparedStatement#beforeChangeSetting
+     */
+    protected void beforeChangeSetting(int setting) throws SQLException {
+    }
+
+    /**
+     * Stop the {@link StatementWatchdog} watching the execution that just finished
+     */
+    private void stopWatching() {
+        if (watching) {
+            watch.finish();
+            watching = false;
+        }
+    }
+
+    /**
+     * Call this after (successfully or not) executing some SQL so that it is profiled, logged and traced
+     * @param sqlStatement the SQL passed to the execute method (or null if there wasn't any)
+     * @param startTime what {@link #beforeExecute} returned (so we can tell how long it took)
+     * @param exception what went wrong (or null if nothing did)
+     * @throws SQLException if the {@link ConnectionPool#onExecute onExecute} method threw one.
+     */
+    protected void afterExecute(String sqlStatement, long startTime, Exception exception) throws SQLException {
+        stopWatching();
+        long elapsedNanos = System.nanoTime() - startTime;
+        measure(sqlStatement, elapsedNanos, exception);
+        if (isTrace()) {
+            appendToSqlLog(sqlStatement);
+        }
+        trace(elapsedNanos, exception);
+    }
+
+    /**
+     * Call this after (successfully or not) executing a batch. The SQL has
+     * already been logged as it was {@link #afterAddBatch added}.
+     * @param startTime what {@link #beforeExecute} returned (so we can tell how long it took)
+     * @param exception what went wrong (or null if nothing did)
+     * @throws SQLException if the {@link ConnectionPool#onExecute onExecute} method threw one.
+     */
+    protected void afterExecuteBatch(long startTime, Exception exception) throws SQLException {
+        stopWatching();
+        long elapsedNanos = System.nanoTime() - startTime;
+        measure(batchSql, elapsedNanos, exception);
+        batchPending = false;
+        batchSql = null;
+        trace(elapsedNanos, exception);
+    }
+
+    /**
+     * Call this after adding a batch so that it is logged
+     * @param sqlStatement the SQL passed to the addBatch method (or null if there wasn't any)
+     */
+    protected void afterAddBatch(String sqlStatement) {
+        if (!batchPending) {
+            batchSql = sqlStatement;
+        }
+        batchPending = true;
+        if (isTrace()) {
+            appendToSqlLog(sqlStatement);
+        }
+    }
+
+    /**
+     * Call this after clearing the batch so that what was in it isn't profiled or logged
+     */
+    protected void afterClearBatch() {
+        batchPending = false;
+        batchSql = null;
+        sqlLog.setLength(0);
+    }
+
+    /**
+     * Give the execution to the {@link SqlProfiler profiler} and, if it was
+     * {@link ConnectionPoolDefinitionIF#getSlowQueryThreshold slow}, the {@link SlowQueryLog}
+     * @param sqlStatement the SQL passed to the execute method (or null if there wasn't any)
+     * @param elapsedNanos how long it took
+     * @param exception what went wrong (or null if nothing did)
+     */
+    private void measure(String sqlStatement, long elapsedNanos, Exception exception) {
+        SqlProfiler sqlProfiler = connectionPool.getSqlProfiler();
+        if (sqlProfiler != null) {
+            String profileSql = getProfileSql(sqlStatement);
+            if (profileSql != null) {
+                sqlProfiler.record(profileSql, elapsedNanos, exception != null);
+            }
+        }
+        int slowQueryThreshold = connectionPool.getDefinition().getSlowQueryThreshold();
+        if (slowQueryThreshold > 0 && elapsedNanos >= slowQueryThreshold * 1000000L) {
+            String sql;
+            if (sqlStatement != null) {
+                sql = sqlStatement;
+            } else if (this.sqlStatement != null) {
+                StringBuilder filledIn = new StringBuilder(this.sqlStatement.length() + 32);
+                SqlTemplate.getTemplate(this.sqlStatement).appendTo(filledIn, parameters);
+                sql = filledIn.toString();
+            } else {
+                sql = "";
+            }
+            connectionPool.getSlowQueryLog().record(sql, elapsedNanos, exception);
+        }
+    }
+
+    /**
+     * The SQL template that an execution is profiled against
+     * @param sqlStatement the SQL passed to the execute method (or null to use the SQL this
+     * statement was prepared with, which is a template already)
+     * @return the template, or null if we don't know the SQL
+     */
+    private String getProfileSql(String sqlStatement) {
+        if (sqlStatement != null) {
+            return SqlProfiler.getTemplate(sqlStatement);
+        } else {
+            return this.sqlStatement;
+        }
+    }
+
     /**
      * Gets the real Statement that we got from the delegate driver
      * @return delegate statement
@@ -104,6 +314,37 @@ abstract class AbstractProxyStatement {
         return statement;
     }
 
+    /**
+     * Change the statement we delegate to (when we let go of a cached one, for instance)
+     * @param statement the new delegate
+     */
+    protected void setStatement(Statement statement) {
+        this.statement = statement;
+    }
+
+    /**
+     * The connection that was used to create the statement
+     * @return proxyConnection
+     */
+    protected ProxyConnectionIF getProxyConnection() {
+        return proxyConnection;
+    }
+
+    /**
+     * The SQL that was used to create this statement
+     * @return the SQL, or null if there wasn't any
+     */
+    protected String getSqlStatement() {
+        return sqlStatement;
+    }
+
+    /**
+     * @return true if something has been added to a batch since the last one was executed
+     */
+    protected boolean isBatchPending() {
+        return batchPending;
+    }
+
     /**
      * Close the statement and tell the ProxyConnection that it did so.
      * @throws SQLException if it couldn't be closed
@@ -122,118 +363,127 @@ abstract class AbstractProxyStatement {
         return (statement.hashCode() == obj.hashCode());
     }
 
+    /**
+     * The delegate statement's hashCode (to match {@link #equals})
+     * @see Object#hashCode
+     */
+    public int hashCode() {
+        return statement.hashCode();
+    }
+
+    /**
+     * @see Object#toString
+     */
+    public String toString() {
+        return statement.toString();
+    }
+
     /**
      * Add a parameter so that we can show its value when tracing
      * @param index within the procedure
      * @param value an object describing its value
      */
     protected void putParameter(int index, Object value) {
+        getParameters().put(index, value);
+    }
 
-        // Lazily instantiate parameters if necessary
-        if (parameters == null) {
-            parameters = new TreeMap(new Comparator() {
-                public int compare(Object o1, Object o2) {
-                    int c = 0;
+    /**
+     * Add an integer parameter (of any size) without boxing it
+     * @see #putParameter(int, Object)
+     */
+    protected void putParameter(int index, long value) {
+        getParameters().put(index, value);
+    }
 
-                    if (o1 instanceof Integer && o2 instanceof Integer) {
-                        c = ((Integer) o1).compareTo(((Integer) o2));
-                    }
+    /**
+     * Add a floating point parameter without boxing it
+     * @see #putParameter(int, Object)
+     */
+    protected void putParameter(int index, double value) {
+        getParameters().put(index, value);
+    }
 
-                    return c;
-                }
-            });
+    /**
+     * Add a boolean parameter without boxing it
+     * @see #putParameter(int, Object)
+     */
+    protected void putParameter(int index, boolean value) {
+        getParameters().put(index, value);
+    }
+
+    /**
+     * Forget the parameters we were going to trace (because they've been cleared)
+     */
+    protected void clearTracedParameters() {
+        if (parameters != null) {
+            parameters.clear();
         }
+    }
 
-        Object key = new Integer(index);
-        if (value == null) {
-            parameters.put(key, "NULL");
-        } else if (value instanceof String) {
-            parameters.put(key, "'" + value + "'");
-        } else if (value instanceof Number) {
-            parameters.put(key, value);
-        } else {
-            String className = value.getClass().getName();
-            StringTokenizer st = new StringTokenizer(className, ".");
-            while (st.hasMoreTokens()) {
-                className = st.nextToken();
-            }
-            parameters.put(key, className);
+    private TraceParameters getParameters() {
+        if (parameters == null) {
+            parameters = new TraceParameters();
         }
+        return parameters;
     }
 
     /**
-     * Trace the call that was just made
-     * @param startTime so we can log how long it took
+     * Trace the call that was just made. The log is only turned into a String
+     * if somebody is going to read it, and then only once.
+     * @param elapsedNanos how long it took
      * @param exception if anything went wrong during execution
      * @throws SQLException if the {@link ConnectionPool#onExecute onExecute} method threw one.
      */
-    protected void trace(long startTime, Exception exception) throws SQLException {
+    protected void trace(long elapsedNanos, Exception exception) throws SQLException {
 
-        if (isTrace()) {
+        if (sqlLog.length() > 0) {
+            long elapsedTime = elapsedNanos / 1000000;
+            String log = null;
             // Log if configured to
-            if (connectionPool.getLog().isDebugEnabled() && connectionPool.getDefinition().isTrace()) {
-                connectionPool.getLog().debug(sqlLog.toString() + " (" + (System.currentTimeMillis() - startTime) + " milliseconds"
+            if (connectionPool.getDefinition().isTrace() && connectionPool.getLog().isDebugEnabled()) {
+                log = sqlLog.toString();
+                connectionPool.getLog().debug(log + " (" + elapsedTime + " milliseconds"
                         + (exception != null ? ", threw a " + exception.getClass().getName()  + ": " + exception.getMessage() + ")" : ")"));
             }
             // Send to any listener
-            connectionPool.onExecute(sqlLog.toString(), (System.currentTimeMillis() - startTime), exception);
-        }
-
-        // Clear parameters for next time
-        if (parameters != null) {
-            parameters.clear();
+            if (connectionPool.isConnectionListenedTo()) {
+                if (log == null) {
+                    log = sqlLog.toString();
+                }
+                connectionPool.onExecute(log, elapsedTime, exception);
+            }
+            sqlLog.setLength(0);
         }
-        sqlStatement = null;
-        sqlLog.setLength(0);
 
     }
 
     /**
-     * Get the parameters that have been built up and use them to fill in any parameters
-     * withing the sqlStatement and produce a log. If the log already exists (for instance,
-     * if a batch is being peformed) then it is appended to the end.
-     */
-    protected void appendToSqlLog() {
-        if (sqlStatement != null && sqlStatement.length() > 0 && isTrace()) {
-            int parameterIndex = 0;
-            StringTokenizer st = new StringTokenizer(sqlStatement, "?");
-            while (st.hasMoreTokens()) {
-                if (parameterIndex > 0) {
-                    if (parameters != null) {
-                        final Object value = parameters.get(new Integer(parameterIndex));
-                        if (value != null) {
-                            sqlLog.append(value);
-                        } else {
-                            sqlLog.append("?");
-                        }
-                    } else {
-                            sqlLog.append("?");
-                    }
-                }
-                parameterIndex++;
-                sqlLog.append(st.nextToken());
+     * Fill in the parameters within the SQL and add it to the log. If the log already
+     * has something in it (for instance, if a batch is being peformed) then it is
+     * appended to the end. The parameters are left as they are: like the real
+     * statement, they stay set until they are cleared or changed.
+     * @param sqlStatement the SQL that was passed to the execute (or addBatch) method, or
+     * null to use the SQL this statement was prepared with
+     */
+    protected void appendToSqlLog(String sqlStatement) {
+        if (sqlStatement != null) {
+            if (sqlStatement.length() > 0) {
+                SqlTemplate.getTemplate(sqlStatement).appendTo(sqlLog, null);
+                sqlLog.append("; ");
             }
+        } else if (this.sqlStatement != null && this.sqlStatement.length() > 0) {
+            if (sqlTemplate == null) {
+                sqlTemplate = SqlTemplate.getTemplate(this.sqlStatement);
+            }
+            sqlTemplate.appendTo(sqlLog, parameters);
             sqlLog.append("; ");
         }
-        if (parameters != null) {
-            parameters.clear();
-        }
     }
 
     protected boolean isTrace() {
         boolean isTrace = getConnectionPool().isConnectionListenedTo() || (getConnectionPool().getDefinition().isTrace() && getConnectionPool().getLog().isDebugEnabled());
         return isTrace;
     }
-
-    /**
-     * Sets sqlStatement if it isn't already set
-     * @param sqlStatement the statement we are sending the database
-     */
-    protected void setSqlStatementIfNull(String sqlStatement) {
-        if (this.sqlStatement == null) {
-            this.sqlStatement = sqlStatement;
-        }
-    }
 }
 
 
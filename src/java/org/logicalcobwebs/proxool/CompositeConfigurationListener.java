@@ -9,7 +9,6 @@ import org.logicalcobwebs.logging.Log;
 import org.logicalcobwebs.logging.LogFactory;
 import org.logicalcobwebs.proxool.util.AbstractListenerContainer;
 
-import java.util.Iterator;
 import java.util.Properties;
 
 /**
@@ -32,21 +31,9 @@ public class CompositeConfigurationListener extends AbstractListenerContainer im
      */
     public void definitionUpdated(ConnectionPoolDefinitionIF connectionPoolDefinition,
                                  Properties completeInfo, Properties changedInfo) {
-        Iterator listenerIterator = null;
-        try {
-            listenerIterator = getListenerIterator();
-            if (listenerIterator != null) {
-                ConfigurationListenerIF configurationListener = null;
-                while (listenerIterator.hasNext()) {
-                    configurationListener = (ConfigurationListenerIF) listenerIterator.next();
-                    configurationListener.definitionUpdated(connectionPoolDefinition, (Properties) completeInfo.clone(), (Properties) changedInfo.clone());
-                }
-            }
-        } catch (InterruptedException e) {
-            LOG.error("Tried to aquire read lock for " + ConfigurationListenerIF.class.getName()
-                    + " iterator but was interrupted.");
-        } finally {
-            releaseReadLock();
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ConfigurationListenerIF) listeners[i]).definitionUpdated(connectionPoolDefinition, (Properties) completeInfo.clone(), (Properties) changedInfo.clone());
         }
     }
 }
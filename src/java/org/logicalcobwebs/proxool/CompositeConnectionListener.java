@@ -11,7 +11,6 @@ import org.logicalcobwebs.proxool.util.AbstractListenerContainer;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Iterator;
 
 /**
  * A {@link ConnectionListenerIF} that keeps a list of <code>ConnectionListenerIF</code>s
@@ -32,21 +31,9 @@ public class CompositeConnectionListener extends AbstractListenerContainer imple
      * @see ConnectionListenerIF#onBirth(Connection)
      */
     public void onBirth(Connection connection) throws SQLException {
-        Iterator listenerIterator = null;
-        try {
-            listenerIterator = getListenerIterator();
-            if (listenerIterator != null) {
-                ConnectionListenerIF connectionListener = null;
-                while (listenerIterator.hasNext()) {
-                    connectionListener = (ConnectionListenerIF) listenerIterator.next();
-                    connectionListener.onBirth(connection);
-                }
-            }
-        } catch (InterruptedException e) {
-            LOG.error("Tried to aquire read lock for " + ConnectionListenerIF.class.getName()
-                    + " iterator but was interrupted.");
-        } finally {
-            releaseReadLock();
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ConnectionListenerIF) listeners[i]).onBirth(connection);
         }
     }
 
@@ -54,21 +41,9 @@ public class CompositeConnectionListener extends AbstractListenerContainer imple
      * @see ConnectionListenerIF#onDeath(Connection)
      */
     public void onDeath(Connection connection) throws SQLException {
-        Iterator listenerIterator = null;
-        try {
-            listenerIterator = getListenerIterator();
-            if (listenerIterator != null) {
-                ConnectionListenerIF connectionListener = null;
-                while (listenerIterator.hasNext()) {
-                    connectionListener = (ConnectionListenerIF) listenerIterator.next();
-                    connectionListener.onDeath(connection);
-                }
-            }
-        } catch (InterruptedException e) {
-            LOG.error("Tried to aquire read lock for " + ConnectionListenerIF.class.getName()
-                    + " iterator but was interrupted.");
-        } finally {
-            releaseReadLock();
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ConnectionListenerIF) listeners[i]).onDeath(connection);
         }
     }
 
@@ -76,21 +51,9 @@ public class CompositeConnectionListener extends AbstractListenerContainer imple
      * @see ConnectionListenerIF#onExecute(String, long)
      */
     public void onExecute(String command, long elapsedTime) {
-        Iterator listenerIterator = null;
-        try {
-            listenerIterator = getListenerIterator();
-            if (listenerIterator != null) {
-                ConnectionListenerIF connectionListener = null;
-                while (listenerIterator.hasNext()) {
-                    connectionListener = (ConnectionListenerIF) listenerIterator.next();
-                    connectionListener.onExecute(command, elapsedTime);
-                }
-            }
-        } catch (InterruptedException e) {
-            LOG.error("Tried to aquire read lock for " + ConnectionListenerIF.class.getName()
-                    + " iterator but was interrupted.");
-        } finally {
-            releaseReadLock();
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ConnectionListenerIF) listeners[i]).onExecute(command, elapsedTime);
         }
     }
 
@@ -98,21 +61,9 @@ public class CompositeConnectionListener extends AbstractListenerContainer imple
      * @see ConnectionListenerIF#onFail(String, Exception)
      */
     public void onFail(String command, Exception exception) {
-        Iterator listenerIterator = null;
-        try {
-            listenerIterator = getListenerIterator();
-            if (listenerIterator != null) {
-                ConnectionListenerIF connectionListener = null;
-                while (listenerIterator.hasNext()) {
-                    connectionListener = (ConnectionListenerIF) listenerIterator.next();
-                    connectionListener.onFail(command, exception);
-                }
-            }
-        } catch (InterruptedException e) {
-            LOG.error("Tried to aquire read lock for " + ConnectionListenerIF.class.getName()
-                    + " iterator but was interrupted.");
-        } finally {
-            releaseReadLock();
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ConnectionListenerIF) listeners[i]).onFail(command, exception);
         }
     }
 }
@@ -9,7 +9,6 @@ import org.logicalcobwebs.logging.Log;
 import org.logicalcobwebs.logging.LogFactory;
 import org.logicalcobwebs.proxool.util.AbstractListenerContainer;
 
-import java.util.Iterator;
 import java.util.Properties;
 
 /**
@@ -32,21 +31,9 @@ public class CompositeProxoolListener extends AbstractListenerContainer implemen
      */
     public void onRegistration(ConnectionPoolDefinitionIF connectionPoolDefinition,
                                  Properties completeInfo) {
-        Iterator listenerIterator = null;
-        try {
-            listenerIterator = getListenerIterator();
-            if (listenerIterator != null) {
-                ProxoolListenerIF proxoolListener = null;
-                while (listenerIterator.hasNext()) {
-                    proxoolListener = (ProxoolListenerIF) listenerIterator.next();
-                    proxoolListener.onRegistration(connectionPoolDefinition, (Properties) completeInfo.clone());
-                }
-            }
-        } catch (InterruptedException e) {
-            LOG.error("Tried to aquire read lock for " + ProxoolListenerIF.class.getName()
-                    + " iterator but was interrupted.");
-        } finally {
-            releaseReadLock();
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ProxoolListenerIF) listeners[i]).onRegistration(connectionPoolDefinition, (Properties) completeInfo.clone());
         }
     }
 
@@ -54,21 +41,9 @@ public class CompositeProxoolListener extends AbstractListenerContainer implemen
      * @see ProxoolListenerIF#onShutdown(String)
      */
     public void onShutdown(String alias) {
-        Iterator listenerIterator = null;
-        try {
-            listenerIterator = getListenerIterator();
-            if (listenerIterator != null) {
-                ProxoolListenerIF proxoolListener = null;
-                while (listenerIterator.hasNext()) {
-                    proxoolListener = (ProxoolListenerIF) listenerIterator.next();
-                    proxoolListener.onShutdown(alias);
-                }
-            }
-        } catch (InterruptedException e) {
-            LOG.error("Tried to aquire read lock for " + ProxoolListenerIF.class.getName()
-                    + " iterator but was interrupted.");
-        } finally {
-            releaseReadLock();
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ProxoolListenerIF) listeners[i]).onShutdown(alias);
         }
     }
 }
@@ -9,8 +9,6 @@ import org.logicalcobwebs.logging.Log;
 import org.logicalcobwebs.logging.LogFactory;
 import org.logicalcobwebs.proxool.util.AbstractListenerContainer;
 
-import java.util.Iterator;
-
 /**
  * A {@link StateListenerIF} that keeps a list of <code>StateListenerIF</code>s
  * and notifies them in a thread safe manner.
@@ -30,21 +28,9 @@ public class CompositeStateListener extends AbstractListenerContainer implements
      * @see StateListenerIF#upStateChanged(int)
      */
     public void upStateChanged(int upState) {
-        Iterator listenerIterator = null;
-        try {
-            listenerIterator = getListenerIterator();
-            if (listenerIterator != null) {
-                StateListenerIF stateListener = null;
-                while (listenerIterator.hasNext()) {
-                    stateListener = (StateListenerIF) listenerIterator.next();
-                    stateListener.upStateChanged(upState);
-                }
-            }
-        } catch (InterruptedException e) {
-            LOG.error("Tried to aquire read lock for " + StateListenerIF.class.getName()
-                    + " iterator but was interrupted.");
-        } finally {
-            releaseReadLock();
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((StateListenerIF) listeners[i]).upStateChanged(upState);
         }
     }
 }
@@ -0,0 +1,212 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of which connections are {@link ConnectionInfoIF#STATUS_AVAILABLE available}
+ * so that we can find one without looking through the whole pool. Each thread remembers
+ * the last few connections it returned and tries those first (they are likely to be
+ * free and it saves contending with other threads) if the
+ * {@link ConnectionSelectionStrategyIF strategy} wants it to. Failing that, it asks the
+ * strategy for one. Either way, the connection is only ours if we manage to change
+ * its status from available to active - the strategy is just a hint.
+ * <p>
+ * The connections don't belong to the bag. The pool still keeps the list of all
+ * connections and tells the bag whenever one becomes {@link #available available}
+ * or is {@link #remove removed}.
+ *
+ * @see ConnectionPool#getConnection
+ */
+class ConnectionBag {
+
+    /** How many recently returned connections each thread remembers */
+    private static final int RECENT_SIZE = 4;
+
+    /**
+     * Holds the connections that were available when we queued them. Some of
+     * them may have been claimed since by the thread that returned them.
+     */
+    private volatile ConnectionSelectionStrategyIF selectionStrategy;
+
+    /**
+     * A list of {@link WeakReference references} to the connections that each thread
+     * returned recently, most recent last. They are weak so that we don't keep a
+     * shutdown pool alive.
+     */
+    private ThreadLocal recent = new ThreadLocal() {
+        protected Object initialValue() {
+            return new ArrayList(RECENT_SIZE);
+        }
+    };
+
+    private ConnectionWaitQueue connectionWaitQueue;
+
+    /**
+     * @param connectionWaitQueue the threads we should give connections to
+     * before making them available
+     */
+    protected ConnectionBag(ConnectionWaitQueue connectionWaitQueue) {
+        this.connectionWaitQueue = connectionWaitQueue;
+        this.selectionStrategy = new RoundRobinConnectionSelectionStrategy();
+    }
+
+    /**
+     * Build the strategy to use
+     * @param name one of {@link ProxoolConstants#CONNECTION_SELECTION_STRATEGY_LIFO lifo},
+     * {@link ProxoolConstants#CONNECTION_SELECTION_STRATEGY_FIFO fifo},
+     * {@link ProxoolConstants#CONNECTION_SELECTION_STRATEGY_ROUND_ROBIN round-robin}, or the name of a class that
+     * implements {@link ConnectionSelectionStrategyIF}
+     * @return a new strategy
+     * @throws ProxoolException if we couldn't make one
+     */
+    protected static ConnectionSelectionStrategyIF createSelectionStrategy(String name) throws ProxoolException {
+        if (name.equals(ProxoolConstants.CONNECTION_SELECTION_STRATEGY_LIFO)) {
+            return new LifoConnectionSelectionStrategy();
+        } else if (name.equals(ProxoolConstants.CONNECTION_SELECTION_STRATEGY_FIFO)) {
+            return new FifoConnectionSelectionStrategy();
+        } else if (name.equals(ProxoolConstants.CONNECTION_SELECTION_STRATEGY_ROUND_ROBIN)) {
+            return new RoundRobinConnectionSelectionStrategy();
+        }
+        try {
+            Object strategy = Class.forName(name).getDeclaredConstructor(new Class[0]).newInstance(new Object[0]);
+            if (strategy instanceof ConnectionSelectionStrategyIF) {
+                return (ConnectionSelectionStrategyIF) strategy;
+            } else {
+                throw new ProxoolException("'" + name + "' doesn't implement " + ConnectionSelectionStrategyIF.class.getName());
+            }
+        } catch (ClassNotFoundException e) {
+            throw new ProxoolException("Unknown connection selection strategy '" + name + "'. Use "
+                    + ProxoolConstants.CONNECTION_SELECTION_STRATEGY_LIFO + ", "
+                    + ProxoolConstants.CONNECTION_SELECTION_STRATEGY_FIFO + ", "
+                    + ProxoolConstants.CONNECTION_SELECTION_STRATEGY_ROUND_ROBIN + " or a class name.");
+        } catch (InstantiationException e) {
+            throw new ProxoolException("Couldn't create connection selection strategy '" + name + "'", e);
+        } catch (IllegalAccessException e) {
+            throw new ProxoolException("Couldn't create connection selection strategy '" + name + "'", e);
+        } catch (NoSuchMethodException e) {
+            throw new ProxoolException("Connection selection strategy '" + name + "' needs a public no-argument constructor", e);
+        } catch (InvocationTargetException e) {
+            throw new ProxoolException("Couldn't create connection selection strategy '" + name + "'", e.getTargetException());
+        }
+    }
+
+    /**
+     * Start using a different strategy. Everything that is available right now is
+     * given to the new one.
+     * @param selectionStrategy the new strategy
+     * @param proxyConnections all the connections in the pool
+     */
+    protected void setSelectionStrategy(ConnectionSelectionStrategyIF selectionStrategy, ProxyConnectionIF[] proxyConnections) {
+        this.selectionStrategy = selectionStrategy;
+        for (int i = 0; i < proxyConnections.length; i++) {
+            // Forget that it was queued with the old strategy. If it becomes available
+            // from now on it will be queued with the new one.
+            proxyConnections[i].setQueued(false);
+            if (proxyConnections[i].isAvailable()) {
+                available(proxyConnections[i]);
+            }
+        }
+    }
+
+    /**
+     * Find an available connection and make it active.
+     * @return the connection (now {@link ConnectionInfoIF#STATUS_ACTIVE active}), or null
+     * if there aren't any available
+     */
+    protected ProxyConnectionIF claim() {
+        ConnectionSelectionStrategyIF selectionStrategy = this.selectionStrategy;
+
+        // Try the ones this thread used most recently first
+        if (selectionStrategy.isThreadAffinity()) {
+            List recentConnections = (List) recent.get();
+            for (int i = recentConnections.size() - 1; i >= 0; i--) {
+                ProxyConnectionIF proxyConnection = (ProxyConnectionIF) ((WeakReference) recentConnections.remove(i)).get();
+                if (proxyConnection != null && proxyConnection.isAvailable()
+                        && proxyConnection.setStatus(ProxyConnectionIF.STATUS_AVAILABLE, ProxyConnectionIF.STATUS_ACTIVE)) {
+                    // It's probably still queued with the strategy. Digging it out would mean
+                    // searching the queue, so we leave it there as a tombstone: whoever is
+                    // offered it next will find it isn't available and skip it.
+                    return proxyConnection;
+                }
+            }
+        }
+
+        // Then whatever the strategy suggests
+        ProxyConnectionIF proxyConnection = selectionStrategy.next();
+        while (proxyConnection != null) {
+            // Once it's not queued, anyone that makes it available will queue it again. So
+            // if we fail to claim it now (perhaps it's a tombstone) we can forget about it.
+            proxyConnection.setQueued(false);
+            if (proxyConnection.setStatus(ProxyConnectionIF.STATUS_AVAILABLE, ProxyConnectionIF.STATUS_ACTIVE)) {
+                return proxyConnection;
+            }
+            proxyConnection = selectionStrategy.next();
+        }
+        return null;
+    }
+
+    /**
+     * Give an active connection back. If anyone is waiting then it is handed
+     * straight to them, otherwise it is made available.
+     * @param proxyConnection the connection to release
+     * @return true if the connection was handed to a waiting thread or made available
+     */
+    protected boolean release(ProxyConnectionIF proxyConnection) {
+        if (proxyConnection.isActive() && !connectionWaitQueue.isEmpty() && connectionWaitQueue.handOff(proxyConnection)) {
+            return true;
+        }
+        if (proxyConnection.setStatus(ProxyConnectionIF.STATUS_ACTIVE, ProxyConnectionIF.STATUS_AVAILABLE)) {
+            if (selectionStrategy.isThreadAffinity()) {
+                List recentConnections = (List) recent.get();
+                if (recentConnections.size() >= RECENT_SIZE) {
+                    recentConnections.remove(0);
+                }
+                recentConnections.add(new WeakReference(proxyConnection));
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Call this whenever a connection becomes available (including when it is first
+     * built) so that others can find it. If it's still queued (because it was claimed
+     * from a recent list and nobody has skipped its tombstone yet) then it keeps its place.
+     * @param proxyConnection the connection that is now available
+     */
+    protected void available(ProxyConnectionIF proxyConnection) {
+        if (!proxyConnection.setQueued(true)) {
+            ConnectionSelectionStrategyIF selectionStrategy = this.selectionStrategy;
+            selectionStrategy.available(proxyConnection);
+            if (selectionStrategy != this.selectionStrategy) {
+                // It changed whilst we were busy. Make sure the new one knows.
+                this.selectionStrategy.available(proxyConnection);
+            }
+        }
+        // Somebody might be waiting for it
+        if (!connectionWaitQueue.isEmpty()) {
+            connectionWaitQueue.wakeOldest();
+        }
+    }
+
+    /**
+     * Forget about a connection that is being removed from the pool. We'd
+     * skip over it anyway but this stops it hanging about in the queue.
+     * @param proxyConnection the connection being removed
+     */
+    protected void remove(ProxyConnectionIF proxyConnection) {
+        if (proxyConnection.setQueued(false)) {
+            selectionStrategy.remove(proxyConnection);
+        }
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Passes {@link ConnectionListenerIF#onExecute execute} and
+ * {@link ConnectionListenerIF#onFail fail} events to the listeners on a
+ * background thread so that the threads executing statements don't have to
+ * wait for them. It's a ring of preallocated slots: any number of threads
+ * claim the next slot and fill it in, and one thread reads them back in order.
+ * Publishing an event doesn't lock anything or create any garbage.
+ * <p>
+ * When the buffer is full an event is either dropped (and
+ * {@link ConnectionPool#listenerEventDropped counted}) or the publisher waits
+ * for room, depending on the {@link ConnectionPoolDefinitionIF#getAsyncListenerOverflow overflow}
+ * policy.
+ *
+ * @see ConnectionPoolDefinitionIF#getAsyncListenerBufferSize
+ */
+class ConnectionEventBuffer implements Runnable {
+
+    /** How long the reader sleeps when there's nothing to read (it's woken sooner if something arrives) */
+    private static final long IDLE_PARK_NANOS = 10000000L;
+
+    /** How long a blocked publisher waits before looking for room again */
+    private static final long FULL_PARK_NANOS = 100000L;
+
+    private Slot[] slots;
+
+    private int mask;
+
+    private int size;
+
+    private boolean block;
+
+    private ConnectionListenerIF listener;
+
+    private ConnectionPool connectionPool;
+
+    /** The sequence of the next slot to be claimed by a publisher */
+    private AtomicLong tail = new AtomicLong();
+
+    /** The sequence of the next slot to be read (everything before this is free) */
+    private volatile long head;
+
+    private volatile boolean running = true;
+
+    private Thread reader;
+
+    private volatile boolean readerParked;
+
+    /**
+     * @param listener who to pass the events on to
+     * @param size how many events it can hold (rounded up to a power of two)
+     * @param block true to make publishers wait when it's full, false to drop the event
+     * @param connectionPool so we can count dropped events and log problems
+     */
+    protected ConnectionEventBuffer(ConnectionListenerIF listener, int size, boolean block, ConnectionPool connectionPool) {
+        this.listener = listener;
+        this.size = size;
+        this.block = block;
+        this.connectionPool = connectionPool;
+        int capacity = 1;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i - capacity;
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Start the thread that passes the events on
+     * @param threadFactory makes the thread
+     */
+    protected void start(ThreadFactory threadFactory) {
+        reader = threadFactory.newThread(this);
+        reader.start();
+    }
+
+    /**
+     * Whether this buffer was built with this configuration
+     * @param size see {@link ConnectionPoolDefinitionIF#getAsyncListenerBufferSize}
+     * @param block true if the overflow policy is to block
+     * @return true if it was
+     */
+    protected boolean isConfiguredAs(int size, boolean block) {
+        return this.size == size && this.block == block;
+    }
+
+    /**
+     * Add an event to the buffer. If we've been {@link #shutdown} then the
+     * listeners are called straight away instead.
+     * @param command what was executed
+     * @param elapsedTime how long it took (milliseconds)
+     * @param exception what went wrong (or null if it worked)
+     * @return false if the event had to be dropped
+     */
+    protected boolean publish(String command, long elapsedTime, Exception exception) {
+        long sequence;
+        while (true) {
+            if (!running) {
+                dispatch(command, elapsedTime, exception);
+                return true;
+            }
+            sequence = tail.get();
+            if (sequence - head >= slots.length) {
+                if (block) {
+                    wakeReader();
+                    LockSupport.parkNanos(this, FULL_PARK_NANOS);
+                    continue;
+                } else {
+                    connectionPool.listenerEventDropped();
+                    return false;
+                }
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.command = command;
+        slot.elapsedTime = elapsedTime;
+        slot.exception = exception;
+        // This write publishes the fields above to the reader
+        slot.sequence = sequence;
+        if (readerParked) {
+            wakeReader();
+        }
+        return true;
+    }
+
+    /**
+     * Read events and pass them on until we're {@link #shutdown} and everything
+     * that was published has been read.
+     */
+    public void run() {
+        long next = head;
+        while (true) {
+            Slot slot = slots[(int) next & mask];
+            if (slot.sequence == next) {
+                String command = slot.command;
+                long elapsedTime = slot.elapsedTime;
+                Exception exception = slot.exception;
+                slot.command = null;
+                slot.exception = null;
+                next++;
+                // Now the slot can be reused
+                head = next;
+                dispatch(command, elapsedTime, exception);
+            } else if (!running && next == tail.get()) {
+                break;
+            } else {
+                readerParked = true;
+                if (slot.sequence != next) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                readerParked = false;
+            }
+        }
+    }
+
+    /**
+     * Stop accepting events. Those already in the buffer are still passed on.
+     */
+    protected void shutdown() {
+        running = false;
+        wakeReader();
+    }
+
+    private void wakeReader() {
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
+    }
+
+    private void dispatch(String command, long elapsedTime, Exception exception) {
+        try {
+            if (exception == null) {
+                listener.onExecute(command, elapsedTime);
+            } else {
+                listener.onFail(command, exception);
+            }
+        } catch (Throwable t) {
+            connectionPool.getLog().error("Connection listener threw an exception (ignored)", t);
+        }
+    }
+
+    /**
+     * One event. The {@link #sequence} says which lap of the ring it belongs to,
+     * so the reader knows whether it has been published yet.
+     */
+    private static class Slot {
+
+        private volatile long sequence;
+
+        private String command;
+
+        private long elapsedTime;
+
+        private Exception exception;
+    }
+}
@@ -5,8 +5,6 @@
  */
 package org.logicalcobwebs.proxool;
 
-import org.logicalcobwebs.concurrent.ReaderPreferenceReadWriteLock;
-import org.logicalcobwebs.concurrent.WriterPreferenceReadWriteLock;
 import org.logicalcobwebs.logging.Log;
 import org.logicalcobwebs.logging.LogFactory;
 import org.logicalcobwebs.proxool.admin.Admin;
@@ -20,8 +18,23 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This is where most things happen. (In fact, probably too many things happen in this one
@@ -44,39 +57,88 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
      */
     private Log log;
 
-    private ReaderPreferenceReadWriteLock connectionStatusReadWriteLock = new ReaderPreferenceReadWriteLock();
+    /**
+     * Guards adding connections to, and removing them from, the pool. Changing
+     * the status of a connection doesn't need it.
+     */
+    private ReentrantReadWriteLock connectionStatusReadWriteLock = new ReentrantReadWriteLock();
 
     /**
      * If you want to shutdown the pool you should get a write lock on this. And if you use the pool then
      * get a read lock. This stops us trying to shutdown the pool whilst it is in use. Only, we don't want
      * to delay shutdown just because some greedy user has got a connection active. Shutdown should be
      * relatively immediate. So we don't ask for a read lock for the whole time that a connection is active.
+     * (New readers queue behind a waiting writer, so shutdown isn't starved.)
      */
-    private WriterPreferenceReadWriteLock primaryReadWriteLock = new WriterPreferenceReadWriteLock();
+    private ReentrantReadWriteLock primaryReadWriteLock = new ReentrantReadWriteLock();
 
     private static final String[] STATUS_DESCRIPTIONS = {"NULL", "AVAILABLE", "ACTIVE", "OFFLINE"};
 
-    private static final String MSG_MAX_CONNECTION_COUNT =
+    /**
+     * How often (milliseconds) we look at the pool again whilst we wait for a
+     * connection to be {@link #waitForNewConnection built}, in case we missed a wake-up
+     */
+    private static final long NEW_CONNECTION_RECHECK_INTERVAL = 1000;
+
+    protected static final String MSG_STALE = "it was made before the database failed over";
+
+    protected static final String MSG_MAX_CONNECTION_COUNT =
             "Couldn't get connection because we are at maximum connection count and there are none available";
 
     /** This is the pool itself */
     private List proxyConnections;
 
-    /** This is the "round robin" that makes sure we use all the connections */
-    private int nextAvailableConnection = 0;
+    private long connectionsServedCount = 0;
+
+    private long connectionsRefusedCount = 0;
+
+    private LongAdder connectionsWaitedCount = new LongAdder();
 
     /**
-     * This is usually the same as poolableConnections.size() but it sometimes higher.  It is
-     * alwasy right, since a connection exists before it is added to the pool
+     * The {@link ProxoolFacade#setPriorityClass priority class} of the current thread
+     * (or null if it hasn't got one)
      */
-    private int connectionCount = 0;
+    private static final ThreadLocal PRIORITY_CLASS = new ThreadLocal();
 
-    private long connectionsServedCount = 0;
+    /**
+     * {@link PriorityClassCounters Counts} for each priority class that has had to
+     * wait or been refused, keyed by name
+     */
+    private ConcurrentHashMap priorityClassCounters = new ConcurrentHashMap();
 
-    private long connectionsRefusedCount = 0;
+    /**
+     * Threads waiting for a connection to be returned.
+     * @see ConnectionPoolDefinitionIF#getMaximumWaitTime
+     */
+    private ConnectionWaitQueue connectionWaitQueue = new ConnectionWaitQueue(this);
 
-    /** This keeps a count of how many connections there are in each state */
-    private int[] connectionCountByState = new int[4];
+    /** Where we look for available connections */
+    private ConnectionBag connectionBag = new ConnectionBag(connectionWaitQueue);
+
+    /**
+     * The {@link ConnectionPoolDefinitionIF#getConnectionSelectionStrategy strategy}
+     * the {@link #connectionBag bag} is using right now
+     */
+    private volatile String connectionSelectionStrategy;
+
+    /**
+     * This keeps a count of how many connections there are in each state. They're
+     * striped so that threads changing the status of different connections don't
+     * contend with each other.
+     */
+    private LongAdder[] connectionCountByState = {new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()};
+
+    /** @see #getStatementCacheHitCount */
+    private LongAdder statementCacheHitCount = new LongAdder();
+
+    /** @see #getStatementCacheMissCount */
+    private LongAdder statementCacheMissCount = new LongAdder();
+
+    /** @see #getStatementCacheEvictionCount */
+    private LongAdder statementCacheEvictionCount = new LongAdder();
+
+    /** @see #getListenerEventsDroppedCount */
+    private LongAdder listenerEventsDroppedCount = new LongAdder();
 
     private ConnectionPoolDefinition definition;
 
@@ -96,13 +158,16 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
 
     private Date dateStarted = new Date();
 
-    private boolean connectionPoolUp = false;
+    private volatile boolean connectionPoolUp = false;
 
     /**
-     * This gets set during {@link #shutdown}. We use it to notify shutdown
-     * that all connections are now non-active.
+     * {@link #shutdown} waits on {@link #noActiveConnections} for all connections
+     * to become non-active. We use a lock rather than a monitor so that a virtual
+     * thread returning a connection never gets pinned to its carrier.
      */
-    private Thread shutdownThread;
+    private final ReentrantLock shutdownLock = new ReentrantLock();
+
+    private final Condition noActiveConnections = shutdownLock.newCondition();
 
     private Prototyper prototyper;
 
@@ -111,6 +176,58 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
      */
     private ConnectionResetter connectionResetter;
 
+    /**
+     * Runs {@link AsyncConnectionRequest asynchronous requests} and the callbacks
+     * passed to {@link ProxoolFacade#executeAsync}. Created when first needed.
+     * @see #getAsyncExecutor
+     */
+    private volatile ThreadPoolExecutor asyncExecutor;
+
+    /**
+     * Runs {@link OnDemandBuild on demand builds}. It's kept apart from the
+     * {@link #asyncExecutor} so that slow callbacks can't hold up the connections
+     * that other requests are waiting for. Created when first needed.
+     * @see #getBuildExecutor
+     */
+    private volatile ThreadPoolExecutor buildExecutor;
+
+    /**
+     * Tells {@link AsyncConnectionRequest asynchronous requests} when they have
+     * waited long enough. Created when first needed.
+     * @see #getAsyncTimer
+     */
+    private ScheduledThreadPoolExecutor asyncTimer;
+
+    /**
+     * Passes execute events to the connection listeners in the background, if
+     * {@link ConnectionPoolDefinitionIF#getAsyncListenerBufferSize configured} to.
+     * @see #getConnectionEventBuffer
+     */
+    private volatile ConnectionEventBuffer connectionEventBuffer;
+
+    /**
+     * Created the first time it's needed. It's kept (with everything it has counted)
+     * even if profiling is turned off.
+     * @see #getSqlProfiler
+     */
+    private volatile SqlProfiler sqlProfiler;
+
+    /** @see #getSlowQueryLog */
+    private volatile SlowQueryLog slowQueryLog;
+
+    /** @see #getStatementWatchdog */
+    private volatile StatementWatchdog statementWatchdog;
+
+    /** @see #getEpoch */
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * Guards {@link #asyncExecutor}, {@link #buildExecutor}, {@link #asyncTimer} and changes to the
+     * {@link #updateConnectionSelectionStrategy selection strategy}. These are on the
+     * checkout path so we use a lock rather than a monitor and don't pin virtual threads.
+     */
+    private final ReentrantLock configurationLock = new ReentrantLock();
+
     protected ConnectionPool(ConnectionPoolDefinition definition) throws ProxoolException {
 
         // Use the FastArrayList for performance and thread safe
@@ -123,6 +240,7 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
         log = LogFactory.getLog("org.logicalcobwebs.proxool." + definition.getAlias());
         connectionResetter = new ConnectionResetter(log, definition.getDriver());
         setDefinition(definition);
+        updateConnectionSelectionStrategy();
 
         if (definition.getStatistics() != null) {
             try {
@@ -137,18 +255,25 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
 
     /** Starts up house keeping and prototyper threads. */
     protected void start() throws ProxoolException {
-        connectionPoolUp = true;
         prototyper = new Prototyper(this);
+        // The pool is visible as soon as it's registered, so only say it's up once it's ready to use
+        connectionPoolUp = true;
         HouseKeeperController.register(this);
     }
 
     /**
      * Get a connection from the pool.  If none are available or there was an Exception
-     * then an exception is thrown and something written to the log
+     * then an exception is thrown and something written to the log. If we are at the
+     * maximum connection count then we might {@link #waitForConnection wait} for one
+     * to be returned first.
      */
     protected Connection getConnection() throws SQLException {
 
         String requester = Thread.currentThread().getName();
+        final String priorityClass = getPriorityClass();
+        final int reserve = getPriorityReserve(priorityClass);
+
+        ProxyConnectionIF proxyConnection = null;
 
         /*
          *If we're busy, we need to return as quickly as possible. Because this is unsynchronized
@@ -156,86 +281,47 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
          * only happen when we're right at or near maximum connections anyway.
          */
 
-        if (connectionCount >= getDefinition().getMaximumConnectionCount() && getAvailableConnectionCount() < 1) {
-            connectionsRefusedCount++;
-            if (admin != null) {
-                admin.connectionRefused();
+        final long waitDeadline = System.currentTimeMillis() + getDefinition().getMaximumWaitTime();
+        if ((isFull() && getAvailableConnectionCount() < 1) || isReserved(reserve)) {
+            if (getDefinition().getMaximumWaitTime() > 0) {
+                proxyConnection = waitForConnection(waitDeadline, reserve, priorityClass);
+            }
+            if (proxyConnection == null && (isFull() || isReserved(reserve))) {
+                connectionRefused(priorityClass);
+                log.info(displayStatistics() + " - " + MSG_MAX_CONNECTION_COUNT);
+                throw new SQLException(MSG_MAX_CONNECTION_COUNT);
             }
-            log.info(displayStatistics() + " - " + MSG_MAX_CONNECTION_COUNT);
-            timeOfLastRefusal = System.currentTimeMillis();
-            setUpState(StateListenerIF.STATE_OVERLOADED);
-            throw new SQLException(MSG_MAX_CONNECTION_COUNT);
         }
 
-        try {
-            PrototyperController.checkSimultaneousBuildThrottle(getDefinition().getAlias());
-        } catch (ProxoolException e) {
-            log.error("Unexpected problem", e);
-            throw new SQLException(e.getMessage());
+        if (proxyConnection == null) {
+            try {
+                PrototyperController.checkSimultaneousBuildThrottle(getDefinition().getAlias());
+            } catch (ProxoolException e) {
+                log.error("Unexpected problem", e);
+                throw new SQLException(e.getMessage());
+            }
         }
 
-        ProxyConnectionIF proxyConnection = null;
-
         try {
 
-            // We need to look at all the connections, but we don't want to keep looping round forever
-            for (int connectionsTried = 0; connectionsTried < proxyConnections.size(); connectionsTried++) {
-                // By doing this in a try/catch we avoid needing to synch on the size().  We need to do be
-                // able to cope with connections being removed whilst we are going round this loop
-                try {
-                    proxyConnection = (ProxyConnectionIF) proxyConnections.get(nextAvailableConnection);
-                } catch (ArrayIndexOutOfBoundsException e) {
-                    // This is thrown by a Vector (which we no longer use), but is
-                    // kept here for a while.
-                    nextAvailableConnection = 0;
-                    proxyConnection = (ProxyConnectionIF) proxyConnections.get(nextAvailableConnection);
-                } catch (IndexOutOfBoundsException e) {
-                    // This is thrown by a true List
-                    nextAvailableConnection = 0;
-                    proxyConnection = (ProxyConnectionIF) proxyConnections.get(nextAvailableConnection);
+            if (proxyConnection == null) {
+                proxyConnection = checkReserve(claimAvailableConnection(), reserve);
+            }
+            while (proxyConnection == null) {
+                if (!isConnectionPoolUp()) {
+                    throw createShutdownException();
                 }
-                // setActive() returns false if the ProxyConnection wasn't available.  You
-                // can't set it active twice (at least, not without making it available again
-                // in between)
-                if (proxyConnection != null && proxyConnection.setStatus(ProxyConnectionIF.STATUS_AVAILABLE, ProxyConnectionIF.STATUS_ACTIVE)) {
-
-                    // Okay. So we have it. But is it working ok?
-                    if (getDefinition().isTestBeforeUse()) {
-                        if (!testConnection(proxyConnection)) {
-                            // Oops. No it's not. Let's choose another.
-                            proxyConnection = null;
-                        }
-                    }
-                    if (proxyConnection != null) {
-                        nextAvailableConnection++;
-                        break;
-                    }
+                if (!isFull() && !isReserved(reserve)) {
+                    // No!  Let's get one built - but we'll take one that's returned if that's quicker
+                    proxyConnection = waitForNewConnection(reserve,
+                            getDefinition().getMaximumWaitTime() > 0 ? waitDeadline : Long.MAX_VALUE);
+                } else if (getDefinition().getMaximumWaitTime() > 0 && isConnectionPoolUp()
+                        && System.currentTimeMillis() < waitDeadline) {
+                    // We're full (as far as we're concerned). Somebody might give one back if we wait
+                    proxyConnection = waitForConnection(waitDeadline, reserve, priorityClass);
                 } else {
-                    proxyConnection = null;
-                }
-                nextAvailableConnection++;
-            }
-            // Did we get one?
-            if (proxyConnection == null) {
-                try {
-                    // No!  Let's see if we can create one
-                    proxyConnection = PrototyperController.buildConnection(
-                            getDefinition().getAlias(), ProxyConnection.STATUS_ACTIVE, "on demand");
-                    // Okay. So we have it. But is it working ok?
-                    if (getDefinition().isTestBeforeUse()) {
-                        if (!testConnection(proxyConnection)) {
-                            // Oops. No it's not. There's not much more we can do for now
-                            throw new SQLException("Created a new connection but it failed its test");
-                        }
-                    }
-                } catch (SQLException e) {
-                    throw e;
-                } catch (ProxoolException e) {
-                    log.debug("Couldn't get connection", e);
-                    throw new SQLException(e.toString());
-                } catch (Throwable e) {
-                    log.error("Couldn't get connection", e);
-                    throw new SQLException(e.toString());
+                    log.info(displayStatistics() + " - " + MSG_MAX_CONNECTION_COUNT);
+                    throw new SQLException(MSG_MAX_CONNECTION_COUNT);
                 }
             }
 
@@ -245,16 +331,8 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
             log.error("Problem getting connection", t);
             throw new SQLException(t.toString());
         } finally {
-            if (proxyConnection != null) {
-                connectionsServedCount++;
-                proxyConnection.setRequester(requester);
-            } else {
-                connectionsRefusedCount++;
-                if (admin != null) {
-                    admin.connectionRefused();
-                }
-                timeOfLastRefusal = System.currentTimeMillis();
-                setUpState(StateListenerIF.STATE_OVERLOADED);
+            if (proxyConnection == null) {
+                connectionRefused(priorityClass);
             }
         }
 
@@ -262,6 +340,80 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
             throw new SQLException("Unknown reason for not getting connection. Sorry.");
         }
 
+        return connectionServed(proxyConnection, requester);
+    }
+
+    /**
+     * Get a connection without waiting: claim one that is available or, if there
+     * aren't any and we have room, build one. Used for {@link AsyncConnectionRequest
+     * asynchronous} requests, which do their waiting without a thread.
+     * @param reserve how many connections must still be free after we take one
+     * (see {@link #getPriorityReserve})
+     * @return the connection (now {@link ConnectionInfoIF#STATUS_ACTIVE active}), or
+     * null if there is nothing available and we can't build another one right now
+     * @throws SQLException if we tried to build a connection and failed
+     */
+    protected ProxyConnectionIF claimOrBuildConnection(int reserve) throws SQLException {
+        ProxyConnectionIF proxyConnection = checkReserve(claimAvailableConnection(), reserve);
+        if (proxyConnection == null && !isFull() && !isReserved(reserve)) {
+            try {
+                prototyper.checkSimultaneousBuildThrottle();
+            } catch (SQLException e) {
+                // Plenty of connections are on their way. We'll hear about them.
+                return null;
+            }
+            try {
+                proxyConnection = buildConnectionOnDemand();
+            } catch (ProxoolException e) {
+                if (isFull()) {
+                    // Somebody else took the last place
+                    return null;
+                }
+                log.debug("Couldn't get connection", e);
+                throw new SQLException(e.toString());
+            }
+        }
+        return checkReserve(proxyConnection, reserve);
+    }
+
+    /**
+     * Build a new connection for a caller that needs one right now
+     * @return the new connection (already {@link ConnectionInfoIF#STATUS_ACTIVE active})
+     * @throws SQLException if we couldn't build it or it failed its test
+     * @throws ProxoolException if we have already built as many as we are allowed
+     */
+    private ProxyConnectionIF buildConnectionOnDemand() throws SQLException, ProxoolException {
+        ProxyConnectionIF proxyConnection = PrototyperController.buildConnection(
+                getDefinition().getAlias(), ProxyConnection.STATUS_ACTIVE, "on demand");
+        // Okay. So we have it. But is it working ok?
+        if (getDefinition().isTestBeforeUse()) {
+            if (!testConnection(proxyConnection)) {
+                // Oops. No it's not. There's not much more we can do for now
+                throw new SQLException("Created a new connection but it failed its test");
+            }
+        }
+        return proxyConnection;
+    }
+
+    /**
+     * Keep count of a connection we are giving out and wrap it up for the caller
+     * @param proxyConnection the connection (already {@link ConnectionInfoIF#STATUS_ACTIVE active})
+     * @param requester the name of the thread that asked for it
+     * @return the connection the caller should use
+     * @throws SQLException if the driver wouldn't {@link ConnectionResetter#beginRequest begin a request}
+     * (in which case the connection has been thrown away)
+     */
+    protected Connection connectionServed(ProxyConnectionIF proxyConnection, String requester) throws SQLException {
+        try {
+            connectionResetter.beginRequest(proxyConnection.getConnection());
+        } catch (SQLException e) {
+            removeProxyConnection(proxyConnection, "it couldn't begin a request: " + e, true, true);
+            throw e;
+        }
+
+        connectionsServedCount++;
+        proxyConnection.setRequester(requester);
+
         if (log.isDebugEnabled() && getDefinition().isVerbose()) {
             log.debug(displayStatistics() + " - Connection #" + proxyConnection.getId() + " served");
         }
@@ -269,6 +421,719 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
         return ProxyFactory.getConnection(proxyConnection);
     }
 
+    /**
+     * Keep count of a caller that had to {@link ConnectionWaitQueue wait}
+     * @param waitTime how long it waited (milliseconds)
+     * @param priorityClass the caller's {@link #getPriorityClass priority class}
+     */
+    protected void connectionWaited(long waitTime, String priorityClass) {
+        connectionsWaitedCount.increment();
+        getPriorityClassCounters(priorityClass).waited.increment();
+        if (admin != null) {
+            admin.connectionWaited(waitTime);
+        }
+    }
+
+    /**
+     * Keep count of a request we couldn't serve and let everyone know we're overloaded
+     * @param priorityClass the caller's {@link #getPriorityClass priority class}
+     */
+    protected void connectionRefused(String priorityClass) {
+        connectionsRefusedCount++;
+        getPriorityClassCounters(priorityClass).refused.increment();
+        if (admin != null) {
+            admin.connectionRefused();
+        }
+        timeOfLastRefusal = System.currentTimeMillis();
+        setUpState(StateListenerIF.STATE_OVERLOADED);
+    }
+
+    /**
+     * Keep count of how well the {@link StatementCache statement caches} are doing
+     * @param hit true if a cached statement was used, false if we had to prepare a new one
+     */
+    protected void statementCacheLookup(boolean hit) {
+        if (hit) {
+            statementCacheHitCount.increment();
+        } else {
+            statementCacheMissCount.increment();
+        }
+    }
+
+    /**
+     * Keep count of an event that the {@link ConnectionEventBuffer} had no room for
+     */
+    protected void listenerEventDropped() {
+        listenerEventsDroppedCount.increment();
+    }
+
+    /**
+     * Keep count of a cached statement that was closed to make room for another
+     */
+    protected void statementCacheEviction() {
+        statementCacheEvictionCount.increment();
+    }
+
+    /**
+     * Give back a connection that was claimed for a caller that no longer wants it
+     * (because it gave up waiting, for instance). It hasn't been served so it doesn't
+     * count as returned.
+     * @param proxyConnection the {@link ConnectionInfoIF#STATUS_ACTIVE active} connection
+     */
+    protected void releaseUnservedConnection(ProxyConnectionIF proxyConnection) {
+        connectionBag.release(proxyConnection);
+    }
+
+    /**
+     * Get a connection without blocking the calling thread. If none are available
+     * and we can't build one then the request joins the {@link ConnectionWaitQueue queue}
+     * just like a thread would, but without tying up a thread whilst it waits.
+     * @param timeout how long to wait for a connection (milliseconds). If it is zero we
+     * only get a connection if we can do so without waiting.
+     * @return a future that is completed with the connection, or completed exceptionally
+     * with an {@link SQLException} if we couldn't get one in time. It is always completed on
+     * one of the {@link #getAsyncExecutor executor's} threads.
+     * @see AsyncConnectionRequest
+     */
+    protected CompletableFuture<Connection> getConnectionAsync(long timeout) {
+        CompletableFuture<Connection> future = new CompletableFuture<Connection>();
+        if (isConnectionPoolUp()) {
+            String priorityClass = getPriorityClass();
+            new AsyncConnectionRequest(this, connectionWaitQueue, future, System.currentTimeMillis() + timeout,
+                    priorityClass, getPriorityReserve(priorityClass)).start();
+        } else {
+            future.completeExceptionally(createShutdownException());
+        }
+        return future;
+    }
+
+    /**
+     * @return what to throw at anybody that asks for a connection once we've been {@link #shutdown shutdown}
+     */
+    protected SQLException createShutdownException() {
+        return new SQLException("The '" + getDefinition().getAlias() + "' pool has been shutdown");
+    }
+
+    /**
+     * The threads that do asynchronous work for this pool. It has as many threads as the
+     * pool has {@link ConnectionPoolDefinitionIF#getMaximumConnectionCount connections}
+     * (there's no point having more: anything extra would just be waiting for a connection)
+     * and they die off when they aren't being used.
+     * @return the executor
+     */
+    protected ThreadPoolExecutor getAsyncExecutor() {
+        ThreadPoolExecutor asyncExecutor = this.asyncExecutor;
+        if (asyncExecutor != null && asyncExecutor.getMaximumPoolSize() == getDefinition().getMaximumConnectionCount()) {
+            return asyncExecutor;
+        }
+        configurationLock.lock();
+        try {
+            asyncExecutor = fitExecutor(this.asyncExecutor, "Async");
+            this.asyncExecutor = asyncExecutor;
+            return asyncExecutor;
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * The threads that {@link OnDemandBuild build connections on demand}. Like the
+     * {@link #getAsyncExecutor async executor}, there are as many as the pool has connections
+     * and they die off when they aren't being used.
+     * @return the executor
+     */
+    protected ThreadPoolExecutor getBuildExecutor() {
+        ThreadPoolExecutor buildExecutor = this.buildExecutor;
+        if (buildExecutor != null && buildExecutor.getMaximumPoolSize() == getDefinition().getMaximumConnectionCount()) {
+            return buildExecutor;
+        }
+        configurationLock.lock();
+        try {
+            buildExecutor = fitExecutor(this.buildExecutor, "Build");
+            this.buildExecutor = buildExecutor;
+            return buildExecutor;
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * Make an executor with a thread for each of the pool's connections, or change the size
+     * of an existing one if the definition has changed. Only call this whilst holding the
+     * {@link #configurationLock}.
+     * @param executor the existing executor (or null if there isn't one yet)
+     * @param name what to call its threads
+     * @return the executor, the right size
+     */
+    private ThreadPoolExecutor fitExecutor(ThreadPoolExecutor executor, String name) {
+        final int size = getDefinition().getMaximumConnectionCount();
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue(), createAsyncThreadFactory(name));
+            executor.allowCoreThreadTimeOut(true);
+        } else if (executor.getMaximumPoolSize() != size) {
+            // The definition has changed. The core size must never exceed the maximum.
+            if (size > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(size);
+                executor.setCorePoolSize(size);
+            } else {
+                executor.setCorePoolSize(size);
+                executor.setMaximumPoolSize(size);
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * @return the timer that {@link AsyncConnectionRequest asynchronous requests} use
+     * to know when to give up
+     */
+    protected ScheduledThreadPoolExecutor getAsyncTimer() {
+        configurationLock.lock();
+        try {
+            if (asyncTimer == null) {
+                asyncTimer = new ScheduledThreadPoolExecutor(1, createAsyncThreadFactory("AsyncTimer"));
+                asyncTimer.setRemoveOnCancelPolicy(true);
+            }
+            return asyncTimer;
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * The buffer that passes execute events to the connection listeners in the
+     * background. It is replaced whenever its definition changes.
+     * @return the buffer, or null if listeners should be called straight away
+     * @see ConnectionPoolDefinitionIF#getAsyncListenerBufferSize
+     */
+    protected ConnectionEventBuffer getConnectionEventBuffer() {
+        final int size = getDefinition().getAsyncListenerBufferSize();
+        final boolean block = ProxoolConstants.ASYNC_LISTENER_OVERFLOW_BLOCK.equals(getDefinition().getAsyncListenerOverflow());
+        ConnectionEventBuffer connectionEventBuffer = this.connectionEventBuffer;
+        if (connectionEventBuffer != null ? connectionEventBuffer.isConfiguredAs(size, block) : size <= 0) {
+            return connectionEventBuffer;
+        }
+        configurationLock.lock();
+        try {
+            connectionEventBuffer = this.connectionEventBuffer;
+            if (connectionEventBuffer != null ? !connectionEventBuffer.isConfiguredAs(size, block) : size > 0) {
+                ConnectionEventBuffer oldBuffer = connectionEventBuffer;
+                if (size > 0 && connectionPoolUp) {
+                    connectionEventBuffer = new ConnectionEventBuffer(compositeConnectionListener, size, block, this);
+                    connectionEventBuffer.start(createAsyncThreadFactory("Listener"));
+                } else {
+                    connectionEventBuffer = null;
+                }
+                this.connectionEventBuffer = connectionEventBuffer;
+                if (oldBuffer != null) {
+                    // It still passes on what it's already got
+                    oldBuffer.shutdown();
+                }
+            }
+            return connectionEventBuffer;
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * The profiler that times each execution
+     * @return the profiler, or null if we aren't {@link ConnectionPoolDefinitionIF#getSqlProfileSize profiling}
+     */
+    protected SqlProfiler getSqlProfiler() {
+        if (getDefinition().getSqlProfileSize() <= 0) {
+            return null;
+        }
+        SqlProfiler sqlProfiler = this.sqlProfiler;
+        if (sqlProfiler == null) {
+            configurationLock.lock();
+            try {
+                sqlProfiler = this.sqlProfiler;
+                if (sqlProfiler == null) {
+                    sqlProfiler = new SqlProfiler(this);
+                    this.sqlProfiler = sqlProfiler;
+                }
+            } finally {
+                configurationLock.unlock();
+            }
+        }
+        return sqlProfiler;
+    }
+
+    /**
+     * Get the SQL templates that have taken the most time so far
+     * @param count the most to return (or zero for all of them)
+     * @return the profiles, busiest first (empty if we've never profiled anything)
+     * @see ConnectionPoolDefinitionIF#getSqlProfileSize
+     */
+    protected SqlProfileIF[] getSqlProfiles(int count) {
+        SqlProfiler sqlProfiler = this.sqlProfiler;
+        return sqlProfiler != null ? sqlProfiler.getProfiles(count) : new SqlProfileIF[0];
+    }
+
+    /**
+     * Forget all the SQL profiles and start counting again
+     */
+    protected void resetSqlProfiles() {
+        SqlProfiler sqlProfiler = this.sqlProfiler;
+        if (sqlProfiler != null) {
+            sqlProfiler.reset();
+        }
+    }
+
+    /**
+     * The watchdog that cancels executions that overrun their query timeout. It's
+     * started the first time it's needed.
+     * @return the watchdog, or null if there isn't a
+     * {@link ConnectionPoolDefinitionIF#getDefaultQueryTimeout default query timeout}
+     * (or we've been shutdown)
+     */
+    protected StatementWatchdog getStatementWatchdog() {
+        if (getDefinition().getDefaultQueryTimeout() <= 0) {
+            return null;
+        }
+        StatementWatchdog statementWatchdog = this.statementWatchdog;
+        if (statementWatchdog == null && connectionPoolUp) {
+            configurationLock.lock();
+            try {
+                statementWatchdog = this.statementWatchdog;
+                if (statementWatchdog == null && connectionPoolUp) {
+                    statementWatchdog = new StatementWatchdog(this);
+                    statementWatchdog.start(createAsyncThreadFactory("Watchdog"));
+                    this.statementWatchdog = statementWatchdog;
+                }
+            } finally {
+                configurationLock.unlock();
+            }
+        }
+        return statementWatchdog;
+    }
+
+    /**
+     * Where we remember slow queries. It's only needed once there has been one.
+     * @return the log
+     * @see ConnectionPoolDefinitionIF#getSlowQueryThreshold
+     */
+    protected SlowQueryLog getSlowQueryLog() {
+        SlowQueryLog slowQueryLog = this.slowQueryLog;
+        if (slowQueryLog == null) {
+            configurationLock.lock();
+            try {
+                slowQueryLog = this.slowQueryLog;
+                if (slowQueryLog == null) {
+                    slowQueryLog = new SlowQueryLog();
+                    this.slowQueryLog = slowQueryLog;
+                }
+            } finally {
+                configurationLock.unlock();
+            }
+        }
+        return slowQueryLog;
+    }
+
+    /**
+     * @return the most recent slow queries, newest first (empty if there haven't been any)
+     * @see ConnectionPoolDefinitionIF#getSlowQueryThreshold
+     */
+    protected SlowQueryIF[] getSlowQueries() {
+        SlowQueryLog slowQueryLog = this.slowQueryLog;
+        return slowQueryLog != null ? slowQueryLog.getSlowQueries() : new SlowQueryIF[0];
+    }
+
+    private ThreadFactory createAsyncThreadFactory(final String name) {
+        final String alias = getDefinition().getAlias();
+        return new ThreadFactory() {
+            private AtomicInteger threadCount = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + alias + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Stop taking asynchronous work. Anything already queued still runs (and, now
+     * that the pool is down, fails quickly).
+     */
+    private void shutdownAsync() {
+        configurationLock.lock();
+        try {
+            if (asyncExecutor != null) {
+                asyncExecutor.shutdown();
+            }
+            if (buildExecutor != null) {
+                buildExecutor.shutdown();
+            }
+            if (asyncTimer != null) {
+                // Outstanding timeouts still fire so nobody is left waiting forever
+                asyncTimer.shutdown();
+            }
+            if (connectionEventBuffer != null) {
+                // Events already in the buffer are still passed on. Any more are passed on straight away.
+                connectionEventBuffer.shutdown();
+            }
+            if (statementWatchdog != null) {
+                statementWatchdog.shutdown();
+            }
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * Whether we have built (or are building) as many connections as we are allowed
+     * @return true if we can't build another one
+     * @see Prototyper#getConnectionCount
+     */
+    private boolean isFull() {
+        return prototyper.getConnectionCount() >= getDefinition().getMaximumConnectionCount();
+    }
+
+    /**
+     * @return the number of connections that aren't active: the available ones plus
+     * the ones we have room to build
+     */
+    protected int getFreeConnectionCount() {
+        return getDefinition().getMaximumConnectionCount() - getActiveConnectionCount();
+    }
+
+    /**
+     * Whether taking another connection would eat into a reserve
+     * @param reserve how many connections must still be free afterwards
+     * @return true if we mustn't take one
+     * @see #getPriorityReserve
+     */
+    private boolean isReserved(int reserve) {
+        return reserve > 0 && getFreeConnectionCount() <= reserve;
+    }
+
+    /**
+     * Give back a connection we've just claimed if having it leaves fewer than
+     * the reserve free. (Somebody else might have taken one at the same time.)
+     * @param proxyConnection the connection we claimed (may be null)
+     * @param reserve how many connections must still be free
+     * @return the connection, or null if we gave it back
+     */
+    private ProxyConnectionIF checkReserve(ProxyConnectionIF proxyConnection, int reserve) {
+        if (proxyConnection != null && reserve > 0 && getFreeConnectionCount() < reserve) {
+            connectionBag.release(proxyConnection);
+            return null;
+        }
+        return proxyConnection;
+    }
+
+    /**
+     * @return the {@link ProxoolFacade#setPriorityClass priority class} of the
+     * current thread, or null if it hasn't got one
+     */
+    protected static String getPriorityClass() {
+        return (String) PRIORITY_CLASS.get();
+    }
+
+    /**
+     * @see ProxoolFacade#setPriorityClass
+     */
+    protected static void setPriorityClass(String priorityClass) {
+        if (priorityClass != null) {
+            PRIORITY_CLASS.set(priorityClass);
+        } else {
+            PRIORITY_CLASS.remove();
+        }
+    }
+
+    /**
+     * @param priorityClass the caller's priority class (may be null)
+     * @return how many connections the class must leave free
+     * @see ConnectionPoolDefinitionIF#getPriorityReserves
+     */
+    protected int getPriorityReserve(String priorityClass) {
+        Map priorityReserves = getDefinition().getPriorityReserves();
+        if (priorityClass == null || priorityReserves.isEmpty()) {
+            return 0;
+        }
+        Integer reserve = (Integer) priorityReserves.get(priorityClass);
+        return reserve != null ? reserve.intValue() : 0;
+    }
+
+    private PriorityClassCounters getPriorityClassCounters(String priorityClass) {
+        if (priorityClass == null) {
+            priorityClass = ProxoolConstants.DEFAULT_PRIORITY_CLASS;
+        }
+        PriorityClassCounters counters = (PriorityClassCounters) priorityClassCounters.get(priorityClass);
+        if (counters == null) {
+            counters = new PriorityClassCounters();
+            PriorityClassCounters existingCounters = (PriorityClassCounters) priorityClassCounters.putIfAbsent(priorityClass, counters);
+            if (existingCounters != null) {
+                counters = existingCounters;
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * How often one {@link ProxoolFacade#setPriorityClass priority class} has
+     * had to wait or been refused
+     */
+    private static class PriorityClassCounters {
+
+        private LongAdder waited = new LongAdder();
+
+        private LongAdder refused = new LongAdder();
+
+    }
+
+    /**
+     * Find a connection that is available and make it active.
+     * @return the connection we claimed, or null if there weren't any available
+     * @see ConnectionBag#claim
+     */
+    private ProxyConnectionIF claimAvailableConnection() {
+        if (!getDefinition().getConnectionSelectionStrategy().equals(connectionSelectionStrategy)) {
+            updateConnectionSelectionStrategy();
+        }
+        ProxyConnectionIF proxyConnection = connectionBag.claim();
+        while (proxyConnection != null) {
+            if (isStale(proxyConnection)) {
+                // It's almost certainly dead
+                proxyConnection.setStatus(ProxyConnectionIF.STATUS_NULL);
+                removeProxyConnection(proxyConnection, MSG_STALE, REQUEST_EXPIRY, true);
+            } else if (!getDefinition().isTestBeforeUse() || testConnection(proxyConnection)) {
+                // Okay. So we have it and it's working ok.
+                break;
+            }
+            // Oops. No it's not. Let's choose another.
+            proxyConnection = connectionBag.claim();
+        }
+        return proxyConnection;
+    }
+
+    /**
+     * Start using the {@link ConnectionPoolDefinitionIF#getConnectionSelectionStrategy strategy}
+     * that the definition asks for (if we aren't already).
+     */
+    private void updateConnectionSelectionStrategy() {
+        configurationLock.lock();
+        try {
+            String strategy = getDefinition().getConnectionSelectionStrategy();
+            if (!strategy.equals(connectionSelectionStrategy)) {
+                try {
+                    connectionBag.setSelectionStrategy(ConnectionBag.createSelectionStrategy(strategy), getProxyConnections());
+                    if (connectionSelectionStrategy != null) {
+                        log.info("Now using " + strategy + " connection selection strategy");
+                    }
+                } catch (ProxoolException e) {
+                    // The definition checks it so this shouldn't happen. Keep using the old one.
+                    log.error("Couldn't change connection selection strategy to " + strategy, e);
+                }
+                connectionSelectionStrategy = strategy;
+            }
+        } finally {
+            configurationLock.unlock();
+        }
+    }
+
+    /**
+     * Join the {@link ConnectionWaitQueue queue} of threads waiting for a connection
+     * and wait until one is handed to us, one becomes available, there is room to
+     * build a new one, or the deadline passes.
+     * @param deadline when to give up (see {@link ConnectionPoolDefinitionIF#getMaximumWaitTime})
+     * @param reserve how many connections must still be free after we take one
+     * @param priorityClass the caller's {@link #getPriorityClass priority class}
+     * @return an active connection, or null if we timed out or if there is now room
+     * to build another connection
+     * @throws SQLException if we were interrupted whilst waiting
+     */
+    private ProxyConnectionIF waitForConnection(long deadline, int reserve, String priorityClass) throws SQLException {
+        final long waitStarted = System.currentTimeMillis();
+        ProxyConnectionIF proxyConnection = null;
+        ConnectionWaitQueue.Waiter waiter = connectionWaitQueue.join(new ConnectionWaitQueue.Waiter(reserve));
+        try {
+            while (true) {
+                // Check again now that we are in the queue. Anything that happens
+                // from now on will wake us up.
+                waiter.beforeCheck();
+                proxyConnection = checkReserve(claimAvailableConnection(), reserve);
+                if (proxyConnection != null || (!isFull() && !isReserved(reserve))) {
+                    break;
+                }
+                if (!waiter.park(deadline) || waiter.isServed() || !isConnectionPoolUp()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted whilst waiting for a connection");
+        } finally {
+            ProxyConnectionIF handedOver = connectionWaitQueue.leave(waiter);
+            if (handedOver != null) {
+                if (proxyConnection == null) {
+                    proxyConnection = handedOver;
+                    proxyConnection.setTimeLastStartActive(System.currentTimeMillis());
+                } else {
+                    // We've ended up with two. Give one back.
+                    connectionBag.release(handedOver);
+                }
+            }
+            connectionWaited(System.currentTimeMillis() - waitStarted, priorityClass);
+        }
+
+        if (log.isDebugEnabled() && getDefinition().isVerbose()) {
+            log.debug(displayStatistics() + " - waited " + (System.currentTimeMillis() - waitStarted)
+                    + " milliseconds " + (proxyConnection != null ? "for connection #" + proxyConnection.getId() : "in vain"));
+        }
+        return proxyConnection;
+    }
+
+    /**
+     * Ask for a new connection to be built on one of the pool's own threads and
+     * wait in the {@link ConnectionWaitQueue queue} whilst it is. We take whatever
+     * turns up first: if somebody returns a connection before the new one is ready
+     * then we have that, and the new one goes to the next in line (or becomes available).
+     * And the new one might go to somebody that has been waiting longer than us, in
+     * which case we ask for another (if there's still room).
+     * @param reserve how many connections must still be free after we take one
+     * @param deadline when to give up (see {@link ConnectionPoolDefinitionIF#getMaximumWaitTime}),
+     * or Long.MAX_VALUE to wait as long as it takes to build a connection
+     * @return an active connection, or null if we are now full and have to
+     * {@link #waitForConnection wait} like everyone else
+     * @throws SQLException if the connection we asked for couldn't be built, we
+     * were interrupted whilst waiting, the deadline passed or the pool has been shutdown
+     */
+    private ProxyConnectionIF waitForNewConnection(int reserve, long deadline) throws SQLException {
+        ProxyConnectionIF proxyConnection = null;
+        SQLException failure = null;
+        ConnectionWaitQueue.Waiter waiter = connectionWaitQueue.join(new ConnectionWaitQueue.Waiter(reserve));
+        try {
+            OnDemandBuild build = null;
+            while (true) {
+                // Check again now that we are in the queue. Anything that happens
+                // from now on will wake us up.
+                waiter.beforeCheck();
+                proxyConnection = checkReserve(claimAvailableConnection(), reserve);
+                if (proxyConnection != null || waiter.isServed()) {
+                    break;
+                }
+                if (build == null || build.isDone()) {
+                    if (build != null && build.getFailure() != null) {
+                        failure = build.getFailure();
+                        break;
+                    }
+                    if (!isConnectionPoolUp()) {
+                        // Nothing more will be built, so don't let our caller ask again
+                        failure = createShutdownException();
+                        break;
+                    }
+                    if (isReserved(reserve)) {
+                        break;
+                    }
+                    try {
+                        build = new OnDemandBuild(waiter, prototyper.reserveConnection());
+                    } catch (ProxoolException e) {
+                        // Somebody else took the last place
+                        break;
+                    }
+                    build.start();
+                    continue;
+                }
+                // Don't rely on being woken: the connection might have gone to somebody
+                // else, so look again every so often
+                long now = System.currentTimeMillis();
+                if (now >= deadline) {
+                    failure = new SQLException("Timed out waiting for a new connection to be built");
+                    break;
+                }
+                waiter.park(Math.min(deadline, now + NEW_CONNECTION_RECHECK_INTERVAL));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted whilst waiting for a connection");
+        } finally {
+            ProxyConnectionIF handedOver = connectionWaitQueue.leave(waiter);
+            if (handedOver != null) {
+                if (proxyConnection == null) {
+                    proxyConnection = handedOver;
+                    proxyConnection.setTimeLastStartActive(System.currentTimeMillis());
+                } else {
+                    // We've ended up with two. Give one back.
+                    connectionBag.release(handedOver);
+                }
+            }
+        }
+        if (proxyConnection == null && failure != null) {
+            throw failure;
+        }
+        return proxyConnection;
+    }
+
+    /**
+     * Builds a connection on demand, on one of the pool's {@link #getBuildExecutor own threads},
+     * and gives it to whoever needs it most.
+     * @see #waitForNewConnection
+     */
+    private class OnDemandBuild implements Runnable {
+
+        private ConnectionWaitQueue.Waiter requester;
+
+        private long id;
+
+        private volatile boolean done;
+
+        private volatile SQLException failure;
+
+        /**
+         * @param requester who to wake when we're done (whether they get this connection or not)
+         * @param id from {@link Prototyper#reserveConnection}
+         */
+        OnDemandBuild(ConnectionWaitQueue.Waiter requester, long id) {
+            this.requester = requester;
+            this.id = id;
+        }
+
+        void start() {
+            try {
+                getBuildExecutor().execute(this);
+            } catch (RejectedExecutionException e) {
+                // The pool is being shutdown. We've reserved room so do it ourselves.
+                run();
+            }
+        }
+
+        public void run() {
+            try {
+                ProxyConnectionIF proxyConnection = prototyper.buildConnection(id, ProxyConnection.STATUS_ACTIVE, "on demand");
+                // Okay. So we have it. But is it working ok?
+                if (getDefinition().isTestBeforeUse() && !testConnection(proxyConnection)) {
+                    // Oops. No it's not. There's not much more we can do for now
+                    throw new SQLException("Created a new connection but it failed its test");
+                }
+                // Give it to the longest waiter, or make it available if nobody is
+                connectionBag.release(proxyConnection);
+            } catch (SQLException e) {
+                failure = e;
+            } catch (ProxoolException e) {
+                log.debug("Couldn't get connection", e);
+                failure = new SQLException(e.toString());
+            } catch (Throwable e) {
+                log.error("Couldn't get connection", e);
+                failure = new SQLException(e.toString());
+            } finally {
+                done = true;
+                connectionWaitQueue.wake(requester);
+            }
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        SQLException getFailure() {
+            return failure;
+        }
+    }
+
     private boolean testConnection(ProxyConnectionIF proxyConnection) {
         boolean success = false;
         final String testSql = getDefinition().getHouseKeepingTestSql();
@@ -305,11 +1170,24 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
     protected void addProxyConnection(ProxyConnectionIF proxyConnection) {
         try {
             acquireConnectionStatusWriteLock();
+            // Count it before anyone else can see it (and change its status)
+            connectionCountByState[proxyConnection.getStatus()].increment();
             proxyConnections.add(proxyConnection);
-            connectionCountByState[proxyConnection.getStatus()]++;
         } finally {
             releaseConnectionStatusWriteLock();
         }
+        if (proxyConnection.isAvailable()) {
+            connectionBag.available(proxyConnection);
+        }
+    }
+
+    /**
+     * Called by the connection whenever its status changes to
+     * {@link ProxyConnectionIF#STATUS_AVAILABLE available}.
+     * @param proxyConnection the connection that is now available
+     */
+    protected void connectionAvailable(ProxyConnectionIF proxyConnection) {
+        connectionBag.available(proxyConnection);
     }
 
     protected static String getStatusDescription(int status) {
@@ -343,6 +1221,10 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
             if (proxyConnection.setStatus(ProxyConnectionIF.STATUS_ACTIVE, ProxyConnectionIF.STATUS_NULL)) {
                 expireProxyConnection(proxyConnection, proxyConnection.getReasonForMark(), REQUEST_EXPIRY);
             }
+        } else if (isStale(proxyConnection)) {
+            if (proxyConnection.setStatus(ProxyConnectionIF.STATUS_ACTIVE, ProxyConnectionIF.STATUS_NULL)) {
+                expireProxyConnection(proxyConnection, MSG_STALE, REQUEST_EXPIRY);
+            }
         } else {
 
             // Optionally, test it to see if it is ok
@@ -351,8 +1233,9 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
                 testConnection(proxyConnection);
             }
 
-            // Let's make it available for someone else
-            if (!proxyConnection.setStatus(ProxyConnectionIF.STATUS_ACTIVE, ProxyConnectionIF.STATUS_AVAILABLE)) {
+            // Let's make it available for someone else (or give it
+            // straight to whoever has been waiting longest)
+            if (!connectionBag.release(proxyConnection)) {
                 log.warn("Unable to set status of connection " + proxyConnection.getId()
                         + " from " + getStatusDescription(ProxyConnectionIF.STATUS_ACTIVE)
                         + "to " + getStatusDescription(ProxyConnectionIF.STATUS_AVAILABLE)
@@ -367,6 +1250,50 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
 
     }
 
+    /**
+     * The pool's epoch. It starts at zero and moves on each time the database
+     * {@link ConnectionPoolDefinitionIF#getFailoverSqlStates fails over}. Every connection
+     * remembers the epoch it was made in, and those from earlier epochs are thrown away
+     * when they're next served or returned (or by the house keeper, if they're idle).
+     * @return the current epoch
+     * @see ProxyConnectionIF#getEpoch
+     */
+    protected long getEpoch() {
+        return epoch.get();
+    }
+
+    /**
+     * @param proxyConnection the connection to check
+     * @return true if it was made before the database last failed over
+     * @see #getEpoch
+     */
+    protected boolean isStale(ProxyConnectionIF proxyConnection) {
+        return proxyConnection.getEpoch() != epoch.get();
+    }
+
+    /**
+     * A fatal exception has been thrown by a connection. If it means that the database has
+     * {@link ConnectionPoolDefinitionIF#getFailoverSqlStates failed over} then we start a new
+     * {@link #getEpoch epoch} (unless we already have since the connection was made, which
+     * is what happens when lots of connections fail at once). That way all the connections
+     * are thrown away at the cost of one failed request, rather than one each.
+     * @param proxyConnection the connection that threw the exception
+     * @param t the exception
+     * @return true if the connection was made before a failover, so there's no
+     * point testing the others
+     */
+    protected boolean failover(ProxyConnectionIF proxyConnection, Throwable t) {
+        if (!getDefinition().getFatalSqlExceptionClassifier().isFailover(t)) {
+            return false;
+        }
+        long connectionEpoch = proxyConnection.getEpoch();
+        if (epoch.compareAndSet(connectionEpoch, connectionEpoch + 1)) {
+            log.warn("The database seems to have failed over (" + t.getMessage() + "). Every connection made before now"
+                    + " will be thrown away when it's next used.");
+        }
+        return true;
+    }
+
     /** This means that there's something wrong the connection and it's probably best if no one uses it again. */
     protected void throwConnection(ProxyConnectionIF proxyConnection, String reason) {
         expireConnectionAsSoonAsPossible(proxyConnection, reason, true);
@@ -415,14 +1342,16 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
                 log.error(e);
             }
 
+            // If we're shutting down then getting a write lock will cause a deadlock
+            final boolean statusLocked = isConnectionPoolUp();
             try {
-                // If we're shutting down then getting a write lock will cause a deadlock
-                if (isConnectionPoolUp()) {
+                if (statusLocked) {
                     acquireConnectionStatusWriteLock();
                 }
                 proxyConnections.remove(proxyConnection);
+                connectionBag.remove(proxyConnection);
             } finally {
-                if (isConnectionPoolUp()) {
+                if (statusLocked) {
                     releaseConnectionStatusWriteLock();
                 }
             }
@@ -462,8 +1391,8 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
             if (connectionPoolUp == true) {
 
                 connectionPoolUp = false;
+                connectionWaitQueue.wakeAll();
                 long startFinalize = System.currentTimeMillis();
-                shutdownThread = Thread.currentThread();
 
                 if (delay > 0) {
                     log.info("Shutting down '" + alias + "' pool started at "
@@ -492,22 +1421,25 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
 
                     /* Patience, patience. */
 
-                    if (connectionCountByState[ProxyConnectionIF.STATUS_ACTIVE] != 0) {
+                    if (getActiveConnectionCount() != 0) {
                         long endWait = startFinalize + delay;
                         LOG.info("Waiting until " + new Date(endWait) + " for all connections to become inactive (active count is "
-                                + connectionCountByState[ProxyConnectionIF.STATUS_ACTIVE] + ").");
+                                + getActiveConnectionCount() + ").");
                         while (true) {
                             long timeout = endWait - System.currentTimeMillis();
                             if (timeout > 0) {
-                                synchronized (Thread.currentThread()) {
-                                    try {
-                                        Thread.currentThread().wait(timeout);
-                                    } catch (InterruptedException e) {
-                                        log.debug("Interrupted whilst sleeping.");
+                                shutdownLock.lock();
+                                try {
+                                    if (getActiveConnectionCount() != 0) {
+                                        noActiveConnections.await(timeout, TimeUnit.MILLISECONDS);
                                     }
+                                } catch (InterruptedException e) {
+                                    log.debug("Interrupted whilst sleeping.");
+                                } finally {
+                                    shutdownLock.unlock();
                                 }
                             }
-                            int activeCount = connectionCountByState[ProxyConnectionIF.STATUS_ACTIVE];
+                            int activeCount = getActiveConnectionCount();
                             if (activeCount == 0) {
                                 break;
                             }
@@ -554,6 +1486,8 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
                     log.error("Unknown problem finalizing pool", t);
                 } finally {
 
+                    shutdownAsync();
+
                     ConnectionPoolManager.getInstance().removeConnectionPool(alias);
 
                     if (log.isDebugEnabled()) {
@@ -578,33 +1512,30 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
     }
 
     /**
-     * You should {@link #acquireConnectionStatusReadLock acquire}
-     * a read lock if you want this to be accurate (but that might have
-     * an impact on the performance of your pool).
+     * This is a sum of {@link #changeStatus striped} counts so whilst connections
+     * are changing status it is only approximate.
      * @see ConnectionPoolStatisticsIF#getAvailableConnectionCount
      */
     public int getAvailableConnectionCount() {
-        return connectionCountByState[ProxyConnection.STATUS_AVAILABLE];
+        return connectionCountByState[ProxyConnection.STATUS_AVAILABLE].intValue();
     }
 
     /**
-     * You should {@link #acquireConnectionStatusReadLock acquire}
-     * a read lock if you want this to be accurate (but that might have
-     * an impact on the performance of your pool).
+     * This is a sum of {@link #changeStatus striped} counts so whilst connections
+     * are changing status it is only approximate.
      * @see ConnectionPoolStatisticsIF#getActiveConnectionCount
      */
     public int getActiveConnectionCount() {
-        return connectionCountByState[ProxyConnection.STATUS_ACTIVE];
+        return connectionCountByState[ProxyConnection.STATUS_ACTIVE].intValue();
     }
 
     /**
-     * You should {@link #acquireConnectionStatusReadLock acquire}
-     * a read lock if you want this to be accurate (but that might have
-     * an impact on the performance of your pool).
+     * This is a sum of {@link #changeStatus striped} counts so whilst connections
+     * are changing status it is only approximate.
      * @see ConnectionPoolStatisticsIF#getOfflineConnectionCount
      */
     public int getOfflineConnectionCount() {
-        return connectionCountByState[ProxyConnection.STATUS_OFFLINE];
+        return connectionCountByState[ProxyConnection.STATUS_OFFLINE].intValue();
     }
 
     protected String displayStatistics() {
@@ -688,32 +1619,64 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
     }
 
     protected void registerRemovedConnection(int status) {
-        connectionCount--;
         PrototyperController.connectionRemoved(getDefinition().getAlias());
-        connectionCountByState[status]--;
+        connectionCountByState[status].decrement();
+        // There's room to build another one now
+        if (!connectionWaitQueue.isEmpty()) {
+            connectionWaitQueue.wakeOldest();
+        }
     }
 
     /**
-     * You should {@link #acquireConnectionStatusWriteLock acquire} a write lock
-     * before calling this method
+     * Called by the connection once it has changed its status. No locks are
+     * needed - the connection has already made the change atomically and the
+     * counts are striped.
      * @param oldStatus so we know which count to decrement
      * @param newStatus so we know which count to increment
      */
     protected void changeStatus(int oldStatus, int newStatus) {
         // LOG.debug("About to change status");
-        connectionCountByState[oldStatus]--;
-        connectionCountByState[newStatus]++;
+        connectionCountByState[oldStatus].decrement();
+        connectionCountByState[newStatus].increment();
         // LOG.debug("Changing status from " + oldStatus + " to " + newStatus);
         // Check to see if shutdown is waiting for all connections to become
         // non-active
-        if (shutdownThread != null && connectionCountByState[ProxyConnectionIF.STATUS_ACTIVE] == 0) {
-            synchronized (shutdownThread) {
-                shutdownThread.notify();
+        if (!connectionPoolUp && oldStatus == ProxyConnectionIF.STATUS_ACTIVE && getActiveConnectionCount() == 0) {
+            shutdownLock.lock();
+            try {
+                noActiveConnections.signalAll();
+            } finally {
+                shutdownLock.unlock();
             }
         }
 
     }
 
+    /**
+     * @see ConnectionPoolStatisticsIF#getPriorityClasses
+     */
+    public String[] getPriorityClasses() {
+        Set priorityClasses = new TreeSet(priorityClassCounters.keySet());
+        priorityClasses.addAll(getDefinition().getPriorityReserves().keySet());
+        return (String[]) priorityClasses.toArray(new String[priorityClasses.size()]);
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getConnectionsWaitedCount(String)
+     */
+    public long getConnectionsWaitedCount(String priorityClass) {
+        PriorityClassCounters counters = (PriorityClassCounters) priorityClassCounters.get(priorityClass);
+        return counters != null ? counters.waited.sum() : 0;
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getConnectionsRefusedCount(String)
+     */
+    public long getConnectionsRefusedCount(String priorityClass) {
+        PriorityClassCounters counters = (PriorityClassCounters) priorityClassCounters.get(priorityClass);
+        return counters != null ? counters.refused.sum() : 0;
+    }
+
     public long getConnectionsServedCount() {
         return connectionsServedCount;
     }
@@ -722,6 +1685,48 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
         return connectionsRefusedCount;
     }
 
+    /**
+     * @see ConnectionPoolStatisticsIF#getConnectionsWaitedCount
+     */
+    public long getConnectionsWaitedCount() {
+        return connectionsWaitedCount.sum();
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getWaitingCount
+     */
+    public int getWaitingCount() {
+        return connectionWaitQueue.getWaitingCount();
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getListenerEventsDroppedCount
+     */
+    public long getListenerEventsDroppedCount() {
+        return listenerEventsDroppedCount.sum();
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getStatementCacheHitCount
+     */
+    public long getStatementCacheHitCount() {
+        return statementCacheHitCount.sum();
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getStatementCacheMissCount
+     */
+    public long getStatementCacheMissCount() {
+        return statementCacheMissCount.sum();
+    }
+
+    /**
+     * @see ConnectionPoolStatisticsIF#getStatementCacheEvictionCount
+     */
+    public long getStatementCacheEvictionCount() {
+        return statementCacheEvictionCount.sum();
+    }
+
     protected ConnectionPoolDefinition getDefinition() {
         return definition;
     }
@@ -785,9 +1790,15 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
         this.compositeConnectionListener.onDeath(connection);
     }
 
-    /** Call the onExecute() method on each StateListenerIF . */
+    /**
+     * Call the onExecute() (or onFail()) method on each ConnectionListenerIF, either now
+     * or in the {@link #getConnectionEventBuffer background}.
+     */
     protected void onExecute(String command, long elapsedTime, Exception exception) throws SQLException {
-        if (exception == null) {
+        ConnectionEventBuffer connectionEventBuffer = getConnectionEventBuffer();
+        if (connectionEventBuffer != null) {
+            connectionEventBuffer.publish(command, elapsedTime, exception);
+        } else if (exception == null) {
             this.compositeConnectionListener.onExecute(command, elapsedTime);
         } else {
             this.compositeConnectionListener.onFail(command, exception);
@@ -849,34 +1860,24 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
      */
     public boolean expireConnection(long id, boolean forceExpiry) {
         boolean success = false;
-        ProxyConnection proxyConnection = null;
-
-        // We need to look at all the connections, but we don't want to keep looping round forever
-        for (int connectionsTried = 0; connectionsTried < proxyConnections.size(); connectionsTried++) {
-            // By doing this in a try/catch we avoid needing to synch on the size().  We need to do be
-            // able to cope with connections being removed whilst we are going round this loop
-            try {
-                proxyConnection = (ProxyConnection) proxyConnections.get(nextAvailableConnection);
-            } catch (ArrayIndexOutOfBoundsException e) {
-                nextAvailableConnection = 0;
-                proxyConnection = (ProxyConnection) proxyConnections.get(nextAvailableConnection);
-            }
+        ProxyConnectionIF proxyConnection = null;
 
-            if (proxyConnection.getId() == id) {
+        ProxyConnectionIF[] proxyConnections = getProxyConnections();
+        for (int i = 0; i < proxyConnections.length; i++) {
+            if (proxyConnections[i].getId() == id) {
                 // This is the one
+                proxyConnection = proxyConnections[i];
                 proxyConnection.setStatus(ProxyConnectionIF.STATUS_AVAILABLE, ProxyConnectionIF.STATUS_OFFLINE);
                 proxyConnection.setStatus(ProxyConnectionIF.STATUS_OFFLINE, ProxyConnectionIF.STATUS_NULL);
                 removeProxyConnection(proxyConnection, "it was manually killed", forceExpiry, true);
                 success = true;
                 break;
             }
-
-            nextAvailableConnection++;
         }
 
         if (!success) {
             if (log.isDebugEnabled()) {
-                log.debug(displayStatistics() + " - couldn't find " + FormatHelper.formatMediumNumber(proxyConnection.getId())
+                log.debug(displayStatistics() + " - couldn't find " + FormatHelper.formatMediumNumber(id)
                         + " and I've just been asked to expire it");
             }
         }
@@ -896,13 +1897,45 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
         connectionResetter.initialise(connection);
     }
 
+    /**
+     * {@link ConnectionResetter#seed Seeds} a new connection's session state
+     * with the default values.
+     * @param sessionState the new connection's session state
+     */
+    protected void seedSessionState(SessionState sessionState) {
+        connectionResetter.seed(sessionState);
+    }
+
     /**
      * {@link ConnectionResetter#reset Resets} a Connection to its
      * original state.
      * @param connection the one to reset
+     * @param id used in log messages
+     * @param changedProperties the ones to reset
+     * @param sessionState what we know about the connection's session
      */
-    protected boolean resetConnection(Connection connection, String id) {
-        return connectionResetter.reset(connection, id);
+    protected boolean resetConnection(Connection connection, String id, int changedProperties, SessionState sessionState) {
+        return connectionResetter.reset(connection, id, changedProperties, sessionState);
+    }
+
+    /**
+     * Whether we leave it to {@link ConnectionResetter#endRequest endRequest} to reset connections
+     * @return true if the definition {@link ConnectionPoolDefinitionIF#isResetByDriver says so}
+     * and the driver {@link ConnectionResetter#isRequestBoundariesSupported supports it}
+     */
+    protected boolean isResetByDriver() {
+        return getDefinition().isResetByDriver() && connectionResetter.isRequestBoundariesSupported();
+    }
+
+    /**
+     * {@link ConnectionResetter#endRequest Ends the request} that began when the
+     * connection was given out.
+     * @param connection the one that has been given back
+     * @param id used in log messages
+     * @return true if it was error free
+     */
+    protected boolean endRequest(Connection connection, String id) {
+        return connectionResetter.endRequest(connection, id);
     }
 
     /**
@@ -945,7 +1978,7 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
 //            }
 //            // log.debug("About to acquire primary read lock");
 //        }
-        primaryReadWriteLock.readLock().acquire();
+        primaryReadWriteLock.readLock().lockInterruptibly();
 //        if (log.isDebugEnabled()) {
 //            try {
 //                throw new RuntimeException("TRACE ONLY");
@@ -966,7 +1999,7 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
 //            log.debug("Released primary read lock", e);
 //        }
         //log.debug("Released primary read lock");
-        primaryReadWriteLock.readLock().release();
+        primaryReadWriteLock.readLock().unlock();
     }
 
     /**
@@ -986,7 +2019,7 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
 //                }
 //                //log.debug("About to acquire primary write lock");
 //            }
-            primaryReadWriteLock.writeLock().acquire();
+            primaryReadWriteLock.writeLock().lockInterruptibly();
             success = true;
 //            if (log.isDebugEnabled()) {
 //                try {
@@ -1012,7 +2045,7 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
      * @see #acquirePrimaryReadLock
      */
     protected void releasePrimaryWriteLock() {
-        primaryReadWriteLock.writeLock().release();
+        primaryReadWriteLock.writeLock().unlock();
 //        try {
 //            throw new RuntimeException("TRACE ONLY");
 //        } catch (RuntimeException e) {
@@ -1023,8 +2056,8 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
 
     /**
      * Is the pool up?
-     * @return false is the connection pool has been {@link #shutdown shutdown}
-     * (or is in the process of being shutdown).
+     * @return false if the connection pool hasn't {@link #start started} yet or has been
+     * {@link #shutdown shutdown} (or is in the process of being shutdown).
      */
     protected boolean isConnectionPoolUp() {
         return connectionPoolUp;
@@ -1043,25 +2076,21 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
     }
 
     protected void acquireConnectionStatusWriteLock() {
-        try {
-//            try {
-//                throw new RuntimeException("TRACE ONLY");
-//            } catch (RuntimeException e) {
-//                LOG.debug("About to acquire connectionStatus write lock", e);
-//            }
-            connectionStatusReadWriteLock.writeLock().acquire();
-//            try {
-//                throw new RuntimeException("TRACE ONLY");
-//            } catch (RuntimeException e) {
-//                LOG.debug("Acquired connectionStatus write lock", e);
-//            }
-        } catch (InterruptedException e) {
-            log.error("Couldn't acquire connectionStatus write lock", e);
-        }
+//        try {
+//            throw new RuntimeException("TRACE ONLY");
+//        } catch (RuntimeException e) {
+//            LOG.debug("About to acquire connectionStatus write lock", e);
+//        }
+        connectionStatusReadWriteLock.writeLock().lock();
+//        try {
+//            throw new RuntimeException("TRACE ONLY");
+//        } catch (RuntimeException e) {
+//            LOG.debug("Acquired connectionStatus write lock", e);
+//        }
     }
 
     protected void releaseConnectionStatusWriteLock() {
-        connectionStatusReadWriteLock.writeLock().release();
+        connectionStatusReadWriteLock.writeLock().unlock();
 //        try {
 //            throw new RuntimeException("TRACE ONLY");
 //        } catch (RuntimeException e) {
@@ -1070,17 +2099,13 @@ class ConnectionPool implements ConnectionPoolStatisticsIF {
     }
 
     protected void acquireConnectionStatusReadLock() {
-        try {
-//            LOG.debug("About to acquire connectionStatus read lock");
-            connectionStatusReadWriteLock.readLock().acquire();
-//            LOG.debug("Acquired connectionStatus read lock");
-        } catch (InterruptedException e) {
-            log.error("Couldn't acquire connectionStatus read lock", e);
-        }
+//        LOG.debug("About to acquire connectionStatus read lock");
+        connectionStatusReadWriteLock.readLock().lock();
+//        LOG.debug("Acquired connectionStatus read lock");
     }
 
     protected void releaseConnectionStatusReadLock() {
-        connectionStatusReadWriteLock.readLock().release();
+        connectionStatusReadWriteLock.readLock().unlock();
 //        LOG.debug("Released connectionStatus read lock");
     }
 
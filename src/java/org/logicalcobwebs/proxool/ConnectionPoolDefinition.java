@@ -11,8 +11,13 @@ import org.logicalcobwebs.logging.LogFactory;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
@@ -78,6 +83,15 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
 
     private int maximumConnectionCount;
 
+    private int maximumWaitTime;
+
+    private String connectionSelectionStrategy;
+
+    /** Replaced (never changed) whenever it is set, so the pool can read it without locking */
+    private Map priorityReserves = Collections.EMPTY_MAP;
+
+    private String priorityReservesAsString;
+
     private int houseKeepingSleepTime;
 
     private int simultaneousBuildThrottle;
@@ -88,6 +102,29 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
 
     private int maximumActiveTime;
 
+    private int statementCacheSize;
+
+    private String connectionInitSql;
+
+    /** Replaced (never changed) whenever it is set, so the prototyper can read it without locking */
+    private List warmupStatements = Collections.EMPTY_LIST;
+
+    private String warmupStatementsAsString;
+
+    private int asyncListenerBufferSize;
+
+    private String asyncListenerOverflow;
+
+    private int sqlProfileSize;
+
+    private int slowQueryThreshold;
+
+    private int defaultQueryTimeout;
+
+    private boolean lazyTransactionBegin;
+
+    private boolean resetByDriver;
+
     private boolean verbose;
 
     private boolean trace;
@@ -104,6 +141,35 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
      */
     private String fatalSqlExceptionsAsString;
 
+    private Set fatalSqlStates = new HashSet();
+
+    /**
+     * A String of all the fatalSqlStates delimited by
+     * {@link ConnectionPoolDefinitionIF#FATAL_SQL_EXCEPTIONS_DELIMITER}
+     */
+    private String fatalSqlStatesAsString;
+
+    private Set fatalSqlExceptionTypes = new HashSet();
+
+    /**
+     * A String of all the fatalSqlExceptionTypes delimited by
+     * {@link ConnectionPoolDefinitionIF#FATAL_SQL_EXCEPTIONS_DELIMITER}
+     */
+    private String fatalSqlExceptionTypesAsString;
+
+    private Set failoverSqlStates = new HashSet();
+
+    /**
+     * A String of all the failoverSqlStates delimited by
+     * {@link ConnectionPoolDefinitionIF#FATAL_SQL_EXCEPTIONS_DELIMITER}
+     */
+    private String failoverSqlStatesAsString;
+
+    /**
+     * @see #getFatalSqlExceptionClassifier
+     */
+    private volatile FatalSqlExceptionClassifier fatalSqlExceptionClassifier;
+
     private String fatalSqlExceptionWrapper = null;
 
     private String houseKeepingTestSql;
@@ -296,6 +362,27 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
                     setMaximumConnectionCount(getInt(key, value));
                 }
             }
+        } else if (key.equals(ProxoolConstants.MAXIMUM_WAIT_TIME_PROPERTY)) {
+            if (getMaximumWaitTime() != getInt(key, value)) {
+                changed = true;
+                if (!pretend) {
+                    setMaximumWaitTime(getInt(key, value));
+                }
+            }
+        } else if (key.equals(ProxoolConstants.CONNECTION_SELECTION_STRATEGY_PROPERTY)) {
+            if (isChanged(getConnectionSelectionStrategy(), value)) {
+                changed = true;
+                if (!pretend) {
+                    setConnectionSelectionStrategy(value.length() > 0 ? value : DEFAULT_CONNECTION_SELECTION_STRATEGY);
+                }
+            }
+        } else if (key.equals(ProxoolConstants.PRIORITY_RESERVES_PROPERTY)) {
+            if (isChanged(priorityReservesAsString, value)) {
+                changed = true;
+                if (!pretend) {
+                    setPriorityReservesAsString(value.length() > 0 ? value : null);
+                }
+            }
         } else if (key.equals(ProxoolConstants.MAXIMUM_CONNECTION_LIFETIME_PROPERTY)) {
             if (getMaximumConnectionLifetime() != getInt(key, value)) {
                 changed = true;
@@ -351,6 +438,78 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
                     setMaximumActiveTime(getInt(key, value));
                 }
             }
+        } else if (key.equals(ProxoolConstants.STATEMENT_CACHE_SIZE_PROPERTY)) {
+            if (getStatementCacheSize() != getInt(key, value)) {
+                changed = true;
+                if (!pretend) {
+                    setStatementCacheSize(getInt(key, value));
+                }
+            }
+        } else if (key.equals(ProxoolConstants.CONNECTION_INIT_SQL_PROPERTY)) {
+            if (isChanged(getConnectionInitSql(), value)) {
+                changed = true;
+                if (!pretend) {
+                    setConnectionInitSql(value.length() > 0 ? value : null);
+                }
+            }
+        } else if (key.equals(ProxoolConstants.WARMUP_STATEMENTS_PROPERTY)) {
+            if (isChanged(warmupStatementsAsString, value)) {
+                changed = true;
+                if (!pretend) {
+                    setWarmupStatementsAsString(value.length() > 0 ? value : null);
+                }
+            }
+        } else if (key.equals(ProxoolConstants.ASYNC_LISTENER_BUFFER_SIZE_PROPERTY)) {
+            if (getAsyncListenerBufferSize() != getInt(key, value)) {
+                changed = true;
+                if (!pretend) {
+                    setAsyncListenerBufferSize(getInt(key, value));
+                }
+            }
+        } else if (key.equals(ProxoolConstants.ASYNC_LISTENER_OVERFLOW_PROPERTY)) {
+            if (isChanged(getAsyncListenerOverflow(), value)) {
+                changed = true;
+                if (!pretend) {
+                    setAsyncListenerOverflow(value.length() > 0 ? value : DEFAULT_ASYNC_LISTENER_OVERFLOW);
+                }
+            }
+        } else if (key.equals(ProxoolConstants.SQL_PROFILE_SIZE_PROPERTY)) {
+            if (getSqlProfileSize() != getInt(key, value)) {
+                changed = true;
+                if (!pretend) {
+                    setSqlProfileSize(getInt(key, value));
+                }
+            }
+        } else if (key.equals(ProxoolConstants.SLOW_QUERY_THRESHOLD_PROPERTY)) {
+            if (getSlowQueryThreshold() != getInt(key, value)) {
+                changed = true;
+                if (!pretend) {
+                    setSlowQueryThreshold(getInt(key, value));
+                }
+            }
+        } else if (key.equals(ProxoolConstants.DEFAULT_QUERY_TIMEOUT_PROPERTY)) {
+            if (getDefaultQueryTimeout() != getInt(key, value)) {
+                changed = true;
+                if (!pretend) {
+                    setDefaultQueryTimeout(getInt(key, value));
+                }
+            }
+        } else if (key.equals(ProxoolConstants.LAZY_TRANSACTION_BEGIN_PROPERTY)) {
+            final boolean valueAsBoolean = Boolean.valueOf(value).booleanValue();
+            if (isLazyTransactionBegin() != valueAsBoolean) {
+                changed = true;
+                if (!pretend) {
+                    setLazyTransactionBegin(valueAsBoolean);
+                }
+            }
+        } else if (key.equals(ProxoolConstants.RESET_BY_DRIVER_PROPERTY)) {
+            final boolean valueAsBoolean = Boolean.valueOf(value).booleanValue();
+            if (isResetByDriver() != valueAsBoolean) {
+                changed = true;
+                if (!pretend) {
+                    setResetByDriver(valueAsBoolean);
+                }
+            }
         } else if (key.equals(ProxoolConstants.FATAL_SQL_EXCEPTION_PROPERTY)) {
             if (isChanged(fatalSqlExceptionsAsString, value)) {
                 changed = true;
@@ -358,6 +517,27 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
                     setFatalSqlExceptionsAsString(value.length() > 0 ? value : null);
                 }
             }
+        } else if (key.equals(ProxoolConstants.FATAL_SQL_STATE_PROPERTY)) {
+            if (isChanged(fatalSqlStatesAsString, value)) {
+                changed = true;
+                if (!pretend) {
+                    setFatalSqlStatesAsString(value.length() > 0 ? value : null);
+                }
+            }
+        } else if (key.equals(ProxoolConstants.FATAL_SQL_EXCEPTION_TYPE_PROPERTY)) {
+            if (isChanged(fatalSqlExceptionTypesAsString, value)) {
+                changed = true;
+                if (!pretend) {
+                    setFatalSqlExceptionTypesAsString(value.length() > 0 ? value : null);
+                }
+            }
+        } else if (key.equals(ProxoolConstants.FAILOVER_SQL_STATE_PROPERTY)) {
+            if (isChanged(failoverSqlStatesAsString, value)) {
+                changed = true;
+                if (!pretend) {
+                    setFailoverSqlStatesAsString(value.length() > 0 ? value : null);
+                }
+            }
         } else if (key.equals(ProxoolConstants.FATAL_SQL_EXCEPTION_WRAPPER_CLASS_PROPERTY)) {
             if (isChanged(fatalSqlExceptionWrapper, value)) {
                 changed = true;
@@ -572,6 +752,10 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
         prototypeCount = DEFAULT_PROTOTYPE_COUNT;
         minimumConnectionCount = DEFAULT_MINIMUM_CONNECTION_COUNT;
         maximumConnectionCount = DEFAULT_MAXIMUM_CONNECTION_COUNT;
+        maximumWaitTime = DEFAULT_MAXIMUM_WAIT_TIME;
+        connectionSelectionStrategy = DEFAULT_CONNECTION_SELECTION_STRATEGY;
+        priorityReserves = Collections.EMPTY_MAP;
+        priorityReservesAsString = null;
         houseKeepingSleepTime = DEFAULT_HOUSE_KEEPING_SLEEP_TIME;
         houseKeepingTestSql = null;
         testAfterUse = false;
@@ -580,11 +764,25 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
         recentlyStartedThreshold = DEFAULT_RECENTLY_STARTED_THRESHOLD;
         overloadWithoutRefusalLifetime = DEFAULT_OVERLOAD_WITHOUT_REFUSAL_THRESHOLD;
         maximumActiveTime = DEFAULT_MAXIMUM_ACTIVE_TIME;
+        statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+        connectionInitSql = null;
+        setWarmupStatementsAsString(null);
+        asyncListenerBufferSize = DEFAULT_ASYNC_LISTENER_BUFFER_SIZE;
+        asyncListenerOverflow = DEFAULT_ASYNC_LISTENER_OVERFLOW;
+        sqlProfileSize = DEFAULT_SQL_PROFILE_SIZE;
+        slowQueryThreshold = DEFAULT_SLOW_QUERY_THRESHOLD;
+        defaultQueryTimeout = DEFAULT_DEFAULT_QUERY_TIMEOUT;
+        lazyTransactionBegin = false;
+        resetByDriver = false;
         verbose = false;
         trace = false;
         statistics = null;
         statisticsLogLevel = null;
         fatalSqlExceptions.clear();
+        fatalSqlStates.clear();
+        fatalSqlExceptionTypes.clear();
+        failoverSqlStates.clear();
+        fatalSqlExceptionClassifier = null;
         fatalSqlExceptionWrapper = null;
     }
 
@@ -725,6 +923,74 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
         this.maximumConnectionCount = maximumConnectionCount;
     }
 
+    /**
+     * @see ConnectionPoolDefinitionIF#getMaximumWaitTime
+     */
+    public int getMaximumWaitTime() {
+        return maximumWaitTime;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getMaximumWaitTime
+     */
+    public void setMaximumWaitTime(int maximumWaitTime) {
+        this.maximumWaitTime = maximumWaitTime;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getConnectionSelectionStrategy
+     */
+    public String getConnectionSelectionStrategy() {
+        return connectionSelectionStrategy;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getConnectionSelectionStrategy
+     * @throws ProxoolException if it isn't a strategy we know about
+     */
+    public void setConnectionSelectionStrategy(String connectionSelectionStrategy) throws ProxoolException {
+        // Test it out. That's the best way.
+        ConnectionBag.createSelectionStrategy(connectionSelectionStrategy);
+        this.connectionSelectionStrategy = connectionSelectionStrategy;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getPriorityReserves
+     */
+    public Map getPriorityReserves() {
+        return priorityReserves;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getPriorityReserves
+     * @throws ProxoolException if it doesn't look like "batch=10, reports=5"
+     */
+    public void setPriorityReservesAsString(String priorityReservesAsString) throws ProxoolException {
+        Map priorityReserves = new HashMap();
+        if (priorityReservesAsString != null) {
+            StringTokenizer st = new StringTokenizer(priorityReservesAsString, PRIORITY_RESERVES_DELIMITER);
+            while (st.hasMoreTokens()) {
+                String token = st.nextToken().trim();
+                int equals = token.indexOf('=');
+                try {
+                    if (equals < 1) {
+                        throw new NumberFormatException();
+                    }
+                    int reserve = Integer.parseInt(token.substring(equals + 1).trim());
+                    if (reserve < 0) {
+                        throw new NumberFormatException();
+                    }
+                    priorityReserves.put(token.substring(0, equals).trim(), Integer.valueOf(reserve));
+                } catch (NumberFormatException e) {
+                    throw new ProxoolException("'" + ProxoolConstants.PRIORITY_RESERVES_PROPERTY
+                            + "' property must look like 'batch=10, reports=5'. Found '" + token + "' instead.");
+                }
+            }
+        }
+        this.priorityReserves = Collections.unmodifiableMap(priorityReserves);
+        this.priorityReservesAsString = priorityReservesAsString;
+    }
+
     /**
      * @see ConnectionPoolDefinitionIF#getHouseKeepingSleepTime
      */
@@ -876,6 +1142,171 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
         this.maximumActiveTime = maximumActiveTime;
     }
 
+    /**
+     * @see ConnectionPoolDefinitionIF#getStatementCacheSize
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getStatementCacheSize
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getConnectionInitSql
+     */
+    public String getConnectionInitSql() {
+        return connectionInitSql;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getConnectionInitSql
+     */
+    public void setConnectionInitSql(String connectionInitSql) {
+        this.connectionInitSql = connectionInitSql;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getWarmupStatements
+     */
+    public List getWarmupStatements() {
+        return warmupStatements;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getWarmupStatements
+     */
+    public String getWarmupStatementsAsString() {
+        return warmupStatementsAsString;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getWarmupStatements
+     */
+    public void setWarmupStatementsAsString(String warmupStatementsAsString) {
+        List warmupStatements = new ArrayList();
+        if (warmupStatementsAsString != null) {
+            StringTokenizer st = new StringTokenizer(warmupStatementsAsString, WARMUP_STATEMENTS_DELIMITER);
+            while (st.hasMoreTokens()) {
+                String sql = st.nextToken().trim();
+                if (sql.length() > 0) {
+                    warmupStatements.add(sql);
+                }
+            }
+        }
+        this.warmupStatements = Collections.unmodifiableList(warmupStatements);
+        this.warmupStatementsAsString = warmupStatementsAsString;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getAsyncListenerBufferSize
+     */
+    public int getAsyncListenerBufferSize() {
+        return asyncListenerBufferSize;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getAsyncListenerBufferSize
+     */
+    public void setAsyncListenerBufferSize(int asyncListenerBufferSize) {
+        this.asyncListenerBufferSize = asyncListenerBufferSize;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getAsyncListenerOverflow
+     */
+    public String getAsyncListenerOverflow() {
+        return asyncListenerOverflow;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getAsyncListenerOverflow
+     * @throws ProxoolException if it isn't "drop" or "block"
+     */
+    public void setAsyncListenerOverflow(String asyncListenerOverflow) throws ProxoolException {
+        if (!ProxoolConstants.ASYNC_LISTENER_OVERFLOW_DROP.equals(asyncListenerOverflow)
+                && !ProxoolConstants.ASYNC_LISTENER_OVERFLOW_BLOCK.equals(asyncListenerOverflow)) {
+            throw new ProxoolException("'" + ProxoolConstants.ASYNC_LISTENER_OVERFLOW_PROPERTY + "' property must be '"
+                    + ProxoolConstants.ASYNC_LISTENER_OVERFLOW_DROP + "' or '" + ProxoolConstants.ASYNC_LISTENER_OVERFLOW_BLOCK
+                    + "'. Found '" + asyncListenerOverflow + "' instead.");
+        }
+        this.asyncListenerOverflow = asyncListenerOverflow;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getSqlProfileSize
+     */
+    public int getSqlProfileSize() {
+        return sqlProfileSize;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getSqlProfileSize
+     */
+    public void setSqlProfileSize(int sqlProfileSize) {
+        this.sqlProfileSize = sqlProfileSize;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getSlowQueryThreshold
+     */
+    public int getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getSlowQueryThreshold
+     */
+    public void setSlowQueryThreshold(int slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getDefaultQueryTimeout
+     */
+    public int getDefaultQueryTimeout() {
+        return defaultQueryTimeout;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getDefaultQueryTimeout
+     */
+    public void setDefaultQueryTimeout(int defaultQueryTimeout) {
+        this.defaultQueryTimeout = defaultQueryTimeout;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#isLazyTransactionBegin
+     */
+    public boolean isLazyTransactionBegin() {
+        return lazyTransactionBegin;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#isLazyTransactionBegin
+     */
+    public void setLazyTransactionBegin(boolean lazyTransactionBegin) {
+        this.lazyTransactionBegin = lazyTransactionBegin;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#isResetByDriver
+     */
+    public boolean isResetByDriver() {
+        return resetByDriver;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#isResetByDriver
+     */
+    public void setResetByDriver(boolean resetByDriver) {
+        this.resetByDriver = resetByDriver;
+    }
+
     /**
      * @see ConnectionPoolDefinitionIF#getDebugLevel
      * @deprecated use {@link #isVerbose} instead
@@ -931,13 +1362,7 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
      */
     public void setFatalSqlExceptionsAsString(String fatalSqlExceptionsAsString) {
         this.fatalSqlExceptionsAsString = fatalSqlExceptionsAsString;
-        fatalSqlExceptions.clear();
-        if (fatalSqlExceptionsAsString != null) {
-            StringTokenizer st = new StringTokenizer(fatalSqlExceptionsAsString, FATAL_SQL_EXCEPTIONS_DELIMITER);
-            while (st.hasMoreTokens()) {
-                fatalSqlExceptions.add(st.nextToken().trim());
-            }
-        }
+        setAll(fatalSqlExceptions, fatalSqlExceptionsAsString);
     }
 
     /**
@@ -947,6 +1372,84 @@ class ConnectionPoolDefinition implements ConnectionPoolDefinitionIF {
         return fatalSqlExceptions;
     }
 
+    /**
+     * @see ConnectionPoolDefinitionIF#getFatalSqlStates
+     */
+    public void setFatalSqlStatesAsString(String fatalSqlStatesAsString) {
+        this.fatalSqlStatesAsString = fatalSqlStatesAsString;
+        setAll(fatalSqlStates, fatalSqlStatesAsString);
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getFatalSqlStates
+     */
+    public Set getFatalSqlStates() {
+        return fatalSqlStates;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getFatalSqlExceptionTypes
+     */
+    public void setFatalSqlExceptionTypesAsString(String fatalSqlExceptionTypesAsString) {
+        this.fatalSqlExceptionTypesAsString = fatalSqlExceptionTypesAsString;
+        setAll(fatalSqlExceptionTypes, fatalSqlExceptionTypesAsString);
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getFatalSqlExceptionTypes
+     */
+    public Set getFatalSqlExceptionTypes() {
+        return fatalSqlExceptionTypes;
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getFailoverSqlStates
+     */
+    public void setFailoverSqlStatesAsString(String failoverSqlStatesAsString) {
+        this.failoverSqlStatesAsString = failoverSqlStatesAsString;
+        setAll(failoverSqlStates, failoverSqlStatesAsString);
+    }
+
+    /**
+     * @see ConnectionPoolDefinitionIF#getFailoverSqlStates
+     */
+    public Set getFailoverSqlStates() {
+        return failoverSqlStates;
+    }
+
+    /**
+     * Replace the contents of one of the fatal rule sets and forget the
+     * {@link #getFatalSqlExceptionClassifier classifier} we built from them
+     * @param set the set to fill
+     * @param values the new values, delimited by {@link ConnectionPoolDefinitionIF#FATAL_SQL_EXCEPTIONS_DELIMITER}
+     */
+    private void setAll(Set set, String values) {
+        set.clear();
+        if (values != null) {
+            StringTokenizer st = new StringTokenizer(values, FATAL_SQL_EXCEPTIONS_DELIMITER);
+            while (st.hasMoreTokens()) {
+                set.add(st.nextToken().trim());
+            }
+        }
+        fatalSqlExceptionClassifier = null;
+    }
+
+    /**
+     * Decides which exceptions are fatal according to our {@link #getFatalSqlExceptions messages},
+     * {@link #getFatalSqlStates SQLStates} and {@link #getFatalSqlExceptionTypes types}, and which
+     * of those mean a {@link #getFailoverSqlStates failover}. We only build it once, rather than
+     * every time an exception is thrown.
+     * @return the classifier
+     */
+    protected FatalSqlExceptionClassifier getFatalSqlExceptionClassifier() {
+        FatalSqlExceptionClassifier classifier = fatalSqlExceptionClassifier;
+        if (classifier == null) {
+            classifier = new FatalSqlExceptionClassifier(this);
+            fatalSqlExceptionClassifier = classifier;
+        }
+        return classifier;
+    }
+
     /**
      * @see ConnectionPoolDefinitionIF#getFatalSqlExceptionWrapper
      */
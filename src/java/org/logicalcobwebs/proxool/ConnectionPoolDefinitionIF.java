@@ -5,6 +5,8 @@
  */
 package org.logicalcobwebs.proxool;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
@@ -46,6 +48,12 @@ public interface ConnectionPoolDefinitionIF {
     /** 30000 (30 Seconds) */
     public static final int DEFAULT_HOUSE_KEEPING_SLEEP_TIME = 30000;
 
+    /** 0 (refuse immediately) */
+    public static final int DEFAULT_MAXIMUM_WAIT_TIME = 0;
+
+    /** round-robin (each connection in turn, as Proxool has always done) */
+    public static final String DEFAULT_CONNECTION_SELECTION_STRATEGY = ProxoolConstants.CONNECTION_SELECTION_STRATEGY_ROUND_ROBIN;
+
     /** 10
      * @deprecated use {@link #DEFAULT_SIMULTANEOUS_BUILD_THROTTLE} instead
      */
@@ -60,6 +68,24 @@ public interface ConnectionPoolDefinitionIF {
     /** 60000 */
     public static final int DEFAULT_RECENTLY_STARTED_THRESHOLD = 60000;
 
+    /** 0 (don't cache statements) */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 0;
+
+    /** 0 (call listeners on the thread that executed the statement) */
+    public static final int DEFAULT_ASYNC_LISTENER_BUFFER_SIZE = 0;
+
+    /** drop (throw events away if the buffer is full) */
+    public static final String DEFAULT_ASYNC_LISTENER_OVERFLOW = ProxoolConstants.ASYNC_LISTENER_OVERFLOW_DROP;
+
+    /** 0 (don't profile SQL) */
+    public static final int DEFAULT_SQL_PROFILE_SIZE = 0;
+
+    /** 0 (don't look for slow queries) */
+    public static final int DEFAULT_SLOW_QUERY_THRESHOLD = 0;
+
+    /** 0 (no timeout) */
+    public static final int DEFAULT_DEFAULT_QUERY_TIMEOUT = 0;
+
     public static final int DEBUG_LEVEL_QUIET = 0;
 
     public static final int DEBUG_LEVEL_LOUD = 1;
@@ -73,6 +99,16 @@ public interface ConnectionPoolDefinitionIF {
      */
     public static final String FATAL_SQL_EXCEPTIONS_DELIMITER = ",";
 
+    /**
+     * @see #getPriorityReserves
+     */
+    public static final String PRIORITY_RESERVES_DELIMITER = ",";
+
+    /**
+     * @see #getWarmupStatements
+     */
+    public static final String WARMUP_STATEMENTS_DELIMITER = ";";
+
     /** This is the time the house keeping thread sleeps for between checks. (milliseconds) */
     int getHouseKeepingSleepTime();
 
@@ -82,6 +118,36 @@ public interface ConnectionPoolDefinitionIF {
     /** The maximum amount of time that a connection exists for before it is killed (recycled). (milliseconds) */
     int getMaximumConnectionLifetime();
 
+    /**
+     * If we are at the {@link #getMaximumConnectionCount maximum connection count} and there
+     * are none available then this is how long we will wait for somebody to return one
+     * before refusing the request. Waiting threads are served in the order they
+     * arrived. Zero means refuse immediately. (milliseconds)
+     */
+    int getMaximumWaitTime();
+
+    /**
+     * Which available connection gets served next: "lifo" (the one returned most recently,
+     * so that surplus connections are left idle), "fifo" (the one that has been idle
+     * longest), "round-robin" (each connection in turn) or the name of a class that
+     * implements {@link ConnectionSelectionStrategyIF}.
+     * Default: round-robin
+     */
+    String getConnectionSelectionStrategy();
+
+    /**
+     * How many connections each {@link ProxoolFacade#setPriorityClass priority class} must
+     * leave for everyone else. A request from a class with a reserve of 5 only gets a
+     * connection if at least 5 of the {@link #getMaximumConnectionCount maximum} would still
+     * be free afterwards. Otherwise it {@link #getMaximumWaitTime waits} or is refused, just
+     * as if the pool was full. Classes that aren't mentioned (and threads that don't have a
+     * class) have no reserve. For example: "batch=10, reports=5".
+     * Default: none
+     * @return the reserve (Integer) keyed by priority class (String). Never null.
+     * @see #PRIORITY_RESERVES_DELIMITER
+     */
+    Map getPriorityReserves();
+
     /**
      * In order to prevent overloading, this is the maximum number of connections that you can have that are in the progress
      * of being made. That is, ones we have started to make but haven't finished yet.
@@ -154,6 +220,106 @@ public interface ConnectionPoolDefinitionIF {
      than your slowest expected response! */
     int getMaximumActiveTime();
 
+    /**
+     * How many prepared statements (and callable statements) each connection keeps
+     * open for reuse. When you close a statement it goes back to its connection's cache
+     * and the next time you prepare the same SQL (with the same result set type, concurrency
+     * and holdability) on that connection you get it back without asking the database to
+     * prepare it again. If the cache is full then the statement that was used least
+     * recently is really closed. Zero means don't cache.
+     * Default: 0
+     */
+    int getStatementCacheSize();
+
+    /**
+     * SQL that is executed on each new connection before anyone gets to use it. Use
+     * it to set up the session (for instance, "SET TIME ZONE 'UTC'"). If it fails then
+     * the connection is thrown away.
+     * Default: none
+     * @return connection init SQL (or null)
+     */
+    String getConnectionInitSql();
+
+    /**
+     * Statements that are prepared on each new connection before anyone gets to use it,
+     * so that they are already in the {@link #getStatementCacheSize statement cache} when
+     * they are needed. Only makes sense if the cache is at least as big as the list.
+     * Problems preparing them are logged but otherwise ignored.
+     * Default: none
+     * @return the SQL of each statement (String). Never null.
+     * @see #WARMUP_STATEMENTS_DELIMITER
+     */
+    List getWarmupStatements();
+
+    /**
+     * If this is more than zero then {@link ConnectionListenerIF#onExecute onExecute} and
+     * {@link ConnectionListenerIF#onFail onFail} aren't called on the thread that executed
+     * the statement. Instead, the event is put in a buffer that can hold this many and a
+     * background thread passes them on to the listeners, in order. A slow listener then
+     * doesn't slow down your queries. (Births and deaths are always reported straight away.)
+     * Default: 0
+     * @see #getAsyncListenerOverflow
+     */
+    int getAsyncListenerBufferSize();
+
+    /**
+     * What happens to an event when the {@link #getAsyncListenerBufferSize async listener buffer}
+     * is full: "drop" (it's thrown away and counted, see
+     * {@link ConnectionPoolStatisticsIF#getListenerEventsDroppedCount}) or "block" (the
+     * thread that executed the statement waits until there is room).
+     * Default: drop
+     */
+    String getAsyncListenerOverflow();
+
+    /**
+     * If this is more than zero then every execution is timed and counted against its SQL
+     * template: the SQL a statement was prepared with or, for a plain statement, its SQL with the
+     * literal values replaced by question marks. This is the most templates that are kept track of;
+     * executions of any others are lumped together. See {@link ProxoolFacade#getSqlProfiles}.
+     * Default: 0 (off)
+     */
+    int getSqlProfileSize();
+
+    /**
+     * If this is more than zero then any execution that takes at least this long (milliseconds)
+     * is remembered, along with its SQL and (for a few of them each second) where it was called from.
+     * The most recent ones are available from {@link ProxoolFacade#getSlowQueries}. Parameter values
+     * are only filled in if the statement is being traced.
+     * Default: 0 (off)
+     */
+    int getSlowQueryThreshold();
+
+    /**
+     * If this is more than zero then every statement we give out has its
+     * {@link java.sql.Statement#setQueryTimeout query timeout} set to this many seconds (you can
+     * still change it). A watchdog also {@link java.sql.Statement#cancel cancels} any execution that
+     * runs for longer than its statement's query timeout, in case the driver doesn't. Only that query
+     * is cancelled: the connection can still be used.
+     * Default: 0 (no timeout, and no watchdog)
+     */
+    int getDefaultQueryTimeout();
+
+    /**
+     * If this is true then when you turn autoCommit off we don't tell the driver until
+     * you actually execute something. Frameworks often start a transaction just in case
+     * and then commit it without having done anything, so this saves three round trips
+     * (turning autoCommit off, committing and turning it back on) each time. Only
+     * statements you get from the connection count: if you execute something on the
+     * delegate connection directly then we won't know about it.
+     * Default: false
+     */
+    boolean isLazyTransactionBegin();
+
+    /**
+     * Whenever we give out a connection we call {@link java.sql.Connection#beginRequest beginRequest}
+     * and when it comes back we call {@link java.sql.Connection#endRequest endRequest}, as long as the
+     * driver implements them (JDBC 4.3). If this is true, and the driver does implement them, then we
+     * trust endRequest to put the connection back the way it was (including rolling back any transaction
+     * that's still open) and don't reset it ourselves. Only switch it on if your driver really does that.
+     * Default: false
+     */
+    boolean isResetByDriver();
+
     /**
      * @deprecated use {@link #isVerbose} instead
      */
@@ -171,6 +337,41 @@ public interface ConnectionPoolDefinitionIF {
      */
     Set getFatalSqlExceptions();
 
+    /**
+     * Get the list of SQLStates that will trigger the death of a Connection.
+     * Each one is either a complete SQLState (e.g. 08S01) or the start of one
+     * followed by an asterisk (e.g. 08* matches all the connection exceptions).
+     * Like {@link #getFatalSqlExceptions fatal SQL exceptions}, the causes of an
+     * exception are checked too.
+     * Default: none
+     * @return the list of SQLStates (String)
+     * @see #FATAL_SQL_EXCEPTIONS_DELIMITER
+     */
+    Set getFatalSqlStates();
+
+    /**
+     * Get the list of exception class names that will trigger the death of a Connection.
+     * Any exception that is an instance of one of these (or has a cause that is) is fatal.
+     * For example: java.sql.SQLRecoverableException, java.sql.SQLNonTransientConnectionException
+     * Default: none
+     * @return the list of class names (String)
+     * @see #FATAL_SQL_EXCEPTIONS_DELIMITER
+     */
+    Set getFatalSqlExceptionTypes();
+
+    /**
+     * Get the list of SQLStates that mean the database has failed over (or restarted), in
+     * the same form as {@link #getFatalSqlStates}. An exception with one of these is fatal,
+     * and it also means that every connection made before it is probably dead. Those are
+     * thrown away the next time they are served or returned, rather than one failed request
+     * at a time (and nobody has to wait whilst the house keeper tests all of them).
+     * For example: 08* (connection exceptions), 57P01 (PostgreSQL's admin shutdown)
+     * Default: none
+     * @return the list of SQLStates (String)
+     * @see #FATAL_SQL_EXCEPTIONS_DELIMITER
+     */
+    Set getFailoverSqlStates();
+
     /**
      * The test SQL that we perform to see if a connection is alright.
      * Should be fast and robust.
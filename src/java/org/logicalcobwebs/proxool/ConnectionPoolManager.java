@@ -8,14 +8,14 @@ package org.logicalcobwebs.proxool;
 import org.logicalcobwebs.logging.Log;
 import org.logicalcobwebs.logging.LogFactory;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- *
+ * Keeps track of all the pools. Looking a pool up (by alias or by url)
+ * doesn't lock anything; only adding or removing a pool does.
  * @version $Revision: 1.15 $, $Date: 2003/03/11 14:51:51 $
  * @author billhorsman
  * @author $Author: billhorsman $ (current maintainer)
@@ -23,11 +23,28 @@ import java.util.Set;
 class ConnectionPoolManager {
     private static final Object LOCK = new Object();
 
-    private Map connectionPoolMap = new HashMap();
+    /**
+     * The most urls we will remember in {@link #connectionPoolsByUrl}. Any more
+     * than that and we just work the alias out each time.
+     */
+    private static final int MAXIMUM_URL_CACHE_SIZE = 1024;
 
-    private Set connectionPools = new HashSet();
+    private Map connectionPoolMap = new ConcurrentHashMap();
 
-    private static ConnectionPoolManager connectionPoolManager = null;
+    /**
+     * The url that somebody asked for a connection with (which might be the full
+     * url or just "proxool.alias") mapped to the pool it resolves to, so that we
+     * don't have to parse the url every time.
+     */
+    private Map connectionPoolsByUrl = new ConcurrentHashMap();
+
+    /**
+     * All the pools. This array is never changed - when a pool is added or removed
+     * we build a new one.
+     */
+    private volatile ConnectionPool[] connectionPools = new ConnectionPool[0];
+
+    private static volatile ConnectionPoolManager connectionPoolManager = null;
 
     private static final Log LOG = LogFactory.getLog(ProxoolFacade.class);
 
@@ -59,6 +76,30 @@ class ConnectionPoolManager {
         return cp;
     }
 
+    /**
+     * Get the pool that this url refers to. Once we have seen a url we remember
+     * which pool it resolves to (until that pool is removed).
+     * @param url the url passed to the {@link ProxoolDriver#connect driver}
+     * @return the pool, or null if it isn't registered (yet)
+     * @throws ProxoolException if the url isn't in the right form
+     * @see ProxoolFacade#getAlias
+     */
+    protected ConnectionPool findConnectionPool(String url) throws ProxoolException {
+        ConnectionPool cp = (ConnectionPool) connectionPoolsByUrl.get(url);
+        if (cp == null) {
+            cp = (ConnectionPool) connectionPoolMap.get(ProxoolFacade.getAlias(url));
+            if (cp != null && connectionPoolsByUrl.size() < MAXIMUM_URL_CACHE_SIZE) {
+                synchronized (LOCK) {
+                    // Don't remember a pool that has just been removed
+                    if (connectionPoolMap.get(cp.getDefinition().getAlias()) == cp) {
+                        connectionPoolsByUrl.put(url, cp);
+                    }
+                }
+            }
+        }
+        return cp;
+    }
+
     /**
      * Convenient method for outputing a message explaining that a pool couldn't
      * be found and listing the ones that could be found.
@@ -84,28 +125,43 @@ class ConnectionPoolManager {
         return connectionPoolMap.containsKey(alias);
     }
 
-    /** @return an array of the connection pools */
+    /**
+     * @return an array of the connection pools. It's shared, so please don't change it.
+     */
     protected ConnectionPool[] getConnectionPools() {
-        return (ConnectionPool[]) connectionPools.toArray(new ConnectionPool[connectionPools.size()]);
+        return connectionPools;
     }
 
     protected ConnectionPool createConnectionPool(ConnectionPoolDefinition connectionPoolDefinition) throws ProxoolException {
         ConnectionPool connectionPool = new ConnectionPool(connectionPoolDefinition);
-        connectionPools.add(connectionPool);
-        connectionPoolMap.put(connectionPoolDefinition.getAlias(), connectionPool);
+        synchronized (LOCK) {
+            connectionPoolMap.put(connectionPoolDefinition.getAlias(), connectionPool);
+            publishConnectionPools();
+        }
         return connectionPool;
     }
 
     protected void removeConnectionPool(String name) {
-        ConnectionPool cp = (ConnectionPool) connectionPoolMap.get(name);
-        if (cp != null) {
-            connectionPoolMap.remove(cp.getDefinition().getAlias());
-            connectionPools.remove(cp);
-        } else {
-            LOG.info("Ignored attempt to remove either non-existent or already removed connection pool " + name);
+        synchronized (LOCK) {
+            ConnectionPool cp = (ConnectionPool) connectionPoolMap.get(name);
+            if (cp != null) {
+                connectionPoolMap.remove(cp.getDefinition().getAlias());
+                connectionPoolsByUrl.values().removeAll(Collections.singleton(cp));
+                publishConnectionPools();
+            } else {
+                LOG.info("Ignored attempt to remove either non-existent or already removed connection pool " + name);
+            }
         }
     }
 
+    /**
+     * Build a new {@link #getConnectionPools array} of pools. Call this whilst
+     * synchronized on {@link #LOCK} whenever the pools change.
+     */
+    private void publishConnectionPools() {
+        connectionPools = (ConnectionPool[]) connectionPoolMap.values().toArray(new ConnectionPool[connectionPoolMap.size()]);
+    }
+
     public String[] getConnectionPoolNames() {
         return (String[]) connectionPoolMap.keySet().toArray(new String[connectionPoolMap.size()]);
     }
@@ -36,6 +36,77 @@ public interface ConnectionPoolStatisticsIF {
      */
     long getConnectionsRefusedCount();
 
+    /**
+     * The number of times a request had to wait for a connection because
+     * the maximumConnectionCount was reached (whether or not it got one
+     * in the end).
+     * @return connectionsWaitedCount
+     * @see ConnectionPoolDefinitionIF#getMaximumWaitTime
+     */
+    long getConnectionsWaitedCount();
+
+    /**
+     * The {@link ProxoolFacade#setPriorityClass priority classes} that have a
+     * {@link ConnectionPoolDefinitionIF#getPriorityReserves reserve} or have had
+     * to wait or been refused. Requests that didn't have a class are counted as
+     * {@link ProxoolConstants#DEFAULT_PRIORITY_CLASS default}.
+     * @return priorityClasses, in alphabetical order
+     */
+    String[] getPriorityClasses();
+
+    /**
+     * Like {@link #getConnectionsWaitedCount()} but just for one priority class
+     * @param priorityClass one of the {@link #getPriorityClasses priority classes}
+     * @return connectionsWaitedCount for that class
+     */
+    long getConnectionsWaitedCount(String priorityClass);
+
+    /**
+     * Like {@link #getConnectionsRefusedCount()} but just for one priority class
+     * @param priorityClass one of the {@link #getPriorityClasses priority classes}
+     * @return connectionsRefusedCount for that class
+     */
+    long getConnectionsRefusedCount(String priorityClass);
+
+    /**
+     * The number of requests waiting for a connection right now.
+     * @return waitingCount
+     * @see ConnectionPoolDefinitionIF#getMaximumWaitTime
+     */
+    int getWaitingCount();
+
+    /**
+     * The number of times a statement was prepared and we could give back
+     * one that was cached instead of asking the database.
+     * @return statementCacheHitCount
+     * @see ConnectionPoolDefinitionIF#getStatementCacheSize
+     */
+    long getStatementCacheHitCount();
+
+    /**
+     * The number of times a statement was prepared and there wasn't a cached
+     * one we could use (only counted when the cache is enabled).
+     * @return statementCacheMissCount
+     * @see ConnectionPoolDefinitionIF#getStatementCacheSize
+     */
+    long getStatementCacheMissCount();
+
+    /**
+     * The number of cached statements that were really closed to make room
+     * for others.
+     * @return statementCacheEvictionCount
+     * @see ConnectionPoolDefinitionIF#getStatementCacheSize
+     */
+    long getStatementCacheEvictionCount();
+
+    /**
+     * The number of execute events that the connection listeners never heard about
+     * because the buffer was full.
+     * @return listenerEventsDroppedCount
+     * @see ConnectionPoolDefinitionIF#getAsyncListenerBufferSize
+     */
+    long getListenerEventsDroppedCount();
+
     /**
      * The number of connections currently in use.
      * @return activeConnectionCount
@@ -7,20 +7,27 @@ package org.logicalcobwebs.proxool;
 
 import org.logicalcobwebs.logging.Log;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Responsible for resetting a Connection to its default state when it is
  * returned to the pool. It must be initialised by the first Connection that
  * is made (for each pool) so that we don't make any assumptions about
  * what the default values are.
+ * <p>
+ * The connection keeps track of which properties have been changed (see
+ * {@link AbstractProxyConnection#setChanged}) and only those are reset. If
+ * none were changed then we don't get called at all. We also tell each new
+ * connection's {@link SessionState} what the defaults are, so that it doesn't
+ * have to ask.
  *
  * @version $Revision: 1.14 $, $Date: 2003/03/10 23:43:10 $
  * @author Bill Horsman (bill@logicalcobwebs.co.uk)
@@ -29,29 +36,62 @@ import java.util.Set;
  */
 public class ConnectionResetter {
 
+    /**
+     * autoCommit has been changed, or something else has happened (like setting a
+     * savepoint) that means there might be a transaction to roll back.
+     */
+    protected static final int AUTO_COMMIT = 1;
+
+    protected static final int CATALOG = 2;
+
+    protected static final int READ_ONLY = 4;
+
+    protected static final int TRANSACTION_ISOLATION = 8;
+
+    protected static final int TYPE_MAP = 16;
+
+    protected static final int HOLDABILITY = 32;
+
+    protected static final int SCHEMA = 64;
+
+    /**
+     * {@link Connection#beginRequest} and {@link Connection#endRequest} (Java 9 onwards), or null
+     * if there aren't any. They're found by reflection so that we still run on Java 8.
+     */
+    private static final MethodHandle BEGIN_REQUEST = findRequestBoundary("beginRequest");
+
+    private static final MethodHandle END_REQUEST = findRequestBoundary("endRequest");
+
     private Log log;
 
     /**
      * @see #initialise
      */
-    private boolean initialised;
+    private volatile boolean initialised;
 
     /**
-     * @see #addReset
-     * @see #reset
+     * Guards {@link #initialise}. It calls the driver whilst it holds it, so we
+     * use a lock rather than a monitor and don't pin virtual threads.
      */
-    private Map accessorMutatorMap = new HashMap();
+    private final ReentrantLock initialiseLock = new ReentrantLock();
 
     /**
+     * The properties we know how to reset. Once we're {@link #initialise initialised}
+     * it's only the ones that the driver supports.
      * @see #addReset
      * @see #reset
      */
-    private Map defaultValues = new HashMap();
+    private volatile Reset[] resets = new Reset[0];
+
+    /**
+     * What autoCommit was when we {@link #initialise initialised} (or null if we couldn't find out)
+     */
+    private volatile Boolean defaultAutoCommit;
 
     /**
-     * We use this to guess if we are changing a property that will need resetting
+     * @see #isRequestBoundariesSupported
      */
-    protected static final String MUTATOR_PREFIX = "set";
+    private volatile boolean requestBoundariesSupported;
 
     private String driverName;
 
@@ -64,20 +104,22 @@ public class ConnectionResetter {
         this.driverName = driverName;
 
         // Map all the reset methods
-        addReset("getCatalog", "setCatalog");
-        addReset("isReadOnly", "setReadOnly");
-        addReset("getTransactionIsolation", "setTransactionIsolation");
-        addReset("getTypeMap", "setTypeMap");
-        addReset("getHoldability", "setHoldability");
+        addReset(CATALOG, "getCatalog", "setCatalog");
+        addReset(READ_ONLY, "isReadOnly", "setReadOnly");
+        addReset(TRANSACTION_ISOLATION, "getTransactionIsolation", "setTransactionIsolation");
+        addReset(TYPE_MAP, "getTypeMap", "setTypeMap");
+        addReset(HOLDABILITY, "getHoldability", "setHoldability");
+        addReset(SCHEMA, "getSchema", "setSchema");
     }
 
     /**
      * Add a pair of methods that need resetting each time a connection is
-     * put back in the pool
-     * @param accessorName the name of the "getter" method (e.g. getAutoCommit)
-     * @param mutatorName teh name of the "setter" method (e.g. setAutoCommit)
+     * put back in the pool (if the property has been changed)
+     * @param property the bit that the connection sets when the property is changed (e.g. {@link #CATALOG})
+     * @param accessorName the name of the "getter" method (e.g. getCatalog)
+     * @param mutatorName teh name of the "setter" method (e.g. setCatalog)
      */
-    private void addReset(String accessorName, String mutatorName) {
+    private void addReset(int property, String accessorName, String mutatorName) {
 
         try {
 
@@ -109,25 +151,24 @@ public class ConnectionResetter {
                 log.debug("Ignoring attempt to map reset method " + accessorName + " (probably because it isn't implemented in this JDK)");
             } else if (mutator == null) {
                 log.debug("Ignoring attempt to map reset method " + mutatorName + " (probably because it isn't implemented in this JDK)");
-            } else if (accessorMutatorMap.containsKey(accessor)) {
-                log.warn("Ignoring attempt to map duplicate reset method " + accessorName);
-            } else if (accessorMutatorMap.containsValue(mutator)) {
-                log.warn("Ignoring attempt to map duplicate reset method " + mutatorName);
+            } else if (accessor.getParameterTypes().length > 0) {
+                log.info("Ignoring attempt to map accessor method " + accessorName + ". It must have no arguments.");
+            } else if (mutator.getParameterTypes().length != 1) {
+                log.info("Ignoring attempt to map mutator method " + mutatorName
+                        + ". It must have exactly one argument, not " + mutator.getParameterTypes().length);
             } else {
-
-                if (mutatorName.indexOf(MUTATOR_PREFIX) != 0) {
-                    log.warn("Resetter mutator " + mutatorName + " does not start with " + MUTATOR_PREFIX
-                            + " as expected. Proxool maynot recognise that a reset is necessary.");
-                }
-
-                if (accessor.getParameterTypes().length > 0) {
-                    log.info("Ignoring attempt to map accessor method " + accessorName + ". It must have no arguments.");
-                } else if (mutator.getParameterTypes().length != 1) {
-                    log.info("Ignoring attempt to map mutator method " + mutatorName
-                            + ". It must have exactly one argument, not " + mutator.getParameterTypes().length);
-                } else {
-                    accessorMutatorMap.put(accessor, mutator);
-                }
+                // Adapt them so that we can call them without knowing the property's type
+                // and without all the checking that Method.invoke does each time.
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Reset reset = new Reset();
+                reset.property = property;
+                reset.mutatorName = mutatorName;
+                reset.accessor = lookup.unreflect(accessor).asType(MethodType.methodType(Object.class, Connection.class));
+                reset.mutator = lookup.unreflect(mutator).asType(MethodType.methodType(void.class, Connection.class, Object.class));
+                Reset[] more = new Reset[resets.length + 1];
+                System.arraycopy(resets, 0, more, 0, resets.length);
+                more[resets.length] = reset;
+                resets = more;
             }
         } catch (Exception e) {
             log.error("Problem mapping " + accessorName + " and " + mutatorName, e);
@@ -142,58 +183,159 @@ public class ConnectionResetter {
      */
     protected void initialise(Connection connection) {
         if (!initialised) {
-            synchronized (this) {
+            initialiseLock.lock();
+            try {
                 if (!initialised) {
 
-                    Set accessorsToRemove = new HashSet();
-                    Iterator i = accessorMutatorMap.keySet().iterator();
-                    while (i.hasNext()) {
-                        Method accessor = (Method) i.next();
-                        Method mutator = (Method) accessorMutatorMap.get(accessor);
-                        Object value = null;
+                    List supported = new ArrayList();
+                    for (int i = 0; i < resets.length; i++) {
+                        Reset reset = resets[i];
+                        boolean ok = true;
                         try {
-                            value = accessor.invoke(connection, null);
-                            // It's perfectly ok for the default value to be null, we just
-                            // don't want to add it to the map.
-                            if (value != null) {
-                                defaultValues.put(mutator, value);
-                            }
+                            // It's perfectly ok for the default value to be null
+                            reset.defaultValue = reset.accessor.invokeExact(connection);
                             if (log.isDebugEnabled()) {
-                                log.debug("Remembering default value: " + accessor.getName() + "() = " + value);
+                                log.debug("Remembering default value: " + reset.mutatorName + "(" + reset.defaultValue + ")");
                             }
-
                         } catch (Throwable t) {
-                            log.debug(driverName + " does not support " + accessor.getName() + ". Proxool doesn't mind.");
-                            // We will remove this later (to avoid ConcurrentModifcation)
-                            accessorsToRemove.add(accessor);
+                            log.debug(driverName + " does not support the accessor for " + reset.mutatorName + ". Proxool doesn't mind.");
+                            ok = false;
                         }
 
                         // Just test that the mutator works too. Otherwise it's going to fall over
                         // everytime we close a connection
-                        try {
-                            Object[] args = {value};
-                            mutator.invoke(connection, args);
-                        } catch (Throwable t) {
-                            log.debug(driverName + " does not support " + mutator.getName() + ". Proxool doesn't mind.");
-                            // We will remove this later (to avoid ConcurrentModifcation)
-                            accessorsToRemove.add(accessor);
+                        if (ok) {
+                            try {
+                                reset.mutator.invokeExact(connection, reset.defaultValue);
+                            } catch (Throwable t) {
+                                log.debug(driverName + " does not support " + reset.mutatorName + ". Proxool doesn't mind.");
+                                ok = false;
+                            }
                         }
 
+                        if (ok) {
+                            supported.add(reset);
+                        }
                     }
 
-                    // Remove all the reset methods that we had trouble configuring
-                    Iterator j = accessorsToRemove.iterator();
-                    while (j.hasNext()) {
-                        Method accessor = (Method) j.next();
-                        Method mutator = (Method) accessorMutatorMap.get(accessor);
-                        accessorMutatorMap.remove(accessor);
-                        defaultValues.remove(mutator);
+                    // Forget all the reset methods that we had trouble configuring
+                    resets = (Reset[]) supported.toArray(new Reset[supported.size()]);
+
+                    try {
+                        defaultAutoCommit = Boolean.valueOf(connection.getAutoCommit());
+                    } catch (SQLException e) {
+                        log.debug(driverName + " does not support getAutoCommit. Proxool doesn't mind.");
                     }
 
+                    requestBoundariesSupported = BEGIN_REQUEST != null && END_REQUEST != null
+                            && isImplemented(connection, "beginRequest") && isImplemented(connection, "endRequest");
+                    if (log.isDebugEnabled()) {
+                        log.debug(driverName + (requestBoundariesSupported ? " implements" : " does not implement") + " request boundaries");
+                    }
                     initialised = true;
                 }
+            } finally {
+                initialiseLock.unlock();
+            }
+        }
+    }
+
+    private static MethodHandle findRequestBoundary(String methodName) {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Connection.class, methodName, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException e) {
+            // Before Java 9
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Call {@link #BEGIN_REQUEST} or {@link #END_REQUEST}
+     * @throws SQLException if the driver complained
+     */
+    private static void invokeRequestBoundary(MethodHandle requestBoundary, Connection connection) throws SQLException {
+        try {
+            requestBoundary.invokeExact(connection);
+        } catch (SQLException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            SQLException e = new SQLException(t.toString());
+            e.initCause(t);
+            throw e;
+        }
+    }
+
+    /**
+     * @return true if the connection's class has its own version of a method
+     * (rather than the one in {@link Connection}, or none at all before Java 9)
+     */
+    private static boolean isImplemented(Connection connection, String methodName) {
+        try {
+            Connection.class.getMethod(methodName, new Class[0]);
+            return connection.getClass().getMethod(methodName, new Class[0]).getDeclaringClass() != Connection.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Whether the driver does anything with JDBC 4.3 request boundaries. {@link Connection#beginRequest}
+     * and {@link Connection#endRequest} are default methods that do nothing, so we only bother calling
+     * them if the driver implements them. Only call this after we've been {@link #initialise initialised}.
+     * @return true if the driver implements beginRequest and endRequest
+     */
+    protected boolean isRequestBoundariesSupported() {
+        return requestBoundariesSupported;
+    }
+
+    /**
+     * Tell the driver that a connection is about to be given out, if it
+     * {@link #isRequestBoundariesSupported wants to know}
+     * @param connection the connection being given out
+     * @throws SQLException if the driver complained
+     */
+    protected void beginRequest(Connection connection) throws SQLException {
+        if (requestBoundariesSupported) {
+            invokeRequestBoundary(BEGIN_REQUEST, connection);
+        }
+    }
+
+    /**
+     * Tell the driver that a connection has been given back, if it
+     * {@link #isRequestBoundariesSupported wants to know}
+     * @param connection the connection that has been given back
+     * @param id used in log messages
+     * @return true if it was error free, or false if it wasn't (in which case it should probably not be reused)
+     */
+    protected boolean endRequest(Connection connection, String id) {
+        if (requestBoundariesSupported) {
+            try {
+                invokeRequestBoundary(END_REQUEST, connection);
+            } catch (SQLException e) {
+                log.warn(id + " - Problem calling connection.endRequest(). It will not be used again (just in case).", e);
+                return false;
             }
         }
+        return true;
+    }
+
+    /**
+     * Tell a new connection's session state what the default values are. Only call
+     * this after we've been {@link #initialise initialised}.
+     * @param sessionState the new connection's session state
+     */
+    protected void seed(SessionState sessionState) {
+        sessionState.set(AUTO_COMMIT, defaultAutoCommit);
+        Reset[] resets = this.resets;
+        for (int i = 0; i < resets.length; i++) {
+            sessionState.set(resets[i].property, resets[i].defaultValue);
+        }
     }
 
     /**
@@ -201,9 +343,16 @@ public class ConnectionResetter {
      * as a warning or info but it silently continues.
      * @param connection to be reset
      * @param id used in log messages
+     * @param changedProperties which properties have been changed (e.g. {@link #CATALOG}
+     * | {@link #READ_ONLY}). Only these are reset.
+     * @param sessionState what we know about the connection's session (which we keep up to date)
      * @return true if the reset was error free, or false if it encountered errors. (in which case it should probably not be reused)
      */
-    protected boolean reset(Connection connection, String id) {
+    protected boolean reset(Connection connection, String id, int changedProperties, SessionState sessionState) {
+        if (changedProperties == 0) {
+            return true;
+        }
+
         boolean errorsEncountered = false;
 
         try {
@@ -215,11 +364,15 @@ public class ConnectionResetter {
 
         // Let's see the state of autoCommit. It will help us give better advice in the log messages
         boolean autoCommit = true;
-        try {
-            autoCommit = connection.getAutoCommit();
-        } catch (SQLException e) {
-            errorsEncountered = true;
-            log.warn(id + " - Problem calling connection.getAutoCommit()", e);
+        if ((changedProperties & AUTO_COMMIT) != 0) {
+            // If autoCommit was turned off lazily and nothing was executed then the driver never knew
+            sessionState.abandonTransaction();
+            try {
+                autoCommit = sessionState.getAutoCommit();
+            } catch (SQLException e) {
+                errorsEncountered = true;
+                log.warn(id + " - Problem calling connection.getAutoCommit()", e);
+            }
         }
 
 /*
@@ -243,33 +396,27 @@ public class ConnectionResetter {
             }
         }
 
-        // Now let's reset each property in turn. With a bit of luck, if there is a
+        // Now let's reset each property that was changed. With a bit of luck, if there is a
         // transaction pending then setting one of these properties will throw an
         // exception (e.g. "operation not possible when transaction is in progress"
         // or something). We want to know about transactions that are pending.
         // It doesn't seem like a very good idea to close a connection with
         // pending transactions.
-        Iterator i = accessorMutatorMap.keySet().iterator();
-        while (i.hasNext()) {
-            Method accessor = (Method) i.next();
-            Method mutator = (Method) accessorMutatorMap.get(accessor);
-            Object[] args = {defaultValues.get(mutator)};
-            try {
-                Object currentValue = accessor.invoke(connection, null);
-                if (currentValue == null && args[0] == null) {
-                    // Nothing to do then
-                } else if (currentValue.equals(args[0])) {
-                    // Nothing to do here either
-                } else {
-                    mutator.invoke(connection, args);
+        Reset[] resets = this.resets;
+        for (int i = 0; i < resets.length; i++) {
+            Reset reset = resets[i];
+            if ((changedProperties & reset.property) != 0 && !sessionState.is(reset.property, reset.defaultValue)) {
+                try {
+                    reset.mutator.invokeExact(connection, reset.defaultValue);
+                    sessionState.set(reset.property, reset.defaultValue);
                     if (log.isDebugEnabled()) {
-                        log.debug(id + " - Reset: " + mutator.getName() + "(" + args[0] + ") from " + currentValue);
+                        log.debug(id + " - Reset: " + reset.mutatorName + "(" + reset.defaultValue + ")");
+                    }
+                } catch (Throwable t) {
+                    errorsEncountered = true;
+                    if (log.isDebugEnabled()) {
+                        log.debug(id + " - Problem resetting: " + reset.mutatorName + "(" + reset.defaultValue + ").", t);
                     }
-                }
-            } catch (Throwable t) {
-                errorsEncountered = true;
-                if (log.isDebugEnabled()) {
-                    log.debug(id + " - Problem resetting: " + mutator.getName() + "(" + args[0] + ").", t);
                 }
             }
         }
@@ -279,7 +426,7 @@ public class ConnectionResetter {
             try {
                 // Setting autoCommit to true might well commit all pending
                 // transactions. But that's beyond our control.
-                connection.setAutoCommit(true);
+                sessionState.setAutoCommit(true);
                 log.debug(id + " - autoCommit reset back to true");
             } catch (Throwable t) {
                 errorsEncountered = true;
@@ -300,6 +447,26 @@ public class ConnectionResetter {
         return !errorsEncountered;
     }
 
+    /**
+     * A property we know how to reset
+     */
+    private static class Reset {
+
+        /** @see #addReset */
+        private int property;
+
+        private String mutatorName;
+
+        /** (Connection) returns Object */
+        private MethodHandle accessor;
+
+        /** (Connection, Object) returns void */
+        private MethodHandle mutator;
+
+        /** What the property was when we {@link #initialise initialised} */
+        private Object defaultValue;
+    }
+
 }
 
 /*
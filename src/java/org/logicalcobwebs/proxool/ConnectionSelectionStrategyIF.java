@@ -0,0 +1,53 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+/**
+ * Decides which of the {@link ConnectionInfoIF#STATUS_AVAILABLE available}
+ * connections is served next. Choose one with the
+ * {@link ConnectionPoolDefinitionIF#getConnectionSelectionStrategy connection-selection-strategy}
+ * property: either one of the built in ones ({@link LifoConnectionSelectionStrategy lifo},
+ * {@link FifoConnectionSelectionStrategy fifo} or
+ * {@link RoundRobinConnectionSelectionStrategy round-robin}) or the name of your own
+ * class that implements this interface (and has a public no-argument constructor).
+ * <p>
+ * Implementations must be thread safe and shouldn't block. They are only
+ * a guide: the pool still has to claim whatever connection you suggest, and
+ * if somebody else has got there first it will just ask for another.
+ */
+public interface ConnectionSelectionStrategyIF {
+
+    /**
+     * A connection has become available. You won't be told about the same connection
+     * again until you've given it back from {@link #next}, or until it has been
+     * {@link #remove removed}.
+     * @param proxyConnection the connection that is now available
+     */
+    void available(ProxyConnectionIF proxyConnection);
+
+    /**
+     * Choose the next connection to serve and forget about it.
+     * @return the connection, or null if you don't know of any
+     */
+    ProxyConnectionIF next();
+
+    /**
+     * Forget about a connection because it is being removed from the pool.
+     * @param proxyConnection the connection being removed
+     */
+    void remove(ProxyConnectionIF proxyConnection);
+
+    /**
+     * Whether a thread should try the connections that it returned most recently
+     * before asking this strategy. That's quicker but it means that a busy
+     * thread will tend to keep using the same connections. A connection claimed
+     * that way isn't taken back from you, so {@link #next} may offer one that
+     * isn't available any more. The pool just skips it.
+     * @return true if threads should reuse their own recent connections first
+     */
+    boolean isThreadAffinity();
+
+}
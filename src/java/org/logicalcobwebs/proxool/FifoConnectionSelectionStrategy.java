@@ -0,0 +1,48 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serves the connection that has been available for longest, so the load
+ * is spread over all the connections.
+ *
+ * @see ProxoolConstants#CONNECTION_SELECTION_STRATEGY_FIFO
+ */
+public class FifoConnectionSelectionStrategy implements ConnectionSelectionStrategyIF {
+
+    private ConcurrentLinkedQueue idle = new ConcurrentLinkedQueue();
+
+    /**
+     * @see ConnectionSelectionStrategyIF#available
+     */
+    public void available(ProxyConnectionIF proxyConnection) {
+        idle.add(proxyConnection);
+    }
+
+    /**
+     * @see ConnectionSelectionStrategyIF#next
+     */
+    public ProxyConnectionIF next() {
+        return (ProxyConnectionIF) idle.poll();
+    }
+
+    /**
+     * @see ConnectionSelectionStrategyIF#remove
+     */
+    public void remove(ProxyConnectionIF proxyConnection) {
+        idle.remove(proxyConnection);
+    }
+
+    /**
+     * @see ConnectionSelectionStrategyIF#isThreadAffinity
+     */
+    public boolean isThreadAffinity() {
+        return false;
+    }
+
+}
@@ -36,8 +36,11 @@ class HouseKeeper {
        Log log = connectionPool.getLog();
        Statement testStatement = null;
        try {
-
            connectionPool.acquirePrimaryReadLock();
+       } catch (InterruptedException e) {
+           throw new ProxoolException("Couldn't acquire primary read lock", e);
+       }
+       try {
 
            // Right, now we know we're the right thread then we can carry on house keeping
            Connection connection = null;
@@ -57,6 +60,13 @@ class HouseKeeper {
                    break;
                }
 
+               // If the database has failed over since it was made then there's no point testing it
+               if (connectionPool.isStale(proxyConnection)
+                       && proxyConnection.setStatus(ProxyConnectionIF.STATUS_AVAILABLE, ProxyConnectionIF.STATUS_OFFLINE)
+                       && proxyConnection.setStatus(ProxyConnectionIF.STATUS_OFFLINE, ProxyConnectionIF.STATUS_NULL)) {
+                   connectionPool.expireProxyConnection(proxyConnection, ConnectionPool.MSG_STALE, ConnectionPool.REQUEST_EXPIRY);
+               }
+
                // First lets check whether the connection still works. We should only validate
                // connections that are not is use!  SetOffline only succeeds if the connection
                // is available.
@@ -0,0 +1,50 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Serves the connection that was returned most recently. The busy connections stay
+ * warm (and so do the database's caches for that session) and the rest are left
+ * alone long enough to expire, so you need fewer connections for the same load.
+ * Threads also reuse the connections they returned themselves first.
+ *
+ * @see ProxoolConstants#CONNECTION_SELECTION_STRATEGY_LIFO
+ */
+public class LifoConnectionSelectionStrategy implements ConnectionSelectionStrategyIF {
+
+    private ConcurrentLinkedDeque idle = new ConcurrentLinkedDeque();
+
+    /**
+     * @see ConnectionSelectionStrategyIF#available
+     */
+    public void available(ProxyConnectionIF proxyConnection) {
+        idle.addFirst(proxyConnection);
+    }
+
+    /**
+     * @see ConnectionSelectionStrategyIF#next
+     */
+    public ProxyConnectionIF next() {
+        return (ProxyConnectionIF) idle.pollFirst();
+    }
+
+    /**
+     * @see ConnectionSelectionStrategyIF#remove
+     */
+    public void remove(ProxyConnectionIF proxyConnection) {
+        idle.remove(proxyConnection);
+    }
+
+    /**
+     * @see ConnectionSelectionStrategyIF#isThreadAffinity
+     */
+    public boolean isThreadAffinity() {
+        return true;
+    }
+
+}
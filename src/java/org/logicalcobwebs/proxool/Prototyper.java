@@ -10,6 +10,7 @@ import org.logicalcobwebs.logging.LogFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Responsible for prototyping connections for all pools
@@ -24,9 +25,13 @@ public class Prototyper {
 
     private Log log = LogFactory.getLog(Prototyper.class);
 
-    private long connectionCount;
+    private volatile long connectionCount;
 
-    private final Object lock = new Integer(1);
+    /**
+     * Guards the counts. A lock rather than a monitor so that virtual threads
+     * building connections on demand aren't pinned to their carriers.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
 
     private boolean sweepNeeded = true;
 
@@ -43,7 +48,7 @@ public class Prototyper {
      * The number of connections currently being made (actually in
      * progress)
      */
-    private int connectionsBeingMade;
+    private volatile int connectionsBeingMade;
 
     public Prototyper(ConnectionPool connectionPool) {
         this.connectionPool = connectionPool;
@@ -125,9 +130,22 @@ public class Prototyper {
      * @return the new connection
      */
     protected ProxyConnectionIF buildConnection(int status, String creator) throws SQLException, ProxoolException {
+        return buildConnection(reserveConnection(), status, creator);
+    }
 
+    /**
+     * Make room for a new connection. It counts towards the
+     * {@link #getConnectionCount connection count} straight away. You must follow this
+     * with {@link #buildConnection(long, int, String)} (which gives the room back
+     * if the build fails).
+     * @return the id of the connection to build
+     * @throws ProxoolException if we have already reached the maximum connection count
+     * @throws SQLException if the {@link #checkSimultaneousBuildThrottle throttle} has been reached
+     */
+    protected long reserveConnection() throws SQLException, ProxoolException {
         long id = 0;
-        synchronized (lock) {
+        lock.lock();
+        try {
 
             // Check that we are allowed to make another connection
             if (connectionCount >= getDefinition().getMaximumConnectionCount()) {
@@ -140,22 +158,49 @@ public class Prototyper {
             connectionsBeingMade++;
             connectionCount++;
             id = nextConnectionId++;
+        } finally {
+            lock.unlock();
         }
+        return id;
+    }
 
+    /**
+     * Build a connection that we've already {@link #reserveConnection reserved} room for
+     * @param id from {@link #reserveConnection}
+     * @param status the initial status it will be created as
+     * @param creator for log audit
+     * @return the new connection
+     */
+    protected ProxyConnectionIF buildConnection(long id, int status, String creator) throws SQLException, ProxoolException {
 
         ProxyConnection proxyConnection = null;
         Connection connection = null;
+        // Until it's in the pool, any failure means we have to give back its room and close it
+        boolean added = false;
 
         try {
             proxyConnection = ProxyFactory.buildProxyConnection(id, connectionPool, status);
             connection = ProxyFactory.getConnection(proxyConnection);
 
+            // Nobody else can see it until we add it, so this is our chance to get it ready.
+            // If it fails then it never existed as far as the listeners are concerned.
+            try {
+                proxyConnection.initialise();
+            } catch (SQLException e) {
+                log.warn("Discarding new connection #" + proxyConnection.getId() + " because it couldn't be initialised: " + e.getMessage());
+                throw e;
+            } catch (RuntimeException e) {
+                log.warn("Discarding new connection #" + proxyConnection.getId() + " because it couldn't be initialised", e);
+                throw e;
+            }
+
             try {
                 connectionPool.onBirth(connection);
             } catch (Exception e) {
                 log.error("Problem during onBirth (ignored)", e);
             }
             connectionPool.addProxyConnection(proxyConnection);
+            added = true;
 
             if (log.isDebugEnabled()) {
                 StringBuffer out = new StringBuffer(connectionPool.displayStatistics());
@@ -194,13 +239,25 @@ public class Prototyper {
             }
             throw new ProxoolException("Unexpected prototyping problem", t);
         } finally {
-            synchronized (lock) {
-                if (proxyConnection == null) {
+            if (!added && proxyConnection != null) {
+                try {
+                    proxyConnection.getConnection().close();
+                } catch (SQLException e) {
+                    log.debug("Problem closing connection that couldn't be built (ignored)", e);
+                } catch (RuntimeException e) {
+                    log.debug("Problem closing connection that couldn't be built (ignored)", e);
+                }
+            }
+            lock.lock();
+            try {
+                if (!added) {
                     // If there has been an exception then we won't be using this one and
                     // we need to decrement the counter
                     connectionCount--;
                 }
                 connectionsBeingMade--;
+            } finally {
+                lock.unlock();
             }
 
         }
@@ -212,7 +269,12 @@ public class Prototyper {
      * This needs to be called _everytime_ a connection is removed.
      */
     protected void connectionRemoved() {
-        connectionCount--;
+        lock.lock();
+        try {
+            connectionCount--;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
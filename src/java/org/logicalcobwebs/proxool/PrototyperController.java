@@ -27,7 +27,7 @@ public class PrototyperController {
         prototyperThread.start();
     }
 
-    private static boolean keepSweeping;
+    private static volatile boolean keepSweeping;
 
     /**
      * Trigger prototyping immediately. Runs inside a new Thread so
@@ -41,11 +41,13 @@ public class PrototyperController {
             ConnectionPool cp = ConnectionPoolManager.getInstance().getConnectionPool(alias);
             try {
                 cp.acquirePrimaryReadLock();
-                cp.getPrototyper().triggerSweep();
+                try {
+                    cp.getPrototyper().triggerSweep();
+                } finally {
+                    cp.releasePrimaryReadLock();
+                }
             } catch (InterruptedException e) {
                 LOG.error("Couldn't acquire primary read lock", e);
-            } finally {
-                cp.releasePrimaryReadLock();
             }
         } catch (ProxoolException e) {
             if (LOG.isDebugEnabled()) {
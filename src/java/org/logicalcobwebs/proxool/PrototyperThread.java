@@ -8,6 +8,9 @@ package org.logicalcobwebs.proxool;
 import org.logicalcobwebs.logging.Log;
 import org.logicalcobwebs.logging.LogFactory;
 
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Responsible for running {@link Prototyper#sweep sweep}. There
  * could be just one of the objects, or more.
@@ -22,6 +25,14 @@ public class PrototyperThread extends Thread {
 
     private static final Log LOG = LogFactory.getLog(PrototyperThread.class);
 
+    /**
+     * We wait on a lock rather than a monitor so that a virtual thread
+     * that {@link #doNotify wakes us} is never pinned to its carrier.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition sweepRequested = lock.newCondition();
+
     public PrototyperThread(String name) {
         super(PROTOTYPER_THREAD_GROUP, name);
         setDaemon(true);
@@ -38,12 +49,15 @@ public class PrototyperThread extends Thread {
                     Prototyper p = cps[i].getPrototyper();
                     try {
                         cps[i].acquirePrimaryReadLock();
+                    } catch (InterruptedException e) {
+                        LOG.error("Couldn't acquire primary read lock", e);
+                        continue;
+                    }
+                    try {
                         if (cps[i].isConnectionPoolUp() && p.isSweepNeeded()) {
                             p.sweep();
                             sweptCount++;
                         }
-                    } catch (InterruptedException e) {
-                        LOG.error("Couldn't acquire primary read lock", e);
                     } finally {
                         cps[i].releasePrimaryReadLock();
                     }
@@ -57,16 +71,27 @@ public class PrototyperThread extends Thread {
         }
     }
 
-    private synchronized void doWait() {
+    private void doWait() {
+        lock.lock();
         try {
-            wait();
+            // Somebody might have asked for another sweep whilst we were busy
+            if (!PrototyperController.isKeepSweeping()) {
+                sweepRequested.await();
+            }
         } catch (InterruptedException e) {
             LOG.debug("Expected interruption of sleep");
+        } finally {
+            lock.unlock();
         }
     }
 
-    protected synchronized void doNotify() {
-        notify();
+    protected void doNotify() {
+        lock.lock();
+        try {
+            sweepRequested.signal();
+        } finally {
+            lock.unlock();
+        }
     }
 
 }
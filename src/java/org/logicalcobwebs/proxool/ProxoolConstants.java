@@ -85,6 +85,39 @@ public interface ProxoolConstants {
     /** @see ProxoolDriver#getPropertyInfo */
     public final String MAXIMUM_CONNECTION_LIFETIME_PROPERTY = PROPERTY_PREFIX + MAXIMUM_CONNECTION_LIFETIME;
 
+    /** @see #CONNECTION_SELECTION_STRATEGY_PROPERTY */
+    public final String CONNECTION_SELECTION_STRATEGY = "connection-selection-strategy";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String CONNECTION_SELECTION_STRATEGY_PROPERTY = PROPERTY_PREFIX + CONNECTION_SELECTION_STRATEGY;
+
+    /** @see LifoConnectionSelectionStrategy */
+    public static final String CONNECTION_SELECTION_STRATEGY_LIFO = "lifo";
+
+    /** @see FifoConnectionSelectionStrategy */
+    public static final String CONNECTION_SELECTION_STRATEGY_FIFO = "fifo";
+
+    /** @see RoundRobinConnectionSelectionStrategy */
+    public static final String CONNECTION_SELECTION_STRATEGY_ROUND_ROBIN = "round-robin";
+
+    /** @see #MAXIMUM_WAIT_TIME_PROPERTY */
+    public final String MAXIMUM_WAIT_TIME = "maximum-wait-time";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String MAXIMUM_WAIT_TIME_PROPERTY = PROPERTY_PREFIX + MAXIMUM_WAIT_TIME;
+
+    /** @see #PRIORITY_RESERVES_PROPERTY */
+    public final String PRIORITY_RESERVES = "priority-reserves";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String PRIORITY_RESERVES_PROPERTY = PROPERTY_PREFIX + PRIORITY_RESERVES;
+
+    /**
+     * The priority class of requests from threads that haven't been given one
+     * @see ProxoolFacade#setPriorityClass
+     */
+    public static final String DEFAULT_PRIORITY_CLASS = "default";
+
     /**
      * @deprecated use {@link #SIMULTANEOUS_BUILD_THROTTLE} instead
      */
@@ -131,6 +164,78 @@ public interface ProxoolConstants {
     /** @see ProxoolDriver#getPropertyInfo */
     public final String MAXIMUM_ACTIVE_TIME_PROPERTY = PROPERTY_PREFIX + MAXIMUM_ACTIVE_TIME;
 
+    /** @see #STATEMENT_CACHE_SIZE_PROPERTY */
+    public final String STATEMENT_CACHE_SIZE = "statement-cache-size";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String STATEMENT_CACHE_SIZE_PROPERTY = PROPERTY_PREFIX + STATEMENT_CACHE_SIZE;
+
+    /** @see #CONNECTION_INIT_SQL_PROPERTY */
+    public final String CONNECTION_INIT_SQL = "connection-init-sql";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String CONNECTION_INIT_SQL_PROPERTY = PROPERTY_PREFIX + CONNECTION_INIT_SQL;
+
+    /** @see #WARMUP_STATEMENTS_PROPERTY */
+    public final String WARMUP_STATEMENTS = "warmup-statements";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String WARMUP_STATEMENTS_PROPERTY = PROPERTY_PREFIX + WARMUP_STATEMENTS;
+
+    /** @see #ASYNC_LISTENER_BUFFER_SIZE_PROPERTY */
+    public final String ASYNC_LISTENER_BUFFER_SIZE = "async-listener-buffer-size";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String ASYNC_LISTENER_BUFFER_SIZE_PROPERTY = PROPERTY_PREFIX + ASYNC_LISTENER_BUFFER_SIZE;
+
+    /** @see #ASYNC_LISTENER_OVERFLOW_PROPERTY */
+    public final String ASYNC_LISTENER_OVERFLOW = "async-listener-overflow";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String ASYNC_LISTENER_OVERFLOW_PROPERTY = PROPERTY_PREFIX + ASYNC_LISTENER_OVERFLOW;
+
+    /** @see #SQL_PROFILE_SIZE_PROPERTY */
+    public final String SQL_PROFILE_SIZE = "sql-profile-size";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String SQL_PROFILE_SIZE_PROPERTY = PROPERTY_PREFIX + SQL_PROFILE_SIZE;
+
+    /** @see #SLOW_QUERY_THRESHOLD_PROPERTY */
+    public final String SLOW_QUERY_THRESHOLD = "slow-query-threshold";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String SLOW_QUERY_THRESHOLD_PROPERTY = PROPERTY_PREFIX + SLOW_QUERY_THRESHOLD;
+
+    /** @see #DEFAULT_QUERY_TIMEOUT_PROPERTY */
+    public final String DEFAULT_QUERY_TIMEOUT = "default-query-timeout";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String DEFAULT_QUERY_TIMEOUT_PROPERTY = PROPERTY_PREFIX + DEFAULT_QUERY_TIMEOUT;
+
+    /** @see #LAZY_TRANSACTION_BEGIN_PROPERTY */
+    public final String LAZY_TRANSACTION_BEGIN = "lazy-transaction-begin";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String LAZY_TRANSACTION_BEGIN_PROPERTY = PROPERTY_PREFIX + LAZY_TRANSACTION_BEGIN;
+
+    /** @see #RESET_BY_DRIVER_PROPERTY */
+    public final String RESET_BY_DRIVER = "reset-by-driver";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String RESET_BY_DRIVER_PROPERTY = PROPERTY_PREFIX + RESET_BY_DRIVER;
+
+    /**
+     * Throw the event away if the buffer is full
+     * @see ConnectionPoolDefinitionIF#getAsyncListenerOverflow
+     */
+    public static final String ASYNC_LISTENER_OVERFLOW_DROP = "drop";
+
+    /**
+     * Wait for room if the buffer is full
+     * @see ConnectionPoolDefinitionIF#getAsyncListenerOverflow
+     */
+    public static final String ASYNC_LISTENER_OVERFLOW_BLOCK = "block";
+
     /**
      * @deprecated use {@link #VERBOSE_PROPERTY verbose} instead.
      */
@@ -154,6 +259,24 @@ public interface ProxoolConstants {
     /** @see ProxoolDriver#getPropertyInfo */
     public final String FATAL_SQL_EXCEPTION_PROPERTY = PROPERTY_PREFIX + FATAL_SQL_EXCEPTION;
 
+    /** @see #FATAL_SQL_STATE_PROPERTY **/
+    public final String FATAL_SQL_STATE = "fatal-sql-state";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String FATAL_SQL_STATE_PROPERTY = PROPERTY_PREFIX + FATAL_SQL_STATE;
+
+    /** @see #FATAL_SQL_EXCEPTION_TYPE_PROPERTY **/
+    public final String FATAL_SQL_EXCEPTION_TYPE = "fatal-sql-exception-type";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String FATAL_SQL_EXCEPTION_TYPE_PROPERTY = PROPERTY_PREFIX + FATAL_SQL_EXCEPTION_TYPE;
+
+    /** @see #FAILOVER_SQL_STATE_PROPERTY **/
+    public final String FAILOVER_SQL_STATE = "failover-sql-state";
+
+    /** @see ProxoolDriver#getPropertyInfo */
+    public final String FAILOVER_SQL_STATE_PROPERTY = PROPERTY_PREFIX + FAILOVER_SQL_STATE;
+
     /** @see #FATAL_SQL_EXCEPTION_WRAPPER_CLASS_PROPERTY**/
     public final String FATAL_SQL_EXCEPTION_WRAPPER_CLASS = "fatal-sql-exception-wrapper-class";
 
@@ -16,6 +16,7 @@ import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
 import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 import java.sql.SQLFeatureNotSupportedException;
 
@@ -65,7 +66,7 @@ public class ProxoolDriver implements Driver {
      * used to uniquely identify this pool.
      *
      */
-    public synchronized Connection connect(String url, Properties info)
+    public Connection connect(String url, Properties info)
             throws SQLException {
         if (!url.startsWith("proxool")) {
             return null;
@@ -73,20 +74,25 @@ public class ProxoolDriver implements Driver {
 
         ConnectionPool cp = null;
         try {
-            String alias = ProxoolFacade.getAlias(url);
+            cp = ConnectionPoolManager.getInstance().findConnectionPool(url);
 
-            if (!ConnectionPoolManager.getInstance().isPoolExists(alias)) {
-                ProxoolFacade.registerConnectionPool(url, info, false);
-                cp = ConnectionPoolManager.getInstance().getConnectionPool(alias);
+            // If it isn't up then somebody might still be registering it
+            if (cp == null || !cp.isConnectionPoolUp()) {
+                cp = ProxoolFacade.findOrRegisterConnectionPool(url, info);
             } else if (info != null && info.size() > 0) {
                 // Perhaps we should be redefining the definition?
-                cp = ConnectionPoolManager.getInstance().getConnectionPool(alias);
                 ConnectionPoolDefinition cpd = cp.getDefinition();
                 if (!cpd.isEqual(url, info)) {
-                    cpd.redefine(url, info);
+                    ReentrantLock guard = ProxoolFacade.lockAlias(cpd.getAlias());
+                    try {
+                        // Check again in case somebody else has just redefined it the same way
+                        if (!cpd.isEqual(url, info)) {
+                            cpd.redefine(url, info);
+                        }
+                    } finally {
+                        ProxoolFacade.unlockAlias(cpd.getAlias(), guard);
+                    }
                 }
-            } else {
-                cp = ConnectionPoolManager.getInstance().getConnectionPool(alias);
             }
             return cp.getConnection();
 
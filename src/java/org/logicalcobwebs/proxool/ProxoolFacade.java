@@ -14,11 +14,19 @@ import org.logicalcobwebs.proxool.admin.StatisticsListenerIF;
 
 import java.lang.reflect.Method;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 
 /**
  * <p>This provides some nice-to-have features that can't be provided by the
@@ -41,7 +49,15 @@ public class ProxoolFacade {
 
     private static CompositeProxoolListener compositeProxoolListener = new CompositeProxoolListener();
 
-    private static boolean versionLogged = false;
+    private static final AtomicBoolean versionLogged = new AtomicBoolean(false);
+
+    /**
+     * One lock per alias that we hold whilst registering or redefining
+     * that pool. Nothing else needs it, so getting a connection never waits for
+     * anything to do with another pool. It's only here whilst somebody is using it.
+     * @see #lockAlias
+     */
+    private static final ConcurrentHashMap ALIAS_GUARDS = new ConcurrentHashMap();
 
     /**
      * This is the thread that has been registered with {@link Runtime} as a
@@ -56,7 +72,7 @@ public class ProxoolFacade {
      * @return the alias for this pool (or the full url if no alias is specified)
      * @throws ProxoolException if anything goes wrong
      */
-    public static synchronized String registerConnectionPool(String url, Properties info) throws ProxoolException {
+    public static String registerConnectionPool(String url, Properties info) throws ProxoolException {
         return registerConnectionPool(url, info, true);
     }
 
@@ -69,11 +85,45 @@ public class ProxoolFacade {
      * @return the alias for this pool (or the full url if no alias is specified)
      * @throws ProxoolException if anything goes wrong
      */
-    protected static synchronized String registerConnectionPool(String url, Properties info, boolean explicitRegister) throws ProxoolException {
+    protected static String registerConnectionPool(String url, Properties info, boolean explicitRegister) throws ProxoolException {
+        String alias = getAlias(url);
+        ReentrantLock guard = lockAlias(alias);
+        try {
+            if (!ConnectionPoolManager.getInstance().isPoolExists(alias)) {
+                registerConnectionPool(new ConnectionPoolDefinition(url, info, explicitRegister));
+            } else {
+                throw new ProxoolException("Attempt to register duplicate pool called '" + alias + "'");
+            }
+        } finally {
+            unlockAlias(alias, guard);
+        }
+        return alias;
+    }
+
+    /**
+     * Get the pool for this url, registering it first if nobody has yet. If somebody
+     * else is registering it right now then we wait for them to finish.
+     * @param url defines the delegate driver and delegate url.
+     * @param info the properties used to configure Proxool (and any for the delegate driver too) - optional
+     * @return the pool
+     * @throws ProxoolException if anything goes wrong
+     * @see ProxoolDriver#connect
+     */
+    protected static ConnectionPool findOrRegisterConnectionPool(String url, Properties info) throws ProxoolException {
         String alias = getAlias(url);
+        ReentrantLock guard = lockAlias(alias);
+        try {
+            if (!ConnectionPoolManager.getInstance().isPoolExists(alias)) {
+                registerConnectionPool(new ConnectionPoolDefinition(url, info, false));
+            }
+        } finally {
+            unlockAlias(alias, guard);
+        }
+        return ConnectionPoolManager.getInstance().getConnectionPool(alias);
+    }
 
-        if (!versionLogged) {
-            versionLogged = true;
+    protected static void registerConnectionPool(ConnectionPoolDefinition connectionPoolDefinition) throws ProxoolException {
+        if (versionLogged.compareAndSet(false, true)) {
             LOG.info("Proxool " + Version.getVersion());
         }
 
@@ -83,17 +133,6 @@ public class ProxoolFacade {
             LOG.error("Couldn't load " + ProxoolDriver.class.getName());
         }
 
-        if (!ConnectionPoolManager.getInstance().isPoolExists(alias)) {
-            ConnectionPoolDefinition cpd = new ConnectionPoolDefinition(url, info, explicitRegister);
-            registerConnectionPool(cpd);
-        } else {
-            throw new ProxoolException("Attempt to register duplicate pool called '" + alias + "'");
-        }
-
-        return alias;
-    }
-
-    protected static void registerConnectionPool(ConnectionPoolDefinition connectionPoolDefinition) throws ProxoolException {
         ConnectionPool connectionPool = ConnectionPoolManager.getInstance().createConnectionPool(connectionPoolDefinition);
         connectionPool.start();
         compositeProxoolListener.onRegistration(connectionPoolDefinition, connectionPoolDefinition.getCompleteInfo());
@@ -255,6 +294,101 @@ public class ProxoolFacade {
         removeConnectionPool(alias, 0);
     }
 
+    /**
+     * Get a connection without blocking. If the pool is at its
+     * {@link ConnectionPoolDefinitionIF#getMaximumConnectionCount maximum} then the request
+     * waits in line with everyone else, but no thread is parked whilst it does. The
+     * future is completed (on one of the pool's own threads) as soon as a connection is
+     * returned or built for it.
+     * @param alias identifies the pool
+     * @param timeout how long to wait for a connection (milliseconds). Zero means don't wait at all.
+     * @return a future that is completed with the connection or, if we couldn't get one in
+     * time, completed exceptionally with an {@link SQLException}. Close the connection as usual
+     * when you're done with it. Cancelling the future is fine: if a connection turns up
+     * afterwards it goes straight back to the pool.
+     * @throws ProxoolException if we couldn't find the pool
+     */
+    public static CompletableFuture<Connection> getConnectionAsync(String alias, long timeout) throws ProxoolException {
+        return ConnectionPoolManager.getInstance().getConnectionPool(alias).getConnectionAsync(timeout);
+    }
+
+    /**
+     * Do some work with a connection without blocking. The callback runs on one of the
+     * pool's own threads (there are never more of those than the pool has connections)
+     * once a connection is {@link #getConnectionAsync available}, and the connection is closed
+     * afterwards whatever happens (even if the pool is shutdown before the callback can run).
+     * If you cancel the future before then, the callback isn't run at all.
+     * @param alias identifies the pool
+     * @param callback the work to do
+     * @param timeout how long to wait for a connection (milliseconds). Zero means don't wait at all.
+     * @return a future that is completed with whatever the callback returns or, if we couldn't
+     * get a connection or the callback failed, completed exceptionally with the {@link SQLException}
+     * @throws ProxoolException if we couldn't find the pool
+     */
+    public static <T> CompletableFuture<T> executeAsync(String alias, final ConnectionCallbackIF<T> callback, long timeout) throws ProxoolException {
+        ConnectionPool cp = ConnectionPoolManager.getInstance().getConnectionPool(alias);
+        final Executor executor = cp.getAsyncExecutor();
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+        cp.getConnectionAsync(timeout).whenComplete(new BiConsumer<Connection, Throwable>() {
+            public void accept(final Connection connection, Throwable failure) {
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                    return;
+                }
+                Runnable work = new Runnable() {
+                    public void run() {
+                        try {
+                            if (!result.isDone()) {
+                                result.complete(callback.doWithConnection(connection));
+                            }
+                        } catch (Throwable t) {
+                            result.completeExceptionally(t);
+                        } finally {
+                            closeAfterCallback(connection);
+                        }
+                    }
+                };
+                try {
+                    executor.execute(work);
+                } catch (RejectedExecutionException e) {
+                    // The pool is being shutdown. The callback won't run but the connection must still go back.
+                    closeAfterCallback(connection);
+                    result.completeExceptionally(new SQLException("Couldn't run asynchronous callback: " + e.getMessage()));
+                }
+            }
+        });
+        return result;
+    }
+
+    private static void closeAfterCallback(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOG.error("Couldn't close connection after asynchronous callback", e);
+        }
+    }
+
+    /**
+     * Say which priority class the current thread belongs to. Every connection it asks
+     * for from now on (from any pool) leaves at least as many connections free as that
+     * class's {@link ConnectionPoolDefinitionIF#getPriorityReserves reserve}. If it can't, it
+     * waits or is refused just as if the pool were full. Classes without a reserve (and
+     * threads without a class) aren't restricted at all.
+     * @param priorityClass the name of the class, or null to forget it
+     * @see ConnectionPoolStatisticsIF#getPriorityClasses
+     */
+    public static void setPriorityClass(String priorityClass) {
+        ConnectionPool.setPriorityClass(priorityClass);
+    }
+
+    /**
+     * @return the priority class of the current thread, or null if it hasn't got one
+     * @see #setPriorityClass
+     */
+    public static String getPriorityClass() {
+        return ConnectionPool.getPriorityClass();
+    }
+
     /**
      * Get real-time statistical information about how a pool is performing.
      * @param alias to identify the pool
@@ -278,6 +412,40 @@ public class ProxoolFacade {
         return ConnectionPoolManager.getInstance().getConnectionPool(alias).displayStatistics();
     }
 
+    /**
+     * Get the SQL that has taken the most time to execute. The pool must be
+     * {@link ConnectionPoolDefinitionIF#getSqlProfileSize profiling} it.
+     * @param alias identifies the pool
+     * @param count the most templates to return (or zero for all of them)
+     * @return the profiles, the one with the most total time first. Empty if
+     * the pool hasn't profiled anything.
+     * @throws ProxoolException if we couldn't find the pool
+     */
+    public static SqlProfileIF[] getSqlProfiles(String alias, int count) throws ProxoolException {
+        return ConnectionPoolManager.getInstance().getConnectionPool(alias).getSqlProfiles(count);
+    }
+
+    /**
+     * Forget the {@link #getSqlProfiles SQL profiles} for a pool and start counting again.
+     * @param alias identifies the pool
+     * @throws ProxoolException if we couldn't find the pool
+     */
+    public static void resetSqlProfiles(String alias) throws ProxoolException {
+        ConnectionPoolManager.getInstance().getConnectionPool(alias).resetSqlProfiles();
+    }
+
+    /**
+     * Get the most recent executions that took longer than the pool's
+     * {@link ConnectionPoolDefinitionIF#getSlowQueryThreshold slow query threshold}.
+     * Only the last hundred are remembered.
+     * @param alias identifies the pool
+     * @return the slow queries, the most recent first. Empty if there haven't been any.
+     * @throws ProxoolException if we couldn't find the pool
+     */
+    public static SlowQueryIF[] getSlowQueries(String alias) throws ProxoolException {
+        return ConnectionPoolManager.getInstance().getConnectionPool(alias).getSlowQueries();
+    }
+
     /**
      * Get the definition of a pool.
      * @param alias identifies the pool
@@ -517,7 +685,12 @@ public class ProxoolFacade {
         String alias = getAlias(url);
         ConnectionPool cp = ConnectionPoolManager.getInstance().getConnectionPool(alias);
         ConnectionPoolDefinition cpd = cp.getDefinition();
-        cpd.redefine(url, info);
+        ReentrantLock guard = lockAlias(alias);
+        try {
+            cpd.redefine(url, info);
+        } finally {
+            unlockAlias(alias, guard);
+        }
     }
 
 
@@ -533,7 +706,49 @@ public class ProxoolFacade {
         String alias = getAlias(url);
         ConnectionPool cp = ConnectionPoolManager.getInstance().getConnectionPool(alias);
         ConnectionPoolDefinition cpd = cp.getDefinition();
-        cpd.update(url, info);
+        ReentrantLock guard = lockAlias(alias);
+        try {
+            cpd.update(url, info);
+        } finally {
+            unlockAlias(alias, guard);
+        }
+    }
+
+    /**
+     * Get the lock to hold whilst registering or redefining a pool (a lock rather
+     * than a monitor because registering connects to the database, and a virtual thread
+     * blocked inside a monitor is pinned to its carrier). Always {@link #unlockAlias unlock} it.
+     * @param alias identifies the pool
+     * @return the lock, which we now hold
+     */
+    protected static ReentrantLock lockAlias(String alias) {
+        while (true) {
+            ReentrantLock guard = (ReentrantLock) ALIAS_GUARDS.get(alias);
+            if (guard == null) {
+                guard = new ReentrantLock();
+                ReentrantLock existingGuard = (ReentrantLock) ALIAS_GUARDS.putIfAbsent(alias, guard);
+                if (existingGuard != null) {
+                    guard = existingGuard;
+                }
+            }
+            guard.lock();
+            if (ALIAS_GUARDS.get(alias) == guard) {
+                return guard;
+            }
+            // Whoever had it last has finished with it and forgotten it. Try again.
+            guard.unlock();
+        }
+    }
+
+    /**
+     * Forget the lock and let go of it. Anybody already waiting for it will
+     * notice that it's been forgotten and get another one.
+     * @param alias identifies the pool
+     * @param guard what {@link #lockAlias} returned
+     */
+    protected static void unlockAlias(String alias, ReentrantLock guard) {
+        ALIAS_GUARDS.remove(alias, guard);
+        guard.unlock();
     }
 
     protected void finalize() throws Throwable {
@@ -629,7 +844,7 @@ public class ProxoolFacade {
      * detail then the pool must necessarily be locked for the duration it takes to gather
      * the information (which isn't very long). You probably shouldn't do it that often (like
      * not every second or something). Being locked means that connections cannot be
-     * served or returned (it doesn't mean that they can't be active).
+     * added to or removed from the pool (they can still be served and returned).
      * @return the current status of the pool
      * @throws ProxoolException if we couldn't find the pool
      */
@@ -5,98 +5,202 @@
  */
 package org.logicalcobwebs.proxool;
 
-import org.logicalcobwebs.logging.Log;
-import org.logicalcobwebs.logging.LogFactory;
-
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Iterator;
 
 /**
  * Delegates to a normal Coonection for everything but the close()
  * method (when it puts itself back into the pool instead).
+ * The {@link WrappedConnection} that we give out calls the delegate
+ * directly and uses the methods here when it needs to. If there is a
+ * {@link ConnectionPoolDefinitionIF#getStatementCacheSize statement cache}
+ * then prepared statements come from here too.
  * @version $Revision: 1.29 $, $Date: 2003/12/12 19:29:47 $
  * @author billhorsman
  * @author $Author: billhorsman $ (current maintainer)
  */
-class ProxyConnection extends AbstractProxyConnection implements InvocationHandler {
-
-    private static final Log LOG = LogFactory.getLog(ProxyConnection.class);
-
-    private static final String CLOSE_METHOD = "close";
-
-    private static final String IS_CLOSED_METHOD = "isClosed";
+class ProxyConnection extends AbstractProxyConnection {
 
-    private static final String EQUALS_METHOD = "equals";
-
-    private static final String GET_META_DATA_METHOD = "getMetaData";
-
-    private static final String FINALIZE_METHOD = "finalize";
+    /**
+     * Created the first time we prepare a statement with the cache enabled
+     * @see #getStatementCache
+     */
+    private StatementCache statementCache;
 
     public ProxyConnection(Connection connection, long id, String delegateUrl, ConnectionPool connectionPool, int status) throws SQLException {
         super(connection, id, delegateUrl, connectionPool, status);
     }
 
-    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        Object result = null;
-        int argCount = args != null ? args.length : 0;
-        try {
-            if (method.getName().equals(CLOSE_METHOD)) {
-                close();
-            } else if (method.getName().equals(EQUALS_METHOD) && argCount == 1) {
-                result = new Boolean(equals(args[0]));
-            } else if (method.getName().equals(IS_CLOSED_METHOD) && argCount == 0) {
-                result = new Boolean(isClosed());
-            } else if (method.getName().equals(GET_META_DATA_METHOD) && argCount == 0) {
-                result = getMetaData();
-            } else if (method.getName().equals(FINALIZE_METHOD)) {
-                super.finalize();
-            } else {
-                if (method.getName().startsWith(ConnectionResetter.MUTATOR_PREFIX)) {
-                    setNeedToReset(true);
+    /**
+     * We have just made some sort of Statement so we should give out
+     * a proxy instead.
+     * @param statement the delegate statement
+     * @param sqlStatement the SQL we were passed when we asked for the statement.
+     * Sometimes you are (connection.prepareCall(sql)) and sometimes you
+     * aren't (connection.createStatement()), so it might be null.
+     * @return the proxy statement, with its query timeout set to the
+     * {@link ConnectionPoolDefinitionIF#getDefaultQueryTimeout default} (if there is one)
+     * @throws SQLException if we couldn't set the query timeout
+     */
+    protected Statement createProxyStatement(Statement statement, String sqlStatement) throws SQLException {
+        // We keep a track of all open statements
+        addOpenStatement(statement);
+
+        Statement proxyStatement = ProxyFactory.createProxyStatement(statement, getConnectionPool(), this, sqlStatement);
+        int defaultQueryTimeout = getConnectionPool().getDefinition().getDefaultQueryTimeout();
+        if (defaultQueryTimeout > 0) {
+            try {
+                proxyStatement.setQueryTimeout(defaultQueryTimeout);
+            } catch (SQLException e) {
+                try {
+                    proxyStatement.close();
+                } catch (SQLException e2) {
+                    getConnectionPool().getLog().debug("Ignoring problem closing statement", e2);
                 }
-                    result = method.invoke(getConnection(), args);
+                throw e;
             }
+        }
+        return proxyStatement;
+    }
+
+    /**
+     * Get a new connection ready for use: run the
+     * {@link ConnectionPoolDefinitionIF#getConnectionInitSql init SQL} and prepare the
+     * {@link ConnectionPoolDefinitionIF#getWarmupStatements warmup statements} so that
+     * they are waiting in the {@link #getStatementCache cache}. Call this before anybody
+     * else can get hold of the connection.
+     * @throws SQLException if the init SQL failed (in which case the connection is no good)
+     */
+    protected void initialise() throws SQLException {
+        ConnectionPoolDefinitionIF definition = getConnectionPool().getDefinition();
+
+        String connectionInitSql = definition.getConnectionInitSql();
+        if (connectionInitSql != null) {
+            Statement statement = getConnection().createStatement();
+            try {
+                statement.execute(connectionInitSql);
+            } finally {
+                statement.close();
+            }
+        }
 
-            // If we have just made some sort of Statement then we should rather return
-            // a proxy instead.
-            if (result instanceof Statement) {
-                // Work out whether we were passed the sql statement during the
-                // call to get the statement object. Sometimes you do, sometimes
-                // you don't:
-                // connection.prepareCall(sql);
-                // connection.createProxyStatement();
-                String sqlStatement = null;
-                if (argCount > 0 && args[0] instanceof String) {
-                    sqlStatement = (String) args[0];
+        if (definition.getWarmupStatements().size() > 0) {
+            if (getStatementCache() == null) {
+                getConnectionPool().getLog().debug("Ignoring warmup statements because the statement cache is switched off");
+                return;
+            }
+            Iterator i = definition.getWarmupStatements().iterator();
+            while (i.hasNext()) {
+                String sql = (String) i.next();
+                try {
+                    prepareStatement(sql, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED,
+                            StatementCache.Key.UNSPECIFIED, false).close();
+                } catch (SQLException e) {
+                    getConnectionPool().getLog().warn("Couldn't prepare warmup statement: " + sql, e);
                 }
+            }
+        }
+    }
 
-                // We keep a track of all open statements
-                addOpenStatement((Statement) result);
+    /**
+     * Prepare a statement (or a call), using one from the
+     * {@link ConnectionPoolDefinitionIF#getStatementCacheSize cache} if we can.
+     * @param sql the SQL to prepare
+     * @param resultSetType the result set type, or {@link StatementCache.Key#UNSPECIFIED}
+     * @param resultSetConcurrency the result set concurrency, or {@link StatementCache.Key#UNSPECIFIED}
+     * (only specified if the type is)
+     * @param resultSetHoldability the result set holdability, or {@link StatementCache.Key#UNSPECIFIED}
+     * (only specified if the concurrency is)
+     * @param callable true for {@link Connection#prepareCall prepareCall}
+     * @return the proxy statement (a CallableStatement if callable)
+     * @throws SQLException if the delegate connection couldn't prepare it
+     */
+    protected PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability, boolean callable) throws SQLException {
+        StatementCache statementCache = getStatementCache();
+        if (statementCache == null) {
+            return (PreparedStatement) createProxyStatement(prepareDelegate(sql, resultSetType, resultSetConcurrency, resultSetHoldability, callable), sql);
+        }
 
-                result = ProxyFactory.createProxyStatement((Statement) result, getConnectionPool(), this, sqlStatement);
+        StatementCache.Key key = new StatementCache.Key(callable, sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+        PreparedStatement statement = statementCache.take(key);
+        if (statement == null) {
+            statement = prepareDelegate(sql, resultSetType, resultSetConcurrency, resultSetHoldability, callable);
+        }
+        ProxyPreparedStatement proxyStatement = (ProxyPreparedStatement) createProxyStatement(statement, sql);
+        proxyStatement.setStatementCache(statementCache, key);
+        return proxyStatement;
+    }
 
+    private PreparedStatement prepareDelegate(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability, boolean callable) throws SQLException {
+        Connection connection = getConnection();
+        if (callable) {
+            if (resultSetHoldability != StatementCache.Key.UNSPECIFIED) {
+                return connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            } else if (resultSetType != StatementCache.Key.UNSPECIFIED) {
+                return connection.prepareCall(sql, resultSetType, resultSetConcurrency);
+            } else {
+                return connection.prepareCall(sql);
             }
-
-        } catch (InvocationTargetException e) {
-            // We might get a fatal exception here. Let's test for it.
-            if (FatalSqlExceptionHelper.testException(getConnectionPool().getDefinition(), e.getTargetException())) {
-                FatalSqlExceptionHelper.throwFatalSQLException(getConnectionPool().getDefinition().getFatalSqlExceptionWrapper(), e.getTargetException());
+        } else {
+            if (resultSetHoldability != StatementCache.Key.UNSPECIFIED) {
+                return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            } else if (resultSetType != StatementCache.Key.UNSPECIFIED) {
+                return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+            } else {
+                return connection.prepareStatement(sql);
             }
-            throw e.getTargetException();
-        } catch (Exception e) {
-            LOG.error("Unexpected invocation exception", e);
-            if (FatalSqlExceptionHelper.testException(getConnectionPool().getDefinition(), e)) {
-                FatalSqlExceptionHelper.throwFatalSQLException(getConnectionPool().getDefinition().getFatalSqlExceptionWrapper(), e);
+        }
+    }
+
+    /**
+     * The cache of prepared statements, created the first time we need it
+     * @return the cache, or null if {@link ConnectionPoolDefinitionIF#getStatementCacheSize caching}
+     * is switched off
+     */
+    private StatementCache getStatementCache() {
+        if (getConnectionPool().getDefinition().getStatementCacheSize() > 0) {
+            if (statementCache == null) {
+                statementCache = new StatementCache(getConnectionPool());
             }
-            throw new RuntimeException("Unexpected invocation exception: "
-                    + e.getMessage());
+        } else if (statementCache != null) {
+            // It's been switched off since we made it
+            statementCache.clear();
+            statementCache = null;
         }
+        return statementCache;
+    }
 
-        return result;
+    /**
+     * Close any cached statements before closing the connection for real
+     * @see AbstractProxyConnection#reallyClose
+     */
+    public void reallyClose() throws SQLException {
+        StatementCache statementCache = this.statementCache;
+        if (statementCache != null) {
+            statementCache.clear();
+        }
+        super.reallyClose();
+    }
+
+    /**
+     * Deal with an exception thrown by the delegate connection. We might get
+     * a fatal exception here. Let's test for it.
+     * @param e the exception thrown by the delegate
+     * @return the exception for the caller to throw if it wasn't fatal
+     * @throws SQLException the {@link ConnectionPoolDefinitionIF#getFatalSqlExceptionWrapper wrapped}
+     * version if it was fatal
+     */
+    protected SQLException handleException(SQLException e) throws SQLException {
+        if (FatalSqlExceptionHelper.testException(getConnectionPool().getDefinition(), e)) {
+            // If the database has failed over then this connection (and every other
+            // one made before now) will be thrown away when it's returned
+            getConnectionPool().failover(this, e);
+            FatalSqlExceptionHelper.rethrowFatalSQLException(getConnectionPool().getDefinition().getFatalSqlExceptionWrapper(), e);
+        }
+        return e;
     }
 
 }
@@ -24,7 +24,7 @@ public interface ProxyConnectionIF extends ConnectionInfoIF {
     /**
      * Changes the status and lets the ConnectionPool know so that it
      * can keep count of how many connections are at each status.
-     * This method obtains a write lock.
+     * The change is made atomically (compare and set) without locking.
      * @param oldStatus the expected existing status. if the existing
      * status is not this value then no change is made and false is returned.
      * @param newStatus the status to change to
@@ -101,6 +101,20 @@ public interface ProxyConnectionIF extends ConnectionInfoIF {
      */
     void setRequester(String requester);
 
+    /**
+     *  @see ConnectionInfoIF#getTimeLastStartActive
+     */
+    void setTimeLastStartActive(long timeLastStartActive);
+
+    /**
+     * Remember whether this connection is in the pool's queue of idle
+     * connections, so that it never gets queued twice.
+     * @param queued whether it is queued now
+     * @return whether it was queued before
+     * @see ConnectionBag
+     */
+    boolean setQueued(boolean queued);
+
     /**
      * Doesn't really close the connection, just puts it back in the pool. And tries to
      * reset all the methods that need resetting.
@@ -108,6 +122,33 @@ public interface ProxyConnectionIF extends ConnectionInfoIF {
      */
     void close() throws SQLException;
 
+    /**
+     * Like {@link #close()} but only if nobody has closed it since the given
+     * {@link #getGeneration generation}. That way a connection that is closed twice
+     * can't put back into the pool a connection that somebody else is now using.
+     * @param generation the generation when the caller was given the connection
+     * @return true if we closed it, or false if it had already been closed
+     * @see Connection#close
+     */
+    boolean close(long generation) throws SQLException;
+
+    /**
+     * How many times this connection has been {@link #close closed} (put back into
+     * the pool). The {@link WrappedConnection} we give out only works whilst this
+     * hasn't changed.
+     * @return generation
+     */
+    long getGeneration();
+
+    /**
+     * The pool's {@link ConnectionPool#getEpoch epoch} when this connection was made.
+     * If the pool has moved on since then (because the database
+     * {@link ConnectionPoolDefinitionIF#getFailoverSqlStates failed over}) then this
+     * connection is thrown away.
+     * @return epoch
+     */
+    long getEpoch();
+
     /**
      * Notify that a statement has been closed and won't need closing
      * when the connection is returned to the poo.
@@ -115,6 +156,14 @@ public interface ProxyConnectionIF extends ConnectionInfoIF {
      */
     void registerClosedStatement(Statement statement);
 
+    /**
+     * Call this before executing anything. If autoCommit was turned off
+     * {@link ConnectionPoolDefinitionIF#isLazyTransactionBegin lazily} then
+     * this is when we tell the driver.
+     * @throws SQLException if the driver couldn't turn autoCommit off
+     */
+    void beginTransaction() throws SQLException;
+
     /**
      * Find out if the delegated connection is close. Just calling isClosed() on the
      * proxied connection will only indicate whether it is in the pool or not.
@@ -5,8 +5,6 @@
  */
 package org.logicalcobwebs.proxool;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Proxy;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -18,7 +16,9 @@ import java.util.Properties;
 
 /**
  * A central place to build proxy objects ({@link ProxyConnection connections}
- * and {@link ProxyStatement statements}).
+ * and {@link ProxyStatement statements}). They are ordinary classes that
+ * implement the JDBC interfaces and call the delegate directly, so there is
+ * no reflection involved in any call you make.
  * 
  * @author Bill Horsman (bill@logicalcobwebs.co.uk)
  * @author $Author: billhorsman $ (current maintainer)
@@ -31,27 +31,24 @@ class ProxyFactory {
         final String url = connectionPool.getDefinition().getUrl();
 
         Properties info = connectionPool.getDefinition().getDelegateProperties();
+        // If the database fails over whilst we're connecting then we might have connected to the old one
+        long epoch = connectionPool.getEpoch();
         realConnection = DriverManager.getConnection(url, info);
 
-        Object delegate = Proxy.newProxyInstance(
-                realConnection.getClass().getClassLoader(),
-                realConnection.getClass().getInterfaces(),
-                new ProxyConnection(realConnection, id, url, connectionPool, status));
-        
-        return (ProxyConnection) Proxy.getInvocationHandler(delegate);
+        ProxyConnection proxyConnection = new ProxyConnection(realConnection, id, url, connectionPool, status);
+        proxyConnection.setEpoch(epoch);
+        return proxyConnection;
     }
 
     /**
-     * Get a Connection from the ProxyConnection
+     * Get a Connection from the ProxyConnection. It only works until the
+     * connection is next {@link ProxyConnectionIF#getGeneration closed}.
      * 
      * @param proxyConnection where to find the connection
      * @return 
      */
     protected static Connection getConnection(ProxyConnectionIF proxyConnection) {
-        return (Connection) Proxy.newProxyInstance(
-                Connection.class.getClassLoader(),
-                new Class[]{Connection.class},
-                (InvocationHandler) proxyConnection);
+        return new WrappedConnection((ProxyConnection) proxyConnection);
     }
 
     /**
@@ -59,12 +56,14 @@ class ProxyFactory {
      * 
      * @param statement proxy statement
      * @return delegate statement
+     * @throws IllegalArgumentException if the statement isn't one of ours
      */
     protected static Statement getDelegateStatement(Statement statement) {
-        Statement ds = statement;
-        ProxyStatement ps = (ProxyStatement) Proxy.getInvocationHandler(statement);
-        ds = ps.getDelegateStatement();
-        return ds;
+        if (statement instanceof ProxyStatement) {
+            return ((ProxyStatement) statement).getDelegateStatement();
+        } else {
+            throw new IllegalArgumentException("Not a proxy statement");
+        }
     }
 
     /**
@@ -72,48 +71,38 @@ class ProxyFactory {
      * 
      * @param connection proxy connection
      * @return deletgate connection
+     * @throws IllegalArgumentException if the connection isn't one of ours
      */
     public static Connection getDelegateConnection(Connection connection) {
-        Connection c = connection;
-        ProxyConnection pc = (ProxyConnection) Proxy.getInvocationHandler(connection);
-        c = pc.getConnection();
-        return c;
+        if (connection instanceof WrappedConnection) {
+            return ((WrappedConnection) connection).getProxyConnection().getConnection();
+        } else {
+            throw new IllegalArgumentException("Not a proxy connection");
+        }
     }
 
     protected static Statement createProxyStatement(Statement delegate, ConnectionPool connectionPool, ProxyConnectionIF proxyConnection, String sqlStatement) {
-        // We can't use Class#getInterfaces since that doesn't take
-        // into account superclass interfaces. We could, laboriously,
-        // work our way up the hierarchy but it doesn't seem worth while -
-        // we only actually expect three options:
-        Class[] interfaces = new Class[1];
+        // We only actually expect three options
         if (delegate instanceof CallableStatement) {
-            interfaces[0] = CallableStatement.class;
+            return new ProxyCallableStatement((CallableStatement) delegate, connectionPool, proxyConnection, sqlStatement);
         } else if (delegate instanceof PreparedStatement) {
-            interfaces[0] = PreparedStatement.class;
+            return new ProxyPreparedStatement((PreparedStatement) delegate, connectionPool, proxyConnection, sqlStatement);
         } else {
-            interfaces[0] = Statement.class;
+            return new ProxyStatement(delegate, connectionPool, proxyConnection, sqlStatement);
         }
-/*
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(delegate.getClass().getName() + " is being proxied using the " + interfaces[0]);
-        }
-*/
-        return (Statement) Proxy.newProxyInstance(delegate.getClass().getClassLoader(), interfaces, new ProxyStatement(delegate, connectionPool, proxyConnection, sqlStatement));
     }
 
     /**
      * Create a new DatabaseMetaData from a connection
      * 
-     * @param connection the proxy connection we are using
+     * @param connection the delegate connection
+     * @param wrappedConnection the connection we gave out (which the metaData will
+     * return if you ask it for its connection)
      * @return databaseMetaData
      * @throws SQLException if the delegfate connection couldn't get the metaData
      */
-    protected static DatabaseMetaData getDatabaseMetaData(Connection connection, ProxyConnectionIF proxyConnection) throws SQLException {
-        return (DatabaseMetaData) Proxy.newProxyInstance(
-                DatabaseMetaData.class.getClassLoader(),
-                new Class[]{DatabaseMetaData.class},
-                new ProxyDatabaseMetaData(connection, proxyConnection)
-        );
+    protected static DatabaseMetaData getDatabaseMetaData(Connection connection, Connection wrappedConnection) throws SQLException {
+        return new ProxyDatabaseMetaData(connection, wrappedConnection);
     }
 }
 
@@ -5,11 +5,11 @@
  */
 package org.logicalcobwebs.proxool;
 
-import org.logicalcobwebs.logging.Log;
-import org.logicalcobwebs.logging.LogFactory;
-
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
 import java.sql.Statement;
 
 /**
@@ -17,109 +17,585 @@ import java.sql.Statement;
  * checks the SQLException and compares it to the fatalSqlException list in the
  * ConnectionPoolDefinition. If it detects a fatal exception it will destroy the
  * Connection so that it isn't used again.
+ * <p>
+ * Each method calls the delegate statement directly. The
+ * {@link ProxyPreparedStatement prepared} and {@link ProxyCallableStatement callable}
+ * versions extend this one.
  * @version $Revision: 1.25 $, $Date: 2003/12/12 19:29:47 $
  * @author billhorsman
  * @author $Author: billhorsman $ (current maintainer)
+ * @see ProxyFactory#createProxyStatement
  */
-class ProxyStatement extends AbstractProxyStatement implements java.lang.reflect.InvocationHandler{
+class ProxyStatement extends AbstractProxyStatement implements Statement {
 
-    private static final Log LOG = LogFactory.getLog(ProxyStatement.class);
+    public ProxyStatement(Statement statement, ConnectionPool connectionPool, ProxyConnectionIF proxyConnection, String sqlStatement) {
+        super(statement, connectionPool, proxyConnection, sqlStatement);
+    }
 
-    private static final String EXECUTE_FRAGMENT = "execute";
+    public ResultSet executeQuery(String sql) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeQuery(sql);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
 
-    private static final String EXECUTE_BATCH_METHOD = "executeBatch";
+    public int executeUpdate(String sql) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeUpdate(sql);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public int getMaxFieldSize() throws SQLException {
+        try {
+            return getStatement().getMaxFieldSize();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setMaxFieldSize(int max) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_MAX_FIELD_SIZE);
+            getStatement().setMaxFieldSize(max);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getMaxRows() throws SQLException {
+        try {
+            return getStatement().getMaxRows();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setMaxRows(int max) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_MAX_ROWS);
+            getStatement().setMaxRows(max);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
 
-    private static final String ADD_BATCH_METHOD = "addBatch";
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_ESCAPE_PROCESSING);
+            getStatement().setEscapeProcessing(enable);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
 
-    private static final String EQUALS_METHOD = "equals";
+    public int getQueryTimeout() throws SQLException {
+        try {
+            return getStatement().getQueryTimeout();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
 
-    private static final String CLOSE_METHOD = "close";
+    public void setQueryTimeout(int seconds) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_QUERY_TIMEOUT);
+            getStatement().setQueryTimeout(seconds);
+            afterSetQueryTimeout(seconds);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
 
-    private static final String SET_NULL_METHOD = "setNull";
+    public void cancel() throws SQLException {
+        try {
+            getStatement().cancel();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
 
-    private static final String SET_PREFIX = "set";
+    public SQLWarning getWarnings() throws SQLException {
+        try {
+            return getStatement().getWarnings();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
 
-    public ProxyStatement(Statement statement, ConnectionPool connectionPool, ProxyConnectionIF proxyConnection, String sqlStatement) {
-        super(statement, connectionPool, proxyConnection, sqlStatement);
+    public void clearWarnings() throws SQLException {
+        try {
+            getStatement().clearWarnings();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
     }
 
-    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        Object result = null;
-        long startTime = System.currentTimeMillis();
-        final int argCount = args != null ? args.length : 0;
+    public void setCursorName(String name) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_CURSOR_NAME);
+            getStatement().setCursorName(name);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
 
-        // We need to remember an exceptions that get thrown so that we can optionally
-        // pass them to the onExecute() call below
+    public boolean execute(String sql) throws SQLException {
+        long startTime = beforeExecute();
         Exception exception = null;
         try {
-            if (method.getName().equals(EQUALS_METHOD) && argCount == 1) {
-                result = new Boolean(equals(args[0]));
-            } else if (method.getName().equals(CLOSE_METHOD) && argCount == 0) {
-                close();
-            } else {
-                result = method.invoke(getStatement(), args);
-            }
-
-            // We only dump sql calls if we are in verbose mode and debug is enabled
-            if (isTrace()) {
-                try {
-
-                    // What sort of method is it
-                    if (method.getName().equals(SET_NULL_METHOD) && argCount > 0 && args[0] instanceof Integer) {
-                        int index = ((Integer) args[0]).intValue();
-                        putParameter(index, null);
-                    } else if (method.getName().startsWith(SET_PREFIX) && argCount > 1 && args[0] instanceof Integer) {
-                        int index = ((Integer) args[0]).intValue();
-                        putParameter(index, args[1]);
-                    }
-
-                } catch (Exception e) {
-                    // We don't want an error during dump screwing up the transaction
-                    LOG.error("Ignoring error during dump", e);
-                }
-            }
-        } catch (InvocationTargetException e) {
-            if (e.getTargetException() instanceof Exception) {
-                exception = (Exception) e.getTargetException();
-            } else {
-                exception = e;
-            }
-            if (testException(e.getTargetException())) {
-                // This is really a fatal one
-                FatalSqlExceptionHelper.throwFatalSQLException(getConnectionPool().getDefinition().getFatalSqlExceptionWrapper(), e.getTargetException());
-            }
-            throw e.getTargetException();
-        } catch (Exception e) {
-            exception = e;
-            if (testException(e)) {
-                // This is really a fatal one
-                FatalSqlExceptionHelper.throwFatalSQLException(getConnectionPool().getDefinition().getFatalSqlExceptionWrapper(), e);
-            }
+            return getStatement().execute(sql);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
             throw e;
         } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
 
-            if (method.getName().equals(ADD_BATCH_METHOD)) {
-                // If we have just added a batch call then we need to update the sql log
-                if (argCount > 0 && args[0] instanceof String) {
-                    setSqlStatementIfNull((String) args[0]);
-                }
-                appendToSqlLog();
-            } else if (method.getName().equals(EXECUTE_BATCH_METHOD)) {
-                // executing a batch should do a trace
-                trace(startTime, exception);
-            } else if (method.getName().startsWith(EXECUTE_FRAGMENT)) {
-                // executing should update the log and do a trace
-                if (argCount > 0 && args[0] instanceof String) {
-                    setSqlStatementIfNull((String) args[0]);
-                }
-                appendToSqlLog();
-                trace(startTime, exception);
-            }
+    public ResultSet getResultSet() throws SQLException {
+        try {
+            return getStatement().getResultSet();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
 
+    public int getUpdateCount() throws SQLException {
+        try {
+            return getStatement().getUpdateCount();
+        } catch (SQLException e) {
+            throw handleException(e);
         }
+    }
 
-        return result;
+    public boolean getMoreResults() throws SQLException {
+        try {
+            return getStatement().getMoreResults();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setFetchDirection(int direction) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_FETCH_DIRECTION);
+            getStatement().setFetchDirection(direction);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getFetchDirection() throws SQLException {
+        try {
+            return getStatement().getFetchDirection();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setFetchSize(int rows) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_FETCH_SIZE);
+            getStatement().setFetchSize(rows);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getFetchSize() throws SQLException {
+        try {
+            return getStatement().getFetchSize();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getResultSetConcurrency() throws SQLException {
+        try {
+            return getStatement().getResultSetConcurrency();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int getResultSetType() throws SQLException {
+        try {
+            return getStatement().getResultSetType();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void addBatch(String sql) throws SQLException {
+        try {
+            getStatement().addBatch(sql);
+        } catch (SQLException e) {
+            throw handleException(e);
+        } finally {
+            afterAddBatch(sql);
+        }
+    }
+
+    public void clearBatch() throws SQLException {
+        try {
+            getStatement().clearBatch();
+            afterClearBatch();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int[] executeBatch() throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeBatch();
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecuteBatch(startTime, exception);
+        }
+    }
+
+    public Connection getConnection() throws SQLException {
+        try {
+            return getStatement().getConnection();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean getMoreResults(int current) throws SQLException {
+        try {
+            return getStatement().getMoreResults(current);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public ResultSet getGeneratedKeys() throws SQLException {
+        try {
+            return getStatement().getGeneratedKeys();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeUpdate(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeUpdate(sql, columnIndexes);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeUpdate(sql, columnNames);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().execute(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().execute(sql, columnIndexes);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().execute(sql, columnNames);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public int getResultSetHoldability() throws SQLException {
+        try {
+            return getStatement().getResultSetHoldability();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean isClosed() throws SQLException {
+        try {
+            return getStatement().isClosed();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setPoolable(boolean poolable) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_POOLABLE);
+            getStatement().setPoolable(poolable);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean isPoolable() throws SQLException {
+        try {
+            return getStatement().isPoolable();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void closeOnCompletion() throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_CLOSE_ON_COMPLETION);
+            getStatement().closeOnCompletion();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean isCloseOnCompletion() throws SQLException {
+        try {
+            return getStatement().isCloseOnCompletion();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public long getLargeUpdateCount() throws SQLException {
+        try {
+            return getStatement().getLargeUpdateCount();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public void setLargeMaxRows(long max) throws SQLException {
+        try {
+            beforeChangeSetting(SETTING_MAX_ROWS);
+            getStatement().setLargeMaxRows(max);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public long getLargeMaxRows() throws SQLException {
+        try {
+            return getStatement().getLargeMaxRows();
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public long[] executeLargeBatch() throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeLargeBatch();
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecuteBatch(startTime, exception);
+        }
+    }
+
+    public long executeLargeUpdate(String sql) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeLargeUpdate(sql);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeLargeUpdate(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeLargeUpdate(sql, columnIndexes);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        long startTime = beforeExecute();
+        Exception exception = null;
+        try {
+            return getStatement().executeLargeUpdate(sql, columnNames);
+        } catch (SQLException e) {
+            exception = e;
+            throw handleException(e);
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            afterExecute(sql, startTime, exception);
+        }
+    }
+
+    public String enquoteLiteral(String val) throws SQLException {
+        try {
+            return getStatement().enquoteLiteral(val);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public String enquoteIdentifier(String identifier, boolean alwaysQuote) throws SQLException {
+        try {
+            return getStatement().enquoteIdentifier(identifier, alwaysQuote);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public boolean isSimpleIdentifier(String identifier) throws SQLException {
+        try {
+            return getStatement().isSimpleIdentifier(identifier);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public String enquoteNCharLiteral(String val) throws SQLException {
+        try {
+            return getStatement().enquoteNCharLiteral(val);
+        } catch (SQLException e) {
+            throw handleException(e);
+        }
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return getStatement().unwrap(iface);
+    }
 
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return getStatement().isWrapperFor(iface);
     }
 
 }
@@ -0,0 +1,69 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Works its way round the connections in order (of their id), skipping the
+ * ones that aren't available. This is how Proxool has always behaved: every
+ * connection gets used in turn. This is the default.
+ *
+ * @see ProxoolConstants#CONNECTION_SELECTION_STRATEGY_ROUND_ROBIN
+ */
+public class RoundRobinConnectionSelectionStrategy implements ConnectionSelectionStrategyIF {
+
+    /** Available connections by id */
+    private ConcurrentSkipListMap idle = new ConcurrentSkipListMap();
+
+    /** The id of the connection we'd like to serve next (or the one after that, etc) */
+    private AtomicLong nextId = new AtomicLong();
+
+    /**
+     * @see ConnectionSelectionStrategyIF#available
+     */
+    public void available(ProxyConnectionIF proxyConnection) {
+        idle.put(Long.valueOf(proxyConnection.getId()), proxyConnection);
+    }
+
+    /**
+     * @see ConnectionSelectionStrategyIF#next
+     */
+    public ProxyConnectionIF next() {
+        while (true) {
+            Map.Entry entry = idle.ceilingEntry(Long.valueOf(nextId.get()));
+            if (entry == null) {
+                // Back to the beginning
+                entry = idle.firstEntry();
+                if (entry == null) {
+                    return null;
+                }
+            }
+            if (idle.remove(entry.getKey(), entry.getValue())) {
+                nextId.set(((Long) entry.getKey()).longValue() + 1);
+                return (ProxyConnectionIF) entry.getValue();
+            }
+            // Somebody else took it. Try again.
+        }
+    }
+
+    /**
+     * @see ConnectionSelectionStrategyIF#remove
+     */
+    public void remove(ProxyConnectionIF proxyConnection) {
+        idle.remove(Long.valueOf(proxyConnection.getId()), proxyConnection);
+    }
+
+    /**
+     * @see ConnectionSelectionStrategyIF#isThreadAffinity
+     */
+    public boolean isThreadAffinity() {
+        return false;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+/**
+ * How one SQL template has performed since the pool started (or since its
+ * profile was {@link ProxoolFacade#resetSqlProfiles reset}). You can get the
+ * busiest ones from {@link ProxoolFacade#getSqlProfiles ProxoolFacade}.
+ *
+ * <pre>
+ * SqlProfileIF[] profiles = ProxoolFacade.getSqlProfiles("myPool", 10);
+ * for (int i = 0; i &lt; profiles.length; i++) {
+ *     System.out.println(profiles[i].getSql() + ": " + profiles[i].getPercentileTime(99) + "ms");
+ * }
+ * </pre>
+ *
+ * Times are measured in milliseconds. The percentiles come from a histogram,
+ * so they are accurate to within a quarter of the time they report.
+ *
+ * @see ConnectionPoolDefinitionIF#getSqlProfileSize
+ */
+public interface SqlProfileIF {
+
+    /**
+     * The SQL of the executions that were lumped together because there were
+     * already {@link ConnectionPoolDefinitionIF#getSqlProfileSize too many} templates.
+     * @see #getSql
+     */
+    static final String OTHER_SQL = "(other SQL)";
+
+    /**
+     * The SQL template: the SQL a statement was prepared with or, for a plain
+     * statement, its SQL with the literal values replaced by question marks. A run
+     * of literals (such as an IN list) is shortened to "?, ...". A batch is
+     * counted against the first SQL added to it.
+     * @return the SQL, or {@link #OTHER_SQL}
+     */
+    String getSql();
+
+    /**
+     * @return how many times it was executed
+     */
+    long getExecutionCount();
+
+    /**
+     * @return how many of the {@link #getExecutionCount executions} threw an exception
+     */
+    long getErrorCount();
+
+    /**
+     * @return the proportion of executions that threw an exception (between 0 and 1)
+     */
+    double getErrorRate();
+
+    /**
+     * @return the time spent executing it, all added up (milliseconds)
+     */
+    double getTotalTime();
+
+    /**
+     * @return the mean execution time (milliseconds)
+     */
+    double getAverageTime();
+
+    /**
+     * @return the longest execution time (milliseconds)
+     */
+    double getMaximumTime();
+
+    /**
+     * The time that this percentage of executions took no longer than
+     * @param percentile between 0 and 100 (for instance, 99 for the 99th percentile)
+     * @return the time (milliseconds)
+     */
+    double getPercentileTime(double percentile);
+
+}
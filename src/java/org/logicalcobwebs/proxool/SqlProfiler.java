@@ -0,0 +1,261 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps count of how often each SQL template is executed, how often it fails
+ * and how long it takes. Each template has a histogram of execution times with
+ * four buckets for each power of two microseconds, so percentiles are accurate
+ * to within 25% and a template costs about a kilobyte however often it runs.
+ * Only so many {@link ConnectionPoolDefinitionIF#getSqlProfileSize templates}
+ * are tracked. Executions of any others are lumped together as
+ * {@link SqlProfileIF#OTHER_SQL}.
+ *
+ * @see AbstractProxyStatement#afterExecute
+ * @see ProxoolFacade#getSqlProfiles
+ */
+class SqlProfiler {
+
+    private static final int BUCKET_COUNT = 128;
+
+    private static final int NANOS_PER_MICROSECOND = 1000;
+
+    /** Sorts snapshots so that the one with the most time spent on it comes first */
+    private static final Comparator BY_TOTAL_TIME = new Comparator() {
+        public int compare(Object o1, Object o2) {
+            return Double.compare(((SqlProfileIF) o2).getTotalTime(), ((SqlProfileIF) o1).getTotalTime());
+        }
+    };
+
+    /** {@link Accumulator}s keyed by SQL */
+    private ConcurrentHashMap accumulators = new ConcurrentHashMap();
+
+    private ConnectionPool connectionPool;
+
+    /**
+     * @param connectionPool so we know how many templates to track
+     */
+    protected SqlProfiler(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Count an execution
+     * @param sql the template it belongs to
+     * @param elapsedNanos how long it took
+     * @param failed true if it threw an exception
+     */
+    protected void record(String sql, long elapsedNanos, boolean failed) {
+        Accumulator accumulator = (Accumulator) accumulators.get(sql);
+        if (accumulator == null) {
+            if (accumulators.size() >= connectionPool.getDefinition().getSqlProfileSize()) {
+                sql = SqlProfileIF.OTHER_SQL;
+                accumulator = (Accumulator) accumulators.get(sql);
+            }
+            if (accumulator == null) {
+                accumulator = new Accumulator();
+                Accumulator existing = (Accumulator) accumulators.putIfAbsent(sql, accumulator);
+                if (existing != null) {
+                    accumulator = existing;
+                }
+            }
+        }
+        accumulator.record(elapsedNanos, failed);
+    }
+
+    /**
+     * Get the templates that have had the most time spent executing them
+     * @param count the most to return (or zero for all of them)
+     * @return frozen copies, the busiest first
+     */
+    protected SqlProfileIF[] getProfiles(int count) {
+        List profiles = new ArrayList(accumulators.size());
+        Iterator i = accumulators.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry entry = (Map.Entry) i.next();
+            profiles.add(((Accumulator) entry.getValue()).getProfile((String) entry.getKey()));
+        }
+        SqlProfileIF[] sorted = (SqlProfileIF[]) profiles.toArray(new SqlProfileIF[profiles.size()]);
+        Arrays.sort(sorted, BY_TOTAL_TIME);
+        if (count > 0 && count < sorted.length) {
+            SqlProfileIF[] top = new SqlProfileIF[count];
+            System.arraycopy(sorted, 0, top, 0, count);
+            sorted = top;
+        }
+        return sorted;
+    }
+
+    /**
+     * Forget everything and start counting again
+     */
+    protected void reset() {
+        accumulators.clear();
+    }
+
+    /**
+     * Work out the template for some SQL that was executed directly (rather than prepared)
+     * by replacing each string or number literal with a question mark. A run of literals
+     * separated by commas (such as an IN list) becomes "?, ..." so that lists of different
+     * lengths count as the same template.
+     * @param sql the SQL that was executed
+     * @return the template
+     */
+    protected static String getTemplate(String sql) {
+        StringBuilder template = new StringBuilder(sql.length());
+        // Where the last literal we replaced ended, and whether we've already shortened the run it's in
+        int lastLiteral = -1;
+        boolean shortened = false;
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            int end = -1;
+            if (c == '\'') {
+                end = i + 1;
+                while (end < length) {
+                    if (sql.charAt(end) == '\'') {
+                        if (end + 1 < length && sql.charAt(end + 1) == '\'') {
+                            // An escaped quote
+                            end++;
+                        } else {
+                            break;
+                        }
+                    }
+                    end++;
+                }
+                end = Math.min(end + 1, length);
+            } else if (c == '"') {
+                // A quoted identifier: leave it alone
+                int close = sql.indexOf('"', i + 1);
+                close = close < 0 ? length : close + 1;
+                template.append(sql, i, close);
+                i = close;
+                continue;
+            } else if (Character.isDigit(c) && (i == 0 || !isIdentifierPart(sql.charAt(i - 1)))) {
+                end = i + 1;
+                while (end < length && (isIdentifierPart(sql.charAt(end))
+                        || ((sql.charAt(end) == '+' || sql.charAt(end) == '-') && Character.toLowerCase(sql.charAt(end - 1)) == 'e'))) {
+                    end++;
+                }
+            }
+            if (end < 0) {
+                template.append(c);
+                i++;
+                continue;
+            }
+            if (lastLiteral >= 0 && isOnlySeparator(sql, lastLiteral, i)) {
+                // Take back the separator we just copied. "?, ?" becomes "?, ..." and any more are left out.
+                template.setLength(template.length() - (i - lastLiteral));
+                if (!shortened) {
+                    template.append(", ...");
+                    shortened = true;
+                }
+            } else {
+                template.append('?');
+                shortened = false;
+            }
+            lastLiteral = end;
+            i = end;
+        }
+        return template.toString();
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+    }
+
+    /**
+     * @return true if there's just a comma (and maybe some spaces) between start and end
+     */
+    private static boolean isOnlySeparator(String sql, int start, int end) {
+        boolean comma = false;
+        for (int i = start; i < end; i++) {
+            char c = sql.charAt(i);
+            if (c == ',' && !comma) {
+                comma = true;
+            } else if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return comma;
+    }
+
+    /**
+     * Which histogram bucket an execution time falls in. The first four buckets are
+     * a microsecond wide and after that there are four for each power of two.
+     * @param elapsedNanos the execution time
+     * @return the bucket
+     */
+    protected static int getBucket(long elapsedNanos) {
+        long micros = Math.max(elapsedNanos, 0) / NANOS_PER_MICROSECOND;
+        if (micros < 4) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int bucket = (exponent - 1) * 4 + (int) ((micros >>> (exponent - 2)) & 3);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * @param bucket see {@link #getBucket}
+     * @return the shortest execution time (nanoseconds) that is too long for this bucket
+     */
+    protected static long getBucketLimit(int bucket) {
+        if (bucket < 4) {
+            return (bucket + 1) * (long) NANOS_PER_MICROSECOND;
+        }
+        int exponent = bucket / 4 + 1;
+        return ((long) (5 + bucket % 4) << (exponent - 2)) * NANOS_PER_MICROSECOND;
+    }
+
+    /**
+     * The running totals for one template
+     */
+    private static class Accumulator {
+
+        private LongAdder executionCount = new LongAdder();
+
+        private LongAdder errorCount = new LongAdder();
+
+        private LongAdder totalNanos = new LongAdder();
+
+        private AtomicLong maximumNanos = new AtomicLong();
+
+        private AtomicLongArray histogram = new AtomicLongArray(BUCKET_COUNT);
+
+        private void record(long elapsedNanos, boolean failed) {
+            executionCount.increment();
+            if (failed) {
+                errorCount.increment();
+            }
+            totalNanos.add(elapsedNanos);
+            histogram.incrementAndGet(getBucket(elapsedNanos));
+            long maximum = maximumNanos.get();
+            while (elapsedNanos > maximum && !maximumNanos.compareAndSet(maximum, elapsedNanos)) {
+                maximum = maximumNanos.get();
+            }
+        }
+
+        private SqlProfileIF getProfile(String sql) {
+            long[] buckets = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] = histogram.get(i);
+            }
+            return new SqlProfile(sql, executionCount.sum(), errorCount.sum(), totalNanos.sum(), maximumNanos.get(), buckets);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * This software is released under a licence similar to the Apache Software Licence.
+ * See org.logicalcobwebs.proxool.package.html for details.
+ * The latest version is available at http://proxool.sourceforge.net
+ */
+package org.logicalcobwebs.proxool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The prepared statements that one connection is keeping open so that they
+ * can be used again. A statement is {@link #take taken} out of the cache
+ * whilst it is being used and {@link #release released} back into it when
+ * it is closed, so only idle statements are ever in here and no two callers
+ * can share one. When there are more than the
+ * {@link ConnectionPoolDefinitionIF#getStatementCacheSize cache size} the
+ * one that was released longest ago is really closed.
+ * <p>
+ * When a statement is released its parameters (and any batch) are cleared and
+ * any of these settings that you changed are put back the way they were: max rows,
+ * fetch size, fetch direction, max field size, query timeout, escape processing
+ * and poolable. A cursor name or close on completion can't be undone, so a statement
+ * that had either of those is really closed instead of being cached.
+ *
+ * @see ProxyConnection#prepareStatement
+ * @see ProxyPreparedStatement#close
+ * @see ProxyPreparedStatement#beforeChangeSetting
+ */
+class StatementCache {
+
+    private static final String MSG_CLOSED = "Statement has already been closed";
+
+    /**
+     * What a {@link ProxyPreparedStatement} delegates to once it has been closed and
+     * its real statement released, so that you can't carry on using a statement
+     * that somebody else might have now. Closing it again does nothing and
+     * everything else throws an exception.
+     */
+    protected static final CallableStatement CLOSED = (CallableStatement) Proxy.newProxyInstance(
+            StatementCache.class.getClassLoader(), new Class[] {CallableStatement.class}, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    String name = method.getName();
+                    if (name.equals("close")) {
+                        return null;
+                    } else if (name.equals("isClosed")) {
+                        return Boolean.TRUE;
+                    } else if (name.equals("hashCode")) {
+                        return Integer.valueOf(System.identityHashCode(proxy));
+                    } else if (name.equals("equals")) {
+                        return Boolean.valueOf(proxy == args[0]);
+                    } else if (name.equals("toString")) {
+                        return "closed statement";
+                    } else {
+                        throw new SQLException(MSG_CLOSED);
+                    }
+                }
+            });
+
+    /** The idle statements keyed by {@link Key}, the one released longest ago first */
+    private LinkedHashMap statements = new LinkedHashMap();
+
+    private ConnectionPool connectionPool;
+
+    private boolean closed;
+
+    /**
+     * @param connectionPool so we know how big the cache can be and where to keep count of hits and misses
+     */
+    protected StatementCache(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Take a statement out of the cache. It's yours until you {@link #release release} it.
+     * @param key what sort of statement
+     * @return the statement, or null if there isn't one (so prepare a new one)
+     */
+    protected synchronized PreparedStatement take(Key key) {
+        PreparedStatement statement = (PreparedStatement) statements.remove(key);
+        connectionPool.statementCacheLookup(statement != null);
+        return statement;
+    }
+
+    /**
+     * Put a statement back into the cache so it can be used again. If there
+     * is already one like it, or there isn't room, then one is really closed.
+     * @param key what sort of statement (the one you {@link #take took} it with)
+     * @param statement the delegate statement, with its parameters cleared
+     */
+    protected void release(Key key, PreparedStatement statement) {
+        List discards = new ArrayList(1);
+        synchronized (this) {
+            if (closed || statements.containsKey(key)) {
+                discards.add(statement);
+            } else {
+                statements.put(key, statement);
+                Iterator i = statements.values().iterator();
+                while (statements.size() > connectionPool.getDefinition().getStatementCacheSize()) {
+                    discards.add(i.next());
+                    i.remove();
+                    connectionPool.statementCacheEviction();
+                }
+            }
+        }
+        // Close them outside the lock in case it involves a trip to the database
+        for (int i = 0; i < discards.size(); i++) {
+            close((PreparedStatement) discards.get(i));
+        }
+    }
+
+    /**
+     * Really close all the statements in the cache. Any that are released
+     * afterwards are closed straight away.
+     */
+    protected void clear() {
+        PreparedStatement[] discards;
+        synchronized (this) {
+            closed = true;
+            discards = (PreparedStatement[]) statements.values().toArray(new PreparedStatement[statements.size()]);
+            statements.clear();
+        }
+        for (int i = 0; i < discards.length; i++) {
+            close(discards[i]);
+        }
+    }
+
+    /**
+     * @return the number of statements in the cache right now
+     */
+    protected synchronized int size() {
+        return statements.size();
+    }
+
+    private void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            connectionPool.getLog().debug("Ignoring problem closing cached statement", e);
+        }
+    }
+
+    /**
+     * Identifies statements that can be swapped for one another: the same SQL,
+     * prepared the same way with the same result set type, concurrency
+     * and holdability.
+     */
+    static class Key {
+
+        /** Means the caller didn't say (so the driver's default is used) */
+        protected static final int UNSPECIFIED = -1;
+
+        private boolean callable;
+
+        private String sql;
+
+        private int resultSetType;
+
+        private int resultSetConcurrency;
+
+        private int resultSetHoldability;
+
+        private int hashCode;
+
+        /**
+         * @param callable true for {@link java.sql.Connection#prepareCall prepareCall}
+         * @param sql the SQL the statement was prepared with
+         * @param resultSetType the result set type, or {@link #UNSPECIFIED}
+         * @param resultSetConcurrency the result set concurrency, or {@link #UNSPECIFIED}
+         * @param resultSetHoldability the result set holdability, or {@link #UNSPECIFIED}
+         */
+        protected Key(boolean callable, String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+            this.callable = callable;
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.resultSetHoldability = resultSetHoldability;
+            int h = sql.hashCode();
+            h = 31 * h + resultSetType;
+            h = 31 * h + resultSetConcurrency;
+            h = 31 * h + resultSetHoldability;
+            this.hashCode = callable ? ~h : h;
+        }
+
+        protected boolean isCallable() {
+            return callable;
+        }
+
+        protected String getSql() {
+            return sql;
+        }
+
+        protected int getResultSetType() {
+            return resultSetType;
+        }
+
+        protected int getResultSetConcurrency() {
+            return resultSetConcurrency;
+        }
+
+        protected int getResultSetHoldability() {
+            return resultSetHoldability;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return callable == other.callable
+                    && resultSetType == other.resultSetType
+                    && resultSetConcurrency == other.resultSetConcurrency
+                    && resultSetHoldability == other.resultSetHoldability
+                    && sql.equals(other.sql);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public String toString() {
+            return sql;
+        }
+    }
+}
@@ -93,6 +93,22 @@ public class Admin {
         }
     }
 
+    /**
+     * Call this every time a request has to wait for a connection
+     * @param waitTime how long it waited (whether or not it got one)
+     */
+    public void connectionWaited(long waitTime) {
+        try {
+            Iterator i = statsRollers.values().iterator();
+            while (i.hasNext()) {
+                StatsRoller statsRoller = (StatsRoller) i.next();
+                statsRoller.connectionWaited(waitTime);
+            }
+        } catch (Exception e) {
+            LOG.error("Stats connectionWaited call failed. Ignoring.", e);
+        }
+    }
+
     /**
      * Returns the most recent sample that has completed its period
      * @return sample (or null if no statistics are complete yet)
@@ -145,6 +161,11 @@ public class Admin {
         s.setMaximumConnectionCount(cpd.getMaximumConnectionCount());
         s.setServedCount(cps.getConnectionsServedCount());
         s.setRefusedCount(cps.getConnectionsRefusedCount());
+        s.setWaitingCount(cps.getWaitingCount());
+        s.setStatementCacheHitCount(cps.getStatementCacheHitCount());
+        s.setStatementCacheMissCount(cps.getStatementCacheMissCount());
+        s.setStatementCacheEvictionCount(cps.getStatementCacheEvictionCount());
+        s.setListenerEventsDroppedCount(cps.getListenerEventsDroppedCount());
         s.setConnectionInfos(connectionInfos);
 
         /*
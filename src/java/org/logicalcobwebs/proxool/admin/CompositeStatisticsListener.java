@@ -9,8 +9,6 @@ import org.logicalcobwebs.logging.Log;
 import org.logicalcobwebs.logging.LogFactory;
 import org.logicalcobwebs.proxool.util.AbstractListenerContainer;
 
-import java.util.Iterator;
-
 /**
  * A {@link StatisticsListenerIF} that keeps a list of <code>StatisticsListenerIF</code>s
  * and notifies them in a thread safe manner.
@@ -30,21 +28,9 @@ public class CompositeStatisticsListener extends AbstractListenerContainer imple
      * @see StatisticsListenerIF#statistics(String, StatisticsIF)
      */
     public void statistics(String alias, StatisticsIF statistics) {
-        Iterator listenerIterator = null;
-        try {
-            listenerIterator = getListenerIterator();
-            if (listenerIterator != null) {
-                StatisticsListenerIF statisticsListener = null;
-                while (listenerIterator.hasNext()) {
-                    statisticsListener = (StatisticsListenerIF) listenerIterator.next();
-                    statisticsListener.statistics(alias, statistics);
-                }
-            }
-        } catch (InterruptedException e) {
-            LOG.error("Tried to aquire read lock for " + StatisticsListenerIF.class.getName()
-                    + " iterator but was interrupted.");
-        } finally {
-            releaseReadLock();
+        Object[] listeners = getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((StatisticsListenerIF) listeners[i]).statistics(alias, statistics);
         }
     }
 }
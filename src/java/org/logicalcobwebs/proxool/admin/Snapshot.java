@@ -30,6 +30,16 @@ class Snapshot implements SnapshotIF {
 
     private long refusedCount;
 
+    private int waitingCount;
+
+    private long statementCacheHitCount;
+
+    private long statementCacheMissCount;
+
+    private long statementCacheEvictionCount;
+
+    private long listenerEventsDroppedCount;
+
     private int activeConnectionCount;
 
     private int availableConnectionCount;
@@ -91,6 +101,76 @@ class Snapshot implements SnapshotIF {
         this.refusedCount = refusedCount;
     }
 
+    /**
+     * @see org.logicalcobwebs.proxool.admin.SnapshotIF#getWaitingCount
+     */
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+
+    /**
+     * @see org.logicalcobwebs.proxool.admin.SnapshotIF#getWaitingCount
+     */
+    public void setWaitingCount(int waitingCount) {
+        this.waitingCount = waitingCount;
+    }
+
+    /**
+     * @see org.logicalcobwebs.proxool.admin.SnapshotIF#getStatementCacheHitCount
+     */
+    public long getStatementCacheHitCount() {
+        return statementCacheHitCount;
+    }
+
+    /**
+     * @see org.logicalcobwebs.proxool.admin.SnapshotIF#getStatementCacheHitCount
+     */
+    public void setStatementCacheHitCount(long statementCacheHitCount) {
+        this.statementCacheHitCount = statementCacheHitCount;
+    }
+
+    /**
+     * @see org.logicalcobwebs.proxool.admin.SnapshotIF#getStatementCacheMissCount
+     */
+    public long getStatementCacheMissCount() {
+        return statementCacheMissCount;
+    }
+
+    /**
+     * @see org.logicalcobwebs.proxool.admin.SnapshotIF#getStatementCacheMissCount
+     */
+    public void setStatementCacheMissCount(long statementCacheMissCount) {
+        this.statementCacheMissCount = statementCacheMissCount;
+    }
+
+    /**
+     * @see org.logicalcobwebs.proxool.admin.SnapshotIF#getStatementCacheEvictionCount
+     */
+    public long getStatementCacheEvictionCount() {
+        return statementCacheEvictionCount;
+    }
+
+    /**
+     * @see org.logicalcobwebs.proxool.admin.SnapshotIF#getStatementCacheEvictionCount
+     */
+    public void setStatementCacheEvictionCount(long statementCacheEvictionCount) {
+        this.statementCacheEvictionCount = statementCacheEvictionCount;
+    }
+
+    /**
+     * @see org.logicalcobwebs.proxool.admin.SnapshotIF#getListenerEventsDroppedCount
+     */
+    public long getListenerEventsDroppedCount() {
+        return listenerEventsDroppedCount;
+    }
+
+    /**
+     * @see org.logicalcobwebs.proxool.admin.SnapshotIF#getListenerEventsDroppedCount
+     */
+    public void setListenerEventsDroppedCount(long listenerEventsDroppedCount) {
+        this.listenerEventsDroppedCount = listenerEventsDroppedCount;
+    }
+
     /**
      * @see org.logicalcobwebs.proxool.admin.SnapshotIF#getActiveConnectionCount
      */
@@ -37,6 +37,41 @@ public interface SnapshotIF {
      */
     long getRefusedCount();
 
+    /**
+     * How many requests are waiting for a connection right now
+     * @return waitingCount
+     * @see org.logicalcobwebs.proxool.ConnectionPoolDefinitionIF#getMaximumWaitTime
+     */
+    int getWaitingCount();
+
+    /**
+     * How many times a prepared statement was served from a connection's cache
+     * @return statementCacheHitCount
+     * @see org.logicalcobwebs.proxool.ConnectionPoolDefinitionIF#getStatementCacheSize
+     */
+    long getStatementCacheHitCount();
+
+    /**
+     * How many times a prepared statement wasn't in the cache and had to be prepared
+     * @return statementCacheMissCount
+     * @see org.logicalcobwebs.proxool.ConnectionPoolDefinitionIF#getStatementCacheSize
+     */
+    long getStatementCacheMissCount();
+
+    /**
+     * How many cached statements were closed to make room for others
+     * @return statementCacheEvictionCount
+     * @see org.logicalcobwebs.proxool.ConnectionPoolDefinitionIF#getStatementCacheSize
+     */
+    long getStatementCacheEvictionCount();
+
+    /**
+     * How many execute events were thrown away because the async listener buffer was full
+     * @return listenerEventsDroppedCount
+     * @see org.logicalcobwebs.proxool.ConnectionPoolDefinitionIF#getAsyncListenerBufferSize
+     */
+    long getListenerEventsDroppedCount();
+
     /**
      * The number of active (busy) connections
      * @return activeConnectionCount
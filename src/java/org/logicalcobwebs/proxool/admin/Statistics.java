@@ -27,6 +27,10 @@ class Statistics implements StatisticsIF {
 
     private long totalActiveTime;
 
+    private long waitedCount;
+
+    private long totalWaitTime;
+
     /**
      * @param startDate see {@link org.logicalcobwebs.proxool.admin.StatisticsIF#getStartDate}
      */
@@ -49,6 +53,14 @@ class Statistics implements StatisticsIF {
         refusedCount++;
     }
 
+    /**
+     * @see org.logicalcobwebs.proxool.admin.Admin#connectionWaited
+     */
+    protected void connectionWaited(long waitTime) {
+        totalWaitTime += waitTime;
+        waitedCount++;
+    }
+
     /**
      * @see org.logicalcobwebs.proxool.admin.StatisticsIF#getStopDate
      */
@@ -127,6 +139,24 @@ class Statistics implements StatisticsIF {
         return refusedCount;
     }
 
+    /**
+     * @see org.logicalcobwebs.proxool.admin.StatisticsIF#getWaitedCount
+     */
+    public long getWaitedCount() {
+        return waitedCount;
+    }
+
+    /**
+     * @see org.logicalcobwebs.proxool.admin.StatisticsIF#getAverageWaitTime
+     */
+    public double getAverageWaitTime() {
+        if (waitedCount > 0) {
+            return ((double) totalWaitTime / (double) waitedCount);
+        } else {
+            return 0.0;
+        }
+    }
+
 }
 
 
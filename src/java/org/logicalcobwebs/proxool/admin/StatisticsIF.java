@@ -48,6 +48,21 @@ public interface StatisticsIF {
      */
     long getRefusedCount();
 
+    /**
+     * The number of requests that had to wait for a connection during this
+     * sample (whether or not they got one in the end).
+     * @return waitedCount
+     * @see org.logicalcobwebs.proxool.ConnectionPoolDefinitionIF#getMaximumWaitTime
+     */
+    long getWaitedCount();
+
+    /**
+     * The average time that each of those requests spent waiting.
+     * @return averageWaitTime (milliseconds)
+     * @see #getWaitedCount
+     */
+    double getAverageWaitTime();
+
     /**
      * When this sample started.
      * @return startDate
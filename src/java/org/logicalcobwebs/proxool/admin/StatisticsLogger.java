@@ -58,6 +58,14 @@ public class StatisticsLogger implements StatisticsListenerIF {
                 out.append("ms/");
                 out.append(DECIMAL_FORMAT.format(statistics.getAverageActiveCount()));
 
+                if (statistics.getWaitedCount() > 0) {
+                    out.append(", w:");
+                    out.append(statistics.getWaitedCount());
+                    out.append(":");
+                    out.append(DECIMAL_FORMAT.format(statistics.getAverageWaitTime()));
+                    out.append("ms");
+                }
+
                 if (logLevel.equals(ProxoolConstants.STATISTICS_LOG_LEVEL_TRACE)) {
                     log.trace(out.toString());
                 } else if (logLevel.equals(ProxoolConstants.STATISTICS_LOG_LEVEL_DEBUG)) {
@@ -165,6 +165,21 @@ class StatsRoller {
         }
     }
 
+    /**
+     * @see org.logicalcobwebs.proxool.admin.Admin#connectionWaited
+     */
+    public void connectionWaited(long waitTime) {
+        roll();
+        try {
+            readWriteLock.readLock().acquire();
+            currentStatistics.connectionWaited(waitTime);
+        } catch (InterruptedException e) {
+            LOG.error("Unable to log connectionWaited", e);
+        } finally {
+            readWriteLock.readLock().release();
+        }
+    }
+
     /**
      *
      * @return
@@ -9,6 +9,7 @@ import org.logicalcobwebs.proxool.resources.ResourceNamesIF;
 import org.logicalcobwebs.proxool.ProxoolConstants;
 import org.logicalcobwebs.proxool.ConnectionPoolDefinitionIF;
 import org.logicalcobwebs.proxool.ProxoolFacade;
+import org.logicalcobwebs.proxool.SqlProfileIF;
 import org.logicalcobwebs.proxool.ProxoolException;
 import org.logicalcobwebs.proxool.ProxoolListenerIF;
 import org.logicalcobwebs.proxool.ConfigurationListenerIF;
@@ -57,16 +58,32 @@ import java.text.MessageFormat;
  * <li>driverUrl</li>
  * <li>driverProperties</li>
  * <li>fatalSqlException</li>
+ * <li>fatalSqlState</li>
+ * <li>fatalSqlExceptionType</li>
+ * <li>failoverSqlState</li>
  * <li>houseKeepingSleeptime</li>
  * <li>houseKeepingTestSql</li>
  * <li>maximumActiveTime</li>
  * <li>maximumConnectionCount</li>
  * <li>maximumConnectionLifetime</li>
+ * <li>maximumWaitTime</li>
+ * <li>connectionSelectionStrategy</li>
+ * <li>priorityReserves</li>
  * <li>minimumConnectionCount</li>
  * <li>maximumNewConnections</li>
  * <li>overloadWithoutRefusalLifetime</li>
  * <li>recentlyStartedThreshold</li>
  * <li>prototypeCount</li>
+ * <li>statementCacheSize</li>
+ * <li>connectionInitSql</li>
+ * <li>warmupStatements</li>
+ * <li>asyncListenerBufferSize</li>
+ * <li>asyncListenerOverflow</li>
+ * <li>sqlProfileSize</li>
+ * <li>slowQueryThreshold</li>
+ * <li>defaultQueryTimeout</li>
+ * <li>lazyTransactionBegin</li>
+ * <li>resetByDriver</li>
  * <li>trace</li>
  * <li>verbose</li>
  * </ul>
@@ -75,6 +92,8 @@ import java.text.MessageFormat;
  * <b>Operations</b>
  * <ul>
  * <li>shutdown</li>
+ * <li>getSqlProfiles</li>
+ * <li>resetSqlProfiles</li>
  * </ul>
  * </p>
  * <p>
@@ -104,6 +123,8 @@ public class ConnectionPoolMBean implements DynamicMBean, MBeanRegistration, Not
     private static final String RECOURCE_NAME_MBEAN_NOTIFICATION_DEF_UPDATED = "mbean.notification.defUpdated";
 
     private static final String OPERATION_NAME_SHUTDOWN = "shutdown";
+    private static final String OPERATION_NAME_GET_SQL_PROFILES = "getSqlProfiles";
+    private static final String OPERATION_NAME_RESET_SQL_PROFILES = "resetSqlProfiles";
 
     private static final ResourceBundle ATTRIBUTE_DESCRIPTIONS_RESOURCE = createAttributeDescriptionsResource();
     private static final ResourceBundle JMX_RESOURCE = createJMXResource();
@@ -194,6 +215,15 @@ public class ConnectionPoolMBean implements DynamicMBean, MBeanRegistration, Not
                 } else if (equalsProperty(attributeNames[i], ProxoolConstants.FATAL_SQL_EXCEPTION)) {
                     resultList.add(new Attribute(attributeNames[i],
                             getValueOrEmpty(this.poolProperties.getProperty(ProxoolConstants.FATAL_SQL_EXCEPTION_PROPERTY))));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.FATAL_SQL_STATE)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            getValueOrEmpty(this.poolProperties.getProperty(ProxoolConstants.FATAL_SQL_STATE_PROPERTY))));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.FATAL_SQL_EXCEPTION_TYPE)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            getValueOrEmpty(this.poolProperties.getProperty(ProxoolConstants.FATAL_SQL_EXCEPTION_TYPE_PROPERTY))));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.FAILOVER_SQL_STATE)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            getValueOrEmpty(this.poolProperties.getProperty(ProxoolConstants.FAILOVER_SQL_STATE_PROPERTY))));
                 } else if (equalsProperty(attributeNames[i], ProxoolConstants.HOUSE_KEEPING_SLEEP_TIME)) {
                     resultList.add(new Attribute(attributeNames[i],
                             new Integer(this.poolDefinition.getHouseKeepingSleepTime())));
@@ -209,12 +239,51 @@ public class ConnectionPoolMBean implements DynamicMBean, MBeanRegistration, Not
                 } else if (equalsProperty(attributeNames[i], ProxoolConstants.MAXIMUM_ACTIVE_TIME)) {
                     resultList.add(new Attribute(attributeNames[i],
                             new Integer(this.poolDefinition.getMaximumActiveTime())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.STATEMENT_CACHE_SIZE)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            Integer.valueOf(this.poolDefinition.getStatementCacheSize())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.CONNECTION_INIT_SQL)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            getValueOrEmpty(this.poolDefinition.getConnectionInitSql())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.WARMUP_STATEMENTS)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            getValueOrEmpty(this.poolProperties.getProperty(ProxoolConstants.WARMUP_STATEMENTS_PROPERTY))));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.ASYNC_LISTENER_BUFFER_SIZE)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            Integer.valueOf(this.poolDefinition.getAsyncListenerBufferSize())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.ASYNC_LISTENER_OVERFLOW)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            getValueOrEmpty(this.poolDefinition.getAsyncListenerOverflow())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.SQL_PROFILE_SIZE)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            Integer.valueOf(this.poolDefinition.getSqlProfileSize())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.SLOW_QUERY_THRESHOLD)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            Integer.valueOf(this.poolDefinition.getSlowQueryThreshold())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.DEFAULT_QUERY_TIMEOUT)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            Integer.valueOf(this.poolDefinition.getDefaultQueryTimeout())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.LAZY_TRANSACTION_BEGIN)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            Boolean.valueOf(this.poolDefinition.isLazyTransactionBegin())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.RESET_BY_DRIVER)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            Boolean.valueOf(this.poolDefinition.isResetByDriver())));
                 } else if (equalsProperty(attributeNames[i], ProxoolConstants.MAXIMUM_CONNECTION_COUNT)) {
                     resultList.add(new Attribute(attributeNames[i],
                             new Integer(this.poolDefinition.getMaximumConnectionCount())));
                 } else if (equalsProperty(attributeNames[i], ProxoolConstants.MAXIMUM_CONNECTION_LIFETIME)) {
                     resultList.add(new Attribute(attributeNames[i],
                             new Integer(this.poolDefinition.getMaximumConnectionLifetime())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.MAXIMUM_WAIT_TIME)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            Integer.valueOf(this.poolDefinition.getMaximumWaitTime())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.CONNECTION_SELECTION_STRATEGY)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            getValueOrEmpty(this.poolDefinition.getConnectionSelectionStrategy())));
+                } else if (equalsProperty(attributeNames[i], ProxoolConstants.PRIORITY_RESERVES)) {
+                    resultList.add(new Attribute(attributeNames[i],
+                            getValueOrEmpty(this.poolProperties.getProperty(ProxoolConstants.PRIORITY_RESERVES_PROPERTY))));
                 } else if (equalsProperty(attributeNames[i], ProxoolConstants.MAXIMUM_NEW_CONNECTIONS)) {
                     resultList.add(new Attribute(attributeNames[i],
                             new Integer(this.poolDefinition.getMaximumNewConnections())));
@@ -312,6 +381,39 @@ public class ConnectionPoolMBean implements DynamicMBean, MBeanRegistration, Not
                         }
                         resultList.add(new Attribute(name, value));
                     }
+                } else if (equalsProperty(name, ProxoolConstants.FATAL_SQL_STATE)) {
+                    if (!isEqualProperties(value.toString(),
+                            this.poolProperties.getProperty(ProxoolConstants.FATAL_SQL_STATE_PROPERTY))) {
+                        checkAssignable(name, String.class, value);
+                        if (notEmpty(value)) {
+                            newProperties.setProperty(ProxoolConstants.FATAL_SQL_STATE_PROPERTY, value.toString());
+                        } else {
+                            newProperties.setProperty(ProxoolConstants.FATAL_SQL_STATE_PROPERTY, "");
+                        }
+                        resultList.add(new Attribute(name, value));
+                    }
+                } else if (equalsProperty(name, ProxoolConstants.FATAL_SQL_EXCEPTION_TYPE)) {
+                    if (!isEqualProperties(value.toString(),
+                            this.poolProperties.getProperty(ProxoolConstants.FATAL_SQL_EXCEPTION_TYPE_PROPERTY))) {
+                        checkAssignable(name, String.class, value);
+                        if (notEmpty(value)) {
+                            newProperties.setProperty(ProxoolConstants.FATAL_SQL_EXCEPTION_TYPE_PROPERTY, value.toString());
+                        } else {
+                            newProperties.setProperty(ProxoolConstants.FATAL_SQL_EXCEPTION_TYPE_PROPERTY, "");
+                        }
+                        resultList.add(new Attribute(name, value));
+                    }
+                } else if (equalsProperty(name, ProxoolConstants.FAILOVER_SQL_STATE)) {
+                    if (!isEqualProperties(value.toString(),
+                            this.poolProperties.getProperty(ProxoolConstants.FAILOVER_SQL_STATE_PROPERTY))) {
+                        checkAssignable(name, String.class, value);
+                        if (notEmpty(value)) {
+                            newProperties.setProperty(ProxoolConstants.FAILOVER_SQL_STATE_PROPERTY, value.toString());
+                        } else {
+                            newProperties.setProperty(ProxoolConstants.FAILOVER_SQL_STATE_PROPERTY, "");
+                        }
+                        resultList.add(new Attribute(name, value));
+                    }
                 } else if (equalsProperty(name, ProxoolConstants.HOUSE_KEEPING_SLEEP_TIME)) {
                     setIntegerAttribute(name, ProxoolConstants.HOUSE_KEEPING_SLEEP_TIME_PROPERTY, value,
                             ConnectionPoolDefinitionIF.DEFAULT_HOUSE_KEEPING_SLEEP_TIME, newProperties, resultList);
@@ -334,12 +436,79 @@ public class ConnectionPoolMBean implements DynamicMBean, MBeanRegistration, Not
                 } else if (equalsProperty(name, ProxoolConstants.MAXIMUM_ACTIVE_TIME)) {
                     setIntegerAttribute(name, ProxoolConstants.MAXIMUM_ACTIVE_TIME_PROPERTY, value,
                             ConnectionPoolDefinitionIF.DEFAULT_MAXIMUM_ACTIVE_TIME, newProperties, resultList);
+                } else if (equalsProperty(name, ProxoolConstants.STATEMENT_CACHE_SIZE)) {
+                    setIntegerAttribute(name, ProxoolConstants.STATEMENT_CACHE_SIZE_PROPERTY, value,
+                            ConnectionPoolDefinitionIF.DEFAULT_STATEMENT_CACHE_SIZE, newProperties, resultList);
+                } else if (equalsProperty(name, ProxoolConstants.CONNECTION_INIT_SQL)) {
+                    checkAssignable(name, String.class, value);
+                    if (notEmpty(value)) {
+                        newProperties.setProperty(ProxoolConstants.CONNECTION_INIT_SQL_PROPERTY, value.toString());
+                    } else {
+                        newProperties.setProperty(ProxoolConstants.CONNECTION_INIT_SQL_PROPERTY, "");
+                    }
+                    resultList.add(new Attribute(name, value));
+                } else if (equalsProperty(name, ProxoolConstants.WARMUP_STATEMENTS)) {
+                    checkAssignable(name, String.class, value);
+                    if (notEmpty(value)) {
+                        newProperties.setProperty(ProxoolConstants.WARMUP_STATEMENTS_PROPERTY, value.toString());
+                    } else {
+                        newProperties.setProperty(ProxoolConstants.WARMUP_STATEMENTS_PROPERTY, "");
+                    }
+                    resultList.add(new Attribute(name, value));
+                } else if (equalsProperty(name, ProxoolConstants.ASYNC_LISTENER_BUFFER_SIZE)) {
+                    setIntegerAttribute(name, ProxoolConstants.ASYNC_LISTENER_BUFFER_SIZE_PROPERTY, value,
+                            ConnectionPoolDefinitionIF.DEFAULT_ASYNC_LISTENER_BUFFER_SIZE, newProperties, resultList);
+                } else if (equalsProperty(name, ProxoolConstants.ASYNC_LISTENER_OVERFLOW)) {
+                    checkAssignable(name, String.class, value);
+                    if (notEmpty(value)) {
+                        newProperties.setProperty(ProxoolConstants.ASYNC_LISTENER_OVERFLOW_PROPERTY, value.toString());
+                    } else {
+                        newProperties.setProperty(ProxoolConstants.ASYNC_LISTENER_OVERFLOW_PROPERTY, "");
+                    }
+                    resultList.add(new Attribute(name, value));
+                } else if (equalsProperty(name, ProxoolConstants.SQL_PROFILE_SIZE)) {
+                    setIntegerAttribute(name, ProxoolConstants.SQL_PROFILE_SIZE_PROPERTY, value,
+                            ConnectionPoolDefinitionIF.DEFAULT_SQL_PROFILE_SIZE, newProperties, resultList);
+                } else if (equalsProperty(name, ProxoolConstants.SLOW_QUERY_THRESHOLD)) {
+                    setIntegerAttribute(name, ProxoolConstants.SLOW_QUERY_THRESHOLD_PROPERTY, value,
+                            ConnectionPoolDefinitionIF.DEFAULT_SLOW_QUERY_THRESHOLD, newProperties, resultList);
+                } else if (equalsProperty(name, ProxoolConstants.DEFAULT_QUERY_TIMEOUT)) {
+                    setIntegerAttribute(name, ProxoolConstants.DEFAULT_QUERY_TIMEOUT_PROPERTY, value,
+                            ConnectionPoolDefinitionIF.DEFAULT_DEFAULT_QUERY_TIMEOUT, newProperties, resultList);
+                } else if (equalsProperty(name, ProxoolConstants.LAZY_TRANSACTION_BEGIN)) {
+                    checkAssignable(name, Boolean.class, value);
+                    newProperties.setProperty(ProxoolConstants.LAZY_TRANSACTION_BEGIN_PROPERTY, value.toString());
+                    resultList.add(new Attribute(name, value));
+                } else if (equalsProperty(name, ProxoolConstants.RESET_BY_DRIVER)) {
+                    checkAssignable(name, Boolean.class, value);
+                    newProperties.setProperty(ProxoolConstants.RESET_BY_DRIVER_PROPERTY, value.toString());
+                    resultList.add(new Attribute(name, value));
                 } else if (equalsProperty(name, ProxoolConstants.MAXIMUM_CONNECTION_COUNT)) {
                     setIntegerAttribute(name, ProxoolConstants.MAXIMUM_CONNECTION_COUNT_PROPERTY, value,
                             ConnectionPoolDefinitionIF.DEFAULT_MAXIMUM_CONNECTION_COUNT, newProperties, resultList);
                 } else if (equalsProperty(name, ProxoolConstants.MAXIMUM_CONNECTION_LIFETIME)) {
                     setIntegerAttribute(name, ProxoolConstants.MAXIMUM_CONNECTION_LIFETIME_PROPERTY, value,
                             ConnectionPoolDefinitionIF.DEFAULT_MAXIMUM_CONNECTION_LIFETIME, newProperties, resultList);
+                } else if (equalsProperty(name, ProxoolConstants.MAXIMUM_WAIT_TIME)) {
+                    checkAssignable(name, Integer.class, value);
+                    newProperties.setProperty(ProxoolConstants.MAXIMUM_WAIT_TIME_PROPERTY, value.toString());
+                    resultList.add(new Attribute(name, value));
+                } else if (equalsProperty(name, ProxoolConstants.CONNECTION_SELECTION_STRATEGY)) {
+                    checkAssignable(name, String.class, value);
+                    if (notEmpty(value)) {
+                        newProperties.setProperty(ProxoolConstants.CONNECTION_SELECTION_STRATEGY_PROPERTY, value.toString());
+                    } else {
+                        newProperties.setProperty(ProxoolConstants.CONNECTION_SELECTION_STRATEGY_PROPERTY, "");
+                    }
+                    resultList.add(new Attribute(name, value));
+                } else if (equalsProperty(name, ProxoolConstants.PRIORITY_RESERVES)) {
+                    checkAssignable(name, String.class, value);
+                    if (notEmpty(value)) {
+                        newProperties.setProperty(ProxoolConstants.PRIORITY_RESERVES_PROPERTY, value.toString());
+                    } else {
+                        newProperties.setProperty(ProxoolConstants.PRIORITY_RESERVES_PROPERTY, "");
+                    }
+                    resultList.add(new Attribute(name, value));
                 } else if (equalsProperty(name, ProxoolConstants.MAXIMUM_NEW_CONNECTIONS)) {
                     setIntegerAttribute(name, ProxoolConstants.MAXIMUM_NEW_CONNECTIONS_PROPERTY, value,
                             ConnectionPoolDefinitionIF.DEFAULT_MAXIMUM_NEW_CONNECTIONS, newProperties, resultList);
@@ -423,12 +592,46 @@ public class ConnectionPoolMBean implements DynamicMBean, MBeanRegistration, Not
                 LOG.error("Shutdown of pool " + this.poolDefinition.getAlias() + " failed.", e);
             }
             return null;
+        } else if (operationName.equals(OPERATION_NAME_GET_SQL_PROFILES)) {
+            int count = params != null && params.length > 0 && params[0] != null ? ((Integer) params[0]).intValue() : 0;
+            try {
+                SqlProfileIF[] sqlProfiles = ProxoolFacade.getSqlProfiles(this.poolDefinition.getAlias(), count);
+                String[] descriptions = new String[sqlProfiles.length];
+                for (int i = 0; i < sqlProfiles.length; i++) {
+                    descriptions[i] = describe(sqlProfiles[i]);
+                }
+                return descriptions;
+            } catch (ProxoolException e) {
+                throw new MBeanException(e, "Couldn't get the SQL profiles for " + this.poolDefinition.getAlias());
+            }
+        } else if (operationName.equals(OPERATION_NAME_RESET_SQL_PROFILES)) {
+            try {
+                ProxoolFacade.resetSqlProfiles(this.poolDefinition.getAlias());
+            } catch (ProxoolException e) {
+                throw new MBeanException(e, "Couldn't reset the SQL profiles for " + this.poolDefinition.getAlias());
+            }
+            return null;
         } else {
             throw new ReflectionException(new NoSuchMethodException(operationName),
                     "Cannot find the operation " + operationName + ".");
         }
     }
 
+    private static String describe(SqlProfileIF sqlProfile) {
+        return sqlProfile.getExecutionCount() + " executions, "
+                + sqlProfile.getErrorCount() + " errors, "
+                + round(sqlProfile.getTotalTime()) + "ms total, "
+                + round(sqlProfile.getAverageTime()) + "ms mean, "
+                + round(sqlProfile.getPercentileTime(95)) + "ms 95%, "
+                + round(sqlProfile.getPercentileTime(99)) + "ms 99%, "
+                + round(sqlProfile.getMaximumTime()) + "ms max: "
+                + sqlProfile.getSql();
+    }
+
+    private static double round(double milliseconds) {
+        return Math.round(milliseconds * 100) / 100.0;
+    }
+
     /**
      * @see javax.management.DynamicMBean#getMBeanInfo()
      */
@@ -442,6 +645,9 @@ public class ConnectionPoolMBean implements DynamicMBean, MBeanRegistration, Not
             createProxoolAttribute(ProxoolConstants.DRIVER_PROPERTIES, String.class),
             createProxoolAttribute(ProxoolConstants.DRIVER_URL, String.class),
             createProxoolAttribute(ProxoolConstants.FATAL_SQL_EXCEPTION, String.class),
+            createProxoolAttribute(ProxoolConstants.FATAL_SQL_STATE, String.class),
+            createProxoolAttribute(ProxoolConstants.FATAL_SQL_EXCEPTION_TYPE, String.class),
+            createProxoolAttribute(ProxoolConstants.FAILOVER_SQL_STATE, String.class),
             createProxoolAttribute(ProxoolConstants.HOUSE_KEEPING_SLEEP_TIME, Integer.class),
             createProxoolAttribute(ProxoolConstants.HOUSE_KEEPING_TEST_SQL, String.class),
             createProxoolAttribute(ProxoolConstants.TEST_BEFORE_USE, Boolean.class),
@@ -449,11 +655,24 @@ public class ConnectionPoolMBean implements DynamicMBean, MBeanRegistration, Not
             createProxoolAttribute(ProxoolConstants.MAXIMUM_ACTIVE_TIME, Integer.class),
             createProxoolAttribute(ProxoolConstants.MAXIMUM_CONNECTION_COUNT, Integer.class),
             createProxoolAttribute(ProxoolConstants.MAXIMUM_CONNECTION_LIFETIME, Integer.class),
+            createProxoolAttribute(ProxoolConstants.MAXIMUM_WAIT_TIME, Integer.class),
+            createProxoolAttribute(ProxoolConstants.CONNECTION_SELECTION_STRATEGY, String.class),
+            createProxoolAttribute(ProxoolConstants.PRIORITY_RESERVES, String.class),
             createProxoolAttribute(ProxoolConstants.SIMULTANEOUS_BUILD_THROTTLE, Integer.class),
             createProxoolAttribute(ProxoolConstants.MINIMUM_CONNECTION_COUNT, Integer.class),
             createProxoolAttribute(ProxoolConstants.OVERLOAD_WITHOUT_REFUSAL_LIFETIME, Integer.class),
             createProxoolAttribute(ProxoolConstants.PROTOTYPE_COUNT, Integer.class),
             createProxoolAttribute(ProxoolConstants.RECENTLY_STARTED_THRESHOLD, Integer.class),
+            createProxoolAttribute(ProxoolConstants.STATEMENT_CACHE_SIZE, Integer.class),
+            createProxoolAttribute(ProxoolConstants.CONNECTION_INIT_SQL, String.class),
+            createProxoolAttribute(ProxoolConstants.WARMUP_STATEMENTS, String.class),
+            createProxoolAttribute(ProxoolConstants.ASYNC_LISTENER_BUFFER_SIZE, Integer.class),
+            createProxoolAttribute(ProxoolConstants.ASYNC_LISTENER_OVERFLOW, String.class),
+            createProxoolAttribute(ProxoolConstants.SQL_PROFILE_SIZE, Integer.class),
+            createProxoolAttribute(ProxoolConstants.SLOW_QUERY_THRESHOLD, Integer.class),
+            createProxoolAttribute(ProxoolConstants.DEFAULT_QUERY_TIMEOUT, Integer.class),
+            createProxoolAttribute(ProxoolConstants.LAZY_TRANSACTION_BEGIN, Boolean.class),
+            createProxoolAttribute(ProxoolConstants.RESET_BY_DRIVER, Boolean.class),
             createProxoolAttribute(ProxoolConstants.STATISTICS, String.class),
             createProxoolAttribute(ProxoolConstants.STATISTICS_LOG_LEVEL, String.class),
             createProxoolAttribute(ProxoolConstants.TRACE, Boolean.class),
@@ -467,6 +686,12 @@ public class ConnectionPoolMBean implements DynamicMBean, MBeanRegistration, Not
 
         final MBeanOperationInfo[] operationInfos = new MBeanOperationInfo[]{
             new MBeanOperationInfo(OPERATION_NAME_SHUTDOWN, "Stop and dispose this connection pool.",
+                    new MBeanParameterInfo[]{}, "void", MBeanOperationInfo.ACTION),
+            new MBeanOperationInfo(OPERATION_NAME_GET_SQL_PROFILES, "The SQL that has taken the most time to execute, busiest first "
+                    + "(see " + ProxoolConstants.SQL_PROFILE_SIZE + ").",
+                    new MBeanParameterInfo[]{new MBeanParameterInfo("count", Integer.TYPE.getName(),
+                            "The most to return (0 for all of them).")}, String[].class.getName(), MBeanOperationInfo.INFO),
+            new MBeanOperationInfo(OPERATION_NAME_RESET_SQL_PROFILES, "Forget the SQL profiles and start counting again.",
                     new MBeanParameterInfo[]{}, "void", MBeanOperationInfo.ACTION)
         };
 
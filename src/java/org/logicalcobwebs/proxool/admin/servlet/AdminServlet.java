@@ -11,6 +11,8 @@ import org.logicalcobwebs.proxool.ConnectionInfoIF;
 import org.logicalcobwebs.proxool.ConnectionPoolDefinitionIF;
 import org.logicalcobwebs.proxool.ProxoolException;
 import org.logicalcobwebs.proxool.ProxoolFacade;
+import org.logicalcobwebs.proxool.SlowQueryIF;
+import org.logicalcobwebs.proxool.SqlProfileIF;
 import org.logicalcobwebs.proxool.Version;
 import org.logicalcobwebs.proxool.admin.SnapshotIF;
 import org.logicalcobwebs.proxool.admin.StatisticsIF;
@@ -26,6 +28,9 @@ import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.Calendar;
 
 /**
@@ -73,6 +78,9 @@ public class AdminServlet extends HttpServlet {
     private static final DateFormat DATE_FORMAT = new SimpleDateFormat("dd-MMM-yyyy HH:mm:ss");
 
     private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("0.00");
+
+    /** How many of the {@link ProxoolFacade#getSqlProfiles busiest SQL templates} we show */
+    private static final int SQL_PROFILE_COUNT = 20;
     private static final String LEVEL = "level";
     private static final String LEVEL_MORE = "more";
     private static final String LEVEL_LESS = "less";
@@ -144,6 +152,8 @@ public class AdminServlet extends HttpServlet {
         doDefinition(out, alias, link);
         doSnapshot(out, alias, link, level, connectionId);
         doStatistics(out, alias, link);
+        doSqlProfiles(out, alias);
+        doSlowQueries(out, alias);
     }
 
     private void doStatistics(ServletOutputStream out, String alias, String link) throws ProxoolException, IOException {
@@ -165,6 +175,11 @@ public class AdminServlet extends HttpServlet {
             // Refused
             printDefinitionEntry(out, "Refused", statistics.getRefusedCount() + " (" + DECIMAL_FORMAT.format(statistics.getRefusedPerSecond()) + "/s)");
 
+            // Waited
+            if (statistics.getWaitedCount() > 0) {
+                printDefinitionEntry(out, "Waited", statistics.getWaitedCount() + " (" + DECIMAL_FORMAT.format(statistics.getAverageWaitTime()) + "ms average)");
+            }
+
             // averageActiveTime
             printDefinitionEntry(out, "Average active time", DECIMAL_FORMAT.format(statistics.getAverageActiveTime() / 1000) + "s");
 
@@ -182,6 +197,111 @@ public class AdminServlet extends HttpServlet {
         }
     }
 
+    private void doSqlProfiles(ServletOutputStream out, String alias) throws ProxoolException, IOException {
+        SqlProfileIF[] sqlProfiles = ProxoolFacade.getSqlProfiles(alias, SQL_PROFILE_COUNT);
+        if (sqlProfiles.length == 0) {
+            return;
+        }
+
+        out.println("<b>SQL</b> that has taken the most time");
+        out.println("<table cellpadding=\"2\" border=\"0\">");
+        out.println("  <tbody>");
+
+        out.print("<tr>");
+        out.print("<td style=\"font-size: 90%\" align=\"right\">count</td>");
+        out.print("<td style=\"font-size: 90%\" align=\"right\">errors</td>");
+        out.print("<td style=\"font-size: 90%\" align=\"right\">total<br>(ms)</td>");
+        out.print("<td style=\"font-size: 90%\" align=\"right\">mean<br>(ms)</td>");
+        out.print("<td style=\"font-size: 90%\" align=\"right\">95%<br>(ms)</td>");
+        out.print("<td style=\"font-size: 90%\" align=\"right\">99%<br>(ms)</td>");
+        out.print("<td style=\"font-size: 90%\" align=\"right\">max<br>(ms)</td>");
+        out.print("<td style=\"font-size: 90%\" width=\"90%\">&nbsp;SQL</td>");
+        out.print("</tr>");
+
+        for (int i = 0; i < sqlProfiles.length; i++) {
+            SqlProfileIF sqlProfile = sqlProfiles[i];
+            out.print("<tr>");
+            out.print("<td align=\"right\">" + sqlProfile.getExecutionCount() + "</td>");
+            out.print("<td align=\"right\">");
+            if (sqlProfile.getErrorCount() > 0) {
+                out.print("<font color=\"red\">" + sqlProfile.getErrorCount() + "</font>");
+            } else {
+                out.print("0");
+            }
+            out.print("</td>");
+            out.print("<td align=\"right\">" + DECIMAL_FORMAT.format(sqlProfile.getTotalTime()) + "</td>");
+            out.print("<td align=\"right\">" + DECIMAL_FORMAT.format(sqlProfile.getAverageTime()) + "</td>");
+            out.print("<td align=\"right\">" + DECIMAL_FORMAT.format(sqlProfile.getPercentileTime(95)) + "</td>");
+            out.print("<td align=\"right\">" + DECIMAL_FORMAT.format(sqlProfile.getPercentileTime(99)) + "</td>");
+            out.print("<td align=\"right\">" + DECIMAL_FORMAT.format(sqlProfile.getMaximumTime()) + "</td>");
+            out.print("<td>&nbsp;" + escapeHtml(sqlProfile.getSql()) + "</td>");
+            out.println("</tr>");
+        }
+
+        out.println("  </tbody>");
+        out.println("</table>");
+    }
+
+    private void doSlowQueries(ServletOutputStream out, String alias) throws ProxoolException, IOException {
+        SlowQueryIF[] slowQueries = ProxoolFacade.getSlowQueries(alias);
+        if (slowQueries.length == 0) {
+            return;
+        }
+
+        out.println("<b>Slow queries</b>, the most recent first");
+        out.println("<table cellpadding=\"2\" border=\"0\">");
+        out.println("  <tbody>");
+
+        out.print("<tr>");
+        out.print("<td style=\"font-size: 90%\" align=\"center\">finished</td>");
+        out.print("<td style=\"font-size: 90%\" align=\"right\">time<br>(ms)</td>");
+        out.print("<td style=\"font-size: 90%\">&nbsp;thread</td>");
+        out.print("<td style=\"font-size: 90%\" width=\"90%\">&nbsp;SQL</td>");
+        out.print("</tr>");
+
+        for (int i = 0; i < slowQueries.length; i++) {
+            SlowQueryIF slowQuery = slowQueries[i];
+            out.print("<tr valign=\"top\">");
+            out.print("<td>&nbsp;" + TIME_FORMAT.format(slowQuery.getDate()) + "</td>");
+            out.print("<td align=\"right\">" + slowQuery.getElapsedTime() + "</td>");
+            out.print("<td>&nbsp;" + escapeHtml(slowQuery.getThreadName()) + "</td>");
+            out.print("<td>&nbsp;" + escapeHtml(slowQuery.getSql()));
+            if (slowQuery.getException() != null) {
+                out.print("<br><font color=\"red\">" + escapeHtml(slowQuery.getException().toString()) + "</font>");
+            }
+            StackTraceElement[] stackTrace = slowQuery.getStackTrace();
+            if (stackTrace != null) {
+                out.print("<div style=\"font-size: 80%; color: #666666;\">");
+                for (int j = 0; j < stackTrace.length; j++) {
+                    out.print("at " + escapeHtml(stackTrace[j].toString()) + "<br>");
+                }
+                out.print("</div>");
+            }
+            out.print("</td>");
+            out.println("</tr>");
+        }
+
+        out.println("  </tbody>");
+        out.println("</table>");
+    }
+
+    private String escapeHtml(String text) {
+        StringBuffer escaped = new StringBuffer(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '<') {
+                escaped.append("&lt;");
+            } else if (c == '>') {
+                escaped.append("&gt;");
+            } else if (c == '&') {
+                escaped.append("&amp;");
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
     private void drawBarChart(StringBuffer out, String[] colours, int[] lengths) {
         out.append("<table style=\"margin: 8px; font-size: 50%;\" width=\"100%\" border=\"0\" cellspacing=\"0\" cellpadding=\"0\"><tr>");
 
@@ -222,6 +342,28 @@ public class AdminServlet extends HttpServlet {
         // minimumConnectionCount and maximumConnectionCount
         printDefinitionEntry(out, "Connections", cpd.getMinimumConnectionCount() + " (min), " + cpd.getMaximumConnectionCount() + " (max)");
 
+        // maximumWaitTime
+        printDefinitionEntry(out, "Maximum wait time", cpd.getMaximumWaitTime() > 0 ? formatMilliseconds(cpd.getMaximumWaitTime()) : null);
+
+        // connectionSelectionStrategy
+        printDefinitionEntry(out, "Connection selection", cpd.getConnectionSelectionStrategy());
+
+        // priorityReserves
+        String priorityReserves = null;
+        if (cpd.getPriorityReserves().size() > 0) {
+            StringBuffer priorityReservesBuffer = new StringBuffer();
+            Iterator i = new TreeMap(cpd.getPriorityReserves()).entrySet().iterator();
+            while (i.hasNext()) {
+                Map.Entry entry = (Map.Entry) i.next();
+                priorityReservesBuffer.append(entry.getKey());
+                priorityReservesBuffer.append(" leaves ");
+                priorityReservesBuffer.append(entry.getValue());
+                priorityReservesBuffer.append(i.hasNext() ? ", " : "");
+            }
+            priorityReserves = priorityReservesBuffer.toString();
+        }
+        printDefinitionEntry(out, "Priority reserves", priorityReserves);
+
         // prototypeCount
         printDefinitionEntry(out, "Prototyping", cpd.getPrototypeCount() > 0 ? String.valueOf(cpd.getPrototypeCount()) : null);
 
@@ -234,22 +376,42 @@ public class AdminServlet extends HttpServlet {
         printDefinitionEntry(out, "Maximum active time", formatMilliseconds(cpd.getMaximumActiveTime()));
         printDefinitionEntry(out, "House keeping sleep time", (cpd.getHouseKeepingSleepTime() / 1000) + "s");
 
+        // statementCacheSize
+        printDefinitionEntry(out, "Statement cache", cpd.getStatementCacheSize() > 0 ? cpd.getStatementCacheSize() + " (per connection)" : null);
+
         // houseKeepingTestSql
         printDefinitionEntry(out, "House keeping test SQL", cpd.getHouseKeepingTestSql());
 
+        // connectionInitSql
+        printDefinitionEntry(out, "Connection init SQL", cpd.getConnectionInitSql());
+
+        // warmupStatements
+        printDefinitionEntry(out, "Warmup statements", cpd.getWarmupStatements().size() > 0 ? String.valueOf(cpd.getWarmupStatements().size()) : null);
+
+        // asyncListenerBufferSize
+        printDefinitionEntry(out, "Async listener buffer", cpd.getAsyncListenerBufferSize() > 0
+                ? cpd.getAsyncListenerBufferSize() + " (" + cpd.getAsyncListenerOverflow() + " when full)" : null);
+
+        // sqlProfileSize
+        printDefinitionEntry(out, "SQL profile size", cpd.getSqlProfileSize() > 0 ? String.valueOf(cpd.getSqlProfileSize()) : null);
+
+        // slowQueryThreshold
+        printDefinitionEntry(out, "Slow query threshold", cpd.getSlowQueryThreshold() > 0 ? cpd.getSlowQueryThreshold() + "ms" : null);
+
+        // defaultQueryTimeout
+        printDefinitionEntry(out, "Default query timeout", cpd.getDefaultQueryTimeout() > 0 ? cpd.getDefaultQueryTimeout() + "s" : null);
+
+        // lazyTransactionBegin
+        printDefinitionEntry(out, "Lazy transaction begin", cpd.isLazyTransactionBegin() ? "true" : null);
+
+        // resetByDriver
+        printDefinitionEntry(out, "Reset by driver", cpd.isResetByDriver() ? "true" : null);
+
         // fatalSqlExceptions
-        String fatalSqlExceptions = null;
-        if (cpd.getFatalSqlExceptions() != null && cpd.getFatalSqlExceptions().size() > 0) {
-            StringBuffer fatalSqlExceptionsBuffer = new StringBuffer();
-            Iterator i = cpd.getFatalSqlExceptions().iterator();
-            while (i.hasNext()) {
-                String s = (String) i.next();
-                fatalSqlExceptionsBuffer.append(s);
-                fatalSqlExceptionsBuffer.append(i.hasNext() ? ", " : "");
-            }
-            fatalSqlExceptions = fatalSqlExceptionsBuffer.toString();
-        }
-        printDefinitionEntry(out, "Fatal SQL exceptions", fatalSqlExceptions);
+        printDefinitionEntry(out, "Fatal SQL exceptions", join(cpd.getFatalSqlExceptions()));
+        printDefinitionEntry(out, "Fatal SQL states", join(cpd.getFatalSqlStates()));
+        printDefinitionEntry(out, "Fatal SQL exception types", join(cpd.getFatalSqlExceptionTypes()));
+        printDefinitionEntry(out, "Failover SQL states", join(cpd.getFailoverSqlStates()));
         printDefinitionEntry(out, "Wrapper", cpd.getFatalSqlExceptionWrapper());
 
         // statistics
@@ -296,6 +458,25 @@ public class AdminServlet extends HttpServlet {
             // refusedCount
             printDefinitionEntry(out, "Refused", String.valueOf(snapshot.getRefusedCount()));
 
+            // waitingCount
+            if (snapshot.getWaitingCount() > 0) {
+                printDefinitionEntry(out, "Waiting", String.valueOf(snapshot.getWaitingCount()));
+            }
+
+            // statementCache
+            long statementCacheLookups = snapshot.getStatementCacheHitCount() + snapshot.getStatementCacheMissCount();
+            if (statementCacheLookups > 0) {
+                printDefinitionEntry(out, "Statement cache", snapshot.getStatementCacheHitCount() + " (hits), "
+                        + snapshot.getStatementCacheMissCount() + " (misses), "
+                        + snapshot.getStatementCacheEvictionCount() + " (evictions), "
+                        + DECIMAL_FORMAT.format(snapshot.getStatementCacheHitCount() * 100.0 / statementCacheLookups) + "% hit rate");
+            }
+
+            // listenerEventsDroppedCount
+            if (snapshot.getListenerEventsDroppedCount() > 0) {
+                printDefinitionEntry(out, "Listener events dropped", String.valueOf(snapshot.getListenerEventsDroppedCount()));
+            }
+
             if (!detail) {
                 out.println("    <tr>");
                 out.print("<td colspan=\"2\" align=\"right\"><a href=\"");
@@ -505,6 +686,23 @@ public class AdminServlet extends HttpServlet {
     }
 
 
+    /**
+     * @param values some Strings
+     * @return them separated by commas, or null if there aren't any
+     */
+    private static String join(Set values) {
+        if (values == null || values.size() == 0) {
+            return null;
+        }
+        StringBuffer buffer = new StringBuffer();
+        Iterator i = values.iterator();
+        while (i.hasNext()) {
+            buffer.append((String) i.next());
+            buffer.append(i.hasNext() ? ", " : "");
+        }
+        return buffer.toString();
+    }
+
     private void printDefinitionEntry(ServletOutputStream out, String name, String value) throws IOException {
         out.println("    <tr>");
         out.print("      <td width=\"200\" valign=\"top\" style=\"" + STYLE_CAPTION + "\">");
@@ -5,40 +5,31 @@
  */
 package org.logicalcobwebs.proxool.util;
 
-import org.logicalcobwebs.concurrent.WriterPreferenceReadWriteLock;
 import org.logicalcobwebs.logging.Log;
 import org.logicalcobwebs.logging.LogFactory;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
 
 /**
- * Implementation of {@link ListenerContainerIF} that uses a reads/write lock to handle concurrency in a safe and
- * fast way.
+ * Implementation of {@link ListenerContainerIF} that is cheap to notify. Listeners are added
+ * and removed a handful of times but notified millions of times, so the listeners are kept in
+ * an array that is never changed: adding or removing one builds a new array and swaps it in.
  * <p>
- * The registered listeners are offered to subclasses through the protected {@link #getListenerIterator} method. This
- * method aquires a read lock before it returns the iterator, but <b>it is the subclass responsibility to
- * release this lock by calling the {@link #releaseReadLock} method</b>. Failing to do this will prevent any more
- * listeneres to be added or removed. Your code sould look like this:
+ * Subclasses get the listeners with the protected {@link #getListeners} method and loop through
+ * them. There is no lock to acquire or release and nothing is created. Your code should look like this:
  * <code>
  * <pre>
  *
-     Iterator listenerIterator = null;
-     try {
-         listenerIterator = getListenerIterator();
-         if (listenerIterator != null) {
-            // ... Iterate through the listeners and notify them
-         }
-     } catch (InterruptedException e) {
-         LOG.error("Tried to aquire read lock for " + MyClass.class.getName()
-             + " iterator but was interrupted.");
-     } finally {
-         releaseReadLock();
+     Object[] listeners = getListeners();
+     for (int i = 0; i < listeners.length; i++) {
+         ((MyListenerIF) listeners[i]).onSomething();
      }
  </pre>
  </code>
  * </p>
+ * A listener that is added or removed while an event is being fired may or may not
+ * hear about that event.
  * @version $Revision: 1.7 $, $Date: 2003/03/11 00:12:11 $
  * @author Christian Nedregaard (christian_nedregaard@email.com)
  * @author $Author: billhorsman $ (current maintainer)
@@ -46,77 +37,78 @@ import java.util.List;
  */
 public abstract class AbstractListenerContainer implements ListenerContainerIF {
     static final Log LOG = LogFactory.getLog(AbstractListenerContainer.class);
-    private List listeners;
-    private WriterPreferenceReadWriteLock readWriteLock = new WriterPreferenceReadWriteLock();
+
+    private static final Object[] NO_LISTENERS = new Object[0];
+
+    /** Never changed once it's been assigned, so it can be read without a lock */
+    private volatile Object[] listeners = NO_LISTENERS;
 
     /**
      * @see ListenerContainerIF#addListener(Object)
      */
-    public void addListener(Object listener) {
+    public synchronized void addListener(Object listener) {
         if (listener == null) {
             return;
         }
-        try {
-            readWriteLock.writeLock().acquire();
-            if (this.listeners == null) {
-                this.listeners = new ArrayList(3);
-            }
-            this.listeners.add(listener);
-        } catch (InterruptedException e) {
-            LOG.error("Tried to aquire write lock for storing " + listener.getClass().getName() + " but was interrupted.");
-        } finally {
-            readWriteLock.writeLock().release();
-        }
+        Object[] newListeners = new Object[listeners.length + 1];
+        System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+        newListeners[listeners.length] = listener;
+        this.listeners = newListeners;
     }
 
     /**
      * @see ListenerContainerIF#removeListener(Object)
      */
-    public boolean removeListener(Object listener) {
-        if (listener == null || isEmpty()) {
+    public synchronized boolean removeListener(Object listener) {
+        if (listener == null) {
             return false;
-        } else {
-            boolean listenerRemoved = false;
-            try {
-                this.readWriteLock.readLock().acquire();
-                listenerRemoved = this.listeners.remove(listener);
-            } catch (InterruptedException e) {
-                LOG.error("Tried to aquire write lock for removing " + listener.getClass().getName() + " but was interrupted.");
-            } finally {
-                this.readWriteLock.readLock().release();
+        }
+        for (int i = 0; i < listeners.length; i++) {
+            if (listener.equals(listeners[i])) {
+                Object[] newListeners = new Object[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, i);
+                System.arraycopy(listeners, i + 1, newListeners, i, newListeners.length - i);
+                this.listeners = newListeners;
+                return true;
             }
-            return listenerRemoved;
         }
+        return false;
+    }
+
+    /**
+     * Get the listeners in this container. The array is shared, so don't change it.
+     * @return the listeners (an empty array if there aren't any, never null)
+     */
+    protected Object[] getListeners() {
+        return listeners;
     }
 
     /**
      * Get an iterator containing the listeners in this container. Will return <code>null</code>
      * if this container is empty.
-     * <p><b>Important:</b> See class documentation regarding releasing of read lock.</p>
      * @return an iterator containing the listeners in this container or <code>null</code> if it is empty.
-     * @throws InterruptedException if the read lock can't be obtained.
+     * @throws InterruptedException never (it used to be thrown if the read lock couldn't be obtained)
+     * @deprecated use {@link #getListeners} instead, which doesn't create an iterator
      */
+    @Deprecated
     protected Iterator getListenerIterator() throws InterruptedException {
-        this.readWriteLock.readLock().acquire();
-        if (!isEmpty()) {
-            return this.listeners.iterator();
-        } else {
-            return null;
-        }
+        Object[] snapshot = listeners;
+        return snapshot.length > 0 ? Arrays.asList(snapshot).iterator() : null;
     }
 
     /**
-     * Release the read lock aquired by the {@link #getListenerIterator()} method.
+     * Does nothing. There isn't a read lock any more.
+     * @deprecated no need to call this
      */
+    @Deprecated
     protected void releaseReadLock() {
-        this.readWriteLock.readLock().release();
     }
 
     /**
      * @see ListenerContainerIF#isEmpty()
      */
     public boolean isEmpty() {
-        return this.listeners == null || this.listeners.size() < 1;
+        return listeners.length == 0;
     }
 }
 